@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for binding property values through {@link BeanWrapperImpl},
+ * with reflective versus generated property accessors.
+ *
+ * @since 5.0.5
+ * @see CachedIntrospectionResults#GENERATE_ACCESSORS_PROPERTY_NAME
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class BeanWrapperBenchmark {
+
+	private MutablePropertyValues propertyValues;
+
+
+	@Setup
+	public void setup() {
+		this.propertyValues = new MutablePropertyValues();
+		this.propertyValues.add("name", "Juergen");
+		this.propertyValues.add("age", 42);
+		this.propertyValues.add("spouse", new TestBean());
+		this.propertyValues.add("spouse.name", "Sam");
+	}
+
+
+	@Benchmark
+	public Object reflectiveAccessors() {
+		return bind();
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = "-D" + CachedIntrospectionResults.GENERATE_ACCESSORS_PROPERTY_NAME + "=true")
+	public Object generatedAccessors() {
+		return bind();
+	}
+
+	private Object bind() {
+		BeanWrapperImpl beanWrapper = new BeanWrapperImpl(new TestBean());
+		beanWrapper.setPropertyValues(this.propertyValues);
+		return beanWrapper.getPropertyValue("spouse.name");
+	}
+
+
+	public static class TestBean {
+
+		private String name;
+
+		private int age;
+
+		private TestBean spouse;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public TestBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(TestBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+}
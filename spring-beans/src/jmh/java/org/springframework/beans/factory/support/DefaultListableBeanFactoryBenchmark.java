@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.lang.Nullable;
+
+/**
+ * Benchmark for {@link DefaultListableBeanFactory#getBean(String)} against
+ * singleton, prototype and custom-scoped bean definitions.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Param({"singleton", "prototype", "scoped"})
+	public String scope;
+
+	@Param({"10", "1000"})
+	public int beanCount;
+
+	private DefaultListableBeanFactory beanFactory;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.beanFactory = new DefaultListableBeanFactory();
+		this.beanFactory.registerScope("benchmark", new MapScope());
+		for (int i = 0; i < this.beanCount; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.getPropertyValues().add("name", "bean" + i);
+			bd.getPropertyValues().add("age", i);
+			this.beanFactory.registerBeanDefinition("bean" + i, bd);
+		}
+		RootBeanDefinition target = new RootBeanDefinition(TestBean.class);
+		target.setScope("scoped".equals(this.scope) ? "benchmark" : this.scope);
+		target.getPropertyValues().add("name", "target");
+		target.getPropertyValues().add("spouse", new RuntimeBeanReference("bean0"));
+		this.beanFactory.registerBeanDefinition("target", target);
+		this.beanFactory.freezeConfiguration();
+		this.beanFactory.preInstantiateSingletons();
+	}
+
+	@Benchmark
+	public Object getBeanByName() {
+		return this.beanFactory.getBean("target");
+	}
+
+	@Benchmark
+	public Object getBeanByNameAndType() {
+		return this.beanFactory.getBean("target", TestBean.class);
+	}
+
+
+	/**
+	 * Simple map-backed scope, isolating the factory's scope handling
+	 * from any actual scope storage cost.
+	 */
+	private static class MapScope implements org.springframework.beans.factory.config.Scope {
+
+		private final Map<String, Object> objects = new ConcurrentHashMap<>();
+
+		@Override
+		public Object get(String name, ObjectFactory<?> objectFactory) {
+			return this.objects.computeIfAbsent(name, key -> objectFactory.getObject());
+		}
+
+		@Override
+		@Nullable
+		public Object remove(String name) {
+			return this.objects.remove(name);
+		}
+
+		@Override
+		public void registerDestructionCallback(String name, Runnable callback) {
+		}
+
+		@Override
+		@Nullable
+		public Object resolveContextualObject(String key) {
+			return null;
+		}
+
+		@Override
+		@Nullable
+		public String getConversationId() {
+			return null;
+		}
+	}
+
+
+	public static class TestBean {
+
+		private String name;
+
+		private int age;
+
+		private TestBean spouse;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public TestBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(TestBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.beans;
 
 import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -227,9 +228,10 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Override
 	@Nullable
 	protected BeanPropertyHandler getLocalPropertyHandler(String propertyName) {
-		PropertyDescriptor pd = getCachedIntrospectionResults().getPropertyDescriptor(propertyName);
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		PropertyDescriptor pd = cachedIntrospectionResults.getPropertyDescriptor(propertyName);
 		if (pd != null) {
-			return new BeanPropertyHandler(pd);
+			return new BeanPropertyHandler(pd, cachedIntrospectionResults.getPropertyAccessor());
 		}
 		return null;
 	}
@@ -269,9 +271,14 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		private final PropertyDescriptor pd;
 
-		public BeanPropertyHandler(PropertyDescriptor pd) {
+		@Nullable
+		private final GeneratedPropertyAccessor accessor;
+
+		public BeanPropertyHandler(PropertyDescriptor pd, @Nullable GeneratedPropertyAccessor accessor) {
 			super(pd.getPropertyType(), pd.getReadMethod() != null, pd.getWriteMethod() != null);
 			this.pd = pd;
+			// The generated accessor does not apply the caller's AccessControlContext
+			this.accessor = (System.getSecurityManager() == null ? accessor : null);
 		}
 
 		@Override
@@ -294,6 +301,17 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		@Nullable
 		public Object getValue() throws Exception {
 			final Method readMethod = this.pd.getReadMethod();
+			GeneratedPropertyAccessor accessor = this.accessor;
+			int index = (accessor != null ? accessor.getMethodIndex(readMethod) : -1);
+			if (accessor != null && index >= 0) {
+				try {
+					return accessor.getValue(getWrappedInstance(), index);
+				}
+				catch (Throwable ex) {
+					// Same exception as for reflective invocation
+					throw new InvocationTargetException(ex);
+				}
+			}
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
 					ReflectionUtils.makeAccessible(readMethod);
@@ -318,6 +336,17 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 			final Method writeMethod = (this.pd instanceof GenericTypeAwarePropertyDescriptor ?
 					((GenericTypeAwarePropertyDescriptor) this.pd).getWriteMethodForActualAccess() :
 					this.pd.getWriteMethod());
+			GeneratedPropertyAccessor accessor = this.accessor;
+			int index = (accessor != null ? accessor.getMethodIndex(writeMethod) : -1);
+			if (accessor != null && index >= 0 && accessor.isAssignableValue(index, value)) {
+				try {
+					accessor.setValue(getWrappedInstance(), index, value);
+					return;
+				}
+				catch (Throwable ex) {
+					throw new InvocationTargetException(ex);
+				}
+			}
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
 					ReflectionUtils.makeAccessible(writeMethod);
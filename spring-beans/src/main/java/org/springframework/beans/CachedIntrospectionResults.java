@@ -93,10 +93,27 @@ public class CachedIntrospectionResults {
 	 */
 	public static final String IGNORE_BEANINFO_PROPERTY_NAME = "spring.beaninfo.ignore";
 
+	/**
+	 * System property that instructs Spring to generate a bytecode accessor per bean class
+	 * for reading and writing bean properties: "spring.beaninfo.generate-accessors", with a
+	 * value of "true" letting {@link BeanWrapperImpl} invoke public read and write methods
+	 * through a generated {@link GeneratedPropertyAccessor} instead of reflection.
+	 * <p>The default is "false", always using reflection. The accessor for a class is
+	 * generated on first property access and cached along with the introspection results;
+	 * methods that the generated code cannot invoke (e.g. on non-public classes) as well
+	 * as any invocation under a SecurityManager keep using reflection.
+	 * @since 5.0.5
+	 * @see PropertyAccessorGenerator
+	 */
+	public static final String GENERATE_ACCESSORS_PROPERTY_NAME = "spring.beaninfo.generate-accessors";
+
 
 	private static final boolean shouldIntrospectorIgnoreBeaninfoClasses =
 			SpringProperties.getFlag(IGNORE_BEANINFO_PROPERTY_NAME);
 
+	private static final boolean shouldGenerateAccessors =
+			SpringProperties.getFlag(GENERATE_ACCESSORS_PROPERTY_NAME);
+
 	/** Stores the BeanInfoFactory instances */
 	private static List<BeanInfoFactory> beanInfoFactories = SpringFactoriesLoader.loadFactories(
 			BeanInfoFactory.class, CachedIntrospectionResults.class.getClassLoader());
@@ -275,6 +292,12 @@ public class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Generated accessor for the bean properties, if any (lazily resolved) */
+	@Nullable
+	private volatile GeneratedPropertyAccessor propertyAccessor;
+
+	private volatile boolean propertyAccessorResolved;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -392,4 +415,23 @@ public class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return the generated accessor for the bean properties, or {@code null} if
+	 * accessor generation is not enabled or not possible for the bean class.
+	 * @see #GENERATE_ACCESSORS_PROPERTY_NAME
+	 */
+	@Nullable
+	GeneratedPropertyAccessor getPropertyAccessor() {
+		if (!shouldGenerateAccessors) {
+			return null;
+		}
+		if (!this.propertyAccessorResolved) {
+			// Concurrent resolution may generate the accessor twice, with either one being fine to use
+			this.propertyAccessor = PropertyAccessorGenerator.generate(
+					getBeanClass(), this.propertyDescriptorCache.values());
+			this.propertyAccessorResolved = true;
+		}
+		return this.propertyAccessor;
+	}
+
 }
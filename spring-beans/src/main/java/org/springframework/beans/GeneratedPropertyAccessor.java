@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Base class for the bean property accessors that {@link PropertyAccessorGenerator}
+ * generates per bean class: the read and write methods of the bean properties are
+ * invoked through a switch on a method index, avoiding reflective invocation and
+ * the argument arrays that come with it.
+ *
+ * <p><b>NOTE: This is an internal class.</b> It is just public in order to be
+ * extended by the generated classes, which live in their own class loader.
+ *
+ * @since 5.0.5
+ * @see CachedIntrospectionResults#GENERATE_ACCESSORS_PROPERTY_NAME
+ */
+public abstract class GeneratedPropertyAccessor {
+
+	private final Map<Method, Integer> methodIndexes;
+
+	private final Class<?>[] valueTypes;
+
+
+	/**
+	 * Create a new accessor for the given accessor methods.
+	 * @param methodIndexes the index of each read and write method
+	 * that the generated switch statements cover
+	 */
+	protected GeneratedPropertyAccessor(Map<Method, Integer> methodIndexes) {
+		this.methodIndexes = methodIndexes;
+		this.valueTypes = new Class<?>[methodIndexes.size()];
+		methodIndexes.forEach((method, index) -> this.valueTypes[index] =
+				(method.getParameterCount() == 1 ? method.getParameterTypes()[0] : method.getReturnType()));
+	}
+
+
+	/**
+	 * Return the index of the given read or write method,
+	 * or -1 if it has to be invoked through reflection.
+	 */
+	int getMethodIndex(@Nullable Method method) {
+		if (method == null) {
+			return -1;
+		}
+		Integer index = this.methodIndexes.get(method);
+		return (index != null ? index : -1);
+	}
+
+	/**
+	 * Determine whether the given value can be passed to the write method with the
+	 * given index as-is, i.e. without the widening that reflective invocation applies.
+	 */
+	boolean isAssignableValue(int index, @Nullable Object value) {
+		return ClassUtils.isAssignableValue(this.valueTypes[index], value);
+	}
+
+	/**
+	 * Invoke the read method with the given index on the given target.
+	 * @param target the bean instance
+	 * @param index the index of the read method
+	 * @return the (boxed) property value
+	 * @throws Throwable any exception thrown by the read method itself
+	 */
+	@Nullable
+	public abstract Object getValue(Object target, int index) throws Throwable;
+
+	/**
+	 * Invoke the write method with the given index on the given target.
+	 * @param target the bean instance
+	 * @param index the index of the write method
+	 * @param value the (boxed) property value
+	 * @throws Throwable any exception thrown by the write method itself
+	 */
+	public abstract void setValue(Object target, int index, @Nullable Object value) throws Throwable;
+
+
+	/**
+	 * Create the exception for an index that the generated accessor does not cover.
+	 */
+	protected static IllegalArgumentException unknownMethodIndex(int index) {
+		return new IllegalArgumentException("No accessor method with index " + index);
+	}
+
+}
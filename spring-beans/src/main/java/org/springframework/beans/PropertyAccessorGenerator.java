@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Generates a {@link GeneratedPropertyAccessor} subclass for a bean class, using
+ * the repackaged ASM library. The generated class invokes the public read and write
+ * methods of the bean properties directly, switching on the method index.
+ *
+ * <p>Only methods that generated code in a separate class loader may legally
+ * invoke are covered: public methods on a public bean class with public (and
+ * visible) property types. All other methods are left to reflective invocation,
+ * and no accessor is generated at all if none of the methods qualify or if the
+ * class cannot be defined.
+ *
+ * @since 5.0.5
+ * @see CachedIntrospectionResults#GENERATE_ACCESSORS_PROPERTY_NAME
+ */
+final class PropertyAccessorGenerator implements Opcodes {
+
+	/** Suffix for the names of generated accessor classes */
+	static final String CLASS_NAME_SUFFIX = "$$PropertyAccessorBySpring";
+
+	private static final String SUPER_CLASS_NAME = Type.getInternalName(GeneratedPropertyAccessor.class);
+
+	private static final String UNKNOWN_INDEX_DESCRIPTOR = "(I)" + Type.getDescriptor(IllegalArgumentException.class);
+
+	private static final Log logger = LogFactory.getLog(PropertyAccessorGenerator.class);
+
+
+	private PropertyAccessorGenerator() {
+	}
+
+
+	/**
+	 * Generate an accessor for the read and write methods of the given properties.
+	 * @param beanClass the bean class to generate the accessor for
+	 * @param pds the property descriptors of the bean class
+	 * @return the accessor, or {@code null} if none could be generated
+	 */
+	@Nullable
+	static GeneratedPropertyAccessor generate(Class<?> beanClass, Collection<PropertyDescriptor> pds) {
+		if (!Modifier.isPublic(beanClass.getModifiers()) || beanClass.isInterface() ||
+				beanClass.isArray() || beanClass.getName().startsWith("java.")) {
+			return null;
+		}
+		ClassLoader classLoader = beanClass.getClassLoader();
+		Map<Method, Integer> methodIndexes = new LinkedHashMap<>();
+		List<Method> readMethods = new ArrayList<>();
+		List<Method> writeMethods = new ArrayList<>();
+		for (PropertyDescriptor pd : pds) {
+			Method readMethod = pd.getReadMethod();
+			if (readMethod != null && readMethod.getParameterCount() == 0 &&
+					isInvocable(readMethod, readMethod.getReturnType(), classLoader) &&
+					!methodIndexes.containsKey(readMethod)) {
+				methodIndexes.put(readMethod, methodIndexes.size());
+				readMethods.add(readMethod);
+			}
+			Method writeMethod = pd.getWriteMethod();
+			if (writeMethod != null && writeMethod.getParameterCount() == 1 &&
+					isInvocable(writeMethod, writeMethod.getParameterTypes()[0], classLoader) &&
+					!methodIndexes.containsKey(writeMethod)) {
+				methodIndexes.put(writeMethod, methodIndexes.size());
+				writeMethods.add(writeMethod);
+			}
+		}
+		if (methodIndexes.isEmpty()) {
+			return null;
+		}
+
+		String className = beanClass.getName() + CLASS_NAME_SUFFIX;
+		try {
+			byte[] bytes = generateClass(className, beanClass, methodIndexes, readMethods, writeMethods);
+			Class<?> accessorClass = new AccessorClassLoader(classLoader).defineClass(className, bytes);
+			return (GeneratedPropertyAccessor) accessorClass.getConstructor(Map.class).newInstance(methodIndexes);
+		}
+		catch (Exception | LinkageError ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate property accessor for class [" + beanClass.getName() +
+						"] - falling back to reflection", ex);
+			}
+			return null;
+		}
+	}
+
+	private static boolean isInvocable(Method method, Class<?> valueType, @Nullable ClassLoader classLoader) {
+		if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+			return false;
+		}
+		Class<?> type = valueType;
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		return (type.isPrimitive() ||
+				(Modifier.isPublic(type.getModifiers()) && ClassUtils.isVisible(type, classLoader)));
+	}
+
+	private static byte[] generateClass(String className, Class<?> beanClass, Map<Method, Integer> methodIndexes,
+			List<Method> readMethods, List<Method> writeMethods) {
+
+		String beanClassName = Type.getInternalName(beanClass);
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className.replace('.', '/'), null, SUPER_CLASS_NAME, null);
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(Ljava/util/Map;)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_CLASS_NAME, "<init>", "(Ljava/util/Map;)V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// Object getValue(Object target, int index)
+		mv = cw.visitMethod(ACC_PUBLIC, "getValue", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label defaultLabel = new Label();
+		Label[] labels = visitSwitch(mv, methodIndexes, readMethods, defaultLabel);
+		for (Method readMethod : readMethods) {
+			mv.visitLabel(labels[methodIndexes.get(readMethod)]);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, beanClassName);
+			mv.visitMethodInsn(INVOKEVIRTUAL, beanClassName, readMethod.getName(),
+					Type.getMethodDescriptor(readMethod), false);
+			box(mv, readMethod.getReturnType());
+			mv.visitInsn(ARETURN);
+		}
+		visitUnknownIndex(mv, defaultLabel);
+
+		// void setValue(Object target, int index, Object value)
+		mv = cw.visitMethod(ACC_PUBLIC, "setValue", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		defaultLabel = new Label();
+		labels = visitSwitch(mv, methodIndexes, writeMethods, defaultLabel);
+		for (Method writeMethod : writeMethods) {
+			mv.visitLabel(labels[methodIndexes.get(writeMethod)]);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, beanClassName);
+			mv.visitVarInsn(ALOAD, 3);
+			unbox(mv, writeMethod.getParameterTypes()[0]);
+			mv.visitMethodInsn(INVOKEVIRTUAL, beanClassName, writeMethod.getName(),
+					Type.getMethodDescriptor(writeMethod), false);
+			Class<?> returnType = writeMethod.getReturnType();
+			if (returnType != void.class) {
+				mv.visitInsn(returnType == long.class || returnType == double.class ? POP2 : POP);
+			}
+			mv.visitInsn(RETURN);
+		}
+		visitUnknownIndex(mv, defaultLabel);
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Emit a table switch on the index argument, returning the label per index:
+	 * indexes of methods not in the given list branch to the default label.
+	 */
+	private static Label[] visitSwitch(MethodVisitor mv, Map<Method, Integer> methodIndexes,
+			List<Method> methods, Label defaultLabel) {
+
+		Label[] labels = new Label[methodIndexes.size()];
+		Arrays.fill(labels, defaultLabel);
+		for (Method method : methods) {
+			labels[methodIndexes.get(method)] = new Label();
+		}
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitTableSwitchInsn(0, labels.length - 1, defaultLabel, labels);
+		return labels;
+	}
+
+	private static void visitUnknownIndex(MethodVisitor mv, Label defaultLabel) {
+		mv.visitLabel(defaultLabel);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitMethodInsn(INVOKESTATIC, SUPER_CLASS_NAME, "unknownMethodIndex", UNKNOWN_INDEX_DESCRIPTOR, false);
+		mv.visitInsn(ATHROW);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static void box(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(type);
+			mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+					"(" + Type.getDescriptor(type) + ")" + Type.getDescriptor(wrapperType), false);
+		}
+	}
+
+	private static void unbox(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			String wrapperName = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(CHECKCAST, wrapperName);
+			mv.visitMethodInsn(INVOKEVIRTUAL, wrapperName, type.getName() + "Value",
+					"()" + Type.getDescriptor(type), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+
+	/**
+	 * ClassLoader for a generated accessor class: a child of the bean class loader
+	 * which resolves the accessor base class against Spring's own class loader.
+	 */
+	private static final class AccessorClassLoader extends ClassLoader {
+
+		public AccessorClassLoader(@Nullable ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (GeneratedPropertyAccessor.class.getName().equals(name)) {
+				return GeneratedPropertyAccessor.class;
+			}
+			return super.loadClass(name, resolve);
+		}
+
+		public Class<?> defineClass(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import org.springframework.beans.*;
 import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.*;
 import org.springframework.core.*;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.*;
 
@@ -389,13 +390,21 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		 * 遍历容器，为当前bean添加执行所有存在于 BeanFactory 的 BeanPostProcessor 中的后置处理器
 		 * 执行过的不会在执行了
 		 */
-		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
+		for (BeanPostProcessor beanProcessor : getBeanPostProcessorCache().beforeInitialization) {
 			/**
 			 * 执行后置处理器的 postProcessBeforeInitialization方法
 			 * 执行顺序 1.spring内置的
 			 * 			2.用户自己实现接口添加的beanPostProcessor
 			 */
-			Object current = beanProcessor.postProcessBeforeInitialization(result, beanName);
+			StartupStep step = getApplicationStartup().start("spring.beans.post-process")
+					.tag("beanName", beanName).tag("phase", "beforeInitialization")
+					.tag("postProcessor", beanProcessor.getClass().getName());
+			Object current;
+			try {
+				current = beanProcessor.postProcessBeforeInitialization(result, beanName);
+			} finally {
+				step.end();
+			}
 			if (current == null) {
 				return result;
 			}
@@ -412,7 +421,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		/**
 		 * 遍历容器，为当前bean添加执行所有存在于 BeanFactory 的 BeanPostProcessor 中的后置处理器
 		 */
-		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
+		for (BeanPostProcessor beanProcessor : getBeanPostProcessorCache().afterInitialization) {
 			/**
 			 * 执行后置处理器的 postProcessAfterInitialization
 			 * 执行顺序 1.spring内置的
@@ -424,7 +433,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			 * 为什么jdk动态代理要求必须使用接口 因为通过jdk代理生成的对象默认   继承 proxy父类
 			 * 他不能继承代理之前的对象  只能通过实现 之前对象的接口才可以完成代理
 			 */
-			Object current = beanProcessor.postProcessAfterInitialization(result, beanName);
+			StartupStep step = getApplicationStartup().start("spring.beans.post-process")
+					.tag("beanName", beanName).tag("phase", "afterInitialization")
+					.tag("postProcessor", beanProcessor.getClass().getName());
+			Object current;
+			try {
+				current = beanProcessor.postProcessAfterInitialization(result, beanName);
+			} finally {
+				step.end();
+			}
 			if (current == null) {
 				return result;
 			}
@@ -493,9 +510,14 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					"BeanPostProcessor before instantiation of bean failed", ex);
 		}
 
+		StartupStep instantiateStep = getApplicationStartup().start("spring.beans.instantiate")
+				.tag("beanName", beanName);
 		try {
 			//真正进行bean的创建
 			Object beanInstance = doCreateBean(beanName, mbdToUse, args);
+			// Factory method beans only know their type once created
+			instantiateStep.tag("beanType", () ->
+					(resolvedClass != null ? resolvedClass : beanInstance.getClass()).getName());
 			if (logger.isDebugEnabled()) {
 				logger.debug("Finished creating instance of bean '" + beanName + "'");
 			}
@@ -509,6 +531,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		} catch (Throwable ex) {
 			throw new BeanCreationException(
 					mbdToUse.getResourceDescription(), beanName, "Unexpected exception during bean creation", ex);
+		} finally {
+			instantiateStep.end();
 		}
 	}
 
@@ -661,14 +685,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// Apply SmartInstantiationAwareBeanPostProcessors to predict the
 		// eventual type after a before-instantiation shortcut.
 		if (targetType != null && !mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-					SmartInstantiationAwareBeanPostProcessor ibp = (SmartInstantiationAwareBeanPostProcessor) bp;
-					Class<?> predicted = ibp.predictBeanType(targetType, beanName);
-					if (predicted != null && (typesToMatch.length != 1 || FactoryBean.class != typesToMatch[0] ||
-							FactoryBean.class.isAssignableFrom(predicted))) {
-						return predicted;
-					}
+			for (SmartInstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().predictBeanType) {
+				Class<?> predicted = ibp.predictBeanType(targetType, beanName);
+				if (predicted != null && (typesToMatch.length != 1 || FactoryBean.class != typesToMatch[0] ||
+						FactoryBean.class.isAssignableFrom(predicted))) {
+					return predicted;
 				}
 			}
 		}
@@ -928,14 +949,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		 * 循环所有后置处理器，找出符合的后置处理器然后执行
 		 */
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-					SmartInstantiationAwareBeanPostProcessor ibp = (SmartInstantiationAwareBeanPostProcessor) bp;
-					/**
-					 * 其中有个重要的后置处理器  AbstractAutoProxyCreator 就是进行AOP，也证明循环依赖解决了AOP问题
-					 */
-					exposedObject = ibp.getEarlyBeanReference(exposedObject, beanName);
-				}
+			for (SmartInstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().earlyBeanReference) {
+				/**
+				 * 其中有个重要的后置处理器  AbstractAutoProxyCreator 就是进行AOP，也证明循环依赖解决了AOP问题
+				 */
+				exposedObject = ibp.getEarlyBeanReference(exposedObject, beanName);
 			}
 		}
 		return exposedObject;
@@ -957,7 +975,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
+		// Guarded by the creation lock of this bean rather than the singleton mutex:
+		// the regular creation of this bean may be in progress in another thread,
+		// to be waited for unless that thread waits for the current thread in turn.
+		if (!tryLockSingletonCreation(beanName)) {
+			return null;
+		}
+		try {
 			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
 			if (bw != null) {
 				return (FactoryBean<?>) bw.getWrappedInstance();
@@ -987,6 +1011,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				this.factoryBeanInstanceCache.put(beanName, bw);
 			}
 			return fb;
+		} finally {
+			unlockSingletonCreation(beanName);
 		}
 	}
 
@@ -1040,11 +1066,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 * @see MergedBeanDefinitionPostProcessor#postProcessMergedBeanDefinition
 	 */
 	protected void applyMergedBeanDefinitionPostProcessors(RootBeanDefinition mbd, Class<?> beanType, String beanName) {
-		for (BeanPostProcessor bp : getBeanPostProcessors()) {
-			if (bp instanceof MergedBeanDefinitionPostProcessor) {
-				MergedBeanDefinitionPostProcessor bdp = (MergedBeanDefinitionPostProcessor) bp;
-				bdp.postProcessMergedBeanDefinition(mbd, beanType, beanName);
-			}
+		for (MergedBeanDefinitionPostProcessor bdp : getBeanPostProcessorCache().mergedDefinition) {
+			bdp.postProcessMergedBeanDefinition(mbd, beanType, beanName);
 		}
 	}
 
@@ -1089,13 +1112,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	protected Object applyBeanPostProcessorsBeforeInstantiation(Class<?> beanClass, String beanName) {
-		for (BeanPostProcessor bp : getBeanPostProcessors()) {
-			if (bp instanceof InstantiationAwareBeanPostProcessor) {
-				InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-				Object result = ibp.postProcessBeforeInstantiation(beanClass, beanName);
-				if (result != null) {
-					return result;
-				}
+		for (InstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().beforeInstantiation) {
+			Object result = ibp.postProcessBeforeInstantiation(beanClass, beanName);
+			if (result != null) {
+				return result;
 			}
 		}
 		return null;
@@ -1297,7 +1317,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		 * determineCandidateConstructors(java.lang.Class, java.lang.String)
 		 */
 		if (beanClass != null && hasInstantiationAwareBeanPostProcessors()) {
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
+			for (SmartInstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().candidateConstructors) {
 
 				/**
 				 * 此时有两个后置处理器，实现了SmartInstantiationAwareBeanPostProcessor接口
@@ -1305,13 +1325,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				 * 第二次真正去判断构造方法
 				 */
 
-				if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
-					SmartInstantiationAwareBeanPostProcessor ibp = (SmartInstantiationAwareBeanPostProcessor) bp;
-					//推断构造方法
-					Constructor<?>[] ctors = ibp.determineCandidateConstructors(beanClass, beanName);
-					if (ctors != null) {
-						return ctors;
-					}
+				//推断构造方法
+				Constructor<?>[] ctors = ibp.determineCandidateConstructors(beanClass, beanName);
+				if (ctors != null) {
+					return ctors;
 				}
 			}
 		}
@@ -1428,13 +1445,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		 * 并返回一个状态，是否继续进行依赖注入，默认实现返回true，继续依赖注入
 		 */
 		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				if (bp instanceof InstantiationAwareBeanPostProcessor) {
-					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-					if (!ibp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
-						continueWithPropertyPopulation = false;
-						break;
-					}
+			for (InstantiationAwareBeanPostProcessor ibp : getBeanPostProcessorCache().afterInstantiation) {
+				if (!ibp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
+					continueWithPropertyPopulation = false;
+					break;
 				}
 			}
 		}
@@ -1492,7 +1506,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		/**
 		 * 容器中是否有InstantiationAwareBeanPostProcessors类型的BeanPostProcessor
 		 */
-		boolean hasInstAwareBpps = hasInstantiationAwareBeanPostProcessors();
+		List<InstantiationAwareBeanPostProcessor> propertyValuesBpps =
+				(hasInstantiationAwareBeanPostProcessors() ? getBeanPostProcessorCache().propertyValues :
+						Collections.emptyList());
+		boolean hasInstAwareBpps = !propertyValuesBpps.isEmpty();
 		/**
 		 * 是否进行依赖检查，默认不检查
 		 */
@@ -1519,16 +1536,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			 * 解析了{@link Resource} 和 {@link org.springframework.beans.factory.annotation.Autowired}注解
 			 */
 			if (hasInstAwareBpps) {
-				for (BeanPostProcessor bp : getBeanPostProcessors()) {
-					if (bp instanceof InstantiationAwareBeanPostProcessor) {
-						InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-						/**
-						 * 真正执行了属性注入的方法 ，并且每成功注入一个，就会往pvs中设置一个
-						 */
-						pvs = ibp.postProcessPropertyValues(pvs, filteredPds, bw.getWrappedInstance(), beanName);
-						if (pvs == null) {
-							return;
-						}
+				for (InstantiationAwareBeanPostProcessor ibp : propertyValuesBpps) {
+					/**
+					 * 真正执行了属性注入的方法 ，并且每成功注入一个，就会往pvs中设置一个
+					 */
+					pvs = ibp.postProcessPropertyValues(pvs, filteredPds, bw.getWrappedInstance(), beanName);
+					if (pvs == null) {
+						return;
 					}
 				}
 			}
@@ -16,7 +16,9 @@
 
 package org.springframework.beans.factory.support;
 
+import java.beans.PropertyDescriptor;
 import java.beans.PropertyEditor;
+import java.lang.reflect.Method;
 import java.security.AccessControlContext;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
@@ -24,7 +26,9 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
@@ -42,6 +48,7 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.PropertyEditorRegistrar;
 import org.springframework.beans.PropertyEditorRegistry;
 import org.springframework.beans.PropertyEditorRegistrySupport;
+import org.springframework.beans.PropertyValues;
 import org.springframework.beans.SimpleTypeConverter;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
@@ -65,11 +72,14 @@ import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
 import org.springframework.beans.factory.config.Scope;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.DecoratingClassLoader;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -147,6 +157,11 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	@Nullable
 	private ConversionService conversionService;
 
+	/**
+	 * Application startup metrics recorder
+	 */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 	/**
 	 * Custom PropertyEditorRegistrars to apply to the beans of this factory
 	 */
@@ -171,7 +186,13 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	/**
 	 * BeanPostProcessors to apply in createBean
 	 */
-	private final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
+	private final List<BeanPostProcessor> beanPostProcessors = new BeanPostProcessorCacheAwareList();
+
+	/**
+	 * BeanPostProcessors pre-filtered per callback, rebuilt after any change to the list above
+	 */
+	@Nullable
+	private volatile BeanPostProcessorCache beanPostProcessorCache;
 
 	/**
 	 * Indicates whether any InstantiationAwareBeanPostProcessors have been registered
@@ -812,6 +833,17 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return this.conversionService;
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	@Override
 	public void addPropertyEditorRegistrar(PropertyEditorRegistrar registrar) {
 		Assert.notNull(registrar, "PropertyEditorRegistrar must not be null");
@@ -926,6 +958,21 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return this.beanPostProcessors;
 	}
 
+	/**
+	 * Return the BeanPostProcessors grouped by the callbacks that they actually
+	 * implement, leaving out inherited no-op default implementations.
+	 *
+	 * @since 5.0.5
+	 */
+	BeanPostProcessorCache getBeanPostProcessorCache() {
+		BeanPostProcessorCache cache = this.beanPostProcessorCache;
+		if (cache == null) {
+			cache = new BeanPostProcessorCache(this.beanPostProcessors);
+			this.beanPostProcessorCache = cache;
+		}
+		return cache;
+	}
+
 	/**
 	 * Return whether this factory holds a InstantiationAwareBeanPostProcessor
 	 * that will get applied to singleton beans on shutdown.
@@ -1006,6 +1053,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		setCacheBeanMetadata(otherFactory.isCacheBeanMetadata());
 		setBeanExpressionResolver(otherFactory.getBeanExpressionResolver());
 		setConversionService(otherFactory.getConversionService());
+		setApplicationStartup(otherFactory.getApplicationStartup());
 		if (otherFactory instanceof AbstractBeanFactory) {
 			AbstractBeanFactory otherAbstractFactory = (AbstractBeanFactory) otherFactory;
 			this.propertyEditorRegistrars.addAll(otherAbstractFactory.propertyEditorRegistrars);
@@ -1844,4 +1892,201 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	protected abstract Object createBean(String beanName, RootBeanDefinition mbd, @Nullable Object[] args)
 			throws BeanCreationException;
 
+
+
+	/**
+	 * BeanPostProcessor list that resets the pre-filtered {@link BeanPostProcessorCache}
+	 * whenever it gets modified.
+	 */
+	@SuppressWarnings("serial")
+	private class BeanPostProcessorCacheAwareList extends ArrayList<BeanPostProcessor> {
+
+		@Override
+		public BeanPostProcessor set(int index, BeanPostProcessor element) {
+			BeanPostProcessor result = super.set(index, element);
+			beanPostProcessorCache = null;
+			return result;
+		}
+
+		@Override
+		public boolean add(BeanPostProcessor o) {
+			boolean success = super.add(o);
+			beanPostProcessorCache = null;
+			return success;
+		}
+
+		@Override
+		public void add(int index, BeanPostProcessor element) {
+			super.add(index, element);
+			beanPostProcessorCache = null;
+		}
+
+		@Override
+		public BeanPostProcessor remove(int index) {
+			BeanPostProcessor result = super.remove(index);
+			beanPostProcessorCache = null;
+			return result;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			boolean success = super.remove(o);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			boolean success = super.removeAll(c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			boolean success = super.retainAll(c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends BeanPostProcessor> c) {
+			boolean success = super.addAll(c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean addAll(int index, Collection<? extends BeanPostProcessor> c) {
+			boolean success = super.addAll(index, c);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public boolean removeIf(Predicate<? super BeanPostProcessor> filter) {
+			boolean success = super.removeIf(filter);
+			if (success) {
+				beanPostProcessorCache = null;
+			}
+			return success;
+		}
+
+		@Override
+		public void replaceAll(UnaryOperator<BeanPostProcessor> operator) {
+			super.replaceAll(operator);
+			beanPostProcessorCache = null;
+		}
+
+		@Override
+		public void sort(@Nullable Comparator<? super BeanPostProcessor> c) {
+			super.sort(c);
+			beanPostProcessorCache = null;
+		}
+
+		@Override
+		protected void removeRange(int fromIndex, int toIndex) {
+			// Also backs clear() on a subList view
+			super.removeRange(fromIndex, toIndex);
+			beanPostProcessorCache = null;
+		}
+
+		@Override
+		public void clear() {
+			super.clear();
+			beanPostProcessorCache = null;
+		}
+	}
+
+
+	/**
+	 * BeanPostProcessors grouped by callback, in registration order. A post-processor
+	 * is only included for a callback that it actually implements: callbacks inherited
+	 * from the default methods of the post-processor interfaces or from
+	 * {@link InstantiationAwareBeanPostProcessorAdapter} are no-ops and get skipped.
+	 */
+	static final class BeanPostProcessorCache {
+
+		private static final Set<Class<?>> NO_OP_CALLBACK_DECLARERS = new HashSet<>(Arrays.asList(
+				BeanPostProcessor.class, InstantiationAwareBeanPostProcessor.class,
+				SmartInstantiationAwareBeanPostProcessor.class, InstantiationAwareBeanPostProcessorAdapter.class));
+
+		final List<InstantiationAwareBeanPostProcessor> beforeInstantiation = new ArrayList<>();
+
+		final List<InstantiationAwareBeanPostProcessor> afterInstantiation = new ArrayList<>();
+
+		final List<InstantiationAwareBeanPostProcessor> propertyValues = new ArrayList<>();
+
+		final List<SmartInstantiationAwareBeanPostProcessor> predictBeanType = new ArrayList<>();
+
+		final List<SmartInstantiationAwareBeanPostProcessor> candidateConstructors = new ArrayList<>();
+
+		final List<SmartInstantiationAwareBeanPostProcessor> earlyBeanReference = new ArrayList<>();
+
+		final List<MergedBeanDefinitionPostProcessor> mergedDefinition = new ArrayList<>();
+
+		final List<BeanPostProcessor> beforeInitialization = new ArrayList<>();
+
+		final List<BeanPostProcessor> afterInitialization = new ArrayList<>();
+
+		BeanPostProcessorCache(List<BeanPostProcessor> beanPostProcessors) {
+			for (BeanPostProcessor bp : beanPostProcessors) {
+				if (bp instanceof InstantiationAwareBeanPostProcessor) {
+					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
+					if (implementsCallback(bp, "postProcessBeforeInstantiation", Class.class, String.class)) {
+						this.beforeInstantiation.add(ibp);
+					}
+					if (implementsCallback(bp, "postProcessAfterInstantiation", Object.class, String.class)) {
+						this.afterInstantiation.add(ibp);
+					}
+					if (implementsCallback(bp, "postProcessPropertyValues",
+							PropertyValues.class, PropertyDescriptor[].class, Object.class, String.class)) {
+						this.propertyValues.add(ibp);
+					}
+					if (bp instanceof SmartInstantiationAwareBeanPostProcessor) {
+						SmartInstantiationAwareBeanPostProcessor sibp = (SmartInstantiationAwareBeanPostProcessor) bp;
+						if (implementsCallback(bp, "predictBeanType", Class.class, String.class)) {
+							this.predictBeanType.add(sibp);
+						}
+						if (implementsCallback(bp, "determineCandidateConstructors", Class.class, String.class)) {
+							this.candidateConstructors.add(sibp);
+						}
+						if (implementsCallback(bp, "getEarlyBeanReference", Object.class, String.class)) {
+							this.earlyBeanReference.add(sibp);
+						}
+					}
+				}
+				if (bp instanceof MergedBeanDefinitionPostProcessor) {
+					this.mergedDefinition.add((MergedBeanDefinitionPostProcessor) bp);
+				}
+				if (implementsCallback(bp, "postProcessBeforeInitialization", Object.class, String.class)) {
+					this.beforeInitialization.add(bp);
+				}
+				if (implementsCallback(bp, "postProcessAfterInitialization", Object.class, String.class)) {
+					this.afterInitialization.add(bp);
+				}
+			}
+		}
+
+		private static boolean implementsCallback(BeanPostProcessor bp, String methodName, Class<?>... paramTypes) {
+			try {
+				Method method = bp.getClass().getMethod(methodName, paramTypes);
+				return !NO_OP_CALLBACK_DECLARERS.contains(method.getDeclaringClass());
+			} catch (NoSuchMethodException | SecurityException ex) {
+				// Cannot tell: keep applying the post-processor for this callback
+				return true;
+			}
+		}
+	}
+
 }
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,10 +41,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -64,8 +70,10 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
@@ -169,6 +177,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 */
 	private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
+	/**
+	 * Number of threads to use for pre-instantiating independent singletons
+	 */
+	private int preInstantiationParallelism = 1;
+
 	/**
 	 * Map from dependency type to corresponding autowired value
 	 */
@@ -191,6 +204,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	//单例beanDefinition的类型
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/**
+	 * Map of singleton and non-singleton bean names, keyed by generic dependency type
+	 */
+	private final Map<ResolvableType, String[]> allBeanNamesByResolvableType = new ConcurrentHashMap<>(64);
+
 	/**
 	 * List of bean definition names, in registration order
 	 */
@@ -350,6 +368,41 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Set the number of threads to use for pre-instantiating non-lazy singletons
+	 * in {@link #preInstantiateSingletons()}.
+	 * <p>Default is 1, creating all singletons one after another on the calling
+	 * thread. A higher value groups the singletons into independent subgraphs,
+	 * based on their declared "depends-on" relationships, the bean references in
+	 * their property values and constructor arguments, their factory beans and the
+	 * dependencies registered so far, and instantiates those subgraphs on a
+	 * fork-join pool of the given size. Each subgraph is still processed in
+	 * registration order.
+	 * <p>Only switch this on for bean definitions whose initialization is safe to
+	 * run concurrently with unrelated beans, e.g. clients and pools which mostly
+	 * wait for I/O during their initialization. Dependencies which are only
+	 * resolved during creation, e.g. through autowiring, are not known upfront:
+	 * a circular reference between such beans in different subgraphs fails with
+	 * a {@link BeanCurrentlyInCreationException} rather than being resolved
+	 * through an early reference.
+	 *
+	 * @since 5.0.5
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating non-lazy singletons.
+	 *
+	 * @since 5.0.5
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -359,6 +412,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
 			// Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -421,7 +475,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 	@Override
 	public String[] getBeanNamesForType(ResolvableType type) {
-		return doGetBeanNamesForType(type, true, true);
+		Class<?> resolved = type.resolve();
+		if (resolved != null && !type.hasGenerics() && !type.isArray()) {
+			return getBeanNamesForType(resolved, true, true);
+		}
+		if (!isConfigurationFrozen()) {
+			return doGetBeanNamesForType(type, true, true);
+		}
+		String[] resolvedBeanNames = this.allBeanNamesByResolvableType.get(type);
+		if (resolvedBeanNames != null) {
+			return resolvedBeanNames;
+		}
+		resolvedBeanNames = doGetBeanNamesForType(type, true, true);
+		if (isCacheSafe(type, 0)) {
+			this.allBeanNamesByResolvableType.put(type, resolvedBeanNames);
+		}
+		return resolvedBeanNames;
 	}
 
 	@Override
@@ -447,6 +516,29 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return resolvedBeanNames;
 	}
 
+	/**
+	 * Check whether the given type and its generics are cache-safe with respect
+	 * to the bean ClassLoader, giving up on deeply nested (e.g. recursive) generics.
+	 */
+	private boolean isCacheSafe(ResolvableType type, int nestingLevel) {
+		if (nestingLevel > 4) {
+			return false;
+		}
+		Class<?> resolved = type.resolve();
+		if (resolved != null && !ClassUtils.isCacheSafe(resolved, getBeanClassLoader())) {
+			return false;
+		}
+		if (type.isArray()) {
+			return isCacheSafe(type.getComponentType(), nestingLevel + 1);
+		}
+		for (ResolvableType generic : type.getGenerics()) {
+			if (!isCacheSafe(generic, nestingLevel + 1)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
@@ -774,50 +866,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		//通过beanDefinitionNames集合中得到所有的对象名字
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
-		//遍历每一个beanDefinition对象的名字
-		for (String beanName : beanNames) {
-			/**
-			 * 不是很重要，但是还是要理解，
-			 *
-			 * 这行代码的真正作用只有在     ！！xml ！！  中的配置才有用
-			 * <bean id = "par" class = "xxx.xxx.xxx",>
-			 *      <propertie name = "",value = " "></>
-			 * </bean>
-			 *
-			 *  <bean id = "chi"  parent="par">        
-			 *          <propertie name = "",value = " "></>
-			 * 	</bean>
-			 * 	这并不是一个真正的子类，这是配置在xml中指定了父类，在beanDefinition  map中 存在两个beanDefinition，只不过key不同
-			 * 	但是子beanDefinition并没有属性、方法....等，只有自己配置的属性
-			 *
-			 * 	所以该方法就会去找map中是否有该bd的父类，如果有则读取父bd的属性和方法，然后合并到子bd中
-			 * 	如果没有则直接返回该bd
-			 */
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			// 是否是懒加载  单例  抽象  大部分情况都是true
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				//判断他是否是一个FactoryBean  大部分情况下不是
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						} else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				} else {
-					//经过一系列判断去创建bean的方法
-					getBean(beanName);
-				}
+		if (this.preInstantiationParallelism > 1) {
+			preInstantiateSingletonsInParallel(beanNames);
+		} else {
+			//遍历每一个beanDefinition对象的名字
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -839,6 +893,224 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Pre-instantiate the given singleton if it is a non-lazy singleton,
+	 * including eager {@link SmartFactoryBean} objects.
+	 *
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		/**
+		 * 不是很重要，但是还是要理解，
+		 *
+		 * 这行代码的真正作用只有在     ！！xml ！！  中的配置才有用
+		 * <bean id = "par" class = "xxx.xxx.xxx",>
+		 *      <propertie name = "",value = " "></>
+		 * </bean>
+		 *
+		 *  <bean id = "chi"  parent="par">        
+		 *          <propertie name = "",value = " "></>
+		 * 	</bean>
+		 * 	这并不是一个真正的子类，这是配置在xml中指定了父类，在beanDefinition  map中 存在两个beanDefinition，只不过key不同
+		 * 	但是子beanDefinition并没有属性、方法....等，只有自己配置的属性
+		 *
+		 * 	所以该方法就会去找map中是否有该bd的父类，如果有则读取父bd的属性和方法，然后合并到子bd中
+		 * 	如果没有则直接返回该bd
+		 */
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		// 是否是懒加载  单例  抽象  大部分情况都是true
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			//判断他是否是一个FactoryBean  大部分情况下不是
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					} else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			} else {
+				//经过一系列判断去创建bean的方法
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given singletons on a fork-join pool, instantiating
+	 * each group of (known to be) connected beans on a single worker thread.
+	 * <p>Singleton creation itself still goes through
+	 * {@link #getSingleton(String, ObjectFactory)}, so the regular singleton
+	 * locking applies unchanged: a dependency that only turns up during creation
+	 * is simply created (or waited for) by whichever thread gets to it first.
+	 * Circular references are only resolved within a single thread.
+	 *
+	 * @param beanNames the bean names to consider, in registration order
+	 * @see #setPreInstantiationParallelism
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		Collection<List<String>> groups = groupByKnownDependencies(beanNames);
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("Pre-instantiating " + groups.size() + " independent groups of singletons with parallelism " +
+					this.preInstantiationParallelism);
+		}
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(this.preInstantiationParallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("preInstantiateSingletons-" + thread.getPoolIndex());
+			thread.setContextClassLoader(classLoader);
+			return thread;
+		}, null, false);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+			for (List<String> group : groups) {
+				tasks.add(pool.submit(() -> group.forEach(this::preInstantiateSingleton)));
+			}
+			// Wait for all groups before reporting a failure, not leaving any creation behind
+			Throwable failure = null;
+			for (ForkJoinTask<?> task : tasks) {
+				try {
+					task.get();
+				} catch (ExecutionException ex) {
+					if (failure == null) {
+						failure = ex.getCause();
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted during singleton pre-instantiation", ex);
+				}
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			} else if (failure != null) {
+				throw new IllegalStateException("Unexpected exception during singleton pre-instantiation", failure);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Group the given non-lazy singleton names into sets of beans which are
+	 * connected through their "depends-on" declarations, their bean references,
+	 * their factory beans or through dependencies registered so far, e.g. by
+	 * earlier created post-processors.
+	 *
+	 * @param beanNames the bean names to consider, in registration order
+	 * @return the groups of bean names, each in registration order
+	 */
+	private Collection<List<String>> groupByKnownDependencies(List<String> beanNames) {
+		Map<String, String> parents = new HashMap<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (bd.isAbstract() || !bd.isSingleton() || bd.isLazyInit()) {
+				continue;
+			}
+			String root = findGroupRoot(parents, beanName);
+			String[] dependsOn = bd.getDependsOn();
+			if (dependsOn != null) {
+				for (String dependency : dependsOn) {
+					root = unionGroups(parents, root, canonicalName(dependency));
+				}
+			}
+			String factoryBeanName = bd.getFactoryBeanName();
+			if (factoryBeanName != null) {
+				root = unionGroups(parents, root, canonicalName(factoryBeanName));
+			}
+			Set<String> references = new LinkedHashSet<>();
+			collectBeanReferences(bd, references);
+			for (String reference : references) {
+				root = unionGroups(parents, root, canonicalName(reference));
+			}
+			for (String dependency : getDependenciesForBean(beanName)) {
+				root = unionGroups(parents, root, dependency);
+			}
+			for (String dependent : getDependentBeans(beanName)) {
+				root = unionGroups(parents, root, dependent);
+			}
+		}
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			if (parents.containsKey(beanName)) {
+				groups.computeIfAbsent(findGroupRoot(parents, beanName), key -> new ArrayList<>()).add(beanName);
+			}
+		}
+		return groups.values();
+	}
+
+	/**
+	 * Collect the names of the beans referenced by the given value: a bean
+	 * reference, a (managed) collection or map, or an inner bean definition
+	 * with its property values and constructor arguments.
+	 */
+	private static void collectBeanReferences(@Nullable Object value, Set<String> references) {
+		if (value instanceof BeanReference) {
+			references.add(((BeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectBeanReferences(((BeanDefinitionHolder) value).getBeanDefinition(), references);
+		}
+		else if (value instanceof BeanDefinition) {
+			BeanDefinition bd = (BeanDefinition) value;
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectBeanReferences(pv.getValue(), references);
+			}
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+				collectBeanReferences(valueHolder.getValue(), references);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				collectBeanReferences(valueHolder.getValue(), references);
+			}
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectBeanReferences(element, references);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectBeanReferences(entry.getKey(), references);
+				collectBeanReferences(entry.getValue(), references);
+			}
+		}
+	}
+
+	private static String findGroupRoot(Map<String, String> parents, String name) {
+		String root = name;
+		String parent = parents.putIfAbsent(root, root);
+		while (parent != null && !parent.equals(root)) {
+			root = parent;
+			parent = parents.get(root);
+		}
+		// Path compression, keeping later lookups short
+		String current = name;
+		while (!current.equals(root)) {
+			current = parents.put(current, root);
+		}
+		return root;
+	}
+
+	private static String unionGroups(Map<String, String> parents, String root, String otherName) {
+		String otherRoot = findGroupRoot(parents, otherName);
+		if (!otherRoot.equals(root)) {
+			parents.put(otherRoot, root);
+		}
+		return root;
+	}
+
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -917,6 +1189,33 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (oldBeanDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
 		}
+		Class<?> beanType = (oldBeanDefinition == null ? getPlainBeanClass(beanDefinition) : null);
+		if (beanType != null) {
+			clearByTypeCache(beanName, beanType);
+		} else {
+			clearByTypeCache();
+		}
+	}
+
+	/**
+	 * Determine the bean class of the given bean definition if it certainly
+	 * is the type that the bean is going to be matched against.
+	 *
+	 * @param beanDefinition the bean definition to check
+	 * @return the bean class, or {@code null} if the type of the bean depends on
+	 * a parent definition, a factory method, a FactoryBean or post-processing
+	 */
+	@Nullable
+	private Class<?> getPlainBeanClass(BeanDefinition beanDefinition) {
+		if (!(beanDefinition instanceof AbstractBeanDefinition) || hasInstantiationAwareBeanPostProcessors()) {
+			return null;
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) beanDefinition;
+		if (!abd.hasBeanClass() || abd.getParentName() != null || abd.getFactoryMethodName() != null) {
+			return null;
+		}
+		Class<?> beanClass = abd.getBeanClass();
+		return (FactoryBean.class.isAssignableFrom(beanClass) ? null : beanClass);
 	}
 
 	@Override
@@ -1003,14 +1302,18 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 
-		clearByTypeCache();
+		if (singletonObject instanceof FactoryBean) {
+			clearByTypeCache();
+		} else {
+			clearByTypeCache(beanName, singletonObject.getClass());
+		}
 	}
 
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
 		this.manualSingletonNames.remove(beanName);
-		clearByTypeCache();
+		clearByTypeCache(beanName, null);
 	}
 
 	@Override
@@ -1026,6 +1329,40 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private void clearByTypeCache() {
 		this.allBeanNamesByType.clear();
 		this.singletonBeanNamesByType.clear();
+		this.allBeanNamesByResolvableType.clear();
+	}
+
+	/**
+	 * Remove the by-type mappings that a change of the given bean may affect:
+	 * the mappings that contain the bean, and the mappings that the bean
+	 * may match from now on.
+	 *
+	 * @param beanName the name of the bean that has been registered or removed
+	 * @param beanType the type of the newly registered bean, or {@code null}
+	 *                 if the bean has just been removed
+	 */
+	private void clearByTypeCache(String beanName, @Nullable Class<?> beanType) {
+		String factoryBeanName = FACTORY_BEAN_PREFIX + beanName;
+		this.allBeanNamesByType.entrySet().removeIf(entry ->
+				isAffectedByType(entry.getValue(), beanName, factoryBeanName, entry.getKey(), beanType));
+		this.singletonBeanNamesByType.entrySet().removeIf(entry ->
+				isAffectedByType(entry.getValue(), beanName, factoryBeanName, entry.getKey(), beanType));
+		this.allBeanNamesByResolvableType.entrySet().removeIf(entry ->
+				isAffectedByType(entry.getValue(), beanName, factoryBeanName, entry.getKey().resolve(), beanType));
+	}
+
+	private static boolean isAffectedByType(String[] beanNames, String beanName, String factoryBeanName,
+			@Nullable Class<?> type, @Nullable Class<?> beanType) {
+
+		if (beanType != null && (type == null || type.isAssignableFrom(beanType))) {
+			return true;
+		}
+		for (String candidate : beanNames) {
+			if (candidate.equals(beanName) || candidate.equals(factoryBeanName)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 
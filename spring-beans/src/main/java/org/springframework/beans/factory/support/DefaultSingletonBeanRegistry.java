@@ -17,7 +17,6 @@
 package org.springframework.beans.factory.support;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -25,6 +24,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +35,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -64,6 +65,14 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>As of 5.0.5, singleton creation is guarded by a lock per bean name rather
+ * than by the global {@link #getSingletonMutex() singleton mutex}, so unrelated
+ * singletons can be created concurrently. Early singleton references are only
+ * exposed to the thread that creates the singleton; other threads wait for the
+ * fully initialized instance. Should threads wait for each other's singletons in
+ * a cycle (a circular reference across threads), the thread closing the cycle
+ * fails with a {@link BeanCurrentlyInCreationException} instead of deadlocking.
+ *
  * @author Juergen Hoeller
  * @see #registerSingleton
  * @see #registerDisposableBean
@@ -91,17 +100,27 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * 但是属性填充跟初始化肯定还没有做完，
 	 * 因此该bean还没创建完成，仅仅能作为指针提前曝光，被其他bean所引用
 	 */
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
 
 	/**
 	 * 三级缓存，该缓存key = beanName, value = beanFactory;在bean实例化完之后，属性填充以及初始化之前，
 	 * 如果允许提前曝光，spring会将实例化后的bean提前曝光，也就是把该bean转换成beanFactory并加入到三级缓存。
 	 * 在需要引用提前曝光对象时再通过singletonFactory.getObject()获取。
 	 */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
 
 
-	private final Set<String> registeredSingletons = new LinkedHashSet<>(256);
+	private final Set<String> registeredSingletons = Collections.synchronizedSet(new LinkedHashSet<>(256));
+
+	/**
+	 * Creation locks per singleton bean name, only present while the singleton is being created
+	 */
+	private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(16);
+
+	/**
+	 * Threads currently waiting for another thread's creation lock: thread --> lock
+	 */
+	private final Map<Thread, SingletonCreationLock> singletonCreationWaiters = new ConcurrentHashMap<>(16);
 
 	/**
 	 * Names of beans that are currently in creation
@@ -118,13 +137,13 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/**
 	 * List of suppressed Exceptions, available for associating related causes
 	 */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
 
 	/**
 	 * Flag that indicates whether we're currently within destroySingletons
 	 */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/**
 	 * Disposable bean instances: bean name --> disposable instance
@@ -151,13 +170,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "Bean name must not be null");
 		Assert.notNull(singletonObject, "Singleton object must not be null");
-		synchronized (this.singletonObjects) {
+		// Ordered against a creation of the same singleton in progress in another thread
+		SingletonCreationLock lock = acquireCreationLock(beanName, true);
+		Assert.state(lock != null, "No creation lock");
+		try {
 			Object oldObject = this.singletonObjects.get(beanName);
 			if (oldObject != null) {
 				throw new IllegalStateException("Could not register object [" + singletonObject +
 						"] under bean name '" + beanName + "': there is already object [" + oldObject + "] bound");
 			}
 			addSingleton(beanName, singletonObject);
+		} finally {
+			releaseCreationLock(beanName, lock);
 		}
 	}
 
@@ -169,12 +193,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param singletonObject the singleton object
 	 */
 	protected void addSingleton(String beanName, Object singletonObject) {
-		synchronized (this.singletonObjects) {
-			this.singletonObjects.put(beanName, singletonObject);
-			this.singletonFactories.remove(beanName);
-			this.earlySingletonObjects.remove(beanName);
-			this.registeredSingletons.add(beanName);
-		}
+		// Publish the singleton first: other threads only ever look at singletonObjects
+		this.singletonObjects.put(beanName, singletonObject);
+		this.singletonFactories.remove(beanName);
+		this.earlySingletonObjects.remove(beanName);
+		this.registeredSingletons.add(beanName);
 	}
 
 	/**
@@ -188,12 +211,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(singletonFactory, "Singleton factory must not be null");
-		synchronized (this.singletonObjects) {
-			if (!this.singletonObjects.containsKey(beanName)) {
-				this.singletonFactories.put(beanName, singletonFactory);
-				this.earlySingletonObjects.remove(beanName);
-				this.registeredSingletons.add(beanName);
-			}
+		if (!this.singletonObjects.containsKey(beanName)) {
+			this.singletonFactories.put(beanName, singletonFactory);
+			this.earlySingletonObjects.remove(beanName);
+			this.registeredSingletons.add(beanName);
 		}
 	}
 
@@ -227,7 +248,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		 *  否则直接返回null
 		 */
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
+			SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+			// Early references are only exposed to the thread creating the singleton:
+			// other threads wait for the creation lock in getSingleton(String, ObjectFactory)
+			if (lock != null && lock.isHeldByCurrentThread()) {
 				//在尝试从三级缓存中 拿出该对象
 				singletonObject = this.earlySingletonObjects.get(beanName);
 				if (singletonObject == null && allowEarlyReference) {
@@ -240,35 +264,56 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 					 * 但是并不是所有的bean都存在循环依赖，也就是二级缓存到三级缓存的步骤不一定都会被执行，有可能曝光后直接创建完成，没被提前引用过，
 					 * 就直接被加入到一级缓存中。因此可以确保只有提前曝光且被引用的bean才会进行该后置处理
 					 */
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						/**
-						 *  通过二级缓存得到一个bean，此时该bean不仅仅是一个半成品，
-						 *  还进行了一些后置处理器处理
-						 *  这也正是二级缓存存在的意义，可以通过重写该后置处理器对提前曝光的实例，在被提前引用时进行一些操作
-						 *
-						 *  此时是该bean已经是代理对象了，但是此时第一次创建bean还处于正在创建的情况下，他还没有进行属性的注入
-						 *  他依然是对原始bean进行属性的注入，why？
-						 *  因为代理bean中保存着原始bean的地址，对原始bean进行注入即对代理bean进行注入，
-						 *  但是最后注入单例池的依旧是代理bean，why?
-						 *  这是因为AbstractAutoProxyCreator这个后置处理器在想要对原始bean进行AOP时，他先从缓存池拿，
-						 *  结果发现已经成功进行AOP代理了，这时候直接返回代理bean，也就完成了原始bean ->  代理bean 替换
-						 */
-						singletonObject = singletonFactory.getObject();
-						//将二级缓存生产的bean放入三级缓存中
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						 //删除二级缓存中的该bean
-						this.singletonFactories.remove(beanName);
-					}
+					singletonObject = getEarlySingletonReference(beanName);
 				}
 			}
 		}
 		return singletonObject;
 	}
 
+	/**
+	 * Obtain the early reference to the given singleton from its singleton factory,
+	 * caching it for subsequent early reference lookups.
+	 * <p>Only called by the thread holding the creation lock of the singleton.
+	 *
+	 * @param beanName the name of the singleton currently in creation
+	 * @return the early singleton reference, or {@code null} if none available
+	 */
+	@Nullable
+	private Object getEarlySingletonReference(String beanName) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				/**
+				 *  通过二级缓存得到一个bean，此时该bean不仅仅是一个半成品，
+				 *  还进行了一些后置处理器处理
+				 *  这也正是二级缓存存在的意义，可以通过重写该后置处理器对提前曝光的实例，在被提前引用时进行一些操作
+				 *
+				 *  此时是该bean已经是代理对象了，但是此时第一次创建bean还处于正在创建的情况下，他还没有进行属性的注入
+				 *  他依然是对原始bean进行属性的注入，why？
+				 *  因为代理bean中保存着原始bean的地址，对原始bean进行注入即对代理bean进行注入，
+				 *  但是最后注入单例池的依旧是代理bean，why?
+				 *  这是因为AbstractAutoProxyCreator这个后置处理器在想要对原始bean进行AOP时，他先从缓存池拿，
+				 *  结果发现已经成功进行AOP代理了，这时候直接返回代理bean，也就完成了原始bean ->  代理bean 替换
+				 */
+				singletonObject = singletonFactory.getObject();
+				//将二级缓存生产的bean放入三级缓存中
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				//删除二级缓存中的该bean
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
+	 * <p>If the creation in the current thread runs into a creation in another
+	 * thread that waits for the current thread in turn, the outermost creation
+	 * in the current thread is abandoned and retried once the other thread has
+	 * completed its singleton, as if both had been created in a single thread.
 	 *
 	 * @param beanName         the name of the bean
 	 * @param singletonFactory the ObjectFactory to lazily create the singleton
@@ -277,9 +322,43 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		synchronized (this.singletonObjects) {
-			//尝试从spring单例池中获取bean , 这肯定是获取不到的，严谨！！！！
-			Object singletonObject = this.singletonObjects.get(beanName);
+		//尝试从spring单例池中获取bean
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		if (isHoldingCreationLock()) {
+			return doGetSingleton(beanName, singletonFactory);
+		}
+		while (true) {
+			try {
+				return doGetSingleton(beanName, singletonFactory);
+			}
+			catch (BeanCreationException ex) {
+				SingletonCreationBackoffException backoff = findCreationBackoff(ex);
+				if (backoff == null) {
+					throw ex;
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Retrying creation of singleton bean '" + beanName +
+							"' after backing off from a circular wait on '" + backoff.getBeanName() + "'");
+				}
+				backoff.awaitRelease();
+			}
+		}
+	}
+
+	/**
+	 * Create and register the given singleton unless another thread did so
+	 * in the meantime, holding the creation lock of the singleton.
+	 */
+	private Object doGetSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		Object singletonObject;
+		SingletonCreationLock lock = acquireCreationLock(beanName, true);
+		Assert.state(lock != null, "No creation lock");
+		try {
+			//再次从spring单例池中获取bean，其他线程可能已经创建完成
+			singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
 				//判断是否是在正在被销毁的集合中
 				if (this.singletonsCurrentlyInDestruction) {
@@ -293,9 +372,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				//该方法就是把当前bd添加进正在创建bean的set集合中去
 				beforeSingletonCreation(beanName);
 				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+					this.suppressedExceptions.set(new LinkedHashSet<>());
 				}
 				try {
 					//这个方法就是执行 creatbean() 因为 lamdba表达式覆写了该方法
@@ -309,15 +388,19 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 						throw ex;
 					}
 				} catch (BeanCreationException ex) {
+					if (findCreationBackoff(ex) != null) {
+						// Abandoned for a retry: no early references to this instance must remain
+						removeSingleton(beanName);
+					}
 					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
+						for (Exception suppressedException : this.suppressedExceptions.get()) {
 							ex.addRelatedCause(suppressedException);
 						}
 					}
 					throw ex;
 				} finally {
 					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+						this.suppressedExceptions.remove();
 					}
 					afterSingletonCreation(beanName);
 				}
@@ -333,7 +416,170 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 			}
 			return singletonObject;
+		} finally {
+			releaseCreationLock(beanName, lock);
+		}
+	}
+
+	/**
+	 * Acquire the creation lock for the given singleton, waiting for a creation in
+	 * progress in another thread unless that thread (transitively) waits for the
+	 * current thread.
+	 * <p>Locks are discarded on their final release by the holder; threads that
+	 * were waiting for a discarded lock try again with the current one, so that
+	 * a singleton is never created by two threads at once.
+	 *
+	 * @param beanName the name of the singleton
+	 * @param backOff  whether to back off from a cycle of waiting threads through
+	 *                 an exception, rather than returning {@code null}
+	 * @return the acquired lock, or {@code null} if {@code backOff} is {@code false}
+	 * and waiting would close a cycle of threads waiting for each other
+	 * @throws BeanCurrentlyInCreationException if {@code backOff} is {@code true}
+	 *                                          and waiting would close such a cycle,
+	 *                                          to be retried by {@link #getSingleton(String, ObjectFactory)}
+	 */
+	@Nullable
+	private SingletonCreationLock acquireCreationLock(String beanName, boolean backOff) {
+		while (true) {
+			SingletonCreationLock lock =
+					this.singletonCreationLocks.computeIfAbsent(beanName, name -> new SingletonCreationLock());
+			if (!lock.tryLock()) {
+				Thread currentThread = Thread.currentThread();
+				// Register before checking: of two threads closing a cycle, the later one sees it
+				this.singletonCreationWaiters.put(currentThread, lock);
+				try {
+					if (isWaitingForCurrentThread(lock)) {
+						if (!backOff) {
+							return null;
+						}
+						throw new SingletonCreationBackoffException(beanName, lock);
+					}
+					lock.lock();
+				}
+				finally {
+					this.singletonCreationWaiters.remove(currentThread);
+				}
+			}
+			if (this.singletonCreationLocks.get(beanName) == lock) {
+				return lock;
+			}
+			// Discarded by its previous holder in the meantime
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the given creation lock, discarding it if released for the last time.
+	 *
+	 * @param beanName the name of the singleton
+	 * @param lock     the creation lock held by the current thread
+	 */
+	private void releaseCreationLock(String beanName, SingletonCreationLock lock) {
+		if (lock.getHoldCount() == 1) {
+			this.singletonCreationLocks.remove(beanName, lock);
+		}
+		lock.unlock();
+	}
+
+	/**
+	 * Determine whether the current thread holds any creation lock.
+	 */
+	private boolean isHoldingCreationLock() {
+		for (SingletonCreationLock lock : this.singletonCreationLocks.values()) {
+			if (lock.isHeldByCurrentThread()) {
+				return true;
+			}
 		}
+		return false;
+	}
+
+	/**
+	 * Find the back-off from a cycle of waiting threads in the causes of the given exception.
+	 */
+	@Nullable
+	private static SingletonCreationBackoffException findCreationBackoff(Throwable ex) {
+		Throwable cause = ex;
+		while (cause != null) {
+			if (cause instanceof SingletonCreationBackoffException) {
+				return (SingletonCreationBackoffException) cause;
+			}
+			cause = (cause.getCause() != cause ? cause.getCause() : null);
+		}
+		return null;
+	}
+
+	/**
+	 * Determine whether the owner of the given lock waits, directly or through
+	 * other threads, for a creation lock held by the current thread.
+	 *
+	 * @param lock the creation lock that the current thread is about to wait for
+	 */
+	private boolean isWaitingForCurrentThread(SingletonCreationLock lock) {
+		Thread currentThread = Thread.currentThread();
+		Set<Thread> visited = new HashSet<>();
+		Thread owner = lock.getOwnerThread();
+		while (owner != null && visited.add(owner)) {
+			if (owner == currentThread) {
+				return true;
+			}
+			SingletonCreationLock awaited = this.singletonCreationWaiters.get(owner);
+			owner = (awaited != null ? awaited.getOwnerThread() : null);
+		}
+		return false;
+	}
+
+	/**
+	 * Acquire the creation lock for the given singleton, e.g. for obtaining the
+	 * object exposed by a singleton FactoryBean, waiting for a creation in
+	 * progress in another thread.
+	 *
+	 * @param beanName the name of the singleton
+	 * @throws BeanCurrentlyInCreationException if the other thread waits for the
+	 *                                          current thread in turn, backing off
+	 *                                          to an enclosing singleton creation
+	 * @see #unlockSingletonCreation
+	 * @since 5.0.5
+	 */
+	protected void lockSingletonCreation(String beanName) {
+		acquireCreationLock(beanName, true);
+	}
+
+	/**
+	 * Try to acquire the creation lock for the given singleton, e.g. for creating
+	 * a partial instance outside of the regular singleton creation, waiting for a
+	 * creation in progress in another thread unless that thread waits for the
+	 * current thread in turn.
+	 *
+	 * @param beanName the name of the singleton
+	 * @return {@code true} if the lock has been acquired, to be released through
+	 * {@link #unlockSingletonCreation}; {@code false} if another thread is creating
+	 * the singleton while waiting for the current thread
+	 * @since 5.0.5
+	 */
+	protected boolean tryLockSingletonCreation(String beanName) {
+		return (acquireCreationLock(beanName, false) != null);
+	}
+
+	/**
+	 * Release the creation lock for the given singleton.
+	 *
+	 * @param beanName the name of the singleton
+	 * @see #lockSingletonCreation
+	 * @see #tryLockSingletonCreation
+	 * @since 5.0.5
+	 */
+	protected void unlockSingletonCreation(String beanName) {
+		SingletonCreationLock lock = this.singletonCreationLocks.get(beanName);
+		Assert.state(lock != null && lock.isHeldByCurrentThread(),
+				() -> "Singleton creation lock for '" + beanName + "' not held by current thread");
+		releaseCreationLock(beanName, lock);
+	}
+
+	/**
+	 * Discard the creation lock for the given singleton unless it is in use.
+	 */
+	private void discardCreationLock(String beanName) {
+		this.singletonCreationLocks.computeIfPresent(beanName, (name, lock) -> (lock.isLocked() ? lock : null));
 	}
 
 	/**
@@ -343,10 +589,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -358,12 +603,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #getSingletonMutex()
 	 */
 	protected void removeSingleton(String beanName) {
-		synchronized (this.singletonObjects) {
-			this.singletonObjects.remove(beanName);
-			this.singletonFactories.remove(beanName);
-			this.earlySingletonObjects.remove(beanName);
-			this.registeredSingletons.remove(beanName);
-		}
+		this.singletonObjects.remove(beanName);
+		this.singletonFactories.remove(beanName);
+		this.earlySingletonObjects.remove(beanName);
+		this.registeredSingletons.remove(beanName);
+		discardCreationLock(beanName);
 	}
 
 	@Override
@@ -373,16 +617,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	@Override
 	public String[] getSingletonNames() {
-		synchronized (this.singletonObjects) {
+		synchronized (this.registeredSingletons) {
 			return StringUtils.toStringArray(this.registeredSingletons);
 		}
 	}
 
 	@Override
 	public int getSingletonCount() {
-		synchronized (this.singletonObjects) {
-			return this.registeredSingletons.size();
-		}
+		return this.registeredSingletons.size();
 	}
 
 
@@ -620,6 +862,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
+			for (String beanName : this.singletonCreationLocks.keySet()) {
+				discardCreationLock(beanName);
+			}
 			this.singletonsCurrentlyInDestruction = false;
 		}
 	}
@@ -701,9 +946,53 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * any sort of extended singleton creation phase. In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>As of 5.0.5, the creation of a singleton is guarded by a lock per bean
+	 * name instead of this mutex. Code holding this mutex must therefore not
+	 * wait for singletons that other threads are creating, since those threads
+	 * may need the mutex in turn.
 	 */
 	public final Object getSingletonMutex() {
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Exception thrown by a thread that would close a cycle of threads waiting for
+	 * each other's singletons, abandoning its outermost singleton creation.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationBackoffException extends BeanCurrentlyInCreationException {
+
+		private final transient SingletonCreationLock lock;
+
+		SingletonCreationBackoffException(String beanName, SingletonCreationLock lock) {
+			super(beanName, "Requested bean is currently in creation in another thread which is waiting " +
+					"for the current thread: Is there an unresolvable circular reference between beans " +
+					"created concurrently?");
+			this.lock = lock;
+		}
+
+		/**
+		 * Wait until the other thread has released the creation lock of the requested bean.
+		 */
+		void awaitRelease() {
+			this.lock.lock();
+			this.lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Creation lock for a singleton, exposing its owner thread for the detection
+	 * of threads that wait for each other's singletons.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		@Nullable
+		Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
 }
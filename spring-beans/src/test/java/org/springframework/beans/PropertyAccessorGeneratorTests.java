@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PropertyAccessorGenerator}.
+ *
+ * @since 5.0.5
+ */
+public class PropertyAccessorGeneratorTests {
+
+	@Test
+	public void readAndWriteProperties() throws Throwable {
+		GeneratedPropertyAccessor accessor = generate(SampleBean.class);
+		SampleBean bean = new SampleBean();
+
+		accessor.setValue(bean, writeIndex(accessor, SampleBean.class, "name"), "Juergen");
+		accessor.setValue(bean, writeIndex(accessor, SampleBean.class, "age"), 42);
+		accessor.setValue(bean, writeIndex(accessor, SampleBean.class, "weight"), 1.5d);
+		accessor.setValue(bean, writeIndex(accessor, SampleBean.class, "tags"), new String[] {"a", "b"});
+		accessor.setValue(bean, writeIndex(accessor, SampleBean.class, "spouse"), new TestBean("Rod"));
+		accessor.setValue(bean, writeIndex(accessor, SampleBean.class, "value"), 'x');
+
+		assertEquals("Juergen", accessor.getValue(bean, readIndex(accessor, SampleBean.class, "name")));
+		assertEquals(42, accessor.getValue(bean, readIndex(accessor, SampleBean.class, "age")));
+		assertEquals(1.5d, accessor.getValue(bean, readIndex(accessor, SampleBean.class, "weight")));
+		assertArrayEquals(new String[] {"a", "b"},
+				(String[]) accessor.getValue(bean, readIndex(accessor, SampleBean.class, "tags")));
+		assertEquals("Rod", ((TestBean) accessor.getValue(bean, readIndex(accessor, SampleBean.class, "spouse"))).getName());
+		assertEquals('x', accessor.getValue(bean, readIndex(accessor, SampleBean.class, "value")));
+		assertEquals(Boolean.TRUE, accessor.getValue(bean, readIndex(accessor, SampleBean.class, "active")));
+		assertEquals(-1, writeIndex(accessor, SampleBean.class, "active"));
+	}
+
+	@Test
+	public void assignableValues() {
+		GeneratedPropertyAccessor accessor = generate(SampleBean.class);
+		int ageIndex = writeIndex(accessor, SampleBean.class, "age");
+		assertTrue(accessor.isAssignableValue(ageIndex, 1));
+		assertFalse(accessor.isAssignableValue(ageIndex, (short) 1));
+		assertFalse(accessor.isAssignableValue(ageIndex, null));
+		int nameIndex = writeIndex(accessor, SampleBean.class, "name");
+		assertTrue(accessor.isAssignableValue(nameIndex, null));
+		assertFalse(accessor.isAssignableValue(nameIndex, 1));
+	}
+
+	@Test
+	public void exceptionFromAccessorMethod() throws Throwable {
+		GeneratedPropertyAccessor accessor = generate(SampleBean.class);
+		try {
+			accessor.setValue(new SampleBean(), writeIndex(accessor, SampleBean.class, "age"), -1);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			assertEquals("negative age", ex.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownIndex() throws Throwable {
+		GeneratedPropertyAccessor accessor = generate(SampleBean.class);
+		accessor.getValue(new SampleBean(), writeIndex(accessor, SampleBean.class, "name"));
+	}
+
+	@Test
+	public void nonPublicPropertyTypeLeftToReflection() throws Throwable {
+		GeneratedPropertyAccessor accessor = generate(HiddenTypeBean.class);
+		assertEquals(-1, readIndex(accessor, HiddenTypeBean.class, "hidden"));
+		assertEquals(-1, writeIndex(accessor, HiddenTypeBean.class, "hidden"));
+		HiddenTypeBean bean = new HiddenTypeBean();
+		accessor.setValue(bean, writeIndex(accessor, HiddenTypeBean.class, "name"), "Sam");
+		assertEquals("Sam", bean.getName());
+	}
+
+	@Test
+	public void nonPublicBeanClass() {
+		assertNull(PropertyAccessorGenerator.generate(PackagePrivateBean.class,
+				Arrays.asList(BeanUtils.getPropertyDescriptors(PackagePrivateBean.class))));
+	}
+
+
+	private static GeneratedPropertyAccessor generate(Class<?> beanClass) {
+		GeneratedPropertyAccessor accessor = PropertyAccessorGenerator.generate(
+				beanClass, Arrays.asList(BeanUtils.getPropertyDescriptors(beanClass)));
+		assertNotNull(accessor);
+		assertEquals(beanClass.getName() + PropertyAccessorGenerator.CLASS_NAME_SUFFIX,
+				accessor.getClass().getName());
+		return accessor;
+	}
+
+	private static int readIndex(GeneratedPropertyAccessor accessor, Class<?> beanClass, String name) {
+		return accessor.getMethodIndex(getPropertyDescriptor(beanClass, name).getReadMethod());
+	}
+
+	private static int writeIndex(GeneratedPropertyAccessor accessor, Class<?> beanClass, String name) {
+		return accessor.getMethodIndex(getPropertyDescriptor(beanClass, name).getWriteMethod());
+	}
+
+	private static PropertyDescriptor getPropertyDescriptor(Class<?> beanClass, String name) {
+		PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(beanClass, name);
+		assertNotNull(pd);
+		return pd;
+	}
+
+
+	public static class SampleBean {
+
+		private String name;
+
+		private int age;
+
+		private double weight;
+
+		private String[] tags;
+
+		private TestBean spouse;
+
+		private char value;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			if (age < 0) {
+				throw new IllegalArgumentException("negative age");
+			}
+			this.age = age;
+		}
+
+		public double getWeight() {
+			return this.weight;
+		}
+
+		public void setWeight(double weight) {
+			this.weight = weight;
+		}
+
+		public String[] getTags() {
+			return this.tags;
+		}
+
+		public void setTags(String[] tags) {
+			this.tags = tags;
+		}
+
+		public TestBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(TestBean spouse) {
+			this.spouse = spouse;
+		}
+
+		public char getValue() {
+			return this.value;
+		}
+
+		public void setValue(char value) {
+			this.value = value;
+		}
+
+		public boolean isActive() {
+			return true;
+		}
+	}
+
+
+	public static class HiddenTypeBean {
+
+		private String name;
+
+		private Hidden hidden;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public Hidden getHidden() {
+			return this.hidden;
+		}
+
+		public void setHidden(Hidden hidden) {
+			this.hidden = hidden;
+		}
+	}
+
+
+	private static class Hidden {
+	}
+
+
+	static class PackagePrivateBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -56,6 +56,7 @@ import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.beans.factory.config.BeanExpressionResolver;
 import org.springframework.beans.factory.config.BeanPostProcessor;
@@ -1407,6 +1408,106 @@ public class DefaultListableBeanFactoryTests {
 		}
 	}
 
+	@Test
+	public void testParallelPreInstantiation() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 50; i += 2) {
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("tb" + (i + 1)));
+			lbf.registerBeanDefinition("tb" + i, bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb" + i));
+			if (i == 2) {
+				bd2.setDependsOn("tb1");
+			}
+			lbf.registerBeanDefinition("tb" + (i + 1), bd2);
+		}
+		RootBeanDefinition lazy = new RootBeanDefinition(TestBean.class);
+		lazy.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", lazy);
+		lbf.registerBeanDefinition("eager", new RootBeanDefinition(EagerInitFactory.class));
+		lbf.preInstantiateSingletons();
+
+		for (int i = 0; i < 50; i += 2) {
+			TestBean tb1 = (TestBean) lbf.getSingleton("tb" + i);
+			TestBean tb2 = (TestBean) lbf.getSingleton("tb" + (i + 1));
+			assertNotNull(tb1);
+			assertNotNull(tb2);
+			assertSame(tb2, tb1.getSpouse());
+			assertSame(tb1, tb2.getSpouse());
+		}
+		assertThat(Arrays.asList(lbf.getDependentBeans("tb1")), hasItem("tb3"));
+		assertFalse(lbf.containsSingleton("lazy"));
+		assertTrue(((EagerInitFactory) lbf.getBean("&eager")).initialized);
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithNestedReferences() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 20; i += 2) {
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			ManagedList<Object> friends = new ManagedList<>();
+			RootBeanDefinition inner = new RootBeanDefinition(TestBean.class);
+			inner.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("tb" + (i + 1)));
+			friends.add(new BeanDefinitionHolder(inner, "inner" + i));
+			bd1.getPropertyValues().add("friends", friends);
+			lbf.registerBeanDefinition("tb" + i, bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb" + i));
+			lbf.registerBeanDefinition("tb" + (i + 1), bd2);
+		}
+		lbf.preInstantiateSingletons();
+
+		for (int i = 0; i < 20; i += 2) {
+			TestBean tb1 = (TestBean) lbf.getSingleton("tb" + i);
+			TestBean tb2 = (TestBean) lbf.getSingleton("tb" + (i + 1));
+			assertSame(tb1, tb2.getSpouse());
+			assertSame(tb2, ((TestBean) tb1.getFriends().iterator().next()).getSpouse());
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFailure() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 10; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setInitMethodName("nonExistingInitMethod");
+		lbf.registerBeanDefinition("broken", bd);
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+			assertEquals("broken", ex.getBeanName());
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithDependsOnCycle() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(2);
+		RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+		bd1.setDependsOn("tb2");
+		lbf.registerBeanDefinition("tb1", bd1);
+		RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+		bd2.setDependsOn("tb1");
+		lbf.registerBeanDefinition("tb2", bd2);
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+			assertTrue(ex.getMessage().contains("Circular"));
+		}
+	}
+
 	@Test(expected = NoSuchBeanDefinitionException.class)
 	public void testGetBeanByTypeWithNoneFound() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
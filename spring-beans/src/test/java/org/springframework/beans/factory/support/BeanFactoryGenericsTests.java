@@ -820,6 +820,44 @@ public class BeanFactoryGenericsTests {
 		assertEquals("store2", floatStoreNames[0]);
 	}
 
+	@Test
+	public void testGenericBeanNamesCachedAfterConfigurationFrozen() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerBeanDefinition("store1", new RootBeanDefinition(DoubleStore.class));
+		bf.registerBeanDefinition("store2", new RootBeanDefinition(FloatStore.class));
+		bf.freezeConfiguration();
+
+		ResolvableType doubleStoreType = ResolvableType.forClassWithGenerics(NumberStore.class, Double.class);
+		ResolvableType floatStoreType = ResolvableType.forClassWithGenerics(NumberStore.class, Float.class);
+		String[] doubleStoreNames = bf.getBeanNamesForType(doubleStoreType);
+		String[] floatStoreNames = bf.getBeanNamesForType(floatStoreType);
+		assertArrayEquals(new String[] {"store1"}, doubleStoreNames);
+		assertArrayEquals(new String[] {"store2"}, floatStoreNames);
+		assertSame(doubleStoreNames, bf.getBeanNamesForType(doubleStoreType));
+
+		// Unrelated bean: by-type mappings remain in place
+		bf.registerBeanDefinition("testBean", new RootBeanDefinition(TestBean.class));
+		assertSame(doubleStoreNames, bf.getBeanNamesForType(doubleStoreType));
+
+		// New matching bean: affected by-type mappings get recomputed
+		bf.registerBeanDefinition("store3", new RootBeanDefinition(DoubleStore.class));
+		assertArrayEquals(new String[] {"store1", "store3"}, bf.getBeanNamesForType(doubleStoreType));
+
+		// Removed bean: mappings containing it get recomputed
+		bf.removeBeanDefinition("store2");
+		assertEquals(0, bf.getBeanNamesForType(floatStoreType).length);
+		assertArrayEquals(new String[] {"store1", "store3"}, bf.getBeanNamesForType(doubleStoreType));
+
+		// Bean with a factory method: its type is unknown upfront
+		RootBeanDefinition factoryMethodDefinition = new RootBeanDefinition(BeanFactoryGenericsTests.class);
+		factoryMethodDefinition.setFactoryMethodName("createFloatStore");
+		bf.registerBeanDefinition("store4", factoryMethodDefinition);
+		assertArrayEquals(new String[] {"store4"}, bf.getBeanNamesForType(floatStoreType));
+
+		bf.registerSingleton("store5", new FloatStore());
+		assertArrayEquals(new String[] {"store4", "store5"}, bf.getBeanNamesForType(floatStoreType));
+	}
+
 
 	@SuppressWarnings("serial")
 	public static class NamedUrlList extends LinkedList<URL> {
@@ -883,6 +921,11 @@ public class BeanFactoryGenericsTests {
 	}
 
 
+	public static NumberStore<Float> createFloatStore() {
+		return new FloatStore();
+	}
+
+
 	public static class NumberStore<T extends Number> {
 	}
 
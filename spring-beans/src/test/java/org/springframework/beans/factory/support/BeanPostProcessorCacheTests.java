@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the per-callback {@code BeanPostProcessorCache} of {@link AbstractBeanFactory}.
+ */
+public class BeanPostProcessorCacheTests {
+
+	@Test
+	public void onlyImplementedCallbacksAreCached() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		BeanPostProcessor noOp = new BeanPostProcessor() {};
+		AfterInitializationPostProcessor afterInitialization = new AfterInitializationPostProcessor();
+		PropertyValuesPostProcessor propertyValues = new PropertyValuesPostProcessor();
+		bf.addBeanPostProcessor(noOp);
+		bf.addBeanPostProcessor(afterInitialization);
+		bf.addBeanPostProcessor(propertyValues);
+
+		AbstractBeanFactory.BeanPostProcessorCache cache = bf.getBeanPostProcessorCache();
+		assertEquals(Collections.emptyList(), cache.beforeInitialization);
+		assertEquals(Collections.singletonList(afterInitialization), cache.afterInitialization);
+		assertEquals(Collections.singletonList(propertyValues), cache.propertyValues);
+		assertEquals(Collections.emptyList(), cache.beforeInstantiation);
+		assertEquals(Collections.emptyList(), cache.afterInstantiation);
+		assertEquals(Collections.emptyList(), cache.earlyBeanReference);
+		assertSame(cache, bf.getBeanPostProcessorCache());
+
+		bf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		TestBean tb = (TestBean) bf.getBean("tb");
+		assertEquals("processed", tb.getName());
+		assertEquals(1, propertyValues.invocations);
+	}
+
+	@Test
+	public void cacheIsResetWhenPostProcessorsChange() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		AbstractBeanFactory.BeanPostProcessorCache cache = bf.getBeanPostProcessorCache();
+		assertTrue(cache.afterInitialization.isEmpty());
+
+		AfterInitializationPostProcessor afterInitialization = new AfterInitializationPostProcessor();
+		bf.addBeanPostProcessor(afterInitialization);
+		cache = bf.getBeanPostProcessorCache();
+		assertEquals(Collections.singletonList(afterInitialization), cache.afterInitialization);
+
+		Iterator<BeanPostProcessor> it = bf.getBeanPostProcessors().iterator();
+		it.next();
+		it.remove();
+		assertTrue(bf.getBeanPostProcessorCache().afterInitialization.isEmpty());
+	}
+
+	@Test
+	public void cacheIsResetWhenPostProcessorsChangeThroughSubList() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		AfterInitializationPostProcessor afterInitialization = new AfterInitializationPostProcessor();
+		PropertyValuesPostProcessor propertyValues = new PropertyValuesPostProcessor();
+		bf.addBeanPostProcessor(afterInitialization);
+		bf.addBeanPostProcessor(propertyValues);
+		assertEquals(Collections.singletonList(afterInitialization), bf.getBeanPostProcessorCache().afterInitialization);
+
+		bf.getBeanPostProcessors().subList(0, 1).clear();
+		assertTrue(bf.getBeanPostProcessorCache().afterInitialization.isEmpty());
+		assertEquals(Collections.singletonList(propertyValues), bf.getBeanPostProcessorCache().propertyValues);
+	}
+
+
+	private static class AfterInitializationPostProcessor implements BeanPostProcessor {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (bean instanceof TestBean) {
+				((TestBean) bean).setName("processed");
+			}
+			return bean;
+		}
+	}
+
+
+	private static class PropertyValuesPostProcessor extends InstantiationAwareBeanPostProcessorAdapter {
+
+		private int invocations;
+
+		@Override
+		public PropertyValues postProcessPropertyValues(
+				PropertyValues pvs, PropertyDescriptor[] pds, Object bean, String beanName) {
+
+			this.invocations++;
+			return pvs;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,19 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
@@ -101,4 +111,227 @@ public class DefaultSingletonBeanRegistryTests {
 		assertTrue(beanRegistry.isDependent("c", "c"));
 	}
 
+	@Test
+	public void testConcurrentCreationOfDifferentSingletons() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch creatingA = new CountDownLatch(1);
+		CountDownLatch createdB = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> a = executor.submit(() -> beanRegistry.getSingleton("a", () -> {
+				creatingA.countDown();
+				try {
+					assertTrue(createdB.await(10, TimeUnit.SECONDS));
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return new TestBean("a");
+			}));
+			assertTrue(creatingA.await(10, TimeUnit.SECONDS));
+			// Not blocked by the creation of "a" in progress
+			Object b = beanRegistry.getSingleton("b", () -> new TestBean("b"));
+			createdB.countDown();
+			assertSame(b, beanRegistry.getSingleton("b"));
+			assertSame(a.get(10, TimeUnit.SECONDS), beanRegistry.getSingleton("a"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentCreationOfSameSingleton() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		AtomicInteger creations = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<?>[] results = new Future<?>[8];
+			for (int i = 0; i < results.length; i++) {
+				results[i] = executor.submit(() -> {
+					start.await();
+					return beanRegistry.getSingleton("tb", () -> {
+						creations.incrementAndGet();
+						return new TestBean();
+					});
+				});
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				Object singleton = result.get(10, TimeUnit.SECONDS);
+				assertSame(beanRegistry.getSingleton("tb"), singleton);
+			}
+			assertEquals(1, creations.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCircularReferenceBetweenSingletonsCreatedConcurrently() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch exposed = new CountDownLatch(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> a = executor.submit(() -> createWithSpouse(beanRegistry, "a", "b", exposed));
+			Future<Object> b = executor.submit(() -> createWithSpouse(beanRegistry, "b", "a", exposed));
+			// No deadlock: the thread closing the cycle backs off and retries
+			TestBean tbA = (TestBean) a.get(10, TimeUnit.SECONDS);
+			TestBean tbB = (TestBean) b.get(10, TimeUnit.SECONDS);
+			assertSame(tbA, beanRegistry.getSingleton("a"));
+			assertSame(tbB, beanRegistry.getSingleton("b"));
+			assertSame(tbB, tbA.getSpouse());
+			assertSame(tbA, tbB.getSpouse());
+			assertTrue(creationLocks(beanRegistry).isEmpty());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testLockingWaitsForCreationInOtherThread() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch creating = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Future<Object> a = executor.submit(() -> beanRegistry.getSingleton("a", () -> {
+				creating.countDown();
+				try {
+					assertTrue(proceed.await(10, TimeUnit.SECONDS));
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return new TestBean("a");
+			}));
+			assertTrue(creating.await(10, TimeUnit.SECONDS));
+			Future<Object> locked = executor.submit(() -> {
+				assertTrue(beanRegistry.tryLockSingletonCreation("a"));
+				try {
+					return beanRegistry.getSingleton("a");
+				}
+				finally {
+					beanRegistry.unlockSingletonCreation("a");
+				}
+			});
+			Future<?> registered = executor.submit(() -> beanRegistry.registerSingleton("a", new TestBean()));
+			Thread.sleep(100);
+			assertFalse(locked.isDone());
+			assertFalse(registered.isDone());
+			proceed.countDown();
+
+			Object singleton = a.get(10, TimeUnit.SECONDS);
+			assertSame(singleton, locked.get(10, TimeUnit.SECONDS));
+			try {
+				registered.get(10, TimeUnit.SECONDS);
+				fail("Should have thrown IllegalStateException");
+			}
+			catch (ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof IllegalStateException);
+			}
+			assertSame(singleton, beanRegistry.getSingleton("a"));
+			assertTrue(creationLocks(beanRegistry).isEmpty());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCreationLocksDiscardedAfterCreation() {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.getSingleton("tb", () -> {
+			assertTrue(creationLocks(beanRegistry).containsKey("tb"));
+			return new TestBean();
+		});
+		assertTrue(creationLocks(beanRegistry).isEmpty());
+
+		try {
+			beanRegistry.getSingleton("failing", () -> {
+				throw new IllegalStateException("failed");
+			});
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(creationLocks(beanRegistry).isEmpty());
+		}
+
+		assertTrue(beanRegistry.tryLockSingletonCreation("tb2"));
+		beanRegistry.destroySingletons();
+		assertTrue(creationLocks(beanRegistry).containsKey("tb2"));
+		beanRegistry.unlockSingletonCreation("tb2");
+		assertTrue(creationLocks(beanRegistry).isEmpty());
+	}
+
+	@Test
+	public void testSingletonMutexHeldWhileWaitingForCreation() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		Thread currentThread = Thread.currentThread();
+		CountDownLatch creatingA = new CountDownLatch(1);
+		CountDownLatch mutexEntered = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> a = executor.submit(() -> beanRegistry.getSingleton("a", () -> {
+				creatingA.countDown();
+				try {
+					while (currentThread.getState() != Thread.State.WAITING) {
+						Thread.sleep(10);
+					}
+					executor.submit(() -> {
+						synchronized (beanRegistry.getSingletonMutex()) {
+							mutexEntered.countDown();
+						}
+					});
+					// The waiting thread still holds the singleton mutex
+					assertFalse(mutexEntered.await(100, TimeUnit.MILLISECONDS));
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return new TestBean("a");
+			}));
+			assertTrue(creatingA.await(10, TimeUnit.SECONDS));
+			Object singleton;
+			synchronized (beanRegistry.getSingletonMutex()) {
+				singleton = beanRegistry.getSingleton("a", TestBean::new);
+			}
+			assertSame(a.get(10, TimeUnit.SECONDS), singleton);
+			assertTrue(mutexEntered.await(10, TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, ?> creationLocks(DefaultSingletonBeanRegistry beanRegistry) {
+		return (Map<String, ?>) new DirectFieldAccessor(beanRegistry).getPropertyValue("singletonCreationLocks");
+	}
+
+	private static Object createWithSpouse(DefaultSingletonBeanRegistry beanRegistry,
+			String beanName, String spouseName, CountDownLatch exposed) {
+
+		Object singleton = beanRegistry.getSingleton(beanName);
+		if (singleton != null) {
+			return singleton;
+		}
+		return beanRegistry.getSingleton(beanName, () -> {
+			TestBean tb = new TestBean(beanName);
+			beanRegistry.addSingletonFactory(beanName, () -> tb);
+			exposed.countDown();
+			try {
+				assertTrue(exposed.await(10, TimeUnit.SECONDS));
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			tb.setSpouse((TestBean) createWithSpouse(beanRegistry, spouseName, beanName, exposed));
+			return tb;
+		});
+	}
+
 }
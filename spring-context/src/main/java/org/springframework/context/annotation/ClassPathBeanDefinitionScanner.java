@@ -22,15 +22,18 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionDefaults;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.PatternMatchUtils;
@@ -178,6 +181,27 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 		return this.registry;
 	}
 
+	/**
+	 * Return the {@link ApplicationStartup} to record scanning steps with.
+	 * <p>Unless one has been set explicitly, the one of the underlying registry
+	 * is used, resolved on every scan so that it follows later changes.
+	 * @since 5.0.5
+	 */
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		ApplicationStartup applicationStartup = super.getApplicationStartup();
+		if (applicationStartup != ApplicationStartup.DEFAULT) {
+			return applicationStartup;
+		}
+		if (this.registry instanceof ConfigurableApplicationContext) {
+			return ((ConfigurableApplicationContext) this.registry).getApplicationStartup();
+		}
+		if (this.registry instanceof ConfigurableBeanFactory) {
+			return ((ConfigurableBeanFactory) this.registry).getApplicationStartup();
+		}
+		return applicationStartup;
+	}
+
 	/**
 	 * Set the defaults to use for detected beans.
 	 * @see BeanDefinitionDefaults
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,6 +45,8 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
@@ -113,6 +115,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -263,7 +267,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Override
 	public void setResourceLoader(@Nullable ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
-		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		this.metadataReaderFactory = ConfigurationClassUtils.applyPersistentMetadataCache(
+				new CachingMetadataReaderFactory(resourceLoader));
 		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
 	}
 
@@ -302,6 +307,25 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Set the {@link ApplicationStartup} that records a step for each scanned
+	 * base package.
+	 * <p>Default is {@link ApplicationStartup#DEFAULT}, i.e. no recording.
+	 * @since 5.0.5
+	 */
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	/**
+	 * Return the {@link ApplicationStartup} used by this component provider.
+	 * @since 5.0.5
+	 */
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 
 	/**
 	 * Scan the class path for candidate components.
@@ -309,11 +333,20 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * @return a corresponding Set of autodetected bean definitions
 	 */
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
-		if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
-			return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
+		StartupStep scan = getApplicationStartup().start("spring.context.component-classes.scan")
+				.tag("packageName", basePackage);
+		try {
+			if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
+				scan.tag("source", "index");
+				return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
+			}
+			else {
+				scan.tag("source", "classpath");
+				return scanCandidateComponents(basePackage);
+			}
 		}
-		else {
-			return scanCandidateComponents(basePackage);
+		finally {
+			scan.end();
 		}
 	}
 
@@ -131,6 +131,8 @@ class ConfigurationClassParser {
 
 	private final List<String> propertySourceNames = new ArrayList<>();
 
+	private final List<AnnotationAttributes> processedPropertySources = new ArrayList<>();
+
 	private final ImportStack importStack = new ImportStack();
 
 	@Nullable
@@ -493,7 +495,8 @@ class ConfigurationClassParser {
 	 * @param propertySource metadata for the <code>@PropertySource</code> annotation found
 	 * @throws IOException if loading a property source failed
 	 */
-	private void processPropertySource(AnnotationAttributes propertySource) throws IOException {
+	void processPropertySource(AnnotationAttributes propertySource) throws IOException {
+		this.processedPropertySources.add(propertySource);
 		String name = propertySource.getString("name");
 		if (!StringUtils.hasLength(name)) {
 			name = null;
@@ -722,6 +725,26 @@ class ConfigurationClassParser {
 		return this.importStack;
 	}
 
+	/**
+	 * Return the names of the classes that imported each imported class,
+	 * in registration order.
+	 *
+	 * @since 5.0.5
+	 */
+	MultiValueMap<String, String> getImportingClassNames() {
+		return this.importStack.getImportingClassNames();
+	}
+
+	/**
+	 * Return the attributes of all {@code @PropertySource} annotations
+	 * processed so far, in processing order.
+	 *
+	 * @since 5.0.5
+	 */
+	List<AnnotationAttributes> getProcessedPropertySources() {
+		return Collections.unmodifiableList(this.processedPropertySources);
+	}
+
 
 	/**
 	 * Factory method to obtain a {@link SourceClass} from a {@link ConfigurationClass}.
@@ -809,6 +832,16 @@ class ConfigurationClassParser {
 			}
 		}
 
+		public MultiValueMap<String, String> getImportingClassNames() {
+			MultiValueMap<String, String> result = new LinkedMultiValueMap<>(this.imports.size());
+			this.imports.forEach((importedClass, importingClasses) -> {
+				for (AnnotationMetadata importingClass : importingClasses) {
+					result.add(importedClass, importingClass.getClassName());
+				}
+			});
+			return result;
+		}
+
 		/**
 		 * Given a stack containing (in order)
 		 * <ul>
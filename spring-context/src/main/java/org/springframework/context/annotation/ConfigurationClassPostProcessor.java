@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -37,6 +38,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
@@ -57,6 +59,8 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
@@ -116,6 +120,9 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	@Nullable
 	private ConfigurationClassBeanDefinitionReader reader;
 
+	@Nullable
+	private BiConsumer<List<BeanDefinitionHolder>, ConfigurationClassParser> parseResultCallback;
+
 	private boolean localBeanNameGeneratorSet = false;
 
 	/* Using short class names as default bean names */
@@ -202,7 +209,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		Assert.notNull(resourceLoader, "ResourceLoader must not be null");
 		this.resourceLoader = resourceLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+			this.metadataReaderFactory = ConfigurationClassUtils.applyPersistentMetadataCache(
+					new CachingMetadataReaderFactory(resourceLoader));
 		}
 	}
 
@@ -210,7 +218,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	public void setBeanClassLoader(ClassLoader beanClassLoader) {
 		this.beanClassLoader = beanClassLoader;
 		if (!this.setMetadataReaderFactoryCalled) {
-			this.metadataReaderFactory = new CachingMetadataReaderFactory(beanClassLoader);
+			this.metadataReaderFactory = ConfigurationClassUtils.applyPersistentMetadataCache(
+					new CachingMetadataReaderFactory(beanClassLoader));
 		}
 	}
 
@@ -269,6 +278,17 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		beanFactory.addBeanPostProcessor(new ImportAwareBeanPostProcessor(beanFactory));
 	}
 
+	/**
+	 * Register a callback for the outcome of parsing configuration classes,
+	 * as used for generating a {@link ConfigurationClassSnapshot}. Any existing
+	 * snapshot is ignored while a callback is registered.
+	 *
+	 * @since 5.0.5
+	 */
+	void setParseResultCallback(@Nullable BiConsumer<List<BeanDefinitionHolder>, ConfigurationClassParser> callback) {
+		this.parseResultCallback = callback;
+	}
+
 	/**
 	 * Build and validate a configuration model based on the registry of
 	 * {@link Configuration} classes.
@@ -347,6 +367,31 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 				this.metadataReaderFactory, this.problemReporter, this.environment,
 				this.resourceLoader, this.componentScanBeanNameGenerator, registry);
 
+		// Use the bean definitions precomputed at build time, if they were generated for these candidates
+		if (this.parseResultCallback == null) {
+			ConfigurationClassSnapshot snapshot = ConfigurationClassSnapshot.load(this.beanClassLoader);
+			if (snapshot != null) {
+				if (snapshot.matches(configCandidates, this.environment)) {
+					ImportRegistry importRegistry =
+							snapshot.apply(registry, parser, this.metadataReaderFactory, this.beanClassLoader);
+					if (importRegistry != null) {
+						if (sbr != null && !sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+							sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, importRegistry);
+						}
+						if (logger.isDebugEnabled()) {
+							logger.debug("Registered " + snapshot.getBeanDefinitionCount() +
+									" bean definitions from configuration class snapshot");
+						}
+						return;
+					}
+				}
+				else if (logger.isInfoEnabled()) {
+					logger.info("Ignoring configuration class snapshot [" + ConfigurationClassSnapshot.SNAPSHOT_LOCATION +
+							"]: it was generated for other configuration classes or profiles");
+				}
+			}
+		}
+
 		// 对扫描出来的配置类进行去重
 		Set<BeanDefinitionHolder> candidates = new LinkedHashSet<>(configCandidates);
 		// 装载已经处理过的配置类，
@@ -354,34 +399,42 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		/**
 		 * 循环解析
 		 */
+		ApplicationStartup applicationStartup = (registry instanceof ConfigurableBeanFactory ?
+				((ConfigurableBeanFactory) registry).getApplicationStartup() : ApplicationStartup.DEFAULT);
 		do {
-			//1.解析配置类，并放到 ConfigurationClassParser 这个对象中
-			parser.parse(candidates);
-			//主要校验配置类不能使用final修饰符（CGLIB代理是生成一个子类，因此原先的类不能使用final修饰）
-			parser.validate();
-
-			//存放没有扫描的所有配置类的集合（包括本次）
-			Set<ConfigurationClass> configClasses = new LinkedHashSet<>(parser.getConfigurationClasses());
-			//只保留本次扫描的配置类
-			configClasses.removeAll(alreadyParsed);
-
-			// Read the model and create bean definitions based on its content
-			//如果读取器为空 则创建一个  单例模式--懒汉式  用来把对象转换为bd
-			if (this.reader == null) {
-				this.reader = new ConfigurationClassBeanDefinitionReader(
-						registry, this.sourceExtractor, this.resourceLoader, this.environment,
-						this.importBeanNameGenerator, parser.getImportRegistry());
+			StartupStep processConfig = applicationStartup.start("spring.context.config-classes.parse");
+			try {
+				//1.解析配置类，并放到 ConfigurationClassParser 这个对象中
+				parser.parse(candidates);
+				//主要校验配置类不能使用final修饰符（CGLIB代理是生成一个子类，因此原先的类不能使用final修饰）
+				parser.validate();
+
+				//存放没有扫描的所有配置类的集合（包括本次）
+				Set<ConfigurationClass> configClasses = new LinkedHashSet<>(parser.getConfigurationClasses());
+				//只保留本次扫描的配置类
+				configClasses.removeAll(alreadyParsed);
+
+				// Read the model and create bean definitions based on its content
+				//如果读取器为空 则创建一个  单例模式--懒汉式  用来把对象转换为bd
+				if (this.reader == null) {
+					this.reader = new ConfigurationClassBeanDefinitionReader(
+							registry, this.sourceExtractor, this.resourceLoader, this.environment,
+							this.importBeanNameGenerator, parser.getImportRegistry());
+				}
+				/**
+				 * 这里值得注意的是扫描出来的bean当中可能包含了特殊类
+				 * 比如importBeanDefinitionRegister 也会在这个方法中处理
+				 * 但是她并不包含在 configClasses 中 它包含在其他中
+				 * 该集合中主要包含的是  import 的普通类 或者importSector中方法返回的普通类
+				 * 往beanDefinition的map中注入的是  @import  @bean   @importResources
+				 */
+				this.reader.loadBeanDefinitions(configClasses);
+				//本次配置类添加进集合
+				alreadyParsed.addAll(configClasses);
+				processConfig.tag("classCount", () -> String.valueOf(configClasses.size()));
+			} finally {
+				processConfig.end();
 			}
-			/**
-			 * 这里值得注意的是扫描出来的bean当中可能包含了特殊类
-			 * 比如importBeanDefinitionRegister 也会在这个方法中处理
-			 * 但是她并不包含在 configClasses 中 它包含在其他中
-			 * 该集合中主要包含的是  import 的普通类 或者importSector中方法返回的普通类
-			 * 往beanDefinition的map中注入的是  @import  @bean   @importResources
-			 */
-			this.reader.loadBeanDefinitions(configClasses);
-			//本次配置类添加进集合
-			alreadyParsed.addAll(configClasses);
 
 			//清空已处理的配置类
 			candidates.clear();
@@ -409,6 +462,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		//全部解析完成则跳出循环
 		while (!candidates.isEmpty());
 
+		if (this.parseResultCallback != null) {
+			this.parseResultCallback.accept(configCandidates, parser);
+		}
+
 		// Register the ImportRegistry as a bean in order to support ImportAware @Configuration classes
 		if (sbr != null) {
 			if (!sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
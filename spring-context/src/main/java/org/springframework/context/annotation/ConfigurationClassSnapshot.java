@@ -0,0 +1,688 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.aop.scope.ScopedProxyFactoryBean;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.support.PropertySourceFactory;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Precomputed outcome of {@link ConfigurationClassPostProcessor} for a given set
+ * of configuration classes: the bean definitions registered while parsing them,
+ * the {@code @PropertySource} declarations encountered and the import graph
+ * needed for {@link ImportAware} support.
+ *
+ * <p>A snapshot is generated at build time by {@link ConfigurationClassSnapshotGenerator}
+ * and stored in {@value #SNAPSHOT_LOCATION}. At startup, the post-processor registers
+ * the recorded bean definitions instead of parsing the configuration classes, provided
+ * that the configuration classes found in the registry and the active profiles are
+ * the same as at build time. Conditions are therefore evaluated once, when generating
+ * the snapshot; conditions that depend on anything else than the active profiles are
+ * not re-evaluated at startup.
+ *
+ * <p>The use of a snapshot needs to be enabled by setting the
+ * {@value #ENABLE_SNAPSHOT_PROPERTY_NAME} system property to {@code true}.
+ * A snapshot that cannot be read, that does not match the current configuration
+ * classes and profiles or that refers to classes that cannot be loaded is ignored.
+ *
+ * @since 5.0.5
+ * @see ConfigurationClassSnapshotGenerator
+ */
+final class ConfigurationClassSnapshot {
+
+	/**
+	 * The location of the snapshot file in the classpath.
+	 */
+	static final String SNAPSHOT_LOCATION = "META-INF/spring.bean-definitions";
+
+	/**
+	 * System property that instructs Spring to use the snapshot, if any,
+	 * instead of parsing configuration classes at startup.
+	 */
+	static final String ENABLE_SNAPSHOT_PROPERTY_NAME = "spring.bean-definitions.enabled";
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 1;
+
+	private static final byte PROXY_NONE = 0;
+
+	private static final byte PROXY_INTERFACES = 1;
+
+	private static final byte PROXY_TARGET_CLASS = 2;
+
+	private static final byte VALUE_STRING = 'S';
+
+	private static final byte VALUE_BOOLEAN = 'B';
+
+	private static final byte VALUE_INTEGER = 'I';
+
+	private static final byte VALUE_LONG = 'J';
+
+	private static final byte VALUE_REFERENCE = 'R';
+
+	private static final Log logger = LogFactory.getLog(ConfigurationClassSnapshot.class);
+
+	private static final Map<ClassLoader, Optional<ConfigurationClassSnapshot>> snapshotCache =
+			new ConcurrentReferenceHashMap<>();
+
+
+	private final Set<String> configClassNames;
+
+	private final Set<String> profiles;
+
+	private final List<AnnotationAttributes> propertySources;
+
+	private final LinkedMultiValueMap<String, String> importingClassNames;
+
+	private final List<Entry> entries;
+
+
+	private ConfigurationClassSnapshot(Set<String> configClassNames, Set<String> profiles,
+			List<AnnotationAttributes> propertySources, LinkedMultiValueMap<String, String> importingClassNames,
+			List<Entry> entries) {
+
+		this.configClassNames = configClassNames;
+		this.profiles = profiles;
+		this.propertySources = propertySources;
+		this.importingClassNames = importingClassNames;
+		this.entries = entries;
+	}
+
+
+	/**
+	 * Return the number of bean definitions held by this snapshot.
+	 */
+	int getBeanDefinitionCount() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Determine whether this snapshot was generated for the given configuration
+	 * class candidates and the profiles currently active in the given environment.
+	 */
+	boolean matches(List<BeanDefinitionHolder> configCandidates, Environment environment) {
+		return (this.configClassNames.equals(getConfigClassNames(configCandidates)) &&
+				this.profiles.equals(getProfiles(environment)));
+	}
+
+	/**
+	 * Apply this snapshot: process the recorded {@code @PropertySource} declarations
+	 * and register the recorded bean definitions with the given registry.
+	 * <p>To be called once this snapshot {@link #matches matched}. Nothing is
+	 * processed or registered if the classes referenced by the recorded
+	 * {@code @PropertySource} declarations cannot be loaded.
+	 *
+	 * @param registry the registry to register bean definitions with
+	 * @param parser the parser to delegate {@code @PropertySource} processing to
+	 * @param metadataReaderFactory the factory to lazily read importing class metadata with
+	 * @param classLoader the class loader to resolve property source factories with
+	 * @return the {@link ImportRegistry} to expose for {@link ImportAware} beans,
+	 * or {@code null} if this snapshot could not be applied
+	 */
+	@Nullable
+	ImportRegistry apply(BeanDefinitionRegistry registry, ConfigurationClassParser parser,
+			MetadataReaderFactory metadataReaderFactory, @Nullable ClassLoader classLoader) {
+
+		List<AnnotationAttributes> propertySources = new ArrayList<>(this.propertySources.size());
+		for (AnnotationAttributes recorded : this.propertySources) {
+			AnnotationAttributes propertySource = new AnnotationAttributes(recorded);
+			try {
+				propertySource.put("factory", ClassUtils.forName(recorded.getString("factory"), classLoader));
+			}
+			catch (ClassNotFoundException | LinkageError ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring configuration class snapshot: property source factory [" +
+							recorded.getString("factory") + "] cannot be loaded", ex);
+				}
+				return null;
+			}
+			propertySources.add(propertySource);
+		}
+
+		for (AnnotationAttributes propertySource : propertySources) {
+			try {
+				parser.processPropertySource(propertySource);
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to process @PropertySource " + propertySource + " recorded in snapshot", ex);
+			}
+		}
+		for (Entry entry : this.entries) {
+			// Register a copy, keeping this snapshot reusable for further refresh attempts
+			BeanDefinitionHolder holder = new BeanDefinitionHolder(
+					entry.beanDefinition.cloneBeanDefinition(), entry.beanName, entry.aliases);
+			if (entry.proxyMode != PROXY_NONE) {
+				holder = ScopedProxyUtils.createScopedProxy(holder, registry, entry.proxyMode == PROXY_TARGET_CLASS);
+			}
+			BeanDefinitionReaderUtils.registerBeanDefinition(holder, registry);
+		}
+		return new SnapshotImportRegistry(this.importingClassNames.deepCopy(), metadataReaderFactory);
+	}
+
+
+	/**
+	 * Load the snapshot from {@value #SNAPSHOT_LOCATION}, if any, reading it
+	 * once per class loader.
+	 *
+	 * @param classLoader the class loader to look up the snapshot with
+	 * @return the snapshot, or {@code null} if none was found, if it could not
+	 * be read or if the use of snapshots is not enabled
+	 */
+	@Nullable
+	static ConfigurationClassSnapshot load(@Nullable ClassLoader classLoader) {
+		if (!SpringProperties.getFlag(ENABLE_SNAPSHOT_PROPERTY_NAME)) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ConfigurationClassSnapshot.class.getClassLoader();
+		}
+		return snapshotCache.computeIfAbsent(classLoaderToUse, ConfigurationClassSnapshot::doLoad).orElse(null);
+	}
+
+	private static Optional<ConfigurationClassSnapshot> doLoad(ClassLoader classLoader) {
+		InputStream is = classLoader.getResourceAsStream(SNAPSHOT_LOCATION);
+		if (is == null) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(read(is));
+		}
+		catch (IOException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable configuration class snapshot [" + SNAPSHOT_LOCATION + "]", ex);
+			}
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Read a snapshot from the given stream, which is closed afterwards.
+	 * <p>No class is resolved: class names are kept as recorded.
+	 */
+	static ConfigurationClassSnapshot read(InputStream inputStream) throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a configuration class snapshot");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported configuration class snapshot version " + version);
+			}
+			Set<String> configClassNames = new TreeSet<>(Arrays.asList(readStringArray(in)));
+			Set<String> profiles = new TreeSet<>(Arrays.asList(readStringArray(in)));
+
+			int propertySourceCount = in.readInt();
+			List<AnnotationAttributes> propertySources = new ArrayList<>(propertySourceCount);
+			for (int i = 0; i < propertySourceCount; i++) {
+				AnnotationAttributes attributes = new AnnotationAttributes(PropertySource.class);
+				attributes.put("name", in.readUTF());
+				attributes.put("value", readStringArray(in));
+				attributes.put("ignoreResourceNotFound", in.readBoolean());
+				attributes.put("encoding", in.readUTF());
+				attributes.put("factory", in.readUTF());
+				propertySources.add(attributes);
+			}
+
+			int importCount = in.readInt();
+			LinkedMultiValueMap<String, String> importingClassNames = new LinkedMultiValueMap<>(importCount);
+			for (int i = 0; i < importCount; i++) {
+				importingClassNames.put(in.readUTF(), new ArrayList<>(Arrays.asList(readStringArray(in))));
+			}
+
+			int entryCount = in.readInt();
+			List<Entry> entries = new ArrayList<>(entryCount);
+			for (int i = 0; i < entryCount; i++) {
+				entries.add(readEntry(in));
+			}
+			return new ConfigurationClassSnapshot(
+					configClassNames, profiles, propertySources, importingClassNames, entries);
+		}
+	}
+
+	private static Entry readEntry(DataInputStream in) throws IOException {
+		String beanName = in.readUTF();
+		String[] aliases = readStringArray(in);
+		byte proxyMode = in.readByte();
+
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setBeanClassName(readNullableString(in));
+		bd.setFactoryBeanName(readNullableString(in));
+		String factoryMethodName = readNullableString(in);
+		if (in.readBoolean()) {
+			bd.setUniqueFactoryMethodName(factoryMethodName);
+		}
+		else {
+			bd.setFactoryMethodName(factoryMethodName);
+		}
+		bd.setScope(readNullableString(in));
+		bd.setAbstract(in.readBoolean());
+		bd.setLazyInit(in.readBoolean());
+		bd.setAutowireMode(in.readInt());
+		bd.setDependencyCheck(in.readInt());
+		String[] dependsOn = readStringArray(in);
+		bd.setDependsOn(dependsOn.length > 0 ? dependsOn : null);
+		bd.setAutowireCandidate(in.readBoolean());
+		bd.setPrimary(in.readBoolean());
+		bd.setNonPublicAccessAllowed(in.readBoolean());
+		bd.setLenientConstructorResolution(in.readBoolean());
+		bd.setInitMethodName(readNullableString(in));
+		bd.setEnforceInitMethod(in.readBoolean());
+		bd.setDestroyMethodName(readNullableString(in));
+		bd.setEnforceDestroyMethod(in.readBoolean());
+		bd.setSynthetic(in.readBoolean());
+		bd.setRole(in.readInt());
+		bd.setDescription(readNullableString(in));
+		int attributeCount = in.readInt();
+		for (int i = 0; i < attributeCount; i++) {
+			bd.setAttribute(in.readUTF(), readValue(in));
+		}
+		int propertyCount = in.readInt();
+		for (int i = 0; i < propertyCount; i++) {
+			bd.getPropertyValues().add(in.readUTF(), readValue(in));
+		}
+		return new Entry(beanName, aliases, proxyMode, bd);
+	}
+
+
+	/**
+	 * Write the given parse outcome as a snapshot to the given stream.
+	 * <p>Only the bean definitions registered or replaced while parsing are
+	 * recorded, i.e. those that differ from the given previous definitions.
+	 *
+	 * @param outputStream the stream to write to (not closed by this method)
+	 * @param registry the registry after configuration class processing
+	 * @param previousDefinitions the bean definitions present before processing, by name
+	 * @param configCandidates the configuration class candidates that have been processed
+	 * @param profiles the profiles that were active when processing started
+	 * @param parser the parser used for processing
+	 * @param classLoader the class loader to introspect factory classes with
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalStateException if a bean definition cannot be represented
+	 */
+	static void write(OutputStream outputStream, BeanDefinitionRegistry registry,
+			Map<String, BeanDefinition> previousDefinitions, List<BeanDefinitionHolder> configCandidates,
+			Set<String> profiles, ConfigurationClassParser parser, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeStringArray(out, getConfigClassNames(configCandidates));
+		writeStringArray(out, profiles);
+
+		List<AnnotationAttributes> propertySources = parser.getProcessedPropertySources();
+		out.writeInt(propertySources.size());
+		for (AnnotationAttributes propertySource : propertySources) {
+			out.writeUTF(propertySource.getString("name"));
+			writeStringArray(out, Arrays.asList(propertySource.getStringArray("value")));
+			out.writeBoolean(propertySource.getBoolean("ignoreResourceNotFound"));
+			out.writeUTF(propertySource.getString("encoding"));
+			Class<? extends PropertySourceFactory> factoryClass = propertySource.getClass("factory");
+			out.writeUTF(factoryClass.getName());
+		}
+
+		MultiValueMap<String, String> importingClassNames = parser.getImportingClassNames();
+		out.writeInt(importingClassNames.size());
+		for (Map.Entry<String, List<String>> entry : importingClassNames.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeStringArray(out, entry.getValue());
+		}
+
+		List<Entry> entries = collectEntries(registry, previousDefinitions, classLoader);
+		out.writeInt(entries.size());
+		for (Entry entry : entries) {
+			writeEntry(out, entry, registry, classLoader);
+		}
+		out.flush();
+	}
+
+	private static List<Entry> collectEntries(BeanDefinitionRegistry registry,
+			Map<String, BeanDefinition> previousDefinitions, @Nullable ClassLoader classLoader) {
+
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			if (previousDefinitions.get(beanName) == bd) {
+				continue;
+			}
+			if (!(bd instanceof AbstractBeanDefinition)) {
+				throw new IllegalStateException("Bean definition '" + beanName + "' of type [" +
+						bd.getClass().getName() + "] cannot be stored in a snapshot");
+			}
+			entries.put(beanName, new Entry(beanName, registry.getAliases(beanName), PROXY_NONE,
+					(AbstractBeanDefinition) bd));
+		}
+
+		// Collapse scoped proxies into their target definition, to be re-created on load
+		for (Entry proxy : new ArrayList<>(entries.values())) {
+			if (!ScopedProxyFactoryBean.class.getName().equals(proxy.beanDefinition.getBeanClassName())) {
+				continue;
+			}
+			String targetBeanName = ScopedProxyUtils.getTargetBeanName(proxy.beanName);
+			Entry target = entries.remove(targetBeanName);
+			if (target == null) {
+				throw new IllegalStateException("Scoped proxy '" + proxy.beanName +
+						"' without a target bean definition cannot be stored in a snapshot");
+			}
+			PropertyValue proxyTargetClass = proxy.beanDefinition.getPropertyValues().getPropertyValue("proxyTargetClass");
+			byte proxyMode = (proxyTargetClass != null && Boolean.FALSE.equals(proxyTargetClass.getValue()) ?
+					PROXY_INTERFACES : PROXY_TARGET_CLASS);
+			AbstractBeanDefinition targetDefinition = target.beanDefinition.cloneBeanDefinition();
+			targetDefinition.setAutowireCandidate(proxy.beanDefinition.isAutowireCandidate());
+			targetDefinition.setPrimary(proxy.beanDefinition.isPrimary());
+			entries.put(proxy.beanName, new Entry(proxy.beanName, proxy.aliases, proxyMode, targetDefinition));
+		}
+		return new ArrayList<>(entries.values());
+	}
+
+	private static void writeEntry(DataOutputStream out, Entry entry, BeanDefinitionRegistry registry,
+			@Nullable ClassLoader classLoader) throws IOException {
+
+		AbstractBeanDefinition bd = entry.beanDefinition;
+		if (bd.getParentName() != null || bd.hasConstructorArgumentValues() || bd.hasMethodOverrides() ||
+				!bd.getQualifiers().isEmpty() || bd.getInstanceSupplier() != null) {
+			throw new IllegalStateException("Bean definition '" + entry.beanName +
+					"' cannot be stored in a snapshot: only definitions without parent, constructor arguments, " +
+					"method overrides, XML qualifiers and instance supplier are supported");
+		}
+		out.writeUTF(entry.beanName);
+		writeStringArray(out, Arrays.asList(entry.aliases));
+		out.writeByte(entry.proxyMode);
+
+		writeNullableString(out, bd.getBeanClassName());
+		writeNullableString(out, bd.getFactoryBeanName());
+		writeNullableString(out, bd.getFactoryMethodName());
+		out.writeBoolean(isFactoryMethodUnique(bd, registry, classLoader));
+		writeNullableString(out, bd.getScope());
+		out.writeBoolean(bd.isAbstract());
+		out.writeBoolean(bd.isLazyInit());
+		out.writeInt(bd.getAutowireMode());
+		out.writeInt(bd.getDependencyCheck());
+		String[] dependsOn = bd.getDependsOn();
+		writeStringArray(out, dependsOn != null ? Arrays.asList(dependsOn) : Collections.emptyList());
+		out.writeBoolean(bd.isAutowireCandidate());
+		out.writeBoolean(bd.isPrimary());
+		out.writeBoolean(bd.isNonPublicAccessAllowed());
+		out.writeBoolean(bd.isLenientConstructorResolution());
+		writeNullableString(out, bd.getInitMethodName());
+		out.writeBoolean(bd.isEnforceInitMethod());
+		writeNullableString(out, bd.getDestroyMethodName());
+		out.writeBoolean(bd.isEnforceDestroyMethod());
+		out.writeBoolean(bd.isSynthetic());
+		out.writeInt(bd.getRole());
+		writeNullableString(out, bd.getDescription());
+
+		String[] attributeNames = bd.attributeNames();
+		out.writeInt(attributeNames.length);
+		for (String attributeName : attributeNames) {
+			out.writeUTF(attributeName);
+			writeValue(out, bd.getAttribute(attributeName), entry.beanName);
+		}
+		PropertyValue[] propertyValues = bd.getPropertyValues().getPropertyValues();
+		out.writeInt(propertyValues.length);
+		for (PropertyValue pv : propertyValues) {
+			out.writeUTF(pv.getName());
+			writeValue(out, pv.getValue(), entry.beanName);
+		}
+	}
+
+	/**
+	 * Determine whether the factory method of the given bean definition is
+	 * not overloaded, allowing for the fast path in factory method resolution.
+	 */
+	private static boolean isFactoryMethodUnique(AbstractBeanDefinition bd, BeanDefinitionRegistry registry,
+			@Nullable ClassLoader classLoader) {
+
+		String factoryMethodName = bd.getFactoryMethodName();
+		if (factoryMethodName == null) {
+			return false;
+		}
+		String factoryClassName = (bd.getFactoryBeanName() != null ?
+				registry.getBeanDefinition(bd.getFactoryBeanName()).getBeanClassName() : bd.getBeanClassName());
+		if (factoryClassName == null) {
+			return false;
+		}
+		Class<?> factoryClass = ClassUtils.resolveClassName(factoryClassName, classLoader);
+		int count = 0;
+		for (Method method : ReflectionUtils.getUniqueDeclaredMethods(factoryClass)) {
+			if (method.getName().equals(factoryMethodName)) {
+				count++;
+			}
+		}
+		return (count == 1);
+	}
+
+	private static void writeValue(DataOutputStream out, @Nullable Object value, String beanName)
+			throws IOException {
+
+		if (value instanceof TypedStringValue && ((TypedStringValue) value).getTargetTypeName() == null &&
+				((TypedStringValue) value).getValue() != null) {
+			value = ((TypedStringValue) value).getValue();
+		}
+		else if (value instanceof Class) {
+			value = ((Class<?>) value).getName();
+		}
+
+		if (value instanceof String) {
+			out.writeByte(VALUE_STRING);
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(VALUE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(VALUE_INTEGER);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(VALUE_LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			out.writeByte(VALUE_REFERENCE);
+			out.writeUTF(reference.getBeanName());
+			out.writeBoolean(reference.isToParent());
+		}
+		else {
+			throw new IllegalStateException("Bean definition '" + beanName + "' cannot be stored in a snapshot: " +
+					"unsupported value [" + value + "]");
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case VALUE_STRING:
+				return in.readUTF();
+			case VALUE_BOOLEAN:
+				return in.readBoolean();
+			case VALUE_INTEGER:
+				return in.readInt();
+			case VALUE_LONG:
+				return in.readLong();
+			case VALUE_REFERENCE:
+				return new RuntimeBeanReference(in.readUTF(), in.readBoolean());
+			default:
+				throw new IOException("Unknown value type '" + (char) type + "' in configuration class snapshot");
+		}
+	}
+
+	private static Set<String> getConfigClassNames(List<BeanDefinitionHolder> configCandidates) {
+		Set<String> configClassNames = new TreeSet<>();
+		for (BeanDefinitionHolder candidate : configCandidates) {
+			String beanClassName = candidate.getBeanDefinition().getBeanClassName();
+			configClassNames.add(beanClassName != null ? beanClassName : candidate.getBeanName());
+		}
+		return configClassNames;
+	}
+
+	/**
+	 * Return the profiles a snapshot applies to: the active profiles,
+	 * or the default profiles if none is active.
+	 */
+	static Set<String> getProfiles(Environment environment) {
+		String[] profiles = environment.getActiveProfiles();
+		if (profiles.length == 0) {
+			profiles = environment.getDefaultProfiles();
+		}
+		return new TreeSet<>(Arrays.asList(profiles));
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static void writeStringArray(DataOutputStream out, Iterable<String> values) throws IOException {
+		List<String> list = new ArrayList<>();
+		values.forEach(list::add);
+		out.writeInt(list.size());
+		for (String value : list) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String[] readStringArray(DataInputStream in) throws IOException {
+		String[] values = new String[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readUTF();
+		}
+		return values;
+	}
+
+
+	/**
+	 * A bean definition recorded in a snapshot, along with its name and aliases.
+	 */
+	private static final class Entry {
+
+		final String beanName;
+
+		final String[] aliases;
+
+		final byte proxyMode;
+
+		final AbstractBeanDefinition beanDefinition;
+
+		Entry(String beanName, String[] aliases, byte proxyMode, AbstractBeanDefinition beanDefinition) {
+			this.beanName = beanName;
+			this.aliases = aliases;
+			this.proxyMode = proxyMode;
+			this.beanDefinition = beanDefinition;
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the recorded import graph, reading
+	 * the metadata of importing classes on demand.
+	 */
+	private static final class SnapshotImportRegistry implements ImportRegistry {
+
+		private final MultiValueMap<String, String> importingClassNames;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		SnapshotImportRegistry(MultiValueMap<String, String> importingClassNames,
+				MetadataReaderFactory metadataReaderFactory) {
+
+			this.importingClassNames = importingClassNames;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClassName = CollectionUtils.lastElement(this.importingClassNames.get(importedClass));
+			if (importingClassName == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClassName).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				logger.debug("Could not read metadata of importing class [" + importingClassName + "]", ex);
+				return null;
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			for (List<String> list : this.importingClassNames.values()) {
+				list.remove(importingClass);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Build-time generator of the bean definition snapshot that lets
+ * {@link ConfigurationClassPostProcessor} skip the parsing of configuration
+ * classes at startup.
+ *
+ * <p>The generator registers the given annotated classes the same way as
+ * {@link AnnotationConfigApplicationContext#register} does, processes them
+ * without instantiating any bean, and writes the resulting bean definitions.
+ * The snapshot is picked up at runtime from
+ * {@code META-INF/spring.bean-definitions} if the
+ * {@code spring.bean-definitions.enabled} system property is set to {@code true}
+ * and the application context holds the same configuration classes and runs
+ * with the same active profiles. Any condition other than a profile is
+ * evaluated once, at build time.
+ *
+ * <p>Only bean definitions that can be fully represented are supported: this
+ * covers component scanning, {@code @Import}, {@code @Bean} methods (including
+ * scoped proxies) and registrars contributing definitions with simple property
+ * values. Generation fails with an {@link IllegalStateException} otherwise.
+ *
+ * <p>A typical Gradle integration runs the {@link #main} method as part of the
+ * build of the application:
+ *
+ * <pre class="code">
+ * task beanDefinitionSnapshot(type: JavaExec, dependsOn: classes) {
+ *     classpath = sourceSets.main.runtimeClasspath
+ *     main = "org.springframework.context.annotation.ConfigurationClassSnapshotGenerator"
+ *     args = ["${sourceSets.main.output.resourcesDir}/META-INF/spring.bean-definitions",
+ *             "com.example.AppConfig"]
+ * }
+ * jar.dependsOn beanDefinitionSnapshot
+ * </pre>
+ *
+ * @since 5.0.5
+ * @see ConfigurationClassPostProcessor
+ */
+public class ConfigurationClassSnapshotGenerator {
+
+	private final ConfigurableEnvironment environment;
+
+	private final ResourceLoader resourceLoader;
+
+
+	/**
+	 * Create a new generator using a {@link StandardEnvironment}, so that
+	 * active profiles can be specified via the {@code spring.profiles.active}
+	 * system property.
+	 */
+	public ConfigurationClassSnapshotGenerator() {
+		this(new StandardEnvironment(), new DefaultResourceLoader());
+	}
+
+	/**
+	 * Create a new generator using the given environment and resource loader.
+	 *
+	 * @param environment the environment to evaluate profiles and conditions against
+	 * @param resourceLoader the resource loader to scan and load classes with
+	 */
+	public ConfigurationClassSnapshotGenerator(ConfigurableEnvironment environment, ResourceLoader resourceLoader) {
+		Assert.notNull(environment, "Environment must not be null");
+		Assert.notNull(resourceLoader, "ResourceLoader must not be null");
+		this.environment = environment;
+		this.resourceLoader = resourceLoader;
+	}
+
+
+	/**
+	 * Process the given annotated classes and write the resulting snapshot.
+	 *
+	 * @param outputStream the stream to write to (not closed by this method)
+	 * @param annotatedClasses one or more annotated classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalStateException if a resulting bean definition cannot be
+	 * stored in a snapshot
+	 */
+	public void generate(OutputStream outputStream, Class<?>... annotatedClasses) throws IOException {
+		Assert.notEmpty(annotatedClasses, "At least one annotated class must be specified");
+		ClassLoader classLoader = this.resourceLoader.getClassLoader();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setBeanClassLoader(classLoader);
+		new AnnotatedBeanDefinitionReader(beanFactory, this.environment).register(annotatedClasses);
+
+		Map<String, BeanDefinition> previousDefinitions = new HashMap<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			previousDefinitions.put(beanName, beanFactory.getBeanDefinition(beanName));
+		}
+
+		// Determine profiles upfront, like the snapshot check at startup (before any @PropertySource)
+		Set<String> profiles = ConfigurationClassSnapshot.getProfiles(this.environment);
+		List<BeanDefinitionHolder> configCandidates = new ArrayList<>();
+		List<ConfigurationClassParser> parsers = new ArrayList<>(1);
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(this.environment);
+		postProcessor.setResourceLoader(this.resourceLoader);
+		if (classLoader != null) {
+			postProcessor.setBeanClassLoader(classLoader);
+		}
+		postProcessor.setParseResultCallback((candidates, parser) -> {
+			configCandidates.addAll(candidates);
+			parsers.add(parser);
+		});
+		postProcessor.processConfigBeanDefinitions(beanFactory);
+		Assert.state(!parsers.isEmpty(), "No configuration classes found among the given annotated classes");
+
+		ConfigurationClassSnapshot.write(outputStream, beanFactory, previousDefinitions, configCandidates,
+				profiles, parsers.get(0), classLoader);
+	}
+
+
+	/**
+	 * Generate a snapshot from the command line.
+	 * <p>The first argument is the file to write the snapshot to, typically
+	 * {@code META-INF/spring.bean-definitions} in the output directory for
+	 * resources; the remaining arguments are the fully qualified names of the
+	 * annotated classes to process.
+	 */
+	public static void main(String[] args) throws Exception {
+		Assert.isTrue(args.length >= 2,
+				"Usage: ConfigurationClassSnapshotGenerator <output file> <annotated class>...");
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		Class<?>[] annotatedClasses = new Class<?>[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			annotatedClasses[i - 1] = ClassUtils.forName(args[i], classLoader);
+		}
+		Path output = Paths.get(args[0]);
+		if (output.getParent() != null) {
+			Files.createDirectories(output.getParent());
+		}
+		try (OutputStream outputStream = Files.newOutputStream(output)) {
+			new ConfigurationClassSnapshotGenerator().generate(outputStream, annotatedClasses);
+		}
+	}
+
+}
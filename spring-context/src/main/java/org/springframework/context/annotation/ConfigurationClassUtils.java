@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,8 +33,10 @@ import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataCache;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
@@ -247,4 +249,21 @@ abstract class ConfigurationClassUtils {
 		return (order != null ? order : Ordered.LOWEST_PRECEDENCE);
 	}
 
+	/**
+	 * Create a {@link CachingMetadataReaderFactory} for reading the classes of an
+	 * application context, backed by the {@link PersistentMetadataCache} that the
+	 * {@value PersistentMetadataCache#CACHE_FILE_PROPERTY_NAME} property points to, if any.
+	 *
+	 * @param factory the factory to configure
+	 * @return the given factory
+	 * @since 5.0.5
+	 */
+	public static CachingMetadataReaderFactory applyPersistentMetadataCache(CachingMetadataReaderFactory factory) {
+		PersistentMetadataCache cache = PersistentMetadataCache.getDefault();
+		if (cache != null) {
+			factory.setPersistentMetadataCache(cache);
+		}
+		return factory;
+	}
+
 }
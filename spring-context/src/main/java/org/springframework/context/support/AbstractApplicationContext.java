@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -68,6 +68,9 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.core.type.classreading.PersistentMetadataCache;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -244,6 +247,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Nullable
 	private Set<ApplicationEvent> earlyApplicationEvents;
 
+	/**
+	 * Application startup metrics recorder
+	 */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
@@ -347,6 +355,17 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return this.environment;
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	/**
 	 * Create and return a new {@link StandardEnvironment}.
 	 * <p>Subclasses may override this method in order to supply
@@ -560,6 +579,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	public void refresh() throws BeansException, IllegalStateException {
 		// 来个锁，不然 refresh() 还没结束，你又来个启动或销毁容器的操作，那不就乱套了嘛
 		synchronized (this.startupShutdownMonitor) {
+			StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
+
 			// Prepare this context for refreshing
 			// 准备工作，记录下容器的启动时间、标记“已启动”状态、处理配置文件中的占位符
 			prepareRefresh();
@@ -591,13 +612,23 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				 * 	 完成BeanFactoryPostProcessors的执行
 				 */
 
-				invokeBeanFactoryPostProcessors(beanFactory);
+				StartupStep beanFactoryPostProcess = this.applicationStartup.start("spring.context.bean-factory.post-process");
+				try {
+					invokeBeanFactoryPostProcessors(beanFactory);
+				} finally {
+					beanFactoryPostProcess.end();
+				}
 
 				// Register bean processors that intercept bean creation.
 				/**
 				 * 注册几乎所有的beanFactoryProcessor 也就是后置处理器
 				 */
-				registerBeanPostProcessors(beanFactory);
+				StartupStep registerBeanPostProcessors = this.applicationStartup.start("spring.context.bean-post-processors.register");
+				try {
+					registerBeanPostProcessors(beanFactory);
+				} finally {
+					registerBeanPostProcessors.end();
+				}
 
 				// 初始化信息源，和国际化相关
 				initMessageSource();
@@ -623,7 +654,12 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				/**
 				 *   完成剩余Bean的装配,及装配所有扫描出来的类
 				 */
-				finishBeanFactoryInitialization(beanFactory);
+				StartupStep instantiateSingletons = this.applicationStartup.start("spring.context.singletons.instantiate");
+				try {
+					finishBeanFactoryInitialization(beanFactory);
+				} finally {
+					instantiateSingletons.end();
+				}
 
 				// Last step: publish corresponding event.
 				/**
@@ -657,6 +693,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				 * 清空所有缓存
 				 */
 				resetCommonCaches();
+				contextRefresh.end();
 			}
 		}
 	}
@@ -734,6 +771,8 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver(beanFactory.getBeanClassLoader()));
 		//String和对象的转换器
 		beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(this, getEnvironment()));
+		// Record bean creation and post-processing steps with the context's startup recorder
+		beanFactory.setApplicationStartup(getApplicationStartup());
 
 		// Configure the bean factory with context callbacks.
 		/**
@@ -792,6 +831,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		if (!beanFactory.containsLocalBean(SYSTEM_ENVIRONMENT_BEAN_NAME)) {
 			beanFactory.registerSingleton(SYSTEM_ENVIRONMENT_BEAN_NAME, getEnvironment().getSystemEnvironment());
 		}
+		if (!beanFactory.containsLocalBean(APPLICATION_STARTUP_BEAN_NAME)) {
+			beanFactory.registerSingleton(APPLICATION_STARTUP_BEAN_NAME, getApplicationStartup());
+		}
 	}
 
 	/**
@@ -1028,16 +1070,20 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/**
 	 * Reset Spring's common core caches, in particular the {@link ReflectionUtils},
 	 * {@link ResolvableType} and {@link CachedIntrospectionResults} caches.
+	 * <p>Also writes out pending {@link PersistentMetadataCache} entries, since
+	 * all class metadata of this context has been read at this point.
 	 *
 	 * @see ReflectionUtils#clearCache()
 	 * @see ResolvableType#clearCache()
 	 * @see CachedIntrospectionResults#clearClassLoader(ClassLoader)
+	 * @see PersistentMetadataCache#flushAll()
 	 * @since 4.2
 	 */
 	protected void resetCommonCaches() {
 		ReflectionUtils.clearCache();
 		ResolvableType.clearCache();
 		CachedIntrospectionResults.clearClassLoader(getClassLoader());
+		PersistentMetadataCache.flushAll();
 	}
 
 
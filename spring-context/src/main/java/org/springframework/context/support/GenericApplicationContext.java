@@ -34,6 +34,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -163,6 +164,19 @@ public class GenericApplicationContext extends AbstractApplicationContext implem
 		super.setId(id);
 	}
 
+	/**
+	 * Set the {@link ApplicationStartup} for this context and propagate it to
+	 * the internal bean factory right away, so that steps taking place before
+	 * {@link #refresh()} (such as component scanning) are recorded as well.
+	 *
+	 * @since 5.0.5
+	 */
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		super.setApplicationStartup(applicationStartup);
+		this.beanFactory.setApplicationStartup(applicationStartup);
+	}
+
 	/**
 	 * Set whether it should be allowed to override bean definitions by registering
 	 * a different definition with the same name, automatically replacing the former.
@@ -40,6 +40,8 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 
 /**
@@ -134,7 +136,7 @@ class PostProcessorRegistrationDelegate {
 			//合并
 			registryProcessors.addAll(currentRegistryProcessors);
 			//真正的执行方法 同时完成了扫描 生成beanDefinition 放入集合的的一系列操作
-			invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+			invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry, beanFactory.getApplicationStartup());
 			//清空正在执行的实现类集合
 			currentRegistryProcessors.clear();
 
@@ -153,7 +155,7 @@ class PostProcessorRegistrationDelegate {
 			}
 			sortPostProcessors(currentRegistryProcessors, beanFactory);
 			registryProcessors.addAll(currentRegistryProcessors);
-			invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+			invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry, beanFactory.getApplicationStartup());
 			currentRegistryProcessors.clear();
 
 			// Finally, invoke all other BeanDefinitionRegistryPostProcessors until no further ones appear.
@@ -173,7 +175,7 @@ class PostProcessorRegistrationDelegate {
 				}
 				sortPostProcessors(currentRegistryProcessors, beanFactory);
 				registryProcessors.addAll(currentRegistryProcessors);
-				invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry);
+				invokeBeanDefinitionRegistryPostProcessors(currentRegistryProcessors, registry, beanFactory.getApplicationStartup());
 				currentRegistryProcessors.clear();
 			}
 
@@ -198,15 +200,15 @@ class PostProcessorRegistrationDelegate {
 			 *  先判断是否有过滤器对该方法进行过滤，如果有则去执行过滤器的方法
 			 *  如果没有则执行原来的方法
 			 */
-			invokeBeanFactoryPostProcessors(registryProcessors, beanFactory);
+			invokeBeanFactoryPostProcessors(registryProcessors, beanFactory, beanFactory.getApplicationStartup());
 			/**
 			 * 接着因为程序员自己通过api注入的实现  BeanDefinitionPostProcessor 的类一开是他是缓存起来了
 			 * 所以接着执行手动注入的实现 BeanDefinitionPostProcessor 的类
 			 */
-			invokeBeanFactoryPostProcessors(regularPostProcessors, beanFactory);
+			invokeBeanFactoryPostProcessors(regularPostProcessors, beanFactory, beanFactory.getApplicationStartup());
 		} else {
 			// Invoke factory processors registered with the context instance.
-			invokeBeanFactoryPostProcessors(beanFactoryPostProcessors, beanFactory);
+			invokeBeanFactoryPostProcessors(beanFactoryPostProcessors, beanFactory, beanFactory.getApplicationStartup());
 		}
 
 		// Do not initialize FactoryBeans here: We need to leave all regular beans
@@ -253,7 +255,7 @@ class PostProcessorRegistrationDelegate {
 		 * 实现了priorityOrderedPostProcessors的集合排序并且执行
 		 */
 		sortPostProcessors(priorityOrderedPostProcessors, beanFactory);
-		invokeBeanFactoryPostProcessors(priorityOrderedPostProcessors, beanFactory);
+		invokeBeanFactoryPostProcessors(priorityOrderedPostProcessors, beanFactory, beanFactory.getApplicationStartup());
 
 		// Next, invoke the BeanFactoryPostProcessors that implement Ordered.
 		/**
@@ -265,7 +267,7 @@ class PostProcessorRegistrationDelegate {
 		}
 		//排序且执行
 		sortPostProcessors(orderedPostProcessors, beanFactory);
-		invokeBeanFactoryPostProcessors(orderedPostProcessors, beanFactory);
+		invokeBeanFactoryPostProcessors(orderedPostProcessors, beanFactory, beanFactory.getApplicationStartup());
 
 		// Finally, invoke all other BeanFactoryPostProcessors.
 		/**
@@ -275,7 +277,7 @@ class PostProcessorRegistrationDelegate {
 		for (String postProcessorName : nonOrderedPostProcessorNames) {
 			nonOrderedPostProcessors.add(beanFactory.getBean(postProcessorName, BeanFactoryPostProcessor.class));
 		}
-		invokeBeanFactoryPostProcessors(nonOrderedPostProcessors, beanFactory);
+		invokeBeanFactoryPostProcessors(nonOrderedPostProcessors, beanFactory, beanFactory.getApplicationStartup());
 
 		// Clear cached merged bean definitions since the post-processors might have
 		// modified the original metadata, e.g. replacing placeholders in values..
@@ -395,10 +397,17 @@ class PostProcessorRegistrationDelegate {
 	 * Invoke the given BeanDefinitionRegistryPostProcessor beans.
 	 */
 	private static void invokeBeanDefinitionRegistryPostProcessors(
-			Collection<? extends BeanDefinitionRegistryPostProcessor> postProcessors, BeanDefinitionRegistry registry) {
+			Collection<? extends BeanDefinitionRegistryPostProcessor> postProcessors, BeanDefinitionRegistry registry,
+			ApplicationStartup applicationStartup) {
 
 		for (BeanDefinitionRegistryPostProcessor postProcessor : postProcessors) {
-			postProcessor.postProcessBeanDefinitionRegistry(registry);
+			StartupStep postProcessBeanDefRegistry = applicationStartup.start("spring.context.beandef-registry.post-processor")
+					.tag("postProcessor", postProcessor.getClass().getName());
+			try {
+				postProcessor.postProcessBeanDefinitionRegistry(registry);
+			} finally {
+				postProcessBeanDefRegistry.end();
+			}
 		}
 	}
 
@@ -406,10 +415,17 @@ class PostProcessorRegistrationDelegate {
 	 * Invoke the given BeanFactoryPostProcessor beans.
 	 */
 	private static void invokeBeanFactoryPostProcessors(
-			Collection<? extends BeanFactoryPostProcessor> postProcessors, ConfigurableListableBeanFactory beanFactory) {
+			Collection<? extends BeanFactoryPostProcessor> postProcessors, ConfigurableListableBeanFactory beanFactory,
+			ApplicationStartup applicationStartup) {
 
 		for (BeanFactoryPostProcessor postProcessor : postProcessors) {
-			postProcessor.postProcessBeanFactory(beanFactory);
+			StartupStep postProcessBeanFactory = applicationStartup.start("spring.context.bean-factory.post-processor")
+					.tag("postProcessor", postProcessor.getClass().getName());
+			try {
+				postProcessor.postProcessBeanFactory(beanFactory);
+			} finally {
+				postProcessBeanFactory.end();
+			}
 		}
 	}
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.validation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.PropertyAccessorUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Cached analysis of bind parameter names for a given target class and
+ * {@link DataBinder} configuration: the canonical field name and allowed field
+ * check per parameter name, and - for simple property names with bean property
+ * or direct field access - whether the target class has a writable property of
+ * that name at all. The latter lets the binder skip unknown fields upfront
+ * instead of going through {@code NotWritablePropertyException} handling.
+ *
+ * @since 5.0.5
+ * @see DataBinder#setCacheBindingPlans
+ */
+final class BindingPlan {
+
+	/**
+	 * Maximum number of parameter names to keep per plan: names come
+	 * from clients, so anything beyond is analyzed but not cached.
+	 */
+	static final int FIELD_CACHE_LIMIT = 256;
+
+
+	private final boolean classLevelWritability;
+
+	private final Map<String, FieldPlan> fieldCache = new ConcurrentHashMap<>(32);
+
+
+	BindingPlan(Key key) {
+		this.classLevelWritability = (key.accessorClass == BeanWrapperImpl.class ||
+				key.accessorClass == DirectFieldAccessor.class);
+	}
+
+
+	/**
+	 * Return the analysis of the given parameter name for the given binder.
+	 */
+	FieldPlan getField(String name, DataBinder binder) {
+		FieldPlan fieldPlan = this.fieldCache.get(name);
+		if (fieldPlan == null) {
+			String field = PropertyAccessorUtils.canonicalPropertyName(name);
+			Boolean writable = null;
+			if (this.classLevelWritability && !PropertyAccessorUtils.isNestedOrIndexedProperty(field)) {
+				writable = binder.getPropertyAccessor().isWritableProperty(field);
+			}
+			fieldPlan = new FieldPlan(field, binder.isAllowed(field), writable);
+			if (this.fieldCache.size() < FIELD_CACHE_LIMIT) {
+				this.fieldCache.put(name, fieldPlan);
+			}
+		}
+		return fieldPlan;
+	}
+
+
+	/**
+	 * Analysis of a single bind parameter name.
+	 */
+	static final class FieldPlan {
+
+		private final String canonicalName;
+
+		private final boolean allowed;
+
+		@Nullable
+		private final Boolean writable;
+
+		FieldPlan(String canonicalName, boolean allowed, @Nullable Boolean writable) {
+			this.canonicalName = canonicalName;
+			this.allowed = allowed;
+			this.writable = writable;
+		}
+
+		public String getCanonicalName() {
+			return this.canonicalName;
+		}
+
+		public boolean isAllowed() {
+			return this.allowed;
+		}
+
+		/**
+		 * Whether the target class is known to have no writable property of this name.
+		 * Nested and indexed paths depend on the target's state and are never "unknown".
+		 */
+		public boolean isUnknown() {
+			return Boolean.FALSE.equals(this.writable);
+		}
+	}
+
+
+	/**
+	 * Cache key for a plan: everything that the field analysis depends on.
+	 */
+	static final class Key {
+
+		private final Class<?> binderClass;
+
+		private final Class<?> targetClass;
+
+		private final Class<?> accessorClass;
+
+		@Nullable
+		private final String[] allowedFields;
+
+		@Nullable
+		private final String[] disallowedFields;
+
+		private final int hashCode;
+
+		Key(DataBinder binder, Object target, ConfigurablePropertyAccessor accessor) {
+			this.binderClass = binder.getClass();
+			this.targetClass = target.getClass();
+			this.accessorClass = accessor.getClass();
+			this.allowedFields = binder.getAllowedFields();
+			this.disallowedFields = binder.getDisallowedFields();
+			this.hashCode = ObjectUtils.nullSafeHashCode(new Object[] {this.binderClass, this.targetClass,
+					this.accessorClass, this.allowedFields, this.disallowedFields});
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key otherKey = (Key) other;
+			return (this.binderClass == otherKey.binderClass && this.targetClass == otherKey.targetClass &&
+					this.accessorClass == otherKey.accessorClass &&
+					Arrays.equals(this.allowedFields, otherKey.allowedFields) &&
+					Arrays.equals(this.disallowedFields, otherKey.disallowedFields));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+}
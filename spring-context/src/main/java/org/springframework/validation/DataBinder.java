@@ -45,6 +45,7 @@ import org.springframework.format.Formatter;
 import org.springframework.format.support.FormatterPropertyEditorAdapter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.PatternMatchUtils;
 import org.springframework.util.StringUtils;
@@ -120,6 +121,9 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 	 */
 	protected static final Log logger = LogFactory.getLog(DataBinder.class);
 
+	/** Shared binding plans, keyed by target class and binder configuration */
+	private static final Map<BindingPlan.Key, BindingPlan> bindingPlanCache = new ConcurrentReferenceHashMap<>(64);
+
 	@Nullable
 	private final Object target;
 
@@ -135,6 +139,8 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 
 	private boolean ignoreInvalidFields = false;
 
+	private boolean cacheBindingPlans = false;
+
 	private boolean autoGrowNestedPaths = true;
 
 	private int autoGrowCollectionLimit = DEFAULT_AUTO_GROW_COLLECTION_LIMIT;
@@ -413,6 +419,30 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 		return this.ignoreInvalidFields;
 	}
 
+	/**
+	 * Set whether to cache the analysis of bind parameter names per target class
+	 * and binder configuration (allowed and disallowed fields), sharing it across
+	 * binder instances: canonical field names, allowed field checks, and which
+	 * simple parameter names have no writable property on the target class, so
+	 * that such unknown fields can be skipped without exception handling.
+	 * <p>Default is "false". Only switch this on if {@link #isAllowed(String)}
+	 * depends on the allowed and disallowed fields alone, as it does by default.
+	 * @since 5.0.5
+	 * @see #checkAllowedFields
+	 * @see #applyPropertyValues
+	 */
+	public void setCacheBindingPlans(boolean cacheBindingPlans) {
+		this.cacheBindingPlans = cacheBindingPlans;
+	}
+
+	/**
+	 * Return whether to cache the analysis of bind parameter names.
+	 * @since 5.0.5
+	 */
+	public boolean isCacheBindingPlans() {
+		return this.cacheBindingPlans;
+	}
+
 	/**
 	 * Register fields that should be allowed for binding. Default is all
 	 * fields. Restrict this for example to avoid unwanted modifications
@@ -744,9 +774,20 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 	 */
 	protected void checkAllowedFields(MutablePropertyValues mpvs) {
 		PropertyValue[] pvs = mpvs.getPropertyValues();
+		BindingPlan plan = getBindingPlan();
 		for (PropertyValue pv : pvs) {
-			String field = PropertyAccessorUtils.canonicalPropertyName(pv.getName());
-			if (!isAllowed(field)) {
+			String field;
+			boolean allowed;
+			if (plan != null) {
+				BindingPlan.FieldPlan fieldPlan = plan.getField(pv.getName(), this);
+				field = fieldPlan.getCanonicalName();
+				allowed = fieldPlan.isAllowed();
+			}
+			else {
+				field = PropertyAccessorUtils.canonicalPropertyName(pv.getName());
+				allowed = isAllowed(field);
+			}
+			if (!allowed) {
 				mpvs.removePropertyValue(pv);
 				getBindingResult().recordSuppressedField(field);
 				if (logger.isDebugEnabled()) {
@@ -791,8 +832,10 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 		if (!ObjectUtils.isEmpty(requiredFields)) {
 			Map<String, PropertyValue> propertyValues = new HashMap<>();
 			PropertyValue[] pvs = mpvs.getPropertyValues();
+			BindingPlan plan = getBindingPlan();
 			for (PropertyValue pv : pvs) {
-				String canonicalName = PropertyAccessorUtils.canonicalPropertyName(pv.getName());
+				String canonicalName = (plan != null ? plan.getField(pv.getName(), this).getCanonicalName() :
+						PropertyAccessorUtils.canonicalPropertyName(pv.getName()));
 				propertyValues.put(canonicalName, pv);
 			}
 			for (String field : requiredFields) {
@@ -834,6 +877,15 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 	 * @see BindingErrorProcessor#processPropertyAccessException
 	 */
 	protected void applyPropertyValues(MutablePropertyValues mpvs) {
+		BindingPlan plan = getBindingPlan();
+		if (plan != null && isIgnoreUnknownFields()) {
+			// Same outcome as ignoring NotWritablePropertyExceptions, without creating them
+			for (PropertyValue pv : mpvs.getPropertyValues()) {
+				if (plan.getField(pv.getName(), this).isUnknown()) {
+					mpvs.removePropertyValue(pv);
+				}
+			}
+		}
 		try {
 			// Bind request parameters onto target object.
 			getPropertyAccessor().setPropertyValues(mpvs, isIgnoreUnknownFields(), isIgnoreInvalidFields());
@@ -846,6 +898,20 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 		}
 	}
 
+	/**
+	 * Return the shared binding plan for the current target and configuration,
+	 * or {@code null} if binding plans are not to be cached.
+	 * @see #setCacheBindingPlans
+	 */
+	@Nullable
+	private BindingPlan getBindingPlan() {
+		if (!this.cacheBindingPlans || this.target == null) {
+			return null;
+		}
+		BindingPlan.Key key = new BindingPlan.Key(this, this.target, getPropertyAccessor());
+		return bindingPlanCache.computeIfAbsent(key, BindingPlan::new);
+	}
+
 
 	/**
 	 * Invoke the specified Validators, if any.
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.context.annotation;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the startup steps recorded while refreshing an application context.
+ */
+public class ApplicationStartupTests {
+
+	@Test
+	public void refreshStepsAreRecorded() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(Config.class);
+		context.scan("example.scannable");
+		context.refresh();
+
+		assertSame(startup, context.getBean(ConfigurableApplicationContext.APPLICATION_STARTUP_BEAN_NAME));
+		assertSame(startup, context.getBeanFactory().getApplicationStartup());
+
+		BufferedStartupStep refresh = findStep(startup, "spring.context.refresh", null);
+		assertNull(refresh.getParentId());
+
+		BufferedStartupStep scan = findStep(startup, "spring.context.component-classes.scan", null);
+		assertEquals("example.scannable", scan.getTag("packageName"));
+
+		BufferedStartupStep parse = findStep(startup, "spring.context.config-classes.parse", null);
+		assertNotNull(parse.getTag("classCount"));
+
+		BufferedStartupStep instantiate = findStep(startup, "spring.beans.instantiate", "dependent");
+		BufferedStartupStep dependency = findStep(startup, "spring.beans.instantiate", "dependency");
+		assertEquals(Long.valueOf(instantiate.getId()), dependency.getParentId());
+		assertEquals(String.class.getName(), instantiate.getTag("beanType"));
+
+		boolean postProcessed = false;
+		for (BufferedStartupStep step : startup.getBufferedSteps()) {
+			if ("spring.beans.post-process".equals(step.getName()) && "dependent".equals(step.getTag("beanName")) &&
+					TestPostProcessor.class.getName().equals(step.getTag("postProcessor"))) {
+				postProcessed = true;
+			}
+		}
+		assertTrue(postProcessed);
+		assertTrue(startup.toJson().contains("\"name\":\"spring.context.refresh\""));
+		context.close();
+	}
+
+	@Test
+	public void defaultStartupRecordsNothing() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		assertSame(context.getApplicationStartup(), context.getBeanFactory().getApplicationStartup());
+		assertFalse(context.getApplicationStartup() instanceof BufferingApplicationStartup);
+		context.close();
+	}
+
+	@Test
+	public void stepsOfFailedRefreshAreRecorded() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(FailingConfig.class);
+		try {
+			context.refresh();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+		}
+
+		findStep(startup, "spring.context.bean-factory.post-process", null);
+		findStep(startup, "spring.context.bean-post-processors.register", null);
+		findStep(startup, "spring.context.singletons.instantiate", null);
+		findStep(startup, "spring.context.refresh", null);
+	}
+
+	@Test
+	public void stepsOfFailedConfigParsingAreRecorded() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(FinalConfig.class);
+		try {
+			context.refresh();
+			fail("Should have thrown BeanDefinitionParsingException");
+		}
+		catch (BeanDefinitionParsingException ex) {
+			// expected
+		}
+
+		findStep(startup, "spring.context.config-classes.parse", null);
+		findStep(startup, "spring.context.bean-factory.post-process", null);
+		findStep(startup, "spring.context.refresh", null);
+	}
+
+	private static BufferedStartupStep findStep(BufferingApplicationStartup startup, String name, String beanName) {
+		for (BufferedStartupStep step : startup.getBufferedSteps()) {
+			if (step.getName().equals(name) && (beanName == null || beanName.equals(step.getTag("beanName")))) {
+				return step;
+			}
+		}
+		throw new AssertionError("No step '" + name + "' found in " + startup.getBufferedSteps());
+	}
+
+
+	@Configuration
+	static class Config {
+
+		@Bean
+		public static TestPostProcessor testPostProcessor() {
+			return new TestPostProcessor();
+		}
+
+		@Bean
+		public String dependent(StringBuilder dependency) {
+			return dependency.toString();
+		}
+
+		@Bean
+		public StringBuilder dependency() {
+			return new StringBuilder("value");
+		}
+	}
+
+
+	@Configuration
+	static class FailingConfig {
+
+		@Bean
+		public String failing() {
+			throw new IllegalStateException("Failed");
+		}
+	}
+
+
+	@Configuration
+	static final class FinalConfig {
+	}
+
+
+	static class TestPostProcessor implements BeanPostProcessor {
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) {
+			return bean;
+		}
+	}
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.support.PropertySourceFactory;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.ClassUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ConfigurationClassSnapshot} and {@link ConfigurationClassSnapshotGenerator}.
+ */
+public class ConfigurationClassSnapshotTests {
+
+	@Before
+	public void setup() {
+		CountingCondition.evaluations.set(0);
+		SpringProperties.setFlag(ConfigurationClassSnapshot.ENABLE_SNAPSHOT_PROPERTY_NAME);
+	}
+
+	@After
+	public void disableSnapshot() {
+		SpringProperties.setProperty(ConfigurationClassSnapshot.ENABLE_SNAPSHOT_PROPERTY_NAME, null);
+	}
+
+
+	@Test
+	public void contextUsesSnapshot() throws IOException {
+		byte[] snapshot = generate(new StandardEnvironment(), AppConfig.class);
+		assertTrue(CountingCondition.evaluations.get() > 0);
+		CountingCondition.evaluations.set(0);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new SnapshotClassLoader(snapshot));
+		context.register(AppConfig.class);
+		context.refresh();
+
+		assertEquals("parsing must have been skipped", 0, CountingCondition.evaluations.get());
+		assertEquals("fromPropertySource", context.getEnvironment().getProperty("snapshot.value"));
+		assertEquals("fromPropertySource", context.getBean("name", String.class));
+		assertSame(context.getBean("name"), context.getBean("aliasForName"));
+		assertEquals("imported", context.getBean("importedBean", TestBean.class).getName());
+		assertEquals(AppConfig.class.getName(), context.getBean(ImportedConfig.class).importMetadata.getClassName());
+		assertTrue(AopUtils.isCglibProxy(context.getBean("scopedBean")));
+		assertFalse(context.containsBean("conditionalBean"));
+		assertEquals("registered", context.getBean("registeredBean", TestBean.class).getName());
+		assertFalse(context.getBeanFactory().getBeanDefinition("scopedTarget.scopedBean").isAutowireCandidate());
+		assertTrue(ClassUtils.isCglibProxy(context.getBean(ImportedConfig.class)));
+		context.close();
+	}
+
+	@Test
+	public void contextParsesWhenProfilesDiffer() throws IOException {
+		byte[] snapshot = generate(new StandardEnvironment(), AppConfig.class);
+		CountingCondition.evaluations.set(0);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new SnapshotClassLoader(snapshot));
+		context.getEnvironment().setActiveProfiles("other");
+		context.register(AppConfig.class);
+		context.refresh();
+
+		assertTrue(CountingCondition.evaluations.get() > 0);
+		assertEquals("imported", context.getBean("importedBean", TestBean.class).getName());
+		context.close();
+	}
+
+	@Test
+	public void contextParsesForOtherConfigurationClasses() throws IOException {
+		byte[] snapshot = generate(new StandardEnvironment(), AppConfig.class);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new SnapshotClassLoader(snapshot));
+		context.register(ImportedConfig.class);
+		context.refresh();
+
+		assertEquals("imported", context.getBean("importedBean", TestBean.class).getName());
+		assertFalse(context.containsBean("name"));
+		context.close();
+	}
+
+	@Test
+	public void contextIgnoresSnapshotUnlessEnabled() throws IOException {
+		byte[] snapshot = generate(new StandardEnvironment(), AppConfig.class);
+		CountingCondition.evaluations.set(0);
+		SpringProperties.setProperty(ConfigurationClassSnapshot.ENABLE_SNAPSHOT_PROPERTY_NAME, null);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new SnapshotClassLoader(snapshot));
+		context.register(AppConfig.class);
+		context.refresh();
+
+		assertTrue(CountingCondition.evaluations.get() > 0);
+		context.close();
+	}
+
+	@Test
+	public void contextParsesWhenSnapshotUnreadable() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new SnapshotClassLoader("not a snapshot".getBytes()));
+		context.register(AppConfig.class);
+		context.refresh();
+
+		assertTrue(CountingCondition.evaluations.get() > 0);
+		assertEquals("imported", context.getBean("importedBean", TestBean.class).getName());
+		context.close();
+	}
+
+	@Test
+	public void contextParsesWhenPropertySourceFactoryCannotBeLoaded() throws IOException {
+		byte[] snapshot = generate(new StandardEnvironment(), AppConfig.class);
+		String factoryName = PropertySourceFactory.class.getName();
+		String missingName = factoryName.replace("Source", "Shadow");
+		byte[] searched = factoryName.getBytes("UTF-8");
+		byte[] replacement = missingName.getBytes("UTF-8");
+		assertEquals(searched.length, replacement.length);
+		for (int i = 0; i <= snapshot.length - searched.length; i++) {
+			if (Arrays.equals(Arrays.copyOfRange(snapshot, i, i + searched.length), searched)) {
+				System.arraycopy(replacement, 0, snapshot, i, replacement.length);
+			}
+		}
+		CountingCondition.evaluations.set(0);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setClassLoader(new SnapshotClassLoader(snapshot));
+		context.register(AppConfig.class);
+		context.refresh();
+
+		assertTrue(CountingCondition.evaluations.get() > 0);
+		assertEquals("fromPropertySource", context.getBean("name", String.class));
+		context.close();
+	}
+
+	@Test
+	public void snapshotLoadedOncePerClassLoader() throws IOException {
+		SnapshotClassLoader classLoader = new SnapshotClassLoader(generate(new StandardEnvironment(), AppConfig.class));
+		ConfigurationClassSnapshot snapshot = ConfigurationClassSnapshot.load(classLoader);
+		assertNotNull(snapshot);
+		assertSame(snapshot, ConfigurationClassSnapshot.load(classLoader));
+		assertEquals(1, classLoader.reads);
+	}
+
+	@Test
+	public void snapshotRoundTrip() throws Exception {
+		byte[] bytes = generate(new StandardEnvironment(), AppConfig.class);
+		ConfigurationClassSnapshot snapshot = ConfigurationClassSnapshot.read(new ByteArrayInputStream(bytes));
+		assertEquals(5, snapshot.getBeanDefinitionCount());
+	}
+
+	@Test
+	public void unsupportedBeanDefinition() throws IOException {
+		try {
+			generate(new StandardEnvironment(), UnsupportedConfig.class);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("withConstructorArgs"));
+		}
+	}
+
+	private static byte[] generate(StandardEnvironment environment, Class<?>... annotatedClasses) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ConfigurationClassSnapshotGenerator(environment, new DefaultResourceLoader()).generate(out, annotatedClasses);
+		return out.toByteArray();
+	}
+
+
+	private static class SnapshotClassLoader extends ClassLoader {
+
+		private final byte[] snapshot;
+
+		int reads;
+
+		SnapshotClassLoader(byte[] snapshot) {
+			super(ConfigurationClassSnapshotTests.class.getClassLoader());
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public InputStream getResourceAsStream(String name) {
+			if (ConfigurationClassSnapshot.SNAPSHOT_LOCATION.equals(name)) {
+				this.reads++;
+				return new ByteArrayInputStream(this.snapshot);
+			}
+			return super.getResourceAsStream(name);
+		}
+	}
+
+
+	@Configuration
+	@Import({ImportedConfig.class, TestRegistrar.class})
+	@PropertySource("classpath:org/springframework/context/annotation/configurationClassSnapshot.properties")
+	static class AppConfig {
+
+		@Bean({"name", "aliasForName"})
+		public String name(@Value("${snapshot.value}") String value) {
+			return value;
+		}
+
+		@Bean
+		@Scope(scopeName = BeanDefinition.SCOPE_PROTOTYPE, proxyMode = ScopedProxyMode.TARGET_CLASS)
+		public TestBean scopedBean() {
+			return new TestBean("scoped");
+		}
+
+		@Bean
+		@Conditional(CountingCondition.class)
+		public TestBean conditionalBean() {
+			return new TestBean("conditional");
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+
+		@Bean
+		public TestBean importedBean() {
+			return new TestBean("imported");
+		}
+	}
+
+
+	static class CountingCondition implements Condition {
+
+		static final AtomicInteger evaluations = new AtomicInteger();
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			evaluations.incrementAndGet();
+			return false;
+		}
+	}
+
+
+	static class TestRegistrar implements ImportBeanDefinitionRegistrar {
+
+		@Override
+		public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.getPropertyValues().add("name", "registered");
+			registry.registerBeanDefinition("registeredBean", bd);
+		}
+	}
+
+
+	@Configuration
+	@Import(UnsupportedRegistrar.class)
+	static class UnsupportedConfig {
+	}
+
+
+	static class UnsupportedRegistrar implements ImportBeanDefinitionRegistrar {
+
+		@Override
+		public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue("value");
+			registry.registerBeanDefinition("withConstructorArgs", bd);
+		}
+	}
+
+}
@@ -2102,6 +2102,96 @@ public class DataBinderTests {
 
 	}
 
+	@Test
+	public void testBindingWithCachedBindingPlans() {
+		for (int i = 0; i < 2; i++) {
+			TestBean rod = new TestBean();
+			rod.setSpouse(new TestBean());
+			DataBinder binder = new DataBinder(rod, "person");
+			binder.setCacheBindingPlans(true);
+			binder.setDisallowedFields("touchy");
+			binder.setRequiredFields("name");
+			MutablePropertyValues pvs = new MutablePropertyValues();
+			pvs.add("name", "Rod");
+			pvs.add("age", "32");
+			pvs.add("touchy", "m.y");
+			pvs.add("unknown", "value");
+			pvs.add("spouse.name", "Kerry");
+			pvs.add("friends[0]", "Juergen");
+
+			binder.bind(pvs);
+			assertEquals("Rod", rod.getName());
+			assertEquals(32, rod.getAge());
+			assertNull(rod.getTouchy());
+			assertEquals("Kerry", rod.getSpouse().getName());
+			assertEquals(1, rod.getFriends().size());
+			assertFalse(binder.getBindingResult().hasErrors());
+			assertEquals(1, binder.getBindingResult().getSuppressedFields().length);
+			assertEquals("touchy", binder.getBindingResult().getSuppressedFields()[0]);
+		}
+	}
+
+	@Test
+	public void testBindingWithCachedBindingPlansAndUnknownFieldsNotIgnored() {
+		TestBean rod = new TestBean();
+		DataBinder binder = new DataBinder(rod, "person");
+		binder.setCacheBindingPlans(true);
+		binder.setIgnoreUnknownFields(false);
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.add("name", "Rod");
+		pvs.add("unknown", "value");
+
+		try {
+			binder.bind(pvs);
+			fail("Should have thrown NotWritablePropertyException");
+		}
+		catch (NotWritablePropertyException ex) {
+			assertEquals("unknown", ex.getPropertyName());
+		}
+	}
+
+	@Test
+	public void testCachedBindingPlansPerConfiguration() {
+		AllowedFieldsCountingDataBinder binder = new AllowedFieldsCountingDataBinder(new TestBean());
+		binder.setCacheBindingPlans(true);
+		binder.setAllowedFields("name", "age");
+		binder.bind(new MutablePropertyValues().add("name", "Rod").add("age", "32").add("touchy", "Kerry"));
+		int checks = AllowedFieldsCountingDataBinder.allowedChecks;
+
+		TestBean bean = new TestBean();
+		binder = new AllowedFieldsCountingDataBinder(bean);
+		binder.setCacheBindingPlans(true);
+		binder.setAllowedFields("name", "age");
+		binder.bind(new MutablePropertyValues().add("name", "Rod").add("age", "32").add("touchy", "Kerry"));
+		assertEquals(checks, AllowedFieldsCountingDataBinder.allowedChecks);
+		assertEquals("Rod", bean.getName());
+		assertNull(bean.getTouchy());
+
+		bean = new TestBean();
+		binder = new AllowedFieldsCountingDataBinder(bean);
+		binder.setCacheBindingPlans(true);
+		binder.setAllowedFields("touchy");
+		binder.bind(new MutablePropertyValues().add("name", "Rod").add("age", "32").add("touchy", "Kerry"));
+		assertNull(bean.getName());
+		assertEquals("Kerry", bean.getTouchy());
+	}
+
+	private static class AllowedFieldsCountingDataBinder extends DataBinder {
+
+		private static int allowedChecks;
+
+		public AllowedFieldsCountingDataBinder(Object target) {
+			super(target);
+		}
+
+		@Override
+		protected boolean isAllowed(String field) {
+			allowedChecks++;
+			return super.isAllowed(field);
+		}
+	}
+
+
 	@SuppressWarnings("unused")
 	private static class BeanWithIntegerList {
 
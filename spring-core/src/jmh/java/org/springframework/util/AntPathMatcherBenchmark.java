@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for {@link AntPathMatcher#match(String, String)} and its compiled
+ * pattern variant, using a route table shaped like typical MVC handler and
+ * resource mappings.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AntPathMatcherBenchmark {
+
+	private static final String[] PATTERNS = {
+			"/", "/login", "/logout", "/api/users", "/api/users/{id}", "/api/users/{id}/orders",
+			"/api/users/{id}/orders/{orderId}", "/api/products/*", "/api/products/**",
+			"/static/**/*.css", "/static/**/*.js", "/resources/{version}/**", "/admin/**/reports/*.pdf",
+			"/files/{name:[a-z]+}.{ext}", "/**/favicon.ico"
+	};
+
+	private static final String[] PATHS = {
+			"/", "/login", "/api/users/42", "/api/users/42/orders/7", "/api/products/book",
+			"/static/css/site/main.css", "/resources/1.0.3/js/app.js", "/admin/eu/west/reports/q1.pdf",
+			"/files/report.txt", "/some/deep/path/favicon.ico", "/not/mapped/anywhere"
+	};
+
+	@Param({"true", "false"})
+	public boolean cachePatterns;
+
+	private AntPathMatcher pathMatcher;
+
+	private AntPathMatcher.CompiledPattern[] compiledPatterns;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.pathMatcher = new AntPathMatcher();
+		this.pathMatcher.setCachePatterns(this.cachePatterns);
+		this.compiledPatterns = new AntPathMatcher.CompiledPattern[PATTERNS.length];
+		for (int i = 0; i < PATTERNS.length; i++) {
+			this.compiledPatterns[i] = this.pathMatcher.compile(PATTERNS[i]);
+		}
+	}
+
+	@Benchmark
+	public void matchAll(Blackhole bh) {
+		for (String path : PATHS) {
+			for (String pattern : PATTERNS) {
+				bh.consume(this.pathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAllCompiled(Blackhole bh) {
+		for (String path : PATHS) {
+			for (AntPathMatcher.CompiledPattern pattern : this.compiledPatterns) {
+				bh.consume(pattern.match(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(Blackhole bh) {
+		bh.consume(this.pathMatcher.extractUriTemplateVariables(
+				"/api/users/{id}/orders/{orderId}", "/api/users/42/orders/7"));
+	}
+
+}
@@ -26,11 +26,19 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipException;
@@ -203,6 +211,16 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	private int parallelism = 1;
+
+	@Nullable
+	private volatile ForkJoinPool forkJoinPool;
+
+	private final Object forkJoinPoolMonitor = new Object();
+
+	/** Entry names per jar file URL, in jar order */
+	private final Map<String, String[]> jarEntriesCache = new ConcurrentHashMap<>();
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -266,6 +284,45 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Set the number of threads to use for searching the root directories
+	 * of a location pattern, e.g. the jar files and class directories found
+	 * for a "classpath*:" pattern.
+	 * <p>Default is 1, searching one root after another on the calling thread.
+	 * A higher value searches the roots on a fork-join pool of the given size,
+	 * owned by this resolver. The result keeps the order of the roots.
+	 * @since 5.0.5
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be greater than 0");
+		synchronized (this.forkJoinPoolMonitor) {
+			this.parallelism = parallelism;
+			ForkJoinPool pool = this.forkJoinPool;
+			if (pool != null) {
+				pool.shutdown();
+				this.forkJoinPool = null;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of threads to use for searching root directories.
+	 * @since 5.0.5
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Clear the cached entry names of the jar files searched so far.
+	 * <p>Jar file contents are assumed to stay the same for the lifetime
+	 * of this resolver; call this method if jar files may get replaced.
+	 * @since 5.0.5
+	 */
+	public void clearCache() {
+		this.jarEntriesCache.clear();
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -490,32 +547,113 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		String subPattern = locationPattern.substring(rootDirPath.length());
 		Resource[] rootDirResources = getResources(rootDirPath);
 		Set<Resource> result = new LinkedHashSet<>(16);
-		for (Resource rootDirResource : rootDirResources) {
-			rootDirResource = resolveRootDirResource(rootDirResource);
-			URL rootDirUrl = rootDirResource.getURL();
-			if (equinoxResolveMethod != null) {
-				if (rootDirUrl.getProtocol().startsWith("bundle")) {
-					URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
-					if (resolvedUrl != null) {
-						rootDirUrl = resolvedUrl;
-					}
-					rootDirResource = new UrlResource(rootDirUrl);
+		if (this.parallelism > 1 && rootDirResources.length > 1) {
+			findPathMatchingResourcesInParallel(rootDirResources, subPattern, result);
+		}
+		else {
+			for (Resource rootDirResource : rootDirResources) {
+				result.addAll(findPathMatchingResources(rootDirResource, subPattern));
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Resolved location pattern [" + locationPattern + "] to resources " + result);
+		}
+		return result.toArray(new Resource[result.size()]);
+	}
+
+	/**
+	 * Find all resources underneath the given root directory that match
+	 * the given sub pattern.
+	 */
+	private Set<Resource> findPathMatchingResources(Resource rootDirResource, String subPattern) throws IOException {
+		rootDirResource = resolveRootDirResource(rootDirResource);
+		URL rootDirUrl = rootDirResource.getURL();
+		if (equinoxResolveMethod != null) {
+			if (rootDirUrl.getProtocol().startsWith("bundle")) {
+				URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
+				if (resolvedUrl != null) {
+					rootDirUrl = resolvedUrl;
 				}
+				rootDirResource = new UrlResource(rootDirUrl);
 			}
-			if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
-				result.addAll(VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher()));
+		}
+		if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
+			return VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher());
+		}
+		else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
+			return doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern);
+		}
+		else {
+			return doFindPathMatchingFileResources(rootDirResource, subPattern);
+		}
+	}
+
+	/**
+	 * Search the given root directories on this resolver's fork-join pool,
+	 * adding the matching resources to the given result in root order.
+	 * The first failure (in root order) is rethrown, cancelling the
+	 * remaining searches.
+	 * @see #setParallelism
+	 */
+	private void findPathMatchingResourcesInParallel(Resource[] rootDirResources, String subPattern,
+			Set<Resource> result) throws IOException {
+
+		ForkJoinPool pool = getForkJoinPool();
+		List<ForkJoinTask<Set<Resource>>> tasks = new ArrayList<>(rootDirResources.length);
+		for (Resource rootDirResource : rootDirResources) {
+			tasks.add(pool.submit(() -> findPathMatchingResources(rootDirResource, subPattern)));
+		}
+		try {
+			for (ForkJoinTask<Set<Resource>> task : tasks) {
+				result.addAll(task.get());
 			}
-			else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
-				result.addAll(doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern));
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
 			}
-			else {
-				result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
+			else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
 			}
+			else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Unexpected exception during resource pattern resolution", cause);
 		}
-		if (logger.isDebugEnabled()) {
-			logger.debug("Resolved location pattern [" + locationPattern + "] to resources " + result);
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted during resource pattern resolution", ex);
+		}
+		finally {
+			for (ForkJoinTask<Set<Resource>> task : tasks) {
+				task.cancel(false);
+			}
 		}
-		return result.toArray(new Resource[result.size()]);
+	}
+
+	/**
+	 * Return this resolver's fork-join pool, creating it on first access.
+	 * Idle worker threads terminate on their own.
+	 */
+	private ForkJoinPool getForkJoinPool() {
+		ForkJoinPool pool = this.forkJoinPool;
+		if (pool == null) {
+			synchronized (this.forkJoinPoolMonitor) {
+				pool = this.forkJoinPool;
+				if (pool == null) {
+					ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+					pool = new ForkJoinPool(this.parallelism, forkJoinPool -> {
+						ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+						thread.setName("resourcePatternResolver-" + thread.getPoolIndex());
+						thread.setContextClassLoader(classLoader);
+						return thread;
+					}, null, false);
+					this.forkJoinPool = pool;
+				}
+			}
+		}
+		return pool;
 	}
 
 	/**
@@ -588,20 +726,22 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			throws IOException {
 
 		URLConnection con = rootDirURL.openConnection();
-		JarFile jarFile;
 		String jarFileUrl;
 		String rootEntryPath;
-		boolean closeJarFile;
+		String[] entries;
 
 		if (con instanceof JarURLConnection) {
 			// Should usually be the case for traditional JAR files.
 			JarURLConnection jarCon = (JarURLConnection) con;
 			ResourceUtils.useCachesIfNecessary(jarCon);
-			jarFile = jarCon.getJarFile();
 			jarFileUrl = jarCon.getJarFileURL().toExternalForm();
-			JarEntry jarEntry = jarCon.getJarEntry();
-			rootEntryPath = (jarEntry != null ? jarEntry.getName() : "");
-			closeJarFile = !jarCon.getUseCaches();
+			String entryName = jarCon.getEntryName();
+			rootEntryPath = (entryName != null ? entryName : "");
+			entries = this.jarEntriesCache.get(jarFileUrl);
+			if (entries == null) {
+				entries = readJarEntries(jarCon.getJarFile(), !jarCon.getUseCaches());
+				this.jarEntriesCache.put(jarFileUrl, entries);
+			}
 		}
 		else {
 			// No JarURLConnection -> need to resort to URL file parsing.
@@ -609,52 +749,66 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			// being arbitrary as long as following the entry format.
 			// We'll also handle paths with and without leading "file:" prefix.
 			String urlFile = rootDirURL.getFile();
-			try {
-				int separatorIndex = urlFile.indexOf(ResourceUtils.WAR_URL_SEPARATOR);
-				if (separatorIndex == -1) {
-					separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
-				}
-				if (separatorIndex != -1) {
-					jarFileUrl = urlFile.substring(0, separatorIndex);
-					rootEntryPath = urlFile.substring(separatorIndex + 2);  // both separators are 2 chars
-					jarFile = getJarFile(jarFileUrl);
+			int separatorIndex = urlFile.indexOf(ResourceUtils.WAR_URL_SEPARATOR);
+			if (separatorIndex == -1) {
+				separatorIndex = urlFile.indexOf(ResourceUtils.JAR_URL_SEPARATOR);
+			}
+			if (separatorIndex != -1) {
+				jarFileUrl = urlFile.substring(0, separatorIndex);
+				rootEntryPath = urlFile.substring(separatorIndex + 2);  // both separators are 2 chars
+			}
+			else {
+				jarFileUrl = urlFile;
+				rootEntryPath = "";
+			}
+			entries = this.jarEntriesCache.get(jarFileUrl);
+			if (entries == null) {
+				try {
+					entries = readJarEntries(
+							(separatorIndex != -1 ? getJarFile(jarFileUrl) : new JarFile(urlFile)), true);
 				}
-				else {
-					jarFile = new JarFile(urlFile);
-					jarFileUrl = urlFile;
-					rootEntryPath = "";
+				catch (ZipException ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Skipping invalid jar classpath entry [" + urlFile + "]");
+					}
+					return Collections.emptySet();
 				}
-				closeJarFile = true;
+				this.jarEntriesCache.put(jarFileUrl, entries);
 			}
-			catch (ZipException ex) {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Skipping invalid jar classpath entry [" + urlFile + "]");
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Looking for matching resources in jar file [" + jarFileUrl + "]");
+		}
+		if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
+			// Root entry path must end with slash to allow for proper matching.
+			// The Sun JRE does not return a slash here, but BEA JRockit does.
+			rootEntryPath = rootEntryPath + "/";
+		}
+		// Entries outside of the pattern's literal prefix cannot match
+		String entryPrefix = rootEntryPath + getLiteralPrefix(subPattern);
+		Set<Resource> result = new LinkedHashSet<>(8);
+		for (String entryPath : entries) {
+			if (entryPath.startsWith(entryPrefix)) {
+				String relativePath = entryPath.substring(rootEntryPath.length());
+				if (getPathMatcher().match(subPattern, relativePath)) {
+					result.add(rootDirResource.createRelative(relativePath));
 				}
-				return Collections.emptySet();
 			}
 		}
+		return result;
+	}
 
+	/**
+	 * Read the names of all entries in the given jar file, in jar order.
+	 */
+	private String[] readJarEntries(JarFile jarFile, boolean closeJarFile) throws IOException {
 		try {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Looking for matching resources in jar file [" + jarFileUrl + "]");
-			}
-			if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
-				// Root entry path must end with slash to allow for proper matching.
-				// The Sun JRE does not return a slash here, but BEA JRockit does.
-				rootEntryPath = rootEntryPath + "/";
-			}
-			Set<Resource> result = new LinkedHashSet<>(8);
+			List<String> entryNames = new ArrayList<>(jarFile.size());
 			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
-				JarEntry entry = entries.nextElement();
-				String entryPath = entry.getName();
-				if (entryPath.startsWith(rootEntryPath)) {
-					String relativePath = entryPath.substring(rootEntryPath.length());
-					if (getPathMatcher().match(subPattern, relativePath)) {
-						result.add(rootDirResource.createRelative(relativePath));
-					}
-				}
+				entryNames.add(entries.nextElement().getName());
 			}
-			return result;
+			return entryNames.toArray(new String[entryNames.size()]);
 		}
 		finally {
 			if (closeJarFile) {
@@ -793,8 +947,13 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			return;
 		}
 		Arrays.sort(dirContents);
+		String prefix = getLiteralPrefix(fullPattern);
 		for (File content : dirContents) {
 			String currPath = StringUtils.replace(content.getAbsolutePath(), File.separator, "/");
+			if (!currPath.startsWith(prefix) && !prefix.startsWith(currPath + "/")) {
+				// Neither a match nor a directory on the way to one
+				continue;
+			}
 			if (content.isDirectory() && getPathMatcher().matchStart(fullPattern, currPath + "/")) {
 				if (!content.canRead()) {
 					if (logger.isDebugEnabled()) {
@@ -813,6 +972,42 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	}
 
 
+	/**
+	 * Return the part of the given pattern before its first wildcard,
+	 * which every matching path has to start with. Only applies to an
+	 * AntPathMatcher with its default settings; returns an empty String
+	 * for any other PathMatcher or settings, not pruning anything.
+	 * @param pattern the pattern to check
+	 * @return the literal prefix (possibly empty)
+	 */
+	private String getLiteralPrefix(String pattern) {
+		if (!isLiteralPrefixMatching(getPathMatcher())) {
+			return "";
+		}
+		int end = 0;
+		while (end < pattern.length() && "*?{".indexOf(pattern.charAt(end)) == -1) {
+			end++;
+		}
+		String prefix = pattern.substring(0, end);
+		// AntPathMatcher ignores empty path segments, so don't compare those literally
+		return (prefix.contains("//") ? "" : prefix);
+	}
+
+	/**
+	 * Determine whether the given PathMatcher only matches paths that start with
+	 * the literal part of the pattern, as a plain AntPathMatcher does as long as
+	 * it matches case-sensitively, untrimmed and with "/" as path separator.
+	 */
+	private static boolean isLiteralPrefixMatching(PathMatcher pathMatcher) {
+		if (pathMatcher.getClass() != AntPathMatcher.class) {
+			return false;
+		}
+		AntPathMatcher antPathMatcher = (AntPathMatcher) pathMatcher;
+		return (antPathMatcher.isCaseSensitive() && !antPathMatcher.isTrimTokens() &&
+				AntPathMatcher.DEFAULT_PATH_SEPARATOR.equals(antPathMatcher.getPathSeparator()));
+	}
+
+
 	/**
 	 * Inner delegate class, avoiding a hard JBoss VFS API dependency at runtime.
 	 */
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that keeps ended steps in an
+ * in-memory buffer, up to a given capacity.
+ *
+ * <p>Steps are parented to the step most recently started on the same thread,
+ * so that e.g. the instantiation of a dependency shows up as a child of the
+ * bean that triggered it. Once the startup is complete, the buffered steps
+ * can be inspected via {@link #getBufferedSteps()} and
+ * {@link #getSlowestSteps(String, int)}, or dumped as JSON via
+ * {@link #writeJson(Writer)}.
+ *
+ * @since 5.0.5
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private final int capacity;
+
+	private final long startTimeMillis = System.currentTimeMillis();
+
+	private final long startTimeNanos = System.nanoTime();
+
+	private final AtomicLong idSeq = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new NamedThreadLocal<>("Current startup step");
+
+	private final Queue<BufferedStartupStep> bufferedSteps = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger bufferedCount = new AtomicInteger();
+
+	private final AtomicInteger droppedCount = new AtomicInteger();
+
+
+	/**
+	 * Create a new buffered {@link ApplicationStartup} with a limited capacity.
+	 *
+	 * @param capacity the maximum number of ended steps to keep
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		BufferedStartupStep parent = this.currentStep.get();
+		BufferedStartupStep step = new BufferedStartupStep(
+				this, this.idSeq.incrementAndGet(), name, parent, System.nanoTime());
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step) {
+		// Pop the step from the current thread, along with any nested steps
+		// that were left open (e.g. because of an exception)
+		for (BufferedStartupStep current = this.currentStep.get(); current != null; current = current.parent) {
+			if (current == step) {
+				if (step.parent != null) {
+					this.currentStep.set(step.parent);
+				}
+				else {
+					this.currentStep.remove();
+				}
+				break;
+			}
+		}
+		if (this.bufferedCount.incrementAndGet() <= this.capacity) {
+			this.bufferedSteps.add(step);
+		}
+		else {
+			this.bufferedCount.decrementAndGet();
+			this.droppedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Return the time at which this startup recorder was created,
+	 * in milliseconds since the epoch.
+	 */
+	public long getStartTime() {
+		return this.startTimeMillis;
+	}
+
+	/**
+	 * Return the number of ended steps that did not fit into the buffer.
+	 */
+	public int getDroppedStepCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Return all buffered steps, in the order in which they ended.
+	 */
+	public List<BufferedStartupStep> getBufferedSteps() {
+		return Collections.unmodifiableList(new ArrayList<>(this.bufferedSteps));
+	}
+
+	/**
+	 * Return the buffered steps with the longest duration, slowest first.
+	 * <p>For example, {@code getSlowestSteps("spring.beans.instantiate", 20)}
+	 * returns the 20 bean instantiations that took the most time (including
+	 * the time spent creating their dependencies).
+	 *
+	 * @param name the step name to filter on, or {@code null} for all steps
+	 * @param max the maximum number of steps to return
+	 */
+	public List<BufferedStartupStep> getSlowestSteps(@Nullable String name, int max) {
+		List<BufferedStartupStep> result = new ArrayList<>();
+		for (BufferedStartupStep step : this.bufferedSteps) {
+			if (name == null || name.equals(step.getName())) {
+				result.add(step);
+			}
+		}
+		result.sort(Comparator.comparing(BufferedStartupStep::getDuration).reversed());
+		return (result.size() > max ? result.subList(0, max) : result);
+	}
+
+	/**
+	 * Write all buffered steps as a JSON document to the given {@link Writer}.
+	 * <p>The document has a top-level "startTime" (milliseconds since the epoch)
+	 * and a "steps" array, with each step exposing its id, parent id, name,
+	 * start offset and duration (in nanoseconds) as well as its tags.
+	 *
+	 * @param writer the writer to write to (not closed by this method)
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		writer.write("{\"startTime\":");
+		writer.write(Long.toString(this.startTimeMillis));
+		writer.write(",\"droppedSteps\":");
+		writer.write(Integer.toString(this.droppedCount.get()));
+		writer.write(",\"steps\":[");
+		boolean first = true;
+		for (BufferedStartupStep step : this.bufferedSteps) {
+			if (!first) {
+				writer.write(',');
+			}
+			first = false;
+			writer.write("{\"id\":");
+			writer.write(Long.toString(step.getId()));
+			writer.write(",\"parentId\":");
+			writer.write(step.getParentId() != null ? step.getParentId().toString() : "null");
+			writer.write(",\"name\":");
+			writeJsonString(writer, step.getName());
+			writer.write(",\"startOffset\":");
+			writer.write(Long.toString(step.getStartOffset().toNanos()));
+			writer.write(",\"duration\":");
+			writer.write(Long.toString(step.getDuration().toNanos()));
+			writer.write(",\"tags\":{");
+			boolean firstTag = true;
+			for (StartupStep.Tag tag : step.getTags()) {
+				if (!firstTag) {
+					writer.write(',');
+				}
+				firstTag = false;
+				writeJsonString(writer, tag.getKey());
+				writer.write(':');
+				writeJsonString(writer, tag.getValue());
+			}
+			writer.write("}}");
+		}
+		writer.write("]}");
+	}
+
+	/**
+	 * Return all buffered steps as a JSON document.
+	 *
+	 * @see #writeJson(Writer)
+	 */
+	public String toJson() {
+		StringWriter writer = new StringWriter();
+		try {
+			writeJson(writer);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return writer.toString();
+	}
+
+	private static void writeJsonString(Writer writer, String value) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					writer.write("\\\"");
+					break;
+				case '\\':
+					writer.write("\\\\");
+					break;
+				case '\n':
+					writer.write("\\n");
+					break;
+				case '\r':
+					writer.write("\\r");
+					break;
+				case '\t':
+					writer.write("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						writer.write(String.format("\\u%04x", (int) c));
+					}
+					else {
+						writer.write(c);
+					}
+			}
+		}
+		writer.write('"');
+	}
+
+
+	/**
+	 * {@link StartupStep} kept in the buffer of a {@link BufferingApplicationStartup}.
+	 */
+	public static final class BufferedStartupStep implements StartupStep {
+
+		private final BufferingApplicationStartup startup;
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final long startNanos;
+
+		private volatile long endNanos = -1;
+
+		private final List<Tag> tags = new ArrayList<>(2);
+
+		BufferedStartupStep(BufferingApplicationStartup startup, long id, String name,
+				@Nullable BufferedStartupStep parent, long startNanos) {
+
+			this.startup = startup;
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.startNanos = startNanos;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(this.endNanos < 0, "StartupStep has already ended");
+			this.tags.add(new BufferedTag(key, value));
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			List<Tag> tags = Collections.unmodifiableList(this.tags);
+			return tags::iterator;
+		}
+
+		/**
+		 * Return the value of the tag with the given key, if any.
+		 *
+		 * @param key the tag key
+		 */
+		@Nullable
+		public String getTag(String key) {
+			for (Tag tag : this.tags) {
+				if (tag.getKey().equals(key)) {
+					return tag.getValue();
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Return the time between the creation of the startup recorder
+		 * and the start of this step.
+		 */
+		public Duration getStartOffset() {
+			return Duration.ofNanos(this.startNanos - this.startup.startTimeNanos);
+		}
+
+		/**
+		 * Return the duration of this step, or the time elapsed so far
+		 * if the step has not ended yet.
+		 */
+		public Duration getDuration() {
+			long end = this.endNanos;
+			return Duration.ofNanos((end >= 0 ? end : System.nanoTime()) - this.startNanos);
+		}
+
+		@Override
+		public void end() {
+			Assert.state(this.endNanos < 0, "StartupStep has already ended");
+			this.endNanos = System.nanoTime();
+			this.startup.record(this);
+		}
+
+		@Override
+		public String toString() {
+			return "StartupStep '" + this.name + "' " + this.tags + ": " + getDuration().toMillis() + " ms";
+		}
+	}
+
+
+	private static final class BufferedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		BufferedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
@@ -142,6 +142,8 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 
 	/**
 	 * Clear the local MetadataReader cache, if any, removing all cached class metadata.
+	 * <p>Also writes out pending entries of the {@link PersistentMetadataCache}, if any,
+	 * since this is typically called once the metadata is no longer needed.
 	 */
 	public void clearCache() {
 		if (this.metadataReaderCache instanceof LocalResourceCache) {
@@ -149,6 +151,10 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 				this.metadataReaderCache.clear();
 			}
 		}
+		PersistentMetadataCache persistentMetadataCache = getPersistentMetadataCache();
+		if (persistentMetadataCache != null) {
+			persistentMetadataCache.flush();
+		}
 	}
 
 
@@ -0,0 +1,610 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * ASM {@link ClassVisitor} that passes the metadata-related events of a class
+ * file on to a delegate visitor while recording them in a compact binary form,
+ * so that they can later be {@linkplain #replay replayed} into another visitor
+ * without reading and parsing the class file again.
+ *
+ * <p>Only class declaration, outer/inner class, annotation and annotated method
+ * events are recorded: this is everything that {@link AnnotationMetadataReadingVisitor}
+ * takes into account.
+ *
+ * @since 5.0.5
+ * @see PersistentMetadataCache
+ */
+class MetadataVisitRecorder extends ClassVisitor {
+
+	private static final byte CLASS = 'C';
+
+	private static final byte OUTER_CLASS = 'O';
+
+	private static final byte INNER_CLASS = 'I';
+
+	private static final byte ANNOTATION = 'A';
+
+	private static final byte METHOD = 'M';
+
+	private static final byte VALUE = 'V';
+
+	private static final byte ENUM = 'N';
+
+	private static final byte ARRAY = 'R';
+
+	private static final byte END = 'E';
+
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+	private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+
+	MetadataVisitRecorder(ClassVisitor delegate) {
+		super(SpringAsmInfo.ASM_VERSION, delegate);
+	}
+
+
+	/**
+	 * Return the recorded events.
+	 */
+	byte[] toByteArray() {
+		return this.bytes.toByteArray();
+	}
+
+	@Override
+	public void visit(int version, int access, String name, @Nullable String signature,
+			@Nullable String superName, @Nullable String[] interfaces) {
+
+		try {
+			this.out.writeByte(CLASS);
+			this.out.writeInt(version);
+			this.out.writeInt(access);
+			this.out.writeUTF(name);
+			writeNullable(this.out, superName);
+			this.out.writeInt(interfaces != null ? interfaces.length : 0);
+			if (interfaces != null) {
+				for (String ifc : interfaces) {
+					this.out.writeUTF(ifc);
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public void visitOuterClass(String owner, @Nullable String name, @Nullable String desc) {
+		try {
+			this.out.writeByte(OUTER_CLASS);
+			this.out.writeUTF(owner);
+			writeNullable(this.out, name);
+			writeNullable(this.out, desc);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		super.visitOuterClass(owner, name, desc);
+	}
+
+	@Override
+	public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+		try {
+			this.out.writeByte(INNER_CLASS);
+			this.out.writeUTF(name);
+			writeNullable(this.out, outerName);
+			writeNullable(this.out, innerName);
+			this.out.writeInt(access);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		super.visitInnerClass(name, outerName, innerName, access);
+	}
+
+	@Override
+	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+		try {
+			this.out.writeByte(ANNOTATION);
+			this.out.writeUTF(desc);
+			this.out.writeBoolean(visible);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return new RecordingAnnotationVisitor(this.out, super.visitAnnotation(desc, visible));
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String desc,
+			@Nullable String signature, @Nullable String[] exceptions) {
+
+		return new RecordingMethodVisitor(this.out, access, name, desc,
+				super.visitMethod(access, name, desc, signature, exceptions));
+	}
+
+	@Override
+	public void visitEnd() {
+		try {
+			this.out.writeByte(END);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		super.visitEnd();
+	}
+
+
+	/**
+	 * Replay recorded events into the given visitor.
+	 *
+	 * @param data the events, as returned by {@link #toByteArray()}
+	 * @param visitor the visitor to replay the events into
+	 * @throws IOException if the recorded events are corrupt
+	 */
+	static void replay(byte[] data, ClassVisitor visitor) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		while (true) {
+			byte event = in.readByte();
+			switch (event) {
+				case CLASS:
+					int version = in.readInt();
+					int access = in.readInt();
+					String name = in.readUTF();
+					String superName = readNullable(in);
+					String[] interfaces = new String[in.readInt()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = in.readUTF();
+					}
+					visitor.visit(version, access, name, null, superName, interfaces);
+					break;
+				case OUTER_CLASS:
+					visitor.visitOuterClass(in.readUTF(), readNullable(in), readNullable(in));
+					break;
+				case INNER_CLASS:
+					visitor.visitInnerClass(in.readUTF(), readNullable(in), readNullable(in), in.readInt());
+					break;
+				case ANNOTATION:
+					replayAnnotation(in, visitor.visitAnnotation(in.readUTF(), in.readBoolean()));
+					break;
+				case METHOD:
+					MethodVisitor mv = visitor.visitMethod(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+					byte methodEvent;
+					while ((methodEvent = in.readByte()) == ANNOTATION) {
+						String desc = in.readUTF();
+						boolean visible = in.readBoolean();
+						replayAnnotation(in, mv != null ? mv.visitAnnotation(desc, visible) : null);
+					}
+					if (methodEvent != END) {
+						throw new IOException("Unknown method event type '" + (char) methodEvent + "'");
+					}
+					if (mv != null) {
+						mv.visitEnd();
+					}
+					break;
+				case END:
+					visitor.visitEnd();
+					return;
+				default:
+					throw new IOException("Unknown event type '" + (char) event + "'");
+			}
+		}
+	}
+
+	private static void replayAnnotation(DataInputStream in, @Nullable AnnotationVisitor av) throws IOException {
+		while (true) {
+			byte event = in.readByte();
+			switch (event) {
+				case VALUE: {
+					String name = readNullable(in);
+					Object value = readValue(in);
+					if (av != null) {
+						av.visit(name, value);
+					}
+					break;
+				}
+				case ENUM: {
+					String name = readNullable(in);
+					String desc = in.readUTF();
+					String value = in.readUTF();
+					if (av != null) {
+						av.visitEnum(name, desc, value);
+					}
+					break;
+				}
+				case ANNOTATION: {
+					String name = readNullable(in);
+					String desc = in.readUTF();
+					replayAnnotation(in, av != null ? av.visitAnnotation(name, desc) : null);
+					break;
+				}
+				case ARRAY:
+					replayAnnotation(in, av != null ? av.visitArray(readNullable(in)) : skipName(in));
+					break;
+				case END:
+					if (av != null) {
+						av.visitEnd();
+					}
+					return;
+				default:
+					throw new IOException("Unknown annotation event type '" + (char) event + "'");
+			}
+		}
+	}
+
+	@Nullable
+	private static AnnotationVisitor skipName(DataInputStream in) throws IOException {
+		readNullable(in);
+		return null;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte('s');
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Type) {
+			out.writeByte('T');
+			out.writeUTF(((Type) value).getDescriptor());
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte('Z');
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte('B');
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte('C');
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte('S');
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte('I');
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte('J');
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte('F');
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte('D');
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof boolean[]) {
+			boolean[] array = (boolean[]) value;
+			out.writeByte('z');
+			out.writeInt(array.length);
+			for (boolean element : array) {
+				out.writeBoolean(element);
+			}
+		}
+		else if (value instanceof byte[]) {
+			byte[] array = (byte[]) value;
+			out.writeByte('b');
+			out.writeInt(array.length);
+			out.write(array);
+		}
+		else if (value instanceof char[]) {
+			char[] array = (char[]) value;
+			out.writeByte('c');
+			out.writeInt(array.length);
+			for (char element : array) {
+				out.writeChar(element);
+			}
+		}
+		else if (value instanceof short[]) {
+			short[] array = (short[]) value;
+			out.writeByte('h');
+			out.writeInt(array.length);
+			for (short element : array) {
+				out.writeShort(element);
+			}
+		}
+		else if (value instanceof int[]) {
+			int[] array = (int[]) value;
+			out.writeByte('i');
+			out.writeInt(array.length);
+			for (int element : array) {
+				out.writeInt(element);
+			}
+		}
+		else if (value instanceof long[]) {
+			long[] array = (long[]) value;
+			out.writeByte('j');
+			out.writeInt(array.length);
+			for (long element : array) {
+				out.writeLong(element);
+			}
+		}
+		else if (value instanceof float[]) {
+			float[] array = (float[]) value;
+			out.writeByte('f');
+			out.writeInt(array.length);
+			for (float element : array) {
+				out.writeFloat(element);
+			}
+		}
+		else if (value instanceof double[]) {
+			double[] array = (double[]) value;
+			out.writeByte('d');
+			out.writeInt(array.length);
+			for (double element : array) {
+				out.writeDouble(element);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported annotation value type: " + value.getClass().getName());
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case 's':
+				return in.readUTF();
+			case 'T':
+				return Type.getType(in.readUTF());
+			case 'Z':
+				return in.readBoolean();
+			case 'B':
+				return in.readByte();
+			case 'C':
+				return in.readChar();
+			case 'S':
+				return in.readShort();
+			case 'I':
+				return in.readInt();
+			case 'J':
+				return in.readLong();
+			case 'F':
+				return in.readFloat();
+			case 'D':
+				return in.readDouble();
+			case 'z': {
+				boolean[] array = new boolean[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readBoolean();
+				}
+				return array;
+			}
+			case 'b': {
+				byte[] array = new byte[in.readInt()];
+				in.readFully(array);
+				return array;
+			}
+			case 'c': {
+				char[] array = new char[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readChar();
+				}
+				return array;
+			}
+			case 'h': {
+				short[] array = new short[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readShort();
+				}
+				return array;
+			}
+			case 'i': {
+				int[] array = new int[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readInt();
+				}
+				return array;
+			}
+			case 'j': {
+				long[] array = new long[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readLong();
+				}
+				return array;
+			}
+			case 'f': {
+				float[] array = new float[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readFloat();
+				}
+				return array;
+			}
+			case 'd': {
+				double[] array = new double[in.readInt()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = in.readDouble();
+				}
+				return array;
+			}
+			default:
+				throw new IOException("Unknown annotation value type '" + (char) type + "'");
+		}
+	}
+
+	private static void writeNullable(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullable(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+
+	/**
+	 * Records the annotations of a method, writing the method header lazily
+	 * so that methods without annotations do not take up any space.
+	 */
+	private static class RecordingMethodVisitor extends MethodVisitor {
+
+		private final DataOutputStream out;
+
+		private final int access;
+
+		private final String name;
+
+		private final String desc;
+
+		private boolean annotated;
+
+		RecordingMethodVisitor(DataOutputStream out, int access, String name, String desc,
+				@Nullable MethodVisitor delegate) {
+
+			super(SpringAsmInfo.ASM_VERSION, delegate);
+			this.out = out;
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			try {
+				if (!this.annotated) {
+					this.out.writeByte(METHOD);
+					this.out.writeInt(this.access);
+					this.out.writeUTF(this.name);
+					this.out.writeUTF(this.desc);
+					this.annotated = true;
+				}
+				this.out.writeByte(ANNOTATION);
+				this.out.writeUTF(desc);
+				this.out.writeBoolean(visible);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(this.out, super.visitAnnotation(desc, visible));
+		}
+
+		@Override
+		public void visitEnd() {
+			if (this.annotated) {
+				try {
+					this.out.writeByte(END);
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+			super.visitEnd();
+		}
+	}
+
+
+	private static class RecordingAnnotationVisitor extends AnnotationVisitor {
+
+		private final DataOutputStream out;
+
+		RecordingAnnotationVisitor(DataOutputStream out, @Nullable AnnotationVisitor delegate) {
+			super(SpringAsmInfo.ASM_VERSION, delegate);
+			this.out = out;
+		}
+
+		@Override
+		public void visit(@Nullable String name, Object value) {
+			try {
+				this.out.writeByte(VALUE);
+				writeNullable(this.out, name);
+				writeValue(this.out, value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visit(name, value);
+		}
+
+		@Override
+		public void visitEnum(@Nullable String name, String desc, String value) {
+			try {
+				this.out.writeByte(ENUM);
+				writeNullable(this.out, name);
+				this.out.writeUTF(desc);
+				this.out.writeUTF(value);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitEnum(name, desc, value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(@Nullable String name, String desc) {
+			try {
+				this.out.writeByte(ANNOTATION);
+				writeNullable(this.out, name);
+				this.out.writeUTF(desc);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(this.out, super.visitAnnotation(name, desc));
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(@Nullable String name) {
+			try {
+				this.out.writeByte(ARRAY);
+				writeNullable(this.out, name);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return new RecordingAnnotationVisitor(this.out, super.visitArray(name));
+		}
+
+		@Override
+		public void visitEnd() {
+			try {
+				this.out.writeByte(END);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			super.visitEnd();
+		}
+	}
+
+}
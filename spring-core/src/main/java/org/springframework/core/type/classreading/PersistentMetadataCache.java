@@ -0,0 +1,466 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Persistent cache of class metadata, shared by the {@link SimpleMetadataReaderFactory}
+ * instances it is set on and across JVMs on the same host.
+ *
+ * <p>For every class file read, the events that ASM emits for it are recorded and
+ * appended to a cache file. Subsequent reads of the same, unchanged class file, in this
+ * or a later run, replay those events instead of reading and parsing the class file.
+ * Entries are keyed by resource location, last-modified timestamp, and for jar entries,
+ * the CRC of the entry as stored in the jar's central directory, so that changed classes
+ * are never served from the cache. Resources that cannot be keyed this way, e.g. classes
+ * from nested archives, are read as usual.
+ *
+ * <p>The cache file is memory-mapped when opened. New entries are buffered and appended
+ * under an exclusive file lock, so that multiple JVMs can safely share the same file.
+ * Corrupt or truncated records are ignored. Once the file grows beyond
+ * {@linkplain #DEFAULT_MAX_FILE_SIZE its maximum size}, it is atomically replaced
+ * by a new file, which also discards entries of classes that have changed since.
+ * An existing file that does not start with the header of a cache file is left
+ * untouched, with the cache not being persisted.
+ *
+ * <p>The cache is never used unless set explicitly via
+ * {@link SimpleMetadataReaderFactory#setPersistentMetadataCache}. Application contexts
+ * do so for their configuration class processing and component scanning if the
+ * {@value #CACHE_FILE_PROPERTY_NAME} system property (or Spring property) points to a
+ * cache file, and {@linkplain #flushAll() flush} pending entries at the end of a refresh.
+ *
+ * @since 5.0.5
+ * @see SimpleMetadataReaderFactory
+ */
+public final class PersistentMetadataCache {
+
+	/**
+	 * System property that specifies the location of the cache file to use
+	 * by default: {@value}.
+	 */
+	public static final String CACHE_FILE_PROPERTY_NAME = "spring.metadata-cache.file";
+
+	/**
+	 * Default maximum size of a cache file (64 MB).
+	 */
+	public static final long DEFAULT_MAX_FILE_SIZE = 64 * 1024 * 1024;
+
+	private static final int MAGIC = 0x534d4443;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 8;
+
+	private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+	private static final int ADDED_RECORDS_LIMIT = 256;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataCache.class);
+
+	private static final Map<File, PersistentMetadataCache> caches = new ConcurrentHashMap<>(4);
+
+
+	private final File file;
+
+	private final long maxFileSize;
+
+	@Nullable
+	private MappedByteBuffer mappedFile;
+
+	/** Offsets and lengths of the records in the mapped file, by key */
+	private final Map<String, long[]> mappedRecords = new ConcurrentHashMap<>(1024);
+
+	/** Most recently added records that are not mapped yet, by key */
+	@SuppressWarnings("serial")
+	private final Map<String, byte[]> addedRecords =
+			new LinkedHashMap<String, byte[]>(ADDED_RECORDS_LIMIT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+					return size() > ADDED_RECORDS_LIMIT;
+				}
+			};
+
+	private final ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream(FLUSH_THRESHOLD);
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	PersistentMetadataCache(File file, long maxFileSize) {
+		this.file = file;
+		this.maxFileSize = maxFileSize;
+		open();
+	}
+
+
+	/**
+	 * Return the cache specified via the {@value #CACHE_FILE_PROPERTY_NAME}
+	 * property, if any.
+	 */
+	@Nullable
+	public static PersistentMetadataCache getDefault() {
+		String location = SpringProperties.getProperty(CACHE_FILE_PROPERTY_NAME);
+		return (StringUtils.hasText(location) ? forFile(new File(location)) : null);
+	}
+
+	/**
+	 * Return the cache for the given file, creating it if necessary.
+	 * <p>Caches are shared per file within a JVM.
+	 *
+	 * @param file the cache file (does not need to exist yet)
+	 */
+	public static PersistentMetadataCache forFile(File file) {
+		Assert.notNull(file, "File must not be null");
+		return caches.computeIfAbsent(file.getAbsoluteFile(), f -> new PersistentMetadataCache(f, DEFAULT_MAX_FILE_SIZE));
+	}
+
+
+	/**
+	 * Append pending entries of all caches obtained via {@link #forFile} to their
+	 * cache files, typically once the metadata of an application has been read.
+	 * @see #flush()
+	 */
+	public static void flushAll() {
+		for (PersistentMetadataCache cache : caches.values()) {
+			cache.flush();
+		}
+	}
+
+
+	/**
+	 * Return the cache file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Return the number of metadata reads served from the cache so far.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of metadata reads that required parsing a class file so far.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Obtain a {@link MetadataReader} for the given class file resource, replaying
+	 * the cached metadata if available, or reading the class file and caching its
+	 * metadata otherwise.
+	 *
+	 * @param resource the class file resource
+	 * @param classLoader the class loader to load annotation types with
+	 * @return the metadata reader
+	 * @throws IOException if the class file could not be read
+	 */
+	public MetadataReader getMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		String key = getCacheKey(resource);
+		if (key == null) {
+			return new SimpleMetadataReader(resource, classLoader);
+		}
+
+		byte[] events = getRecord(key);
+		if (events != null) {
+			AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+			try {
+				MetadataVisitRecorder.replay(events, visitor);
+				this.hitCount.incrementAndGet();
+				return new SimpleMetadataReader(resource, visitor);
+			}
+			catch (IOException | RuntimeException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring corrupt cached metadata for " + resource, ex);
+				}
+			}
+		}
+
+		this.missCount.incrementAndGet();
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		MetadataVisitRecorder recorder = SimpleMetadataReader.readClass(resource, new MetadataVisitRecorder(visitor));
+		addRecord(key, recorder.toByteArray());
+		return new SimpleMetadataReader(resource, visitor);
+	}
+
+	/**
+	 * Append all entries added since the last flush to the cache file.
+	 * <p>This happens automatically once enough entries are pending; any
+	 * remaining entries are lost unless flushed explicitly.
+	 */
+	public void flush() {
+		byte[] records;
+		synchronized (this.pendingRecords) {
+			if (this.pendingRecords.size() == 0) {
+				return;
+			}
+			records = this.pendingRecords.toByteArray();
+			this.pendingRecords.reset();
+		}
+		File parent = this.file.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			logger.debug("Could not create directory for metadata cache file " + this.file);
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(this.file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			FileLock lock = channel.lock();
+			try {
+				writeRecords(channel, records);
+			}
+			finally {
+				lock.release();
+			}
+		}
+		catch (IOException ex) {
+			logger.debug("Could not write metadata cache file " + this.file, ex);
+		}
+	}
+
+	private void writeRecords(FileChannel channel, byte[] records) throws IOException {
+		long size = channel.size();
+		ByteBuffer header = readHeader(channel, size);
+		if (size > 0 && (header == null || header.getInt(0) != MAGIC)) {
+			// Not a metadata cache file: never truncate or replace it
+			logger.debug("Not writing to metadata cache file " + this.file + ": existing file is not a metadata cache");
+			return;
+		}
+		if (size + records.length > this.maxFileSize) {
+			// Outgrown file: start over with a new file, leaving the old one intact
+			// for other JVMs that still have it mapped
+			Path tempFile = Files.createTempFile(this.file.toPath().toAbsolutePath().getParent(),
+					this.file.getName(), ".tmp");
+			try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+				tempChannel.write(header(), 0);
+				tempChannel.write(ByteBuffer.wrap(records), HEADER_SIZE);
+			}
+			Files.move(tempFile, this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return;
+		}
+		if (header == null || header.getInt(4) != VERSION) {
+			// New file or file of another version, never mapped by anybody in this version
+			channel.truncate(0);
+			channel.write(header(), 0);
+			size = HEADER_SIZE;
+		}
+		channel.write(ByteBuffer.wrap(records), size);
+	}
+
+	@Nullable
+	private static ByteBuffer readHeader(FileChannel channel, long size) throws IOException {
+		if (size < HEADER_SIZE) {
+			return null;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				return null;
+			}
+		}
+		return header;
+	}
+
+	private static ByteBuffer header() {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+		header.flip();
+		return header;
+	}
+
+
+	private void open() {
+		if (!this.file.isFile()) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > this.maxFileSize) {
+				return;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+				return;
+			}
+			int position = HEADER_SIZE;
+			CRC32 crc = new CRC32();
+			while (position + 8 <= size) {
+				int length = buffer.getInt(position);
+				int checksum = buffer.getInt(position + 4);
+				int start = position + 8;
+				if (length < 2 || start + length > size) {
+					break;
+				}
+				ByteBuffer record = slice(buffer, start, length);
+				crc.reset();
+				crc.update(record);
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+				int keyLength = buffer.getShort(start) & 0xffff;
+				if (2 + keyLength > length) {
+					break;
+				}
+				byte[] key = new byte[keyLength];
+				slice(buffer, start + 2, keyLength).get(key);
+				this.mappedRecords.put(new String(key, StandardCharsets.UTF_8),
+						new long[] {start + 2 + keyLength, length - 2 - keyLength});
+				position = start + length;
+			}
+			this.mappedFile = buffer;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Opened metadata cache file " + this.file + " with " +
+						this.mappedRecords.size() + " entries");
+			}
+		}
+		catch (IOException ex) {
+			logger.debug("Could not open metadata cache file " + this.file, ex);
+		}
+	}
+
+	@Nullable
+	private byte[] getRecord(String key) {
+		byte[] events;
+		synchronized (this.addedRecords) {
+			events = this.addedRecords.get(key);
+		}
+		if (events != null) {
+			return events;
+		}
+		long[] location = this.mappedRecords.get(key);
+		MappedByteBuffer mappedFile = this.mappedFile;
+		if (location == null || mappedFile == null) {
+			return null;
+		}
+		events = new byte[(int) location[1]];
+		slice(mappedFile, (int) location[0], events.length).get(events);
+		return events;
+	}
+
+	private void addRecord(String key, byte[] events) {
+		synchronized (this.addedRecords) {
+			this.addedRecords.put(key, events);
+		}
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		if (keyBytes.length > 0xffff) {
+			return;
+		}
+		ByteArrayOutputStream record = new ByteArrayOutputStream(2 + keyBytes.length + events.length);
+		record.write(keyBytes.length >>> 8);
+		record.write(keyBytes.length);
+		record.write(keyBytes, 0, keyBytes.length);
+		record.write(events, 0, events.length);
+		byte[] recordBytes = record.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(recordBytes);
+
+		boolean flush;
+		synchronized (this.pendingRecords) {
+			try {
+				DataOutputStream out = new DataOutputStream(this.pendingRecords);
+				out.writeInt(recordBytes.length);
+				out.writeInt((int) crc.getValue());
+				out.write(recordBytes);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+			flush = (this.pendingRecords.size() >= FLUSH_THRESHOLD);
+		}
+		if (flush) {
+			flush();
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(position);
+		slice.limit(position + length);
+		return slice;
+	}
+
+	/**
+	 * Build a cache key that changes whenever the content of the given class file may have changed.
+	 */
+	@Nullable
+	private static String getCacheKey(Resource resource) throws IOException {
+		URL url;
+		try {
+			url = resource.getURL();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+		if (ResourceUtils.isFileURL(url)) {
+			File file = resource.getFile();
+			long lastModified = file.lastModified();
+			return (lastModified > 0 ? url + "|" + lastModified + "|" + file.length() : null);
+		}
+		if (ResourceUtils.isJarURL(url)) {
+			URLConnection con = url.openConnection();
+			if (!(con instanceof JarURLConnection)) {
+				return null;
+			}
+			JarURLConnection jarCon = (JarURLConnection) con;
+			ResourceUtils.useCachesIfNecessary(jarCon);
+			JarEntry entry = jarCon.getJarEntry();
+			if (entry == null || entry.getCrc() == -1) {
+				return null;
+			}
+			long lastModified = resource.lastModified();
+			return url + "|" + lastModified + "|" + Long.toHexString(entry.getCrc());
+		}
+		return null;
+	}
+
+}
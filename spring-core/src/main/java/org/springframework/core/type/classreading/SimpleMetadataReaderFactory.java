@@ -36,6 +36,9 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	private final ResourceLoader resourceLoader;
 
+	@Nullable
+	private PersistentMetadataCache persistentMetadataCache;
+
 
 	/**
 	 * Create a new SimpleMetadataReaderFactory for the default class loader.
@@ -71,6 +74,25 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 		return this.resourceLoader;
 	}
 
+	/**
+	 * Specify a {@link PersistentMetadataCache} to serve class metadata from,
+	 * avoiding to parse unchanged class files again on subsequent runs.
+	 * <p>Default is none.
+	 * @since 5.0.5
+	 */
+	public void setPersistentMetadataCache(@Nullable PersistentMetadataCache persistentMetadataCache) {
+		this.persistentMetadataCache = persistentMetadataCache;
+	}
+
+	/**
+	 * Return the {@link PersistentMetadataCache} used by this factory, if any.
+	 * @since 5.0.5
+	 */
+	@Nullable
+	public PersistentMetadataCache getPersistentMetadataCache() {
+		return this.persistentMetadataCache;
+	}
+
 
 	@Override
 	public MetadataReader getMetadataReader(String className) throws IOException {
@@ -100,6 +122,9 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		if (this.persistentMetadataCache != null) {
+			return this.persistentMetadataCache.getMetadataReader(resource, this.resourceLoader.getClassLoader());
+		}
 		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
 	}
 
@@ -127,6 +127,14 @@ public class AntPathMatcher implements PathMatcher {
 		this.pathSeparatorPatternCache = new PathSeparatorPatternCache(this.pathSeparator);
 	}
 
+	/**
+	 * Return the path separator used for pattern parsing.
+	 * @since 5.0.5
+	 */
+	public String getPathSeparator() {
+		return this.pathSeparator;
+	}
+
 	/**
 	 * Specify whether to perform pattern matching in a case-sensitive fashion.
 	 * <p>Default is {@code true}. Switch this to {@code false} for case-insensitive matching.
@@ -136,6 +144,14 @@ public class AntPathMatcher implements PathMatcher {
 		this.caseSensitive = caseSensitive;
 	}
 
+	/**
+	 * Return whether pattern matching is performed in a case-sensitive fashion.
+	 * @since 5.0.5
+	 */
+	public boolean isCaseSensitive() {
+		return this.caseSensitive;
+	}
+
 	/**
 	 * Specify whether to trim tokenized paths and patterns.
 	 * <p>Default is {@code false}.
@@ -144,6 +160,14 @@ public class AntPathMatcher implements PathMatcher {
 		this.trimTokens = trimTokens;
 	}
 
+	/**
+	 * Return whether tokenized paths and patterns are trimmed.
+	 * @since 5.0.5
+	 */
+	public boolean isTrimTokens() {
+		return this.trimTokens;
+	}
+
 	/**
 	 * Specify whether to cache parsed pattern metadata for patterns passed
 	 * into this matcher's {@link #match} method. A value of {@code true}
@@ -616,6 +640,23 @@ public class AntPathMatcher implements PathMatcher {
 		return new AntPatternComparator(path);
 	}
 
+	/**
+	 * Parse the given pattern once into a {@link CompiledPattern} which can
+	 * then be matched against any number of paths, without tokenizing the
+	 * pattern or the path and without going through this matcher's caches.
+	 * <p>The compiled pattern captures this matcher's current path separator,
+	 * case sensitivity and token trimming settings. Custom behavior from
+	 * overridden template methods such as {@link #tokenizePath} or
+	 * {@link #getStringMatcher} is not taken into account.
+	 * @param pattern the pattern to compile
+	 * @return the compiled pattern
+	 * @since 5.0.5
+	 * @see CompiledPattern#isCompatibleWith(PathMatcher)
+	 */
+	public CompiledPattern compile(String pattern) {
+		return new CompiledPattern(pattern, this.pathSeparator, this.caseSensitive, this.trimTokens);
+	}
+
 
 	/**
 	 * Tests whether or not a string matches against a pattern via a {@link Pattern}.
@@ -708,6 +749,450 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 
+	/**
+	 * An Ant-style pattern parsed into an immutable array of segments, as
+	 * returned by {@link AntPathMatcher#compile(String)}.
+	 * <p>{@link #match} and {@link #matchStart} give the same results as the
+	 * corresponding {@code AntPathMatcher} methods, walking the path in place
+	 * rather than tokenizing it: literal segments are compared directly, and
+	 * segments with "*", "?" and plain "{name}" variables are matched by a
+	 * simple glob matcher. Only segments with a regular expression variable
+	 * such as "{name:[a-z]+}" still go through a {@link Matcher}.
+	 * @since 5.0.5
+	 */
+	public static final class CompiledPattern {
+
+		private static final int DOUBLE_WILDCARD = 0;
+
+		private static final int LITERAL = 1;
+
+		private static final int GLOB = 2;
+
+		private static final int REGEX = 3;
+
+		private final String pattern;
+
+		private final String pathSeparator;
+
+		private final boolean caseSensitive;
+
+		private final boolean trimTokens;
+
+		private final String[] segments;
+
+		/** Per segment: one of DOUBLE_WILDCARD, LITERAL, GLOB or REGEX */
+		private final int[] segmentTypes;
+
+		/** Per segment: the glob text with variables replaced by "*", or null */
+		private final String[] globs;
+
+		/** Per segment: the regex-based matcher for REGEX segments, or null */
+		private final AntPathStringMatcher[] stringMatchers;
+
+		private CompiledPattern(String pattern, String pathSeparator, boolean caseSensitive, boolean trimTokens) {
+			this.pattern = pattern;
+			this.pathSeparator = pathSeparator;
+			this.caseSensitive = caseSensitive;
+			this.trimTokens = trimTokens;
+			this.segments = StringUtils.tokenizeToStringArray(pattern, pathSeparator, trimTokens, true);
+			this.segmentTypes = new int[this.segments.length];
+			this.globs = new String[this.segments.length];
+			this.stringMatchers = new AntPathStringMatcher[this.segments.length];
+			for (int i = 0; i < this.segments.length; i++) {
+				String segment = this.segments[i];
+				if ("**".equals(segment)) {
+					this.segmentTypes[i] = DOUBLE_WILDCARD;
+				}
+				else if (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1) {
+					this.segmentTypes[i] = LITERAL;
+				}
+				else {
+					String glob = toGlob(segment);
+					if (glob != null) {
+						this.segmentTypes[i] = GLOB;
+						this.globs[i] = glob;
+					}
+					else {
+						this.segmentTypes[i] = REGEX;
+						this.stringMatchers[i] = new AntPathStringMatcher(segment, caseSensitive);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Turn the given segment into a glob with "*" and "?" wildcards, replacing
+		 * plain "{name}" variables with "*".
+		 * @return the glob, or {@code null} if the segment needs a regular expression
+		 */
+		@Nullable
+		private static String toGlob(String segment) {
+			if (segment.indexOf('\\') != -1) {
+				return null;
+			}
+			StringBuilder glob = new StringBuilder(segment.length());
+			int pos = 0;
+			while (pos < segment.length()) {
+				char c = segment.charAt(pos);
+				if (c == '{') {
+					int end = segment.indexOf('}', pos + 1);
+					if (end <= pos + 1) {
+						return null;
+					}
+					for (int i = pos + 1; i < end; i++) {
+						char nameChar = segment.charAt(i);
+						if (nameChar == '{' || nameChar == ':' || nameChar == '/') {
+							return null;
+						}
+					}
+					glob.append('*');
+					pos = end + 1;
+				}
+				else {
+					glob.append(c);
+					pos++;
+				}
+			}
+			return glob.toString();
+		}
+
+
+		/**
+		 * Return the original pattern String.
+		 */
+		public String getPattern() {
+			return this.pattern;
+		}
+
+		/**
+		 * Whether this compiled pattern gives the same results as the given
+		 * PathMatcher, i.e. whether the PathMatcher is a plain {@code AntPathMatcher}
+		 * (not a subclass) with the settings that this pattern was compiled with.
+		 * @param pathMatcher the PathMatcher to check
+		 */
+		public boolean isCompatibleWith(PathMatcher pathMatcher) {
+			if (pathMatcher.getClass() != AntPathMatcher.class) {
+				return false;
+			}
+			AntPathMatcher antPathMatcher = (AntPathMatcher) pathMatcher;
+			return (this.pathSeparator.equals(antPathMatcher.pathSeparator) &&
+					this.caseSensitive == antPathMatcher.caseSensitive &&
+					this.trimTokens == antPathMatcher.trimTokens);
+		}
+
+		/**
+		 * Match the given path against this pattern.
+		 * @see AntPathMatcher#match(String, String)
+		 */
+		public boolean match(String path) {
+			return doMatch(path, true);
+		}
+
+		/**
+		 * Match the given path against the corresponding part of this pattern.
+		 * @see AntPathMatcher#matchStart(String, String)
+		 */
+		public boolean matchStart(String path) {
+			return doMatch(path, false);
+		}
+
+		/**
+		 * Same algorithm as {@link AntPathMatcher#doMatch}, with path segments
+		 * addressed as start and end offsets instead of tokenized Strings.
+		 */
+		private boolean doMatch(String path, boolean fullMatch) {
+			if (path.startsWith(this.pathSeparator) != this.pattern.startsWith(this.pathSeparator)) {
+				return false;
+			}
+
+			int pattIdxStart = 0;
+			int pattIdxEnd = this.segments.length - 1;
+			int pathStart = 0;
+			int pathEnd = path.length();
+
+			// Match all elements up to the first **
+			while (pattIdxStart <= pattIdxEnd) {
+				long token = nextToken(path, pathStart, pathEnd);
+				if (token == -1 || this.segmentTypes[pattIdxStart] == DOUBLE_WILDCARD) {
+					break;
+				}
+				if (!matchSegment(pattIdxStart, path, token)) {
+					return false;
+				}
+				pattIdxStart++;
+				pathStart = tokenEnd(token);
+			}
+
+			if (nextToken(path, pathStart, pathEnd) == -1) {
+				// Path is exhausted, only match if rest of pattern is * or **'s
+				if (pattIdxStart > pattIdxEnd) {
+					return (this.pattern.endsWith(this.pathSeparator) == path.endsWith(this.pathSeparator));
+				}
+				if (!fullMatch) {
+					return true;
+				}
+				if (pattIdxStart == pattIdxEnd && this.segments[pattIdxStart].equals("*") &&
+						path.endsWith(this.pathSeparator)) {
+					return true;
+				}
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+			else if (pattIdxStart > pattIdxEnd) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			else if (!fullMatch && this.segmentTypes[pattIdxStart] == DOUBLE_WILDCARD) {
+				// Path start definitely matches due to "**" part in pattern.
+				return true;
+			}
+
+			// up to last '**'
+			while (pattIdxStart <= pattIdxEnd) {
+				long token = previousToken(path, pathStart, pathEnd);
+				if (token == -1 || this.segmentTypes[pattIdxEnd] == DOUBLE_WILDCARD) {
+					break;
+				}
+				if (!matchSegment(pattIdxEnd, path, token)) {
+					return false;
+				}
+				pattIdxEnd--;
+				pathEnd = tokenStart(token);
+			}
+			if (nextToken(path, pathStart, pathEnd) == -1) {
+				// String is exhausted
+				return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+			}
+
+			while (pattIdxStart != pattIdxEnd && nextToken(path, pathStart, pathEnd) != -1) {
+				int patIdxTmp = -1;
+				for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+					if (this.segmentTypes[i] == DOUBLE_WILDCARD) {
+						patIdxTmp = i;
+						break;
+					}
+				}
+				if (patIdxTmp == pattIdxStart + 1) {
+					// '**/**' situation, so skip one
+					pattIdxStart++;
+					continue;
+				}
+				// Find the segments between pattIdxStart & patIdxTmp in the
+				// path between pathStart & pathEnd
+				int patLength = (patIdxTmp - pattIdxStart - 1);
+				int foundEnd = -1;
+				int candidateStart = pathStart;
+
+				strLoop:
+				while (true) {
+					long first = nextToken(path, candidateStart, pathEnd);
+					if (first == -1) {
+						break;
+					}
+					int pos = candidateStart;
+					for (int j = 0; j < patLength; j++) {
+						long token = nextToken(path, pos, pathEnd);
+						if (token == -1) {
+							// Not enough path segments left for any later candidate either
+							break strLoop;
+						}
+						if (!matchSegment(pattIdxStart + j + 1, path, token)) {
+							candidateStart = tokenEnd(first);
+							continue strLoop;
+						}
+						pos = tokenEnd(token);
+					}
+					foundEnd = pos;
+					break;
+				}
+
+				if (foundEnd == -1) {
+					return false;
+				}
+
+				pattIdxStart = patIdxTmp;
+				pathStart = foundEnd;
+			}
+
+			return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+		}
+
+		private boolean onlyDoubleWildcards(int fromIndex, int toIndex) {
+			for (int i = fromIndex; i <= toIndex; i++) {
+				if (this.segmentTypes[i] != DOUBLE_WILDCARD) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Find the first non-empty token in the given range of the path,
+		 * as {@link StringUtils#tokenizeToStringArray} would return it.
+		 * @return the token's start and end offsets packed into a long,
+		 * or -1 if there is no further token in the range
+		 */
+		private long nextToken(String path, int from, int to) {
+			int pos = from;
+			while (pos < to) {
+				while (pos < to && isSeparator(path.charAt(pos))) {
+					pos++;
+				}
+				int start = pos;
+				while (pos < to && !isSeparator(path.charAt(pos))) {
+					pos++;
+				}
+				int end = pos;
+				if (this.trimTokens) {
+					while (start < end && path.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && path.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					return ((long) start << 32) | end;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Find the last non-empty token in the given range of the path.
+		 * @see #nextToken
+		 */
+		private long previousToken(String path, int from, int to) {
+			int pos = to;
+			while (pos > from) {
+				while (pos > from && isSeparator(path.charAt(pos - 1))) {
+					pos--;
+				}
+				int end = pos;
+				while (pos > from && !isSeparator(path.charAt(pos - 1))) {
+					pos--;
+				}
+				int start = pos;
+				if (this.trimTokens) {
+					while (start < end && path.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && path.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					return ((long) start << 32) | end;
+				}
+			}
+			return -1;
+		}
+
+		private static int tokenStart(long token) {
+			return (int) (token >>> 32);
+		}
+
+		private static int tokenEnd(long token) {
+			return (int) token;
+		}
+
+		private boolean isSeparator(char c) {
+			// Any of the separator characters, as with StringTokenizer
+			return (this.pathSeparator.length() == 1 ? c == this.pathSeparator.charAt(0) :
+					this.pathSeparator.indexOf(c) != -1);
+		}
+
+		private boolean matchSegment(int index, String path, long token) {
+			int start = tokenStart(token);
+			int end = tokenEnd(token);
+			switch (this.segmentTypes[index]) {
+				case LITERAL:
+					String segment = this.segments[index];
+					if (segment.length() != end - start) {
+						return false;
+					}
+					for (int i = 0; i < segment.length(); i++) {
+						if (!charMatches(segment.charAt(i), path.charAt(start + i))) {
+							return false;
+						}
+					}
+					return true;
+				case GLOB:
+					int result = matchGlob(this.globs[index], path, start, end);
+					if (result >= 0) {
+						return (result == 1);
+					}
+					// Line terminators in the path: let the regular expression decide
+					return new AntPathStringMatcher(this.segments[index], this.caseSensitive)
+							.matchStrings(path.substring(start, end), null);
+				case REGEX:
+					return this.stringMatchers[index].matchStrings(path.substring(start, end), null);
+				default:
+					return true;
+			}
+		}
+
+		/**
+		 * Match the given glob against the given range of the path, with the
+		 * usual backtracking over the last "*" seen.
+		 * @return 1 for a match, 0 for no match, or -1 if a wildcard would have
+		 * to cover a line terminator, which the regular expression based matching
+		 * does not allow for ("." does not match line terminators)
+		 */
+		private int matchGlob(String glob, String path, int start, int end) {
+			int globPos = 0;
+			int pathPos = start;
+			int starGlobPos = -1;
+			int starPathPos = -1;
+			while (pathPos < end) {
+				char c = path.charAt(pathPos);
+				if (globPos < glob.length()) {
+					char g = glob.charAt(globPos);
+					if (g == '*') {
+						starGlobPos = globPos++;
+						starPathPos = pathPos;
+						continue;
+					}
+					if (g == '?' ? !isLineTerminator(c) : charMatches(g, c)) {
+						globPos++;
+						pathPos++;
+						continue;
+					}
+				}
+				if (starGlobPos == -1) {
+					return 0;
+				}
+				if (isLineTerminator(path.charAt(starPathPos))) {
+					return -1;
+				}
+				globPos = starGlobPos + 1;
+				pathPos = ++starPathPos;
+			}
+			while (globPos < glob.length() && glob.charAt(globPos) == '*') {
+				globPos++;
+			}
+			return (globPos == glob.length() ? 1 : 0);
+		}
+
+		private boolean charMatches(char patternChar, char pathChar) {
+			if (patternChar == pathChar) {
+				return true;
+			}
+			// Pattern.CASE_INSENSITIVE without UNICODE_CASE: US-ASCII only
+			return (!this.caseSensitive && patternChar < 128 && pathChar < 128 &&
+					Character.toLowerCase(patternChar) == Character.toLowerCase(pathChar));
+		}
+
+		private static boolean isLineTerminator(char c) {
+			return (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029');
+		}
+
+		@Override
+		public String toString() {
+			return this.pattern;
+		}
+	}
+
+
 	/**
 	 * The default {@link Comparator} implementation returned by
 	 * {@link #getPatternComparator(String)}.
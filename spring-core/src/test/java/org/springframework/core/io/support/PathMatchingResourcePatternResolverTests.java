@@ -16,16 +16,29 @@
 
 package org.springframework.core.io.support;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 
 import static org.junit.Assert.*;
@@ -54,6 +67,9 @@ public class PathMatchingResourcePatternResolverTests {
 	private static final String[] CLASSES_IN_REACTIVESTREAMS =
 			new String[] {"Processor.class", "Publisher.class", "Subscriber.class", "Subscription.class"};
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
 
 
@@ -119,6 +135,89 @@ public class PathMatchingResourcePatternResolverTests {
 	}
 
 
+	@Test
+	public void parallelRootDirectorySearch() throws IOException {
+		Resource[] expected = resolver.getResources("classpath*:META-INF/*.MF");
+		assertTrue(expected.length > 1);
+		resolver.setParallelism(4);
+		assertArrayEquals(expected, resolver.getResources("classpath*:META-INF/*.MF"));
+		assertProtocolAndFilenames(resolver.getResources("classpath*:org/reactivestreams/*.class"),
+				"jar", CLASSES_IN_REACTIVESTREAMS);
+	}
+
+	@Test
+	public void prefixPatternOnFileSystem() throws IOException {
+		File root = temporaryFolder.getRoot();
+		new File(root, "abc/deep").mkdirs();
+		new File(root, "abd").mkdirs();
+		new File(root, "xyz").mkdirs();
+		new File(root, "abc/one.txt").createNewFile();
+		new File(root, "abc/deep/two.txt").createNewFile();
+		new File(root, "abd/three.txt").createNewFile();
+		new File(root, "xyz/four.txt").createNewFile();
+		Resource[] resources = resolver.getResources(root.toURI() + "abc/**/*.txt");
+		assertProtocolAndFilenames(resources, "file", "one.txt", "two.txt");
+		resources = resolver.getResources(root.toURI() + "ab*/*.txt");
+		assertProtocolAndFilenames(resources, "file", "one.txt", "three.txt");
+	}
+
+	@Test
+	public void jarEntriesAreCachedPerResolver() throws IOException {
+		File jar = temporaryFolder.newFile("test.jar");
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			for (String name : new String[] {"a/", "a/one.txt", "a/two.txt", "b/three.txt"}) {
+				out.putNextEntry(new JarEntry(name));
+				out.closeEntry();
+			}
+		}
+		AtomicInteger openCount = new AtomicInteger();
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver() {
+			@Override
+			protected JarFile getJarFile(String jarFileUrl) throws IOException {
+				openCount.incrementAndGet();
+				return super.getJarFile(jarFileUrl);
+			}
+		};
+		// Custom "zip:" protocol without a JarURLConnection, as on WebLogic
+		URL rootUrl = new URL(null, "zip:" + jar.getAbsolutePath() + "!/", new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(URL url) {
+				return new URLConnection(url) {
+					@Override
+					public void connect() {
+					}
+				};
+			}
+		});
+		Resource rootResource = new UrlResource(rootUrl);
+
+		assertEquals(2, resolver.doFindPathMatchingJarResources(rootResource, rootUrl, "a/*.txt").size());
+		assertEquals(1, resolver.doFindPathMatchingJarResources(rootResource, rootUrl, "*/three.txt").size());
+		assertEquals(1, openCount.get());
+		resolver.clearCache();
+		assertEquals(3, resolver.doFindPathMatchingJarResources(rootResource, rootUrl, "**/*.txt").size());
+		assertEquals(2, openCount.get());
+	}
+
+
+	@Test
+	public void caseInsensitiveDefaultPathMatcherIsNotPruned() throws IOException {
+		File jar = temporaryFolder.newFile("test.jar");
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			for (String name : new String[] {"A/", "A/one.txt", "b/two.txt"}) {
+				out.putNextEntry(new JarEntry(name));
+				out.closeEntry();
+			}
+		}
+		URL rootUrl = new URL("jar:" + jar.toURI().toURL() + "!/");
+		Resource rootResource = new UrlResource(rootUrl);
+		assertEquals(0, resolver.doFindPathMatchingJarResources(rootResource, rootUrl, "a/*.txt").size());
+
+		((AntPathMatcher) resolver.getPathMatcher()).setCaseSensitive(false);
+		assertEquals(1, resolver.doFindPathMatchingJarResources(rootResource, rootUrl, "a/*.txt").size());
+	}
+
+
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.metrics;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BufferingApplicationStartup}.
+ */
+public class BufferingApplicationStartupTests {
+
+	@Test
+	public void nestedStepsAreParentedOnSameThread() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("outer");
+		StartupStep inner = startup.start("inner").tag("key", "value");
+		inner.end();
+		StartupStep sibling = startup.start("sibling");
+		sibling.end();
+		outer.end();
+		StartupStep next = startup.start("next");
+		next.end();
+
+		assertNull(outer.getParentId());
+		assertEquals(Long.valueOf(outer.getId()), inner.getParentId());
+		assertEquals(Long.valueOf(outer.getId()), sibling.getParentId());
+		assertNull(next.getParentId());
+
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		assertEquals(4, steps.size());
+		assertEquals("inner", steps.get(0).getName());
+		assertEquals("value", steps.get(0).getTag("key"));
+		assertNull(steps.get(0).getTag("other"));
+	}
+
+	@Test
+	public void endingParentPopsStepsLeftOpen() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("outer");
+		startup.start("abandoned");
+		outer.end();
+		StartupStep next = startup.start("next");
+		assertNull(next.getParentId());
+	}
+
+	@Test
+	public void stepsOnOtherThreadsAreNotParented() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("outer");
+		StartupStep[] holder = new StartupStep[1];
+		Thread thread = new Thread(() -> {
+			holder[0] = startup.start("other");
+			holder[0].end();
+		});
+		thread.start();
+		thread.join();
+		outer.end();
+		assertNull(holder[0].getParentId());
+	}
+
+	@Test
+	public void stepsBeyondCapacityAreDropped() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			startup.start("step").end();
+		}
+		assertEquals(2, startup.getBufferedSteps().size());
+		assertEquals(3, startup.getDroppedStepCount());
+	}
+
+	@Test
+	public void slowestStepsFilteredByName() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep slow = startup.start("bean").tag("beanName", "slow");
+		Thread.sleep(20);
+		slow.end();
+		startup.start("bean").tag("beanName", "fast").end();
+		StartupStep other = startup.start("other");
+		Thread.sleep(40);
+		other.end();
+
+		List<BufferedStartupStep> slowest = startup.getSlowestSteps("bean", 1);
+		assertEquals(1, slowest.size());
+		assertEquals("slow", slowest.get(0).getTag("beanName"));
+		assertEquals("other", startup.getSlowestSteps(null, 3).get(0).getName());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void endTwice() {
+		StartupStep step = new BufferingApplicationStartup(10).start("step");
+		step.end();
+		step.end();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void tagAfterEnd() {
+		StartupStep step = new BufferingApplicationStartup(10).start("step");
+		step.end();
+		step.tag("key", "value");
+	}
+
+	@Test
+	public void json() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("outer");
+		startup.start("inner").tag("beanName", "a\"b\\c\n").end();
+		outer.end();
+
+		String json = startup.toJson();
+		assertTrue(json, json.startsWith("{\"startTime\":" + startup.getStartTime() + ",\"droppedSteps\":0,\"steps\":[{\"id\":2,\"parentId\":1,\"name\":\"inner\","));
+		assertTrue(json, json.contains("\"tags\":{\"beanName\":\"a\\\"b\\\\c\\n\"}}"));
+		assertTrue(json, json.contains("{\"id\":1,\"parentId\":null,\"name\":\"outer\","));
+		assertTrue(json, json.endsWith("\"tags\":{}}]}"));
+	}
+
+	@Test
+	public void defaultStartupIsNoOp() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("step").tag("key", "value");
+		step.end();
+		assertFalse(step.getTags().iterator().hasNext());
+	}
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ObjectUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PersistentMetadataCache}.
+ */
+public class PersistentMetadataCacheTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ClassLoader classLoader = getClass().getClassLoader();
+
+
+	@Test
+	public void replayedMetadataMatchesParsedMetadata() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		Resource resource = copyClassFile(AnnotatedComponent.class);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		cache.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, cache.getMissCount());
+		cache.flush();
+
+		PersistentMetadataCache reopened = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		MetadataReader cached = reopened.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, reopened.getHitCount());
+		assertEquals(0, reopened.getMissCount());
+
+		MetadataReader parsed = new SimpleMetadataReader(resource, this.classLoader);
+		assertSameMetadata(parsed.getAnnotationMetadata(), cached.getAnnotationMetadata());
+	}
+
+	@Test
+	public void entriesAddedInSameJvmAreReused() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		Resource resource = copyClassFile(AnnotatedComponent.class);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		cache.getMetadataReader(resource, this.classLoader);
+		cache.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void changedClassFileIsParsedAgain() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		FileSystemResource resource = copyClassFile(AnnotatedComponent.class);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		cache.getMetadataReader(resource, this.classLoader);
+		cache.flush();
+
+		FileCopyUtils.copy(readClassFile(PlainComponent.class), resource.getFile());
+		assertTrue(resource.getFile().setLastModified(resource.getFile().lastModified() + 2000));
+		PersistentMetadataCache reopened = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		MetadataReader reader = reopened.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, reopened.getMissCount());
+		assertEquals(PlainComponent.class.getName(), reader.getClassMetadata().getClassName());
+	}
+
+	@Test
+	public void jarEntriesAreCached() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		File jar = this.temporaryFolder.newFile("classes.jar");
+		String entryName = AnnotatedComponent.class.getName().replace('.', '/') + ".class";
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+			out.putNextEntry(new JarEntry(entryName));
+			out.write(readClassFile(AnnotatedComponent.class));
+			out.closeEntry();
+		}
+		Resource resource = new UrlResource("jar:" + jar.toURI().toURL() + "!/" + entryName);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		cache.getMetadataReader(resource, this.classLoader);
+		cache.flush();
+
+		PersistentMetadataCache reopened = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		MetadataReader reader = reopened.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, reopened.getHitCount());
+		assertTrue(reader.getAnnotationMetadata().hasAnnotation(Marker.class.getName()));
+	}
+
+	@Test
+	public void foreignFileIsNeitherReadNorOverwritten() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		byte[] content = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+		FileCopyUtils.copy(content, cacheFile);
+		Resource resource = copyClassFile(AnnotatedComponent.class);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		cache.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, cache.getMissCount());
+		cache.flush();
+
+		assertArrayEquals(content, FileCopyUtils.copyToByteArray(cacheFile));
+	}
+
+	@Test
+	public void corruptCacheFileIsIgnoredAndReplaced() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		// Magic header of a metadata cache file, followed by an unknown version and garbage
+		FileCopyUtils.copy(new byte[] {0x53, 0x4d, 0x44, 0x43, 0, 0, 0, 99, 9, 10, 11, 12}, cacheFile);
+		Resource resource = copyClassFile(AnnotatedComponent.class);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		cache.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, cache.getMissCount());
+		cache.flush();
+
+		PersistentMetadataCache reopened = new PersistentMetadataCache(cacheFile, PersistentMetadataCache.DEFAULT_MAX_FILE_SIZE);
+		reopened.getMetadataReader(resource, this.classLoader);
+		assertEquals(1, reopened.getHitCount());
+	}
+
+	@Test
+	public void outgrownCacheFileIsStartedOver() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		Resource annotated = copyClassFile(AnnotatedComponent.class);
+		Resource plain = copyClassFile(PlainComponent.class);
+
+		PersistentMetadataCache cache = new PersistentMetadataCache(cacheFile, 2048);
+		cache.getMetadataReader(annotated, this.classLoader);
+		cache.flush();
+		long size = cacheFile.length();
+		assertTrue(size < 2048);
+		cache.getMetadataReader(plain, this.classLoader);
+		cache.flush();
+		cache.getMetadataReader(plain, this.classLoader);
+		cache.flush();
+
+		PersistentMetadataCache reopened = new PersistentMetadataCache(cacheFile, 2048);
+		reopened.getMetadataReader(plain, this.classLoader);
+		assertTrue(cacheFile.length() <= 2048);
+		assertEquals(1, reopened.getHitCount());
+	}
+
+	@Test
+	public void factoryUsesPersistentCache() throws IOException {
+		PersistentMetadataCache cache = PersistentMetadataCache.forFile(
+				new File(this.temporaryFolder.getRoot(), "metadata.cache"));
+		assertSame(cache, PersistentMetadataCache.forFile(new File(this.temporaryFolder.getRoot(), "metadata.cache")));
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setPersistentMetadataCache(cache);
+		Resource resource = copyClassFile(AnnotatedComponent.class);
+		factory.getMetadataReader(resource);
+		assertEquals(1, cache.getMissCount());
+		factory.clearCache();
+		assertTrue(cache.getFile().length() > 0);
+	}
+
+	@Test
+	public void factoryUsesNoPersistentCacheUnlessSet() {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		System.setProperty(PersistentMetadataCache.CACHE_FILE_PROPERTY_NAME, cacheFile.getPath());
+		try {
+			assertNull(new CachingMetadataReaderFactory().getPersistentMetadataCache());
+			assertSame(PersistentMetadataCache.forFile(cacheFile), PersistentMetadataCache.getDefault());
+		}
+		finally {
+			System.clearProperty(PersistentMetadataCache.CACHE_FILE_PROPERTY_NAME);
+		}
+	}
+
+
+	private FileSystemResource copyClassFile(Class<?> clazz) throws IOException {
+		File file = this.temporaryFolder.newFile(clazz.getSimpleName() + ".class");
+		FileCopyUtils.copy(readClassFile(clazz), file);
+		return new FileSystemResource(file);
+	}
+
+	private static byte[] readClassFile(Class<?> clazz) throws IOException {
+		try (InputStream is = new ClassPathResource(clazz.getName().replace('.', '/') + ".class").getInputStream()) {
+			return FileCopyUtils.copyToByteArray(is);
+		}
+	}
+
+	private static void assertSameMetadata(AnnotationMetadata expected, AnnotationMetadata actual) {
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertEquals(expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertArrayEquals(expected.getMemberClassNames(), actual.getMemberClassNames());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.isAbstract(), actual.isAbstract());
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+			assertAttributesEqual(expected.getAnnotationAttributes(annotationType),
+					actual.getAnnotationAttributes(annotationType));
+			assertAttributesEqual(expected.getAnnotationAttributes(annotationType, true),
+					actual.getAnnotationAttributes(annotationType, true));
+		}
+		assertEquals(expected.getAnnotatedMethods(Marker.class.getName()).size(),
+				actual.getAnnotatedMethods(Marker.class.getName()).size());
+		for (MethodMetadata method : actual.getAnnotatedMethods(Marker.class.getName())) {
+			assertEquals("annotatedMethod", method.getMethodName());
+			assertEquals("method", method.getAnnotationAttributes(Marker.class.getName()).get("value"));
+		}
+	}
+
+	private static void assertAttributesEqual(Object expected, Object actual) {
+		if (expected instanceof Map) {
+			Map<?, ?> expectedMap = (Map<?, ?>) expected;
+			Map<?, ?> actualMap = (Map<?, ?>) actual;
+			assertEquals(expectedMap.keySet(), actualMap.keySet());
+			for (Object key : expectedMap.keySet()) {
+				assertAttributesEqual(expectedMap.get(key), actualMap.get(key));
+			}
+			if (expected instanceof AnnotationAttributes) {
+				assertEquals(((AnnotationAttributes) expected).annotationType(),
+						((AnnotationAttributes) actual).annotationType());
+			}
+		}
+		else if (expected instanceof Object[]) {
+			Object[] expectedArray = (Object[]) expected;
+			Object[] actualArray = (Object[]) actual;
+			assertEquals(expectedArray.length, actualArray.length);
+			for (int i = 0; i < expectedArray.length; i++) {
+				assertAttributesEqual(expectedArray[i], actualArray[i]);
+			}
+		}
+		else {
+			assertTrue(expected + " != " + actual, ObjectUtils.nullSafeEquals(expected, actual));
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	public @interface Marker {
+
+		String value() default "";
+
+		Class<?>[] types() default {};
+
+		ElementType element() default ElementType.TYPE;
+
+		int[] numbers() default {};
+
+		char character() default 'x';
+
+		Nested[] nested() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Nested {
+
+		String name();
+
+		long number() default 0L;
+	}
+
+
+	@Marker(value = "type", types = {String.class, int[].class}, element = ElementType.FIELD,
+			numbers = {1, 2, 3}, character = 'y', nested = {@Nested(name = "a", number = 1L), @Nested(name = "b")})
+	@SuppressWarnings("serial")
+	public static class AnnotatedComponent extends Thread implements Serializable {
+
+		@Marker("method")
+		public void annotatedMethod() {
+		}
+
+		public void plainMethod() {
+		}
+
+		public static class Member {
+		}
+	}
+
+
+	public static class PlainComponent {
+	}
+
+}
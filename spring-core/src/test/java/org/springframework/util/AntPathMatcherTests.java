@@ -681,4 +681,58 @@ public class AntPathMatcherTests {
 				"/*.html.hotel.*", pathMatcher.combine("/*.html", "hotel.*"));
 	}
 
+	@Test
+	public void compiledPatternMatchesLikeMatcher() {
+		String[] patterns = {"", "/", "test", "/test", "/test/", "t?st", "*", "/*", "/*/", "**", "/**", "/**/",
+				"/bla/**/bla", "/**/bla/**", "/*bla*/**/bla/**", "/x/x/**/bla", "/bla*bla/test", "*bla*/**/bla/*",
+				"/{bla}.*", "/test/{name}.jpg", "/{a}{b}/**", "/{id:[0-9]+}", "/sp?ng/**/*.{ext}", "/\\{esc}",
+				"/a/**/b/**/c", "/**/**/c", "/A/b", "/ab{", "/{}/x", "/a/{id}/b"};
+		String[] paths = {"", "/", "test", "/test", "/test/", "tst", "/bla/bla", "/bla/x/y/bla", "/bla/bla/",
+				"/x/x/x/bla", "/XXXblaXXXX/testing/testing/bla/testing", "/testing.jpg", "/test/lorem.jpg",
+				"/12", "/1a", "/spring/a/b/x.txt", "/a/x/b/y/c", "/a/b/c/", "/c", "/a/b", "/A/B", "/ab{",
+				"/{}/x", "//a//7//b", "/a/ b/c", "/a/1/b", "/te\nst", "/\\{esc}"};
+		for (AntPathMatcher matcher : new AntPathMatcher[] {new AntPathMatcher(), caseInsensitiveMatcher(), trimTokensMatcher()}) {
+			for (String pattern : patterns) {
+				AntPathMatcher.CompiledPattern compiled = matcher.compile(pattern);
+				assertEquals(pattern, compiled.getPattern());
+				for (String path : paths) {
+					assertEquals(pattern + " vs " + path, matcher.match(pattern, path), compiled.match(path));
+					assertEquals(pattern + " vs " + path, matcher.matchStart(pattern, path), compiled.matchStart(path));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void compiledPatternWithDotPathSeparator() {
+		AntPathMatcher matcher = new AntPathMatcher(".");
+		AntPathMatcher.CompiledPattern compiled = matcher.compile("com.*.Sample*");
+		assertTrue(compiled.match("com.example.SampleTests"));
+		assertFalse(compiled.match("com/example/SampleTests"));
+		assertTrue(compiled.matchStart("com.example"));
+	}
+
+	@Test
+	public void compiledPatternCompatibility() {
+		AntPathMatcher.CompiledPattern compiled = pathMatcher.compile("/test/*");
+		assertTrue(compiled.isCompatibleWith(new AntPathMatcher()));
+		assertFalse(compiled.isCompatibleWith(caseInsensitiveMatcher()));
+		assertFalse(compiled.isCompatibleWith(new AntPathMatcher(".")));
+		assertFalse(compiled.isCompatibleWith(new AntPathMatcher() {}));
+		pathMatcher.setCaseSensitive(false);
+		assertFalse(compiled.isCompatibleWith(pathMatcher));
+	}
+
+	private static AntPathMatcher caseInsensitiveMatcher() {
+		AntPathMatcher matcher = new AntPathMatcher();
+		matcher.setCaseSensitive(false);
+		return matcher;
+	}
+
+	private static AntPathMatcher trimTokensMatcher() {
+		AntPathMatcher matcher = new AntPathMatcher();
+		matcher.setTrimTokens(true);
+		return matcher;
+	}
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmark for {@link SpelExpression#getValue(EvaluationContext)} in
+ * interpreted mode and in compiled mode.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SpelExpressionBenchmark {
+
+	@Param({"OFF", "IMMEDIATE"})
+	public SpelCompilerMode compilerMode;
+
+	@Param({"property", "method", "arithmetic"})
+	public String kind;
+
+	private Expression expression;
+
+	private EvaluationContext context;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		SpelParserConfiguration configuration =
+				new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader());
+		SpelExpressionParser parser = new SpelExpressionParser(configuration);
+		String expressionString;
+		switch (this.kind) {
+			case "property":
+				expressionString = "address.city";
+				break;
+			case "method":
+				expressionString = "name.substring(1).toUpperCase()";
+				break;
+			default:
+				expressionString = "(age * 2 + 10) > 50";
+		}
+		this.expression = parser.parseExpression(expressionString);
+		this.context = new StandardEvaluationContext(new Person("Juergen", 42, new Address("Linz")));
+		// Evaluate once so that IMMEDIATE mode has seen the types it needs for compilation
+		this.expression.getValue(this.context);
+		if (this.compilerMode != SpelCompilerMode.OFF && !((SpelExpression) this.expression).compileExpression()) {
+			throw new IllegalStateException("Expression could not be compiled: " + expressionString);
+		}
+	}
+
+	@Benchmark
+	public Object getValue() {
+		return this.expression.getValue(this.context);
+	}
+
+
+	public static class Person {
+
+		private final String name;
+
+		private final int age;
+
+		private final Address address;
+
+		public Person(String name, int age, Address address) {
+			this.name = name;
+			this.age = age;
+			this.address = address;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+	}
+
+
+	public static class Address {
+
+		private final String city;
+
+		public Address(String city) {
+			this.city = city;
+		}
+
+		public String getCity() {
+			return this.city;
+		}
+	}
+
+}
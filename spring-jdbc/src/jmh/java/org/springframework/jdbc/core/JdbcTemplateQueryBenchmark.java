@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for {@link JdbcTemplate#query(String, RowMapper)} with a
+ * {@link BeanPropertyRowMapper} against an embedded H2 database.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class JdbcTemplateQueryBenchmark {
+
+	@Param({"1", "100", "10000"})
+	public int rowCount;
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private RowMapper<Person> beanPropertyRowMapper;
+
+	private RowMapper<Person> handWrittenRowMapper;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("CREATE TABLE person (id BIGINT PRIMARY KEY, first_name VARCHAR(50), " +
+				"last_name VARCHAR(50), age INT, balance DECIMAL(10,2), active BOOLEAN)");
+		this.jdbcTemplate.batchUpdate("INSERT INTO person VALUES (?, ?, ?, ?, ?, ?)",
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						ps.setLong(1, i);
+						ps.setString(2, "First" + i);
+						ps.setString(3, "Last" + i);
+						ps.setInt(4, i % 100);
+						ps.setBigDecimal(5, BigDecimal.valueOf(i, 2));
+						ps.setBoolean(6, i % 2 == 0);
+					}
+					@Override
+					public int getBatchSize() {
+						return rowCount;
+					}
+				});
+		this.beanPropertyRowMapper = new BeanPropertyRowMapper<>(Person.class);
+		this.handWrittenRowMapper = (rs, rowNum) -> {
+			Person person = new Person();
+			person.setId(rs.getLong(1));
+			person.setFirstName(rs.getString(2));
+			person.setLastName(rs.getString(3));
+			person.setAge(rs.getInt(4));
+			person.setBalance(rs.getBigDecimal(5));
+			person.setActive(rs.getBoolean(6));
+			return person;
+		};
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.database.shutdown();
+	}
+
+	@Benchmark
+	public List<Person> beanPropertyRowMapper() {
+		return this.jdbcTemplate.query("SELECT id, first_name, last_name, age, balance, active FROM person",
+				this.beanPropertyRowMapper);
+	}
+
+	@Benchmark
+	public List<Person> handWrittenRowMapper() {
+		return this.jdbcTemplate.query("SELECT id, first_name, last_name, age, balance, active FROM person",
+				this.handWrittenRowMapper);
+	}
+
+
+	public static class Person {
+
+		private long id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private int age;
+
+		private BigDecimal balance;
+
+		private boolean active;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return this.firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return this.lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public BigDecimal getBalance() {
+			return this.balance;
+		}
+
+		public void setBalance(BigDecimal balance) {
+			this.balance = balance;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+/**
+ * Adapts the number of rows per JDBC batch to the measured round-trip time of
+ * {@link java.sql.Statement#executeBatch()} during a streaming batch update.
+ *
+ * <p>The batch size starts small and doubles as long as a full batch completes
+ * in less than half of the target time, up to the configured maximum. A batch
+ * exceeding the target time shrinks the next one proportionally (at most halving
+ * it), so that slow statements still get flushed in bounded time and memory.
+ *
+ * @since 5.0.5
+ * @see JdbcTemplate#batchUpdate(String, java.util.Iterator, ParameterizedPreparedStatementSetter)
+ */
+class AdaptiveBatchSizer {
+
+	static final int INITIAL_BATCH_SIZE = 16;
+
+
+	private final int maxBatchSize;
+
+	private final long targetNanos;
+
+	private int batchSize;
+
+
+	AdaptiveBatchSizer(int maxBatchSize, long targetNanos) {
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.targetNanos = targetNanos;
+		this.batchSize = Math.min(INITIAL_BATCH_SIZE, this.maxBatchSize);
+	}
+
+
+	/**
+	 * Return the number of rows to add before the next flush.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Record the round trip of a flushed batch and adjust the batch size.
+	 * @param rows the number of rows in the flushed batch
+	 * @param elapsedNanos the time taken by {@code executeBatch()}
+	 */
+	public void recordRoundTrip(int rows, long elapsedNanos) {
+		if (rows < this.batchSize) {
+			// A trailing partial batch says nothing about the current size
+			return;
+		}
+		if (elapsedNanos > this.targetNanos) {
+			long scaled = rows * this.targetNanos / elapsedNanos;
+			this.batchSize = (int) Math.max(1, Math.max(scaled, this.batchSize / 2));
+		}
+		else if (elapsedNanos < this.targetNanos / 2) {
+			this.batchSize = (int) Math.min(this.maxBatchSize, this.batchSize * 2L);
+		}
+	}
+
+}
@@ -20,6 +20,7 @@ import java.beans.PropertyDescriptor;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
@@ -234,6 +235,23 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		}
 	}
 
+	/**
+	 * Return the bean property that the given field name maps to, if any.
+	 * @param field the field name as derived from a column name
+	 * @see #initialize
+	 */
+	@Nullable
+	PropertyDescriptor getMappedField(String field) {
+		return (this.mappedFields != null ? this.mappedFields.get(field) : null);
+	}
+
+	/**
+	 * Return the names of all bean properties that we provide mapping for.
+	 */
+	Set<String> getMappedProperties() {
+		return (this.mappedProperties != null ? this.mappedProperties : Collections.emptySet());
+	}
+
 	/**
 	 * Convert a name in camelCase to an underscored name in lower case.
 	 * Any upper case letters are converted to lower case with a preceding underscore.
@@ -0,0 +1,579 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link BeanPropertyRowMapper} variant that generates a dedicated {@link RowMapper}
+ * class for each combination of mapped class and column layout, instead of going
+ * through a {@link org.springframework.beans.BeanWrapper} and
+ * {@link JdbcUtils#getResultSetValue} for every column of every row.
+ *
+ * <p>The column layout is determined from the {@link ResultSetMetaData} of the first
+ * row of a ResultSet, matching columns to properties exactly like
+ * {@code BeanPropertyRowMapper} does. The generated class then invokes the typed
+ * {@code ResultSet.getXxx(int)} getter and the public setter for each mapped column
+ * directly, with primitive values staying unboxed. Generated classes are shared
+ * across mapper instances for the same mapped class and column layout, and each
+ * mapper instance keeps the generated class per column layout it has seen, so
+ * that a mapper shared across queries with different layouts resolves each
+ * layout once. Every generated class lives in a class loader of its own, and
+ * may be unloaded once the soft cache entries for it have been cleared.
+ *
+ * <p>Supported property types are the primitives and their wrappers (except
+ * {@code char}), {@code String}, {@code BigDecimal}, {@code byte[]},
+ * {@code java.util.Date} and the {@code java.sql} date/time types. For any other
+ * property type, as well as for non-public mapped classes, setters or constructors,
+ * this mapper falls back to the reflective {@code BeanPropertyRowMapper} algorithm
+ * for the column layout in question, including {@link #getConversionService()
+ * ConversionService} based conversion.
+ *
+ * <p>In contrast to {@code BeanPropertyRowMapper}, a SQL NULL for a primitive
+ * property (unless {@link #setPrimitivesDefaultedForNullValue defaulted}) leads
+ * to a {@link TypeMismatchDataAccessException}. Note that {@link #getColumnValue}
+ * and {@link #initBeanWrapper} are only applied on the reflective fallback path.
+ *
+ * @since 5.0.5
+ * @param <T> the result type
+ * @see BeanPropertyRowMapper
+ */
+public class CompiledBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	/** Generated mappers per mapped class and column layout, empty if not generatable */
+	private static final Map<MappingKey, Optional<RowMapper<?>>> generatedMapperCache =
+			new ConcurrentReferenceHashMap<>(64);
+
+	private static final AtomicInteger suffixId = new AtomicInteger();
+
+	private static final Map<Class<?>, String> resultSetGetters = new HashMap<>(32);
+
+	private static final Map<Class<?>, Class<?>> wrapperToPrimitive = new HashMap<>(16);
+
+	static {
+		resultSetGetters.put(boolean.class, "getBoolean");
+		resultSetGetters.put(byte.class, "getByte");
+		resultSetGetters.put(short.class, "getShort");
+		resultSetGetters.put(int.class, "getInt");
+		resultSetGetters.put(long.class, "getLong");
+		resultSetGetters.put(float.class, "getFloat");
+		resultSetGetters.put(double.class, "getDouble");
+		resultSetGetters.put(String.class, "getString");
+		resultSetGetters.put(BigDecimal.class, "getBigDecimal");
+		resultSetGetters.put(byte[].class, "getBytes");
+		resultSetGetters.put(java.sql.Date.class, "getDate");
+		resultSetGetters.put(java.sql.Time.class, "getTime");
+		resultSetGetters.put(java.sql.Timestamp.class, "getTimestamp");
+		resultSetGetters.put(java.util.Date.class, "getTimestamp");
+
+		wrapperToPrimitive.put(Boolean.class, boolean.class);
+		wrapperToPrimitive.put(Byte.class, byte.class);
+		wrapperToPrimitive.put(Short.class, short.class);
+		wrapperToPrimitive.put(Integer.class, int.class);
+		wrapperToPrimitive.put(Long.class, long.class);
+		wrapperToPrimitive.put(Float.class, float.class);
+		wrapperToPrimitive.put(Double.class, double.class);
+	}
+
+
+	/** Generated mappers per column layout seen by this mapper, empty if not generatable */
+	private final Map<ColumnLayout, Optional<RowMapper<?>>> resolvedMappers = new ConcurrentReferenceHashMap<>(4);
+
+	/** The mapping resolved for the most recently seen ResultSet */
+	@Nullable
+	private volatile ResolvedMapping lastMapping;
+
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public CompiledBeanPropertyRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper}, accepting unpopulated
+	 * properties in the target bean.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @param checkFullyPopulated whether we're strictly validating that
+	 * all bean properties have been mapped from corresponding database fields
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass, boolean checkFullyPopulated) {
+		super(mappedClass, checkFullyPopulated);
+	}
+
+
+	/**
+	 * Map the current row through the generated mapper for the column layout
+	 * of the given ResultSet, looking up that mapper on the first row seen.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		ResolvedMapping mapping = this.lastMapping;
+		if (mapping == null || mapping.resultSet.get() != rs) {
+			mapping = new ResolvedMapping(rs, getGeneratedMapper(rs));
+			this.lastMapping = mapping;
+		}
+		if (mapping.rowMapper != null) {
+			return (T) mapping.rowMapper.mapRow(rs, rowNumber);
+		}
+		return super.mapRow(rs, rowNumber);
+	}
+
+	/**
+	 * Obtain the generated mapper for the column layout of the given ResultSet,
+	 * resolving it if this mapper has not seen that layout yet.
+	 * @return the generated mapper, or {@code null} to fall back to reflective mapping
+	 */
+	@Nullable
+	private RowMapper<?> getGeneratedMapper(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		String[] columns = new String[rsmd.getColumnCount()];
+		for (int index = 1; index <= columns.length; index++) {
+			columns[index - 1] = JdbcUtils.lookupColumnName(rsmd, index);
+		}
+		ColumnLayout layout = new ColumnLayout(columns, isCheckFullyPopulated(), isPrimitivesDefaultedForNullValue());
+		Optional<RowMapper<?>> rowMapper = this.resolvedMappers.get(layout);
+		if (rowMapper == null) {
+			rowMapper = Optional.ofNullable(resolveGeneratedMapper(columns));
+			this.resolvedMappers.put(layout, rowMapper);
+		}
+		return rowMapper.orElse(null);
+	}
+
+	/**
+	 * Determine the bean property for each of the given columns and obtain
+	 * the generated mapper for that layout, generating it if necessary.
+	 * @return the generated mapper, or {@code null} to fall back to reflective mapping
+	 */
+	@Nullable
+	private RowMapper<?> resolveGeneratedMapper(String[] columns) {
+		Class<T> mappedClass = getMappedClass();
+		Assert.state(mappedClass != null, "Mapped class was not specified");
+		int columnCount = columns.length;
+		PropertyDescriptor[] pds = new PropertyDescriptor[columnCount];
+		String[] propertyNames = new String[columnCount];
+		Set<String> populatedProperties = (isCheckFullyPopulated() ? new HashSet<>() : null);
+		for (int index = 1; index <= columnCount; index++) {
+			String column = columns[index - 1];
+			PropertyDescriptor pd = getMappedField(lowerCaseName(column.replaceAll(" ", "")));
+			if (pd != null) {
+				pds[index - 1] = pd;
+				propertyNames[index - 1] = pd.getName();
+				if (populatedProperties != null) {
+					populatedProperties.add(pd.getName());
+				}
+			}
+		}
+		if (populatedProperties != null && !populatedProperties.equals(getMappedProperties())) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of class [" + mappedClass.getName() + "]: " +
+					getMappedProperties());
+		}
+
+		MappingKey key = new MappingKey(mappedClass, propertyNames, isPrimitivesDefaultedForNullValue());
+		Optional<RowMapper<?>> rowMapper = generatedMapperCache.get(key);
+		if (rowMapper == null) {
+			rowMapper = Optional.ofNullable(generateRowMapper(mappedClass, pds));
+			generatedMapperCache.putIfAbsent(key, rowMapper);
+		}
+		return rowMapper.orElse(null);
+	}
+
+	/**
+	 * Generate and instantiate a RowMapper class for the given column layout.
+	 * @param mappedClass the mapped class
+	 * @param pds the bean property per column, {@code null} for unmapped columns
+	 * @return the generated mapper, or {@code null} if the layout is not supported
+	 */
+	@Nullable
+	private RowMapper<?> generateRowMapper(Class<?> mappedClass, PropertyDescriptor[] pds) {
+		ClassLoader classLoader = mappedClass.getClassLoader();
+		if (!isGeneratable(mappedClass, pds) || classLoader == null ||
+				!ClassUtils.isVisible(RowMapper.class, classLoader) ||
+				!ClassUtils.isVisible(TypeMismatchDataAccessException.class, classLoader)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using reflective row mapping for class [" + mappedClass.getName() + "]");
+			}
+			return null;
+		}
+
+		String className = "jdbc/" + mappedClass.getSimpleName() + "RowMapper" + suffixId.incrementAndGet();
+		byte[] bytes = generateClass(className, mappedClass, pds, isPrimitivesDefaultedForNullValue());
+		try {
+			// A class loader per generated class, unloadable along with its cache entries
+			Class<?> clazz = new RowMapperClassLoader(classLoader).defineClass(className.replace('/', '.'), bytes);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Generated row mapper [" + clazz.getName() + "] for class [" + mappedClass.getName() + "]");
+			}
+			return (RowMapper<?>) ReflectionUtils.accessibleConstructor(clazz).newInstance();
+		}
+		catch (Throwable ex) {
+			logger.warn("Failed to generate row mapper for class [" + mappedClass.getName() +
+					"] - falling back to reflective row mapping", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Check whether a RowMapper class can be generated for the given column layout:
+	 * all involved classes, constructors and setters need to be public, and all
+	 * property types need to have a dedicated ResultSet getter.
+	 */
+	private static boolean isGeneratable(Class<?> mappedClass, PropertyDescriptor[] pds) {
+		if (!isPublic(mappedClass) || Modifier.isAbstract(mappedClass.getModifiers())) {
+			return false;
+		}
+		try {
+			Constructor<?> ctor = mappedClass.getConstructor();
+			if (!Modifier.isPublic(ctor.getModifiers())) {
+				return false;
+			}
+		}
+		catch (NoSuchMethodException ex) {
+			return false;
+		}
+		for (PropertyDescriptor pd : pds) {
+			if (pd != null) {
+				Method writeMethod = pd.getWriteMethod();
+				if (writeMethod == null || !Modifier.isPublic(writeMethod.getModifiers()) ||
+						Modifier.isStatic(writeMethod.getModifiers()) || !isPublic(writeMethod.getDeclaringClass()) ||
+						getterFor(writeMethod.getParameterTypes()[0]) == null) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPublic(Class<?> clazz) {
+		for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+			if (!Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Nullable
+	private static String getterFor(Class<?> propertyType) {
+		Class<?> primitive = wrapperToPrimitive.get(propertyType);
+		return resultSetGetters.get(primitive != null ? primitive : propertyType);
+	}
+
+	/**
+	 * Generate the bytecode of a RowMapper implementation for the given column layout,
+	 * with a {@code mapRow} method equivalent to:
+	 * <pre class="code">
+	 * MappedClass target = new MappedClass();
+	 * target.setId(rs.getLong(1));
+	 * long age = rs.getLong(2);
+	 * target.setAge(rs.wasNull() ? null : Long.valueOf(age));
+	 * target.setName(rs.getString(3));
+	 * return target;
+	 * </pre>
+	 */
+	private static byte[] generateClass(String className, Class<?> mappedClass, PropertyDescriptor[] pds,
+			boolean primitivesDefaultedForNullValue) {
+
+		String rowMapperName = Type.getInternalName(RowMapper.class);
+		String resultSetName = Type.getInternalName(ResultSet.class);
+		String targetName = Type.getInternalName(mappedClass);
+
+		ClassWriter cw = new RowMapperClassWriter();
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null,
+				"java/lang/Object", new String[] {rowMapperName});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "mapRow",
+				"(Ljava/sql/ResultSet;I)Ljava/lang/Object;", null, new String[] {"java/sql/SQLException"});
+		mv.visitCode();
+		mv.visitTypeInsn(Opcodes.NEW, targetName);
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, targetName, "<init>", "()V", false);
+		mv.visitVarInsn(Opcodes.ASTORE, 3);
+
+		for (int i = 0; i < pds.length; i++) {
+			PropertyDescriptor pd = pds[i];
+			if (pd == null) {
+				continue;
+			}
+			Method writeMethod = pd.getWriteMethod();
+			Assert.state(writeMethod != null, "No write method");
+			Class<?> propertyType = writeMethod.getParameterTypes()[0];
+			Class<?> wrappedPrimitive = wrapperToPrimitive.get(propertyType);
+			Class<?> valueType = (wrappedPrimitive != null ? wrappedPrimitive : propertyType);
+			String getter = getterFor(propertyType);
+			Assert.state(getter != null, "No ResultSet getter");
+			Method getterMethod = ReflectionUtils.findMethod(ResultSet.class, getter, int.class);
+			Assert.state(getterMethod != null, "ResultSet getter not found");
+
+			mv.visitVarInsn(Opcodes.ALOAD, 3);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitLdcInsn(i + 1);
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, resultSetName, getter,
+					Type.getMethodDescriptor(getterMethod), true);
+			if (wrappedPrimitive != null) {
+				// Box the value unless the column was SQL NULL
+				Label notNull = new Label();
+				Label done = new Label();
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, resultSetName, "wasNull", "()Z", true);
+				mv.visitJumpInsn(Opcodes.IFEQ, notNull);
+				mv.visitInsn(Type.getType(valueType).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+				mv.visitInsn(Opcodes.ACONST_NULL);
+				mv.visitJumpInsn(Opcodes.GOTO, done);
+				mv.visitLabel(notNull);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(propertyType), "valueOf",
+						Type.getMethodDescriptor(Type.getType(propertyType), Type.getType(valueType)), false);
+				mv.visitLabel(done);
+			}
+			Label skip = null;
+			if (propertyType.isPrimitive()) {
+				// Reject SQL NULL for a primitive property, or leave the default value in place
+				Label notNull = new Label();
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, resultSetName, "wasNull", "()Z", true);
+				mv.visitJumpInsn(Opcodes.IFEQ, notNull);
+				if (primitivesDefaultedForNullValue) {
+					skip = new Label();
+					mv.visitInsn(Type.getType(propertyType).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+					mv.visitInsn(Opcodes.POP);
+					mv.visitJumpInsn(Opcodes.GOTO, skip);
+				}
+				else {
+					String exceptionName = Type.getInternalName(TypeMismatchDataAccessException.class);
+					mv.visitTypeInsn(Opcodes.NEW, exceptionName);
+					mv.visitInsn(Opcodes.DUP);
+					mv.visitLdcInsn("Cannot map SQL NULL in column " + (i + 1) + " to primitive property '" +
+							pd.getName() + "' of type '" + propertyType.getName() + "'");
+					mv.visitMethodInsn(Opcodes.INVOKESPECIAL, exceptionName, "<init>", "(Ljava/lang/String;)V", false);
+					mv.visitInsn(Opcodes.ATHROW);
+				}
+				mv.visitLabel(notNull);
+			}
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, targetName, writeMethod.getName(),
+					Type.getMethodDescriptor(writeMethod), false);
+			Class<?> returnType = writeMethod.getReturnType();
+			if (returnType != void.class) {
+				mv.visitInsn(Type.getType(returnType).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+			}
+			if (skip != null) {
+				mv.visitLabel(skip);
+			}
+		}
+
+		mv.visitVarInsn(Opcodes.ALOAD, 3);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code CompiledBeanPropertyRowMapper}
+	 * (with the mapped class specified only once).
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> CompiledBeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new CompiledBeanPropertyRowMapper<>(mappedClass);
+	}
+
+
+	/**
+	 * The generated mapper for a particular ResultSet, held weakly so that
+	 * a long-lived mapper does not retain a ResultSet it has processed.
+	 */
+	private static final class ResolvedMapping {
+
+		final WeakReference<ResultSet> resultSet;
+
+		@Nullable
+		final RowMapper<?> rowMapper;
+
+		ResolvedMapping(ResultSet resultSet, @Nullable RowMapper<?> rowMapper) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.rowMapper = rowMapper;
+		}
+	}
+
+
+	/**
+	 * Cache key for the generated mappers of a mapper instance: the column names,
+	 * in column order, and the settings that the resolution of a mapper depends on.
+	 */
+	private static final class ColumnLayout {
+
+		private final String[] columns;
+
+		private final boolean checkFullyPopulated;
+
+		private final boolean primitivesDefaultedForNullValue;
+
+		ColumnLayout(String[] columns, boolean checkFullyPopulated, boolean primitivesDefaultedForNullValue) {
+			this.columns = columns;
+			this.checkFullyPopulated = checkFullyPopulated;
+			this.primitivesDefaultedForNullValue = primitivesDefaultedForNullValue;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ColumnLayout)) {
+				return false;
+			}
+			ColumnLayout otherLayout = (ColumnLayout) other;
+			return (Arrays.equals(this.columns, otherLayout.columns) &&
+					this.checkFullyPopulated == otherLayout.checkFullyPopulated &&
+					this.primitivesDefaultedForNullValue == otherLayout.primitivesDefaultedForNullValue);
+		}
+
+		@Override
+		public int hashCode() {
+			return (Arrays.hashCode(this.columns) * 2 + (this.checkFullyPopulated ? 1 : 0)) * 2 +
+					(this.primitivesDefaultedForNullValue ? 1 : 0);
+		}
+	}
+
+
+	/**
+	 * Cache key for generated mappers: the mapped class and the property
+	 * mapped from each column, in column order.
+	 */
+	private static final class MappingKey {
+
+		private final Class<?> mappedClass;
+
+		private final String[] propertyNames;
+
+		private final boolean primitivesDefaultedForNullValue;
+
+		MappingKey(Class<?> mappedClass, String[] propertyNames, boolean primitivesDefaultedForNullValue) {
+			this.mappedClass = mappedClass;
+			this.propertyNames = propertyNames;
+			this.primitivesDefaultedForNullValue = primitivesDefaultedForNullValue;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MappingKey)) {
+				return false;
+			}
+			MappingKey otherKey = (MappingKey) other;
+			return (this.mappedClass == otherKey.mappedClass &&
+					Arrays.equals(this.propertyNames, otherKey.propertyNames) &&
+					this.primitivesDefaultedForNullValue == otherKey.primitivesDefaultedForNullValue);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.mappedClass.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.propertyNames)) * 2 +
+					(this.primitivesDefaultedForNullValue ? 1 : 0);
+		}
+	}
+
+
+	/**
+	 * Child ClassLoader of the mapped class's ClassLoader, defining a generated mapper.
+	 */
+	private static class RowMapperClassLoader extends URLClassLoader {
+
+		private static final URL[] NO_URLS = new URL[0];
+
+		public RowMapperClassLoader(ClassLoader parent) {
+			super(NO_URLS, parent);
+		}
+
+		public synchronized Class<?> defineClass(String name, byte[] bytes) {
+			return super.defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+
+	/**
+	 * ClassWriter that computes stack map frames without loading classes:
+	 * the generated code only merges values of identical reference types.
+	 */
+	private static class RowMapperClassWriter extends ClassWriter {
+
+		public RowMapperClassWriter() {
+			super(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+		}
+
+		@Override
+		protected String getCommonSuperClass(String type1, String type2) {
+			return "java/lang/Object";
+		}
+	}
+
+}
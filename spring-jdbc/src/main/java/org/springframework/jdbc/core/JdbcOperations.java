@@ -17,8 +17,10 @@
 package org.springframework.jdbc.core;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
@@ -132,6 +134,25 @@ public interface JdbcOperations {
 	 */
 	<T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException;
 
+	/**
+	 * Execute a query given static SQL, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are fetched lazily as the Stream gets consumed, so memory use does
+	 * not depend on the size of the result. The Statement and Connection stay
+	 * open until the Stream gets closed, e.g. in a try-with-resources clause.
+	 * <p>Uses a JDBC Statement, not a PreparedStatement. If you want to
+	 * execute a static query with a PreparedStatement, use the overloaded
+	 * {@code queryForStream} method with {@code null} as argument array.
+	 * @param sql SQL query to execute
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed
+	 * @throws DataAccessException if there is any problem executing the query
+	 * @since 5.0.5
+	 * @see #queryForStream(String, RowMapper, Object...)
+	 */
+	<T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException;
+
 	/**
 	 * Execute a query given static SQL, mapping a single result row to a Java
 	 * object via a RowMapper.
@@ -521,6 +542,61 @@ public interface JdbcOperations {
 	 */
 	<T> List<T> query(String sql, RowMapper<T> rowMapper, @Nullable Object... args) throws DataAccessException;
 
+	/**
+	 * Query using a prepared statement, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are fetched lazily as the Stream gets consumed. The PreparedStatement
+	 * and Connection stay open until the Stream gets closed.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed
+	 * @throws DataAccessException if there is any problem
+	 * @since 5.0.5
+	 */
+	<T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a
+	 * PreparedStatementSetter implementation that knows how to bind values to the
+	 * query, mapping each row to a Java object via a RowMapper, and turning it
+	 * into an iterable and closeable Stream.
+	 * <p>Rows are fetched lazily as the Stream gets consumed. The PreparedStatement
+	 * and Connection stay open until the Stream gets closed.
+	 * @param sql SQL query to execute
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * Even if there are no bind parameters, this callback may be used to set the
+	 * fetch size and other performance options.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed
+	 * @throws DataAccessException if the query fails
+	 * @since 5.0.5
+	 */
+	<T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException;
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, mapping each row to a Java object
+	 * via a RowMapper, and turning it into an iterable and closeable Stream.
+	 * <p>Rows are fetched lazily as the Stream gets consumed. The PreparedStatement
+	 * and Connection stay open until the Stream gets closed.
+	 * @param sql SQL query to execute
+	 * @param rowMapper a callback that will map one object per row
+	 * @param args arguments to bind to the query
+	 * (leaving it to the PreparedStatement to guess the corresponding SQL type);
+	 * may also contain {@link SqlParameterValue} objects which indicate not
+	 * only the argument value but also the SQL type and optionally the scale
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed
+	 * @throws DataAccessException if the query fails
+	 * @since 5.0.5
+	 */
+	<T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException;
+
 	/**
 	 * Query given SQL to create a prepared statement from SQL and a list
 	 * of arguments to bind to the query, mapping a single result row to a
@@ -937,6 +1013,39 @@ public interface JdbcOperations {
 	<T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
 			ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException;
 
+	/**
+	 * Execute a streaming batch update using the supplied SQL statement, consuming
+	 * the arguments from the given Iterator as the batches are sent.
+	 * <p>All rows go through a single PreparedStatement; the number of rows per batch
+	 * adapts to the measured round-trip time of each batch, so the arguments never
+	 * need to be held in memory at once. Falls back to executing one update per row
+	 * if the JDBC driver does not support batch updates.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the Iterator supplying the argument object for each row
+	 * @param pss ParameterizedPreparedStatementSetter to use
+	 * @return the total number of rows affected (rows reported by the driver as
+	 * {@link java.sql.Statement#SUCCESS_NO_INFO} are not counted)
+	 * @throws DataAccessException if there is any problem issuing the update
+	 * @since 5.0.5
+	 */
+	<T> int batchUpdate(String sql, Iterator<T> batchArgs, ParameterizedPreparedStatementSetter<T> pss)
+			throws DataAccessException;
+
+	/**
+	 * Execute a streaming batch update using the supplied SQL statement, consuming
+	 * the arguments from the given Stream as the batches are sent.
+	 * <p>The Stream gets closed once the batch update completes or fails.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the Stream supplying the argument object for each row
+	 * @param pss ParameterizedPreparedStatementSetter to use
+	 * @return the total number of rows affected
+	 * @throws DataAccessException if there is any problem issuing the update
+	 * @since 5.0.5
+	 * @see #batchUpdate(String, Iterator, ParameterizedPreparedStatementSetter)
+	 */
+	<T> int batchUpdate(String sql, Stream<T> batchArgs, ParameterizedPreparedStatementSetter<T> pss)
+			throws DataAccessException;
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
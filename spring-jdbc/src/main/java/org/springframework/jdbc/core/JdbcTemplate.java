@@ -32,9 +32,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.BaseStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -147,6 +154,17 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/**
+	 * The upper bound for the number of rows sent per batch by a streaming batch update.
+	 */
+	private int maxBatchSize = 1000;
+
+	/**
+	 * The round-trip time in milliseconds that a streaming batch update aims for
+	 * when adapting its batch size.
+	 */
+	private long batchTargetTime = 100;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -311,6 +329,50 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set the maximum number of rows to send per batch when executing a streaming
+	 * batch update: the actual batch size adapts to the measured round-trip time
+	 * but never exceeds this value.
+	 * <p>Default is 1000.
+	 * @since 5.0.5
+	 * @see #setBatchTargetTime
+	 * @see #batchUpdate(String, Iterator, ParameterizedPreparedStatementSetter)
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of rows per batch for streaming batch updates.
+	 * @since 5.0.5
+	 */
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	/**
+	 * Set the round-trip time (in milliseconds) that a streaming batch update aims for:
+	 * the batch size grows while batches complete well within this time and shrinks
+	 * when they take longer.
+	 * <p>Default is 100 milliseconds.
+	 * @since 5.0.5
+	 * @see #setMaxBatchSize
+	 * @see #batchUpdate(String, Iterator, ParameterizedPreparedStatementSetter)
+	 */
+	public void setBatchTargetTime(long batchTargetTime) {
+		Assert.isTrue(batchTargetTime > 0, "batchTargetTime must be greater than 0");
+		this.batchTargetTime = batchTargetTime;
+	}
+
+	/**
+	 * Return the targeted round-trip time (in milliseconds) for streaming batch updates.
+	 * @since 5.0.5
+	 */
+	public long getBatchTargetTime() {
+		return this.batchTargetTime;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -366,14 +428,29 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	@Override
 	@Nullable
 	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+		return execute(action, true);
+	}
+
+	/**
+	 * Execute the given static SQL callback, optionally leaving the Statement
+	 * and Connection open on successful completion.
+	 * @param action callback object that specifies the action
+	 * @param closeResources whether to close the Statement and release the
+	 * Connection when done, or to leave that to the returned result
+	 * (as is the case for a lazily consumed Stream)
+	 * @see #queryForStream(String, RowMapper)
+	 */
+	@Nullable
+	private <T> T execute(StatementCallback<T> action, boolean closeResources) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
 
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		Statement stmt = null;
+		T result = null;
 		try {
 			stmt = con.createStatement();
 			applyStatementSettings(stmt);
-			T result = action.doInStatement(stmt);
+			result = action.doInStatement(stmt);
 			handleWarnings(stmt);
 			return result;
 		}
@@ -381,15 +458,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			// Release Connection early, to avoid potential connection pool deadlock
 			// in the case when the exception translator hasn't been initialized yet.
 			String sql = getSql(action);
-			JdbcUtils.closeStatement(stmt);
+			releaseResources(closeResources ? null : result, null, stmt, con);
 			stmt = null;
-			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
 			throw translateException("StatementCallback", sql, ex);
 		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				releaseResources(result, null, stmt, con);
+			}
+			throw ex;
+		}
 		finally {
-			JdbcUtils.closeStatement(stmt);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+			if (closeResources) {
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
 		}
 	}
 
@@ -456,6 +540,34 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(final String sql, final RowMapper<T> rowMapper) throws DataAccessException {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL query [" + sql + "]");
+		}
+
+		class StreamStatementCallback implements StatementCallback<Stream<T>>, SqlProvider {
+			@Override
+			public Stream<T> doInStatement(Statement stmt) throws SQLException {
+				ResultSet rs = stmt.executeQuery(sql);
+				Connection con = stmt.getConnection();
+				return new ResultSetSpliterator<>(rs, rowMapper).stream().onClose(() -> {
+					JdbcUtils.closeResultSet(rs);
+					JdbcUtils.closeStatement(stmt);
+					DataSourceUtils.releaseConnection(con, getDataSource());
+				});
+			}
+			@Override
+			public String getSql() {
+				return sql;
+			}
+		}
+
+		return result(execute(new StreamStatementCallback(), false));
+	}
+
 	@Override
 	public Map<String, Object> queryForMap(String sql) throws DataAccessException {
 		return result(queryForObject(sql, getColumnMapRowMapper()));
@@ -590,6 +702,23 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
 			throws DataAccessException {
 
+		return execute(psc, action, true);
+	}
+
+	/**
+	 * Execute the given prepared statement callback, optionally leaving the
+	 * PreparedStatement and Connection open on successful completion.
+	 * @param psc object that can create a PreparedStatement given a Connection
+	 * @param action callback object that specifies the action
+	 * @param closeResources whether to close the PreparedStatement and release the
+	 * Connection when done, or to leave that to the returned result
+	 * (as is the case for a lazily consumed Stream)
+	 * @see #queryForStream(PreparedStatementCreator, PreparedStatementSetter, RowMapper)
+	 */
+	@Nullable
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action, boolean closeResources)
+			throws DataAccessException {
+
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
 		if (logger.isDebugEnabled()) {
@@ -599,32 +728,37 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		PreparedStatement ps = null;
+		T result = null;
 		try {
 			ps = psc.createPreparedStatement(con);
 			applyStatementSettings(ps);
-			T result = action.doInPreparedStatement(ps);
+			result = action.doInPreparedStatement(ps);
 			handleWarnings(ps);
 			return result;
 		}
 		catch (SQLException ex) {
 			// Release Connection early, to avoid potential connection pool deadlock
 			// in the case when the exception translator hasn't been initialized yet.
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
-			}
 			String sql = getSql(psc);
-			JdbcUtils.closeStatement(ps);
+			releaseResources(closeResources ? null : result, psc, ps, con);
 			ps = null;
-			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
 			throw translateException("PreparedStatementCallback", sql, ex);
 		}
+		catch (RuntimeException | Error ex) {
+			if (!closeResources) {
+				releaseResources(result, psc, ps, con);
+			}
+			throw ex;
+		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			if (closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
 		}
 	}
 
@@ -756,6 +890,77 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, mapping each row to a result object via a
+	 * RowMapper and exposing the results as a lazily fetched Stream. Rows are pulled
+	 * from the ResultSet as the Stream gets consumed, in chunks of the configured
+	 * {@link #setFetchSize fetch size}.
+	 * <p>The PreparedStatement and Connection stay open until the returned Stream
+	 * gets closed, so it needs to be closed after use, e.g. in a try-with-resources
+	 * clause.
+	 * @param psc object that can create a PreparedStatement given a Connection
+	 * @param pss object that knows how to set values on the prepared statement.
+	 * If this is null, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed
+	 * @throws DataAccessException if there is any problem
+	 * @since 5.0.5
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query");
+
+		return result(execute(psc, ps -> {
+			ResultSet rs;
+			try {
+				if (pss != null) {
+					pss.setValues(ps);
+				}
+				rs = ps.executeQuery();
+			}
+			catch (SQLException | RuntimeException | Error ex) {
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				throw ex;
+			}
+			Connection con = ps.getConnection();
+			return new ResultSetSpliterator<>(rs, rowMapper).stream().onClose(() -> {
+				JdbcUtils.closeResultSet(rs);
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			});
+		}, false));
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -1026,6 +1231,71 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result;
 	}
 
+	@Override
+	public <T> int batchUpdate(String sql, final Iterator<T> batchArgs,
+			final ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing streaming SQL batch update [" + sql + "]");
+		}
+		Integer result = execute(sql, (PreparedStatementCallback<Integer>) ps -> {
+			try {
+				int rowsAffected = 0;
+				if (!JdbcUtils.supportsBatchUpdates(ps.getConnection())) {
+					logger.warn("JDBC Driver does not support Batch updates; resorting to single statement execution");
+					while (batchArgs.hasNext()) {
+						pss.setValues(ps, batchArgs.next());
+						rowsAffected += ps.executeUpdate();
+					}
+					return rowsAffected;
+				}
+				AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(
+						getMaxBatchSize(), TimeUnit.MILLISECONDS.toNanos(getBatchTargetTime()));
+				int pending = 0;
+				while (batchArgs.hasNext()) {
+					pss.setValues(ps, batchArgs.next());
+					ps.addBatch();
+					pending++;
+					if (pending >= sizer.getBatchSize() || !batchArgs.hasNext()) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Sending SQL batch update with " + pending + " items");
+						}
+						long start = System.nanoTime();
+						int[] counts = ps.executeBatch();
+						sizer.recordRoundTrip(pending, System.nanoTime() - start);
+						for (int count : counts) {
+							if (count > 0) {
+								rowsAffected += count;
+							}
+						}
+						pending = 0;
+					}
+				}
+				return rowsAffected;
+			}
+			finally {
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+			}
+		});
+
+		Assert.state(result != null, "No update count");
+		return result;
+	}
+
+	@Override
+	public <T> int batchUpdate(String sql, Stream<T> batchArgs, ParameterizedPreparedStatementSetter<T> pss)
+			throws DataAccessException {
+
+		try {
+			return batchUpdate(sql, batchArgs.iterator(), pss);
+		}
+		finally {
+			batchArgs.close();
+		}
+	}
+
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
 	//-------------------------------------------------------------------------
@@ -1420,6 +1690,28 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	/**
+	 * Release the resources of a failed callback: through the given result if it is
+	 * a Stream that has taken them over already, or directly otherwise.
+	 * @param result the callback's result, if any, that will not be returned
+	 * @param psc the PreparedStatementCreator, if any, to clean up
+	 * @param stmt the Statement to close
+	 * @param con the Connection to release
+	 */
+	private void releaseResources(@Nullable Object result, @Nullable PreparedStatementCreator psc,
+			@Nullable Statement stmt, @Nullable Connection con) {
+
+		if (result instanceof BaseStream) {
+			((BaseStream<?, ?>) result).close();
+			return;
+		}
+		if (psc instanceof ParameterDisposer) {
+			((ParameterDisposer) psc).cleanupParameters();
+		}
+		JdbcUtils.closeStatement(stmt);
+		DataSourceUtils.releaseConnection(con, getDataSource());
+	}
+
 	private static <T> T result(@Nullable T result) {
 		Assert.state(result != null, "No result");
 		return result;
@@ -1569,4 +1861,57 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream,
+	 * mapping one row per advance and translating SQLExceptions on the way.
+	 */
+	private class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		private int rowNum = 0;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				return false;
+			}
+			catch (SQLException ex) {
+				throw translateException("ResultSetSpliterator", null, ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+		public Stream<T> stream() {
+			return StreamSupport.stream(this, false);
+		}
+	}
+
 }
@@ -16,9 +16,13 @@
 
 package org.springframework.jdbc.core.namedparam;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -73,14 +77,10 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
 
 	/** Cache of original SQL String to ParsedSql representation */
-	@SuppressWarnings("serial")
-	private final Map<String, ParsedSql> parsedSqlCache =
-			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	private final ConcurrentMap<String, ParsedSql> parsedSqlCache = new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
+
+	/** Keys of the SQL cache in insertion order, for evicting the eldest entries */
+	private final Queue<String> parsedSqlCacheKeys = new ConcurrentLinkedQueue<>();
 
 
 	/**
@@ -223,6 +223,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
@@ -334,8 +348,8 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 			throws DataAccessException {
 
 		ParsedSql parsedSql = getParsedSql(sql);
-		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
 		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource, params);
 		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
 		PreparedStatementCreatorFactory pscf = new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
 		if (keyColumnNames != null) {
@@ -367,8 +381,8 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	 */
 	protected PreparedStatementCreator getPreparedStatementCreator(String sql, SqlParameterSource paramSource) {
 		ParsedSql parsedSql = getParsedSql(sql);
-		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
 		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource, params);
 		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
 		PreparedStatementCreatorFactory pscf = new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
 		return pscf.newPreparedStatementCreator(params);
@@ -376,23 +390,33 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	/**
 	 * Obtain a parsed representation of the given SQL statement.
-	 * <p>The default implementation uses an LRU cache with an upper limit
-	 * of 256 entries.
+	 * <p>The default implementation uses a concurrent cache with an upper limit
+	 * of 256 entries, evicting the eldest entries first. Cache hits do not lock.
 	 * @param sql the original SQL
 	 * @return a representation of the parsed SQL statement
 	 */
 	protected ParsedSql getParsedSql(String sql) {
-		if (getCacheLimit() <= 0) {
+		int cacheLimit = getCacheLimit();
+		if (cacheLimit <= 0) {
 			return NamedParameterUtils.parseSqlStatement(sql);
 		}
-		synchronized (this.parsedSqlCache) {
-			ParsedSql parsedSql = this.parsedSqlCache.get(sql);
-			if (parsedSql == null) {
-				parsedSql = NamedParameterUtils.parseSqlStatement(sql);
-				this.parsedSqlCache.put(sql, parsedSql);
+		ParsedSql parsedSql = this.parsedSqlCache.get(sql);
+		if (parsedSql == null) {
+			parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+			ParsedSql existing = this.parsedSqlCache.putIfAbsent(sql, parsedSql);
+			if (existing != null) {
+				return existing;
+			}
+			this.parsedSqlCacheKeys.add(sql);
+			while (this.parsedSqlCache.size() > cacheLimit) {
+				String eldest = this.parsedSqlCacheKeys.poll();
+				if (eldest == null) {
+					break;
+				}
+				this.parsedSqlCache.remove(eldest);
 			}
-			return parsedSql;
 		}
+		return parsedSql;
 	}
 
 }
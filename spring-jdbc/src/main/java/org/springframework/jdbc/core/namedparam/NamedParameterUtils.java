@@ -320,6 +320,33 @@ public abstract class NamedParameterUtils {
 		return actualSql.toString();
 	}
 
+	/**
+	 * Variant of {@link #substituteNamedParameters(ParsedSql, SqlParameterSource)}
+	 * for parameter values that have been obtained through
+	 * {@link #buildValueArray(ParsedSql, SqlParameterSource, List)} already.
+	 * <p>If none of the values is a Collection that needs to be expanded into
+	 * a list of placeholders, the precompiled SQL statement of the given
+	 * {@code ParsedSql} is returned as-is, without rebuilding it.
+	 * @param parsedSql the parsed representation of the SQL statement
+	 * @param paramSource the source for named parameters
+	 * @param paramValues the value array built for the same parameter source
+	 * @return the SQL statement with substituted parameters
+	 * @since 5.0.5
+	 */
+	public static String substituteNamedParameters(
+			ParsedSql parsedSql, SqlParameterSource paramSource, Object[] paramValues) {
+
+		for (Object value : paramValues) {
+			while (value instanceof SqlParameterValue) {
+				value = ((SqlParameterValue) value).getValue();
+			}
+			if (value instanceof Collection) {
+				return substituteNamedParameters(parsedSql, paramSource);
+			}
+		}
+		return parsedSql.getSubstitutedSql();
+	}
+
 	/**
 	 * Convert a Map of named parameter values to a corresponding array.
 	 * @param parsedSql the parsed SQL statement
@@ -19,6 +19,8 @@ package org.springframework.jdbc.core.namedparam;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.lang.Nullable;
+
 /**
  * Holds information about a parsed SQL statement.
  *
@@ -40,6 +42,9 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	@Nullable
+	private volatile String substitutedSql;
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -133,6 +138,21 @@ public class ParsedSql {
 		return this.totalParameterCount;
 	}
 
+	/**
+	 * Return the SQL statement with a single placeholder for each parameter,
+	 * as used for any parameter values that do not require expansion.
+	 * <p>The statement is built on first access and reused afterwards.
+	 * @since 5.0.5
+	 */
+	String getSubstitutedSql() {
+		String sql = this.substitutedSql;
+		if (sql == null) {
+			sql = NamedParameterUtils.substituteNamedParameters(this, null);
+			this.substitutedSql = sql;
+		}
+		return sql;
+	}
+
 
 	/**
 	 * Exposes the original SQL String.
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that routes read-only transactions to one of several replica
+ * DataSources, and everything else to the primary DataSource. The replicas
+ * are configured as {@link #setTargetDataSources target DataSources} and the
+ * primary as {@link #setDefaultTargetDataSource default target DataSource}
+ * (or via the {@link #setPrimaryDataSource}/{@link #setReplicaDataSources}
+ * aliases). Reads get spread across the replicas according to their
+ * {@link #setReplicaWeights weights}.
+ *
+ * <p>The routing decision is based on
+ * {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()},
+ * e.g. as exposed for {@code @Transactional(readOnly = true)}. Note that
+ * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager} obtains
+ * its Connection <i>before</i> the transaction characteristics are exposed, so
+ * this router needs to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * which defers fetching the actual Connection until the first statement:
+ *
+ * <pre class="code">
+ * &lt;bean id="dataSource" class="org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy"&gt;
+ *   &lt;property name="targetDataSource"&gt;
+ *     &lt;bean class="org.springframework.jdbc.datasource.lookup.ReadOnlyDataSourceRouter"&gt;
+ *       &lt;property name="primaryDataSource" ref="myPrimaryDataSource"/&gt;
+ *       &lt;property name="replicaDataSources"&gt;
+ *         &lt;map&gt;
+ *           &lt;entry key="replica1" value-ref="myReplicaDataSource1"/&gt;
+ *           &lt;entry key="replica2" value-ref="myReplicaDataSource2"/&gt;
+ *         &lt;/map&gt;
+ *       &lt;/property&gt;
+ *       &lt;property name="replicaWeights"&gt;
+ *         &lt;map&gt;
+ *           &lt;entry key="replica1" value="3"/&gt;
+ *           &lt;entry key="replica2" value="1"/&gt;
+ *         &lt;/map&gt;
+ *       &lt;/property&gt;
+ *     &lt;/bean&gt;
+ *   &lt;/property&gt;
+ * &lt;/bean&gt;</pre>
+ *
+ * The transaction manager is then defined against the lazy proxy. Operations
+ * outside of a read-only transaction always go to the primary DataSource.
+ *
+ * @since 5.0.5
+ * @see #setReplicaWeights
+ * @see org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy
+ * @see org.springframework.transaction.annotation.Transactional#readOnly()
+ */
+public class ReadOnlyDataSourceRouter extends AbstractRoutingDataSource {
+
+	private List<Object> replicaKeys = Collections.emptyList();
+
+	private Map<Object, Integer> replicaWeights = Collections.emptyMap();
+
+	private Object[] weightedKeys = new Object[0];
+
+	private int[] cumulativeWeights = new int[0];
+
+
+	/**
+	 * Specify the primary DataSource, receiving all operations outside of
+	 * read-only transactions. An alias for {@link #setDefaultTargetDataSource}.
+	 */
+	public void setPrimaryDataSource(Object primaryDataSource) {
+		setDefaultTargetDataSource(primaryDataSource);
+	}
+
+	/**
+	 * Specify the map of replica DataSources, with an arbitrary replica key
+	 * as key. An alias for {@link #setTargetDataSources}.
+	 */
+	public void setReplicaDataSources(Map<Object, Object> replicaDataSources) {
+		setTargetDataSources(replicaDataSources);
+	}
+
+	@Override
+	public void setTargetDataSources(Map<Object, Object> targetDataSources) {
+		super.setTargetDataSources(targetDataSources);
+		this.replicaKeys = new ArrayList<>(targetDataSources.keySet());
+	}
+
+	/**
+	 * Specify the relative weight of each replica, with the same key as in the
+	 * {@link #setReplicaDataSources replica map}. A replica with weight 3 receives
+	 * three times as many read-only transactions as a replica with weight 1;
+	 * a weight of 0 takes a replica out of rotation.
+	 * <p>Default is an equal weight of 1 for every replica not listed here.
+	 */
+	public void setReplicaWeights(Map<Object, Integer> replicaWeights) {
+		this.replicaWeights = replicaWeights;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		List<Object> keys = new ArrayList<>(this.replicaKeys.size());
+		int[] cumulative = new int[this.replicaKeys.size()];
+		int total = 0;
+		for (Object key : this.replicaKeys) {
+			Integer weight = this.replicaWeights.get(key);
+			int effectiveWeight = (weight != null ? weight : 1);
+			if (effectiveWeight < 0) {
+				throw new IllegalArgumentException("Replica weight must not be negative: " + key + "=" + weight);
+			}
+			if (effectiveWeight > 0) {
+				total += effectiveWeight;
+				cumulative[keys.size()] = total;
+				keys.add(resolveSpecifiedLookupKey(key));
+			}
+		}
+		this.weightedKeys = keys.toArray();
+		this.cumulativeWeights = Arrays.copyOf(cumulative, keys.size());
+	}
+
+	/**
+	 * Select a replica for read-only transactions, and the primary otherwise.
+	 * @see #determineReplicaLookupKey()
+	 */
+	@Override
+	@Nullable
+	protected Object determineCurrentLookupKey() {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return determineReplicaLookupKey();
+		}
+		return null;
+	}
+
+	/**
+	 * Pick one of the replicas at random, proportional to their weights.
+	 * @return the lookup key of the chosen replica, or {@code null} for the
+	 * primary if no replica is in rotation
+	 */
+	@Nullable
+	protected Object determineReplicaLookupKey() {
+		int count = this.weightedKeys.length;
+		if (count == 0) {
+			return null;
+		}
+		if (count == 1) {
+			return this.weightedKeys[0];
+		}
+		int point = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[count - 1]);
+		int index = Arrays.binarySearch(this.cumulativeWeights, point + 1);
+		return this.weightedKeys[index >= 0 ? index : -index - 1];
+	}
+
+}
@@ -224,8 +224,8 @@ public abstract class SqlQuery<T> extends SqlOperation {
 		validateNamedParameters(paramMap);
 		ParsedSql parsedSql = getParsedSql();
 		MapSqlParameterSource paramSource = new MapSqlParameterSource(paramMap);
-		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
 		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, getDeclaredParameters());
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource, params);
 		RowMapper<T> rowMapper = newRowMapper(params, context);
  		return getJdbcTemplate().query(newPreparedStatementCreator(sqlToUse, params), rowMapper);
 	}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AdaptiveBatchSizer}.
+ */
+public class AdaptiveBatchSizerTests {
+
+	private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+
+	@Test
+	public void growsWhileFast() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, TARGET);
+		assertEquals(AdaptiveBatchSizer.INITIAL_BATCH_SIZE, sizer.getBatchSize());
+		sizer.recordRoundTrip(16, TARGET / 10);
+		assertEquals(32, sizer.getBatchSize());
+		sizer.recordRoundTrip(32, TARGET / 10);
+		sizer.recordRoundTrip(64, TARGET / 10);
+		assertEquals(100, sizer.getBatchSize());
+		sizer.recordRoundTrip(100, TARGET / 10);
+		assertEquals(100, sizer.getBatchSize());
+	}
+
+	@Test
+	public void keepsSizeWithinTarget() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, TARGET);
+		sizer.recordRoundTrip(16, TARGET * 3 / 4);
+		assertEquals(16, sizer.getBatchSize());
+	}
+
+	@Test
+	public void shrinksWhenSlow() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, TARGET);
+		sizer.recordRoundTrip(16, TARGET * 4 / 3);
+		assertEquals(12, sizer.getBatchSize());
+		sizer.recordRoundTrip(12, TARGET * 10);
+		assertEquals(6, sizer.getBatchSize());
+		sizer.recordRoundTrip(6, TARGET * 10);
+		sizer.recordRoundTrip(3, TARGET * 10);
+		sizer.recordRoundTrip(1, TARGET * 10);
+		assertEquals(1, sizer.getBatchSize());
+	}
+
+	@Test
+	public void ignoresPartialBatch() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, TARGET);
+		sizer.recordRoundTrip(5, TARGET * 10);
+		assertEquals(AdaptiveBatchSizer.INITIAL_BATCH_SIZE, sizer.getBatchSize());
+	}
+
+	@Test
+	public void initialSizeLimitedByMaximum() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(4, TARGET);
+		assertEquals(4, sizer.getBatchSize());
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ExtendedPerson;
+import org.springframework.jdbc.core.test.Person;
+import org.springframework.jdbc.core.test.SpacePerson;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link CompiledBeanPropertyRowMapper}.
+ */
+public class CompiledBeanPropertyRowMapperTests extends AbstractRowMapperTests {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+
+	@Test
+	public void testStaticQueryWithRowMapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(Person.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithInheritance() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(ConcretePerson.class, true));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		thrown.expect(InvalidDataAccessApiUsageException.class);
+		mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(ExtendedPerson.class, true));
+	}
+
+	@Test
+	public void testMappingNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		thrown.expect(TypeMismatchDataAccessException.class);
+		mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(Person.class));
+	}
+
+	@Test
+	public void testMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		CompiledBeanPropertyRowMapper<Person> mapper = new CompiledBeanPropertyRowMapper<>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		Mock mock = new Mock(MockType.TWO);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(0L, result.get(0).getAge());
+		assertEquals("Bubba", result.get(0).getName());
+	}
+
+	@Test
+	public void testFallbackForUnsupportedPropertyType() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new CompiledBeanPropertyRowMapper<>(SpacePerson.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMetadataResolvedOncePerResultSet() throws Exception {
+		ResultSet rs = mockResultSet("count", "active", "flag");
+		given(rs.getInt(1)).willReturn(5, 0);
+		given(rs.getBoolean(2)).willReturn(true, false);
+		given(rs.getBoolean(3)).willReturn(true, false);
+		given(rs.wasNull()).willReturn(false, false, false, false, true, false);
+
+		CompiledBeanPropertyRowMapper<Counter> mapper = CompiledBeanPropertyRowMapper.newInstance(Counter.class);
+		Counter first = mapper.mapRow(rs, 0);
+		Counter second = mapper.mapRow(rs, 1);
+		assertEquals(Integer.valueOf(5), first.getCount());
+		assertEquals(Boolean.TRUE, first.getActive());
+		assertTrue(first.isFlag());
+		assertEquals(Integer.valueOf(0), second.getCount());
+		assertNull(second.getActive());
+		assertFalse(second.isFlag());
+		verify(rs, times(1)).getMetaData();
+
+		ResultSet otherRs = mockResultSet("count");
+		given(otherRs.getInt(1)).willReturn(7);
+		assertEquals(Integer.valueOf(7), mapper.mapRow(otherRs, 0).getCount());
+		verify(otherRs, times(1)).getMetaData();
+	}
+
+	@Test
+	public void testGeneratedMapperReusedPerColumnLayout() throws Exception {
+		CompiledBeanPropertyRowMapper<Counter> mapper = CompiledBeanPropertyRowMapper.newInstance(Counter.class);
+		mapper.mapRow(mockResultSet("count", "active"), 0);
+		Object countAndActive = generatedMapper(mapper);
+		mapper.mapRow(mockResultSet("count"), 0);
+		Object countOnly = generatedMapper(mapper);
+		mapper.mapRow(mockResultSet("count", "active"), 0);
+		assertSame(countAndActive, generatedMapper(mapper));
+		mapper.mapRow(mockResultSet("count"), 0);
+		assertSame(countOnly, generatedMapper(mapper));
+
+		assertEquals(2, ((Map<?, ?>) new DirectFieldAccessor(mapper).getPropertyValue("resolvedMappers")).size());
+		assertNotSame(countAndActive.getClass().getClassLoader(), countOnly.getClass().getClassLoader());
+	}
+
+
+	private static Object generatedMapper(CompiledBeanPropertyRowMapper<?> mapper) {
+		Object lastMapping = new DirectFieldAccessor(mapper).getPropertyValue("lastMapping");
+		Object rowMapper = new DirectFieldAccessor(lastMapping).getPropertyValue("rowMapper");
+		assertNotNull(rowMapper);
+		return rowMapper;
+	}
+
+	private static ResultSet mockResultSet(String... columns) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(columns.length);
+		for (int i = 0; i < columns.length; i++) {
+			given(rsmd.getColumnLabel(i + 1)).willReturn(columns[i]);
+		}
+		return rs;
+	}
+
+
+	public static class Counter {
+
+		private Integer count;
+
+		private Boolean active;
+
+		private boolean flag;
+
+		public Integer getCount() {
+			return this.count;
+		}
+
+		public void setCount(Integer count) {
+			this.count = count;
+		}
+
+		public Boolean getActive() {
+			return this.active;
+		}
+
+		public void setActive(Boolean active) {
+			this.active = active;
+		}
+
+		public boolean isFlag() {
+			return this.flag;
+		}
+
+		public void setFlag(boolean flag) {
+			this.flag = flag;
+		}
+	}
+
+}
@@ -23,9 +23,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -33,7 +37,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.SQLWarningException;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
@@ -392,4 +398,108 @@ public class JdbcTemplateQueryTests {
 		verify(this.preparedStatement).close();
 	}
 
+	@Test
+	public void testQueryForStream() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		this.template.setFetchSize(100);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			verify(this.resultSet, never()).next();
+			verify(this.statement, never()).close();
+			assertEquals(Arrays.asList(11, 12), stream.collect(Collectors.toList()));
+			verify(this.statement, never()).close();
+			verify(this.connection, never()).close();
+		}
+		verify(this.statement).setFetchSize(100);
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgs() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID = ?";
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3)) {
+			assertEquals(Integer.valueOf(11), stream.findFirst().get());
+			verify(this.resultSet).next();
+		}
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamTranslatesExceptionOnRow() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willThrow(new SQLException("row failure", "42000"));
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			stream.count();
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertEquals("row failure", ex.getCause().getMessage());
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesResourcesOnWarning() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.statement.getWarnings()).willReturn(new SQLWarning("warning", "01000"));
+		this.template.setIgnoreWarnings(false);
+		try {
+			this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1));
+			fail("Should have thrown SQLWarningException");
+		}
+		catch (SQLWarningException ex) {
+			// expected
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesResourcesOnSetterFailure() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID = ?";
+		IllegalStateException failure = new IllegalStateException("setter failure");
+		try {
+			this.template.queryForStream(sql, ps -> {
+				throw failure;
+			}, (rs, rowNum) -> rs.getInt(1));
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertSame(failure, ex);
+		}
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamCleansUpStatementCreator() throws Exception {
+		PreparedStatementCreator psc = mock(PreparedStatementCreator.class,
+				withSettings().extraInterfaces(ParameterDisposer.class));
+		given(psc.createPreparedStatement(this.connection)).willReturn(this.preparedStatement);
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, false);
+		given(this.resultSet.getInt(1)).willReturn(11);
+		try (Stream<Integer> stream = this.template.queryForStream(psc, (rs, rowNum) -> rs.getInt(1))) {
+			assertEquals(Arrays.asList(11), stream.collect(Collectors.toList()));
+			verify((ParameterDisposer) psc, never()).cleanupParameters();
+		}
+		verify((ParameterDisposer) psc).cleanupParameters();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
 }
@@ -28,9 +28,13 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -820,6 +824,63 @@ public class JdbcTemplateTests {
 		verify(this.connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testStreamingBatchUpdateWithIterator() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		int[] firstBatch = new int[AdaptiveBatchSizer.INITIAL_BATCH_SIZE];
+		Arrays.fill(firstBatch, 1);
+		given(this.preparedStatement.executeBatch()).willReturn(
+				firstBatch, new int[] {1, 1, Statement.SUCCESS_NO_INFO, 1});
+		mockDatabaseMetaData(true);
+
+		Iterator<Integer> ids = IntStream.range(0, firstBatch.length + 4).iterator();
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		int rowsAffected = template.batchUpdate(sql, ids, (ps, id) -> ps.setInt(1, id));
+		assertEquals(firstBatch.length + 3, rowsAffected);
+
+		verify(this.preparedStatement, times(firstBatch.length + 4)).addBatch();
+		verify(this.preparedStatement, times(2)).executeBatch();
+		verify(this.preparedStatement, times(1)).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testStreamingBatchUpdateWithMaxBatchSize() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1}, new int[] {1, 1}, new int[] {1});
+		mockDatabaseMetaData(true);
+
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		template.setMaxBatchSize(2);
+		int rowsAffected = template.batchUpdate(sql, Arrays.asList(1, 2, 3, 4, 5).iterator(),
+				(ps, id) -> ps.setInt(1, id));
+		assertEquals(5, rowsAffected);
+
+		verify(this.preparedStatement, times(5)).addBatch();
+		verify(this.preparedStatement, times(3)).executeBatch();
+		verify(this.preparedStatement).close();
+	}
+
+	@Test
+	public void testStreamingBatchUpdateWithStreamAndNoBatchSupport() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeUpdate()).willReturn(1, 0, 1);
+		mockDatabaseMetaData(false);
+
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<Integer> ids = Stream.of(100, 200, 300).onClose(() -> closed.set(true));
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		int rowsAffected = template.batchUpdate(sql, ids, (ps, id) -> ps.setInt(1, id));
+		assertEquals(2, rowsAffected);
+		assertTrue("Stream closed", closed.get());
+
+		verify(this.preparedStatement, never()).addBatch();
+		verify(this.preparedStatement, times(3)).executeUpdate();
+		verify(this.preparedStatement).setInt(1, 100);
+		verify(this.preparedStatement).setInt(1, 300);
+		verify(this.preparedStatement).close();
+	}
+
 	@Test
 	public void testCouldntGetConnectionForOperationOrExceptionTranslator() throws SQLException {
 		SQLException sqlException = new SQLException("foo", "07xxx");
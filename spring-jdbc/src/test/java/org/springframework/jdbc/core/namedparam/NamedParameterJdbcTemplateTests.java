@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -120,6 +122,22 @@ public class NamedParameterJdbcTemplateTests {
 		new NamedParameterJdbcTemplate((JdbcOperations) null);
 	}
 
+	@Test
+	public void testParsedSqlCache() {
+		namedParameterTemplate.setCacheLimit(2);
+		ParsedSql first = namedParameterTemplate.getParsedSql("select :a");
+		assertSame(first, namedParameterTemplate.getParsedSql("select :a"));
+		namedParameterTemplate.getParsedSql("select :b");
+		namedParameterTemplate.getParsedSql("select :c");
+		assertNotSame(first, namedParameterTemplate.getParsedSql("select :a"));
+	}
+
+	@Test
+	public void testParsedSqlCacheDisabled() {
+		namedParameterTemplate.setCacheLimit(0);
+		assertNotSame(namedParameterTemplate.getParsedSql("select :a"), namedParameterTemplate.getParsedSql("select :a"));
+	}
+
 	@Test
 	public void testTemplateConfiguration() {
 		assertSame(dataSource, namedParameterTemplate.getJdbcTemplate().getDataSource());
@@ -331,6 +349,35 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(preparedStatement.getConnection()).willReturn(connection);
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		params.put("country", "UK");
+		try (Stream<Customer> customers = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			verify(connection, never()).close();
+			List<Customer> customerList = customers.collect(Collectors.toList());
+			assertEquals(1, customerList.size());
+			assertTrue("Customer id was assigned correctly", customerList.get(0).getId() == 1);
+			assertTrue("Customer forename was assigned correctly", customerList.get(0).getForename().equals("rod"));
+		}
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryWithRowMapperNoParameters() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
@@ -16,6 +16,8 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.sql.Types;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -23,6 +25,7 @@ import java.util.Map;
 import org.junit.Test;
 
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.SqlParameterValue;
 
 import static org.junit.Assert.*;
 
@@ -68,6 +71,27 @@ public class NamedParameterUtilsTests {
 				NamedParameterUtils.substituteNamedParameters("xxx :a :b :c xx :a :a", namedParams));
 	}
 
+	@Test
+	public void substituteNamedParametersWithValueArrayReusesPrecompiledSql() {
+		MapSqlParameterSource namedParams = new MapSqlParameterSource();
+		namedParams.addValue("a", "a").addValue("b", 1);
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("xxx :a :b xx :a");
+		Object[] values = NamedParameterUtils.buildValueArray(parsedSql, namedParams, null);
+		String sql = NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams, values);
+		assertEquals("xxx ? ? xx ?", sql);
+		assertSame(sql, NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams, values));
+		assertArrayEquals(new Object[] {"a", 1, "a"}, values);
+	}
+
+	@Test
+	public void substituteNamedParametersWithValueArrayExpandsCollections() {
+		MapSqlParameterSource namedParams = new MapSqlParameterSource();
+		namedParams.addValue("a", "a").addValue("ids", new SqlParameterValue(Types.INTEGER, Arrays.asList(1, 2, 3)));
+		ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement("xxx :a in (:ids)");
+		Object[] values = NamedParameterUtils.buildValueArray(parsedSql, namedParams, null);
+		assertEquals("xxx ? in (?, ?, ?)", NamedParameterUtils.substituteNamedParameters(parsedSql, namedParams, values));
+	}
+
 	@Test
 	public void convertParamMapToArray() {
 		Map<String, String> paramMap = new HashMap<>();
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link ReadOnlyDataSourceRouter}.
+ */
+public class ReadOnlyDataSourceRouterTests {
+
+	private final DataSource primary = mock(DataSource.class);
+
+	private final DataSource replica1 = mock(DataSource.class);
+
+	private final DataSource replica2 = mock(DataSource.class);
+
+	private final Connection primaryCon = mock(Connection.class);
+
+	private final Connection replicaCon = mock(Connection.class);
+
+	private final ReadOnlyDataSourceRouter router = new ReadOnlyDataSourceRouter();
+
+
+	@Before
+	public void setup() throws Exception {
+		given(primary.getConnection()).willReturn(primaryCon);
+		given(replica1.getConnection()).willReturn(replicaCon);
+		given(primaryCon.getAutoCommit()).willReturn(true);
+		given(primaryCon.getTransactionIsolation()).willReturn(Connection.TRANSACTION_READ_COMMITTED);
+		given(replicaCon.getAutoCommit()).willReturn(true);
+
+		Map<Object, Object> replicas = new HashMap<>();
+		replicas.put("replica1", replica1);
+		replicas.put("replica2", replica2);
+		router.setPrimaryDataSource(primary);
+		router.setReplicaDataSources(replicas);
+	}
+
+
+	@Test
+	public void readOnlyTransactionRoutedToReplica() throws Exception {
+		router.setReplicaWeights(weights(1, 0));
+		router.afterPropertiesSet();
+		DataSource dataSource = new LazyConnectionDataSourceProxy(router);
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		tt.setReadOnly(true);
+		tt.execute(status -> createStatement(dataSource));
+		verify(replicaCon).createStatement();
+		verify(replicaCon).commit();
+		verify(primaryCon, never()).createStatement();
+
+		tt.setReadOnly(false);
+		tt.execute(status -> createStatement(dataSource));
+		verify(primaryCon).createStatement();
+		verify(primaryCon).commit();
+		verify(replicaCon).createStatement();
+	}
+
+	@Test
+	public void replicasChosenByWeight() {
+		router.setReplicaWeights(weights(3, 1));
+		router.afterPropertiesSet();
+
+		int replica1Count = 0;
+		int replica2Count = 0;
+		for (int i = 0; i < 4000; i++) {
+			Object key = router.determineReplicaLookupKey();
+			if ("replica1".equals(key)) {
+				replica1Count++;
+			}
+			else if ("replica2".equals(key)) {
+				replica2Count++;
+			}
+			else {
+				fail("Unexpected lookup key: " + key);
+			}
+		}
+		assertTrue("Distribution not weighted: " + replica1Count + "/" + replica2Count,
+				replica1Count > 2 * replica2Count && replica2Count > 500);
+	}
+
+	@Test
+	public void primaryWithoutReplicasInRotation() {
+		router.setReplicaWeights(weights(0, 0));
+		router.afterPropertiesSet();
+		assertNull(router.determineReplicaLookupKey());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeWeight() {
+		router.setReplicaWeights(weights(-1, 1));
+		router.afterPropertiesSet();
+	}
+
+	@Test
+	public void primaryOutsideOfTransaction() throws Exception {
+		router.afterPropertiesSet();
+		assertSame(primaryCon, router.getConnection());
+	}
+
+
+	private static Statement createStatement(DataSource dataSource) {
+		try {
+			return DataSourceUtils.getConnection(dataSource).createStatement();
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static Map<Object, Integer> weights(int replica1, int replica2) {
+		Map<Object, Integer> weights = new HashMap<>();
+		weights.put("replica1", replica1);
+		weights.put("replica2", replica2);
+		return weights;
+	}
+
+}
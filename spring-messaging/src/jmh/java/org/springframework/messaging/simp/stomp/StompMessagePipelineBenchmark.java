@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.IdTimestampMessageHeaderInitializer;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Benchmark for the STOMP message path of a broker: decoding an inbound SEND
+ * frame, re-wrapping its headers along the inbound channel, turning it into a
+ * MESSAGE for a subscriber and encoding that again.
+ *
+ * <p>Run with {@code -PjmhProfilers=gc} to get the allocations per message,
+ * reported as {@code gc.alloc.rate.norm} in bytes per operation.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class StompMessagePipelineBenchmark {
+
+	private static final byte[] SEND_FRAME = ("SEND\n" +
+			"destination:/topic/prices.stock.ACME\n" +
+			"content-type:application/json;charset=UTF-8\n" +
+			"receipt:r-17\n" +
+			"x-correlation-id:3a6f0c\n" +
+			"\n" +
+			"{\"ticker\":\"ACME\",\"price\":101.25}\0").getBytes(StandardCharsets.UTF_8);
+
+	@Param({"false", "true"})
+	public boolean fastIdGeneration;
+
+	private StompDecoder decoder;
+
+	private StompEncoder encoder;
+
+	private IdTimestampMessageHeaderInitializer headerInitializer;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.headerInitializer = new IdTimestampMessageHeaderInitializer();
+		if (this.fastIdGeneration) {
+			this.headerInitializer.setFastIdGeneration();
+		}
+		this.decoder = new StompDecoder();
+		this.decoder.setHeaderInitializer(this.headerInitializer);
+		this.encoder = new StompEncoder();
+	}
+
+
+	@Benchmark
+	public List<Message<byte[]>> decode() {
+		return this.decoder.decode(ByteBuffer.wrap(SEND_FRAME));
+	}
+
+	@Benchmark
+	public byte[] decodeRouteAndEncode() {
+		Message<byte[]> message = this.decoder.decode(ByteBuffer.wrap(SEND_FRAME)).get(0);
+
+		// WebSocket handler: session added in place before sending to the inbound channel
+		StompHeaderAccessor inboundAccessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+		inboundAccessor.setSessionId("s-1");
+		inboundAccessor.setImmutable();
+
+		// Broker: destination looked up on a copy of the headers
+		SimpMessageHeaderAccessor.wrap(message).getDestination();
+
+		// Broker: MESSAGE for a subscriber
+		SimpMessageHeaderAccessor brokerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		this.headerInitializer.initHeaders(brokerAccessor);
+		brokerAccessor.copyHeadersIfAbsent(message.getHeaders());
+		brokerAccessor.setSessionId("s-2");
+		brokerAccessor.setSubscriptionId("sub-0");
+		message = MessageBuilder.createMessage(message.getPayload(), brokerAccessor.getMessageHeaders());
+
+		// Outbound channel: converted to STOMP headers and encoded
+		StompHeaderAccessor outboundAccessor = StompHeaderAccessor.wrap(message);
+		outboundAccessor.updateStompCommandAsServerMessage();
+		return this.encoder.encode(outboundAccessor.getMessageHeaders(), message.getPayload());
+	}
+
+}
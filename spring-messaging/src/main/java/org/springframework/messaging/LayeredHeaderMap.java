@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A copy-on-write header map layered on top of the headers of a parent
+ * {@link MessageHeaders} instance: reads fall through to the parent, while
+ * additions and removals are recorded in an overlay so that the parent is
+ * never modified.
+ *
+ * <p>Chains of layers are collapsed once they reach a certain depth so that
+ * lookups stay cheap when headers are copied many times over, as in a
+ * messaging pipeline. Serialized as a plain {@link HashMap}.
+ *
+ * @since 5.0.5
+ * @see MessageHeaders#MessageHeaders(MessageHeaders, Set)
+ */
+@SuppressWarnings("serial")
+final class LayeredHeaderMap extends AbstractMap<String, Object> implements Serializable {
+
+	private static final int MAX_DEPTH = 4;
+
+	/** Overlay value marking a parent entry as removed */
+	private static final Object REMOVED = new Object();
+
+
+	private Map<String, Object> parent;
+
+	private final int depth;
+
+	@Nullable
+	private Map<String, Object> overlay;
+
+	private int size;
+
+
+	LayeredHeaderMap(Map<String, Object> parent, Collection<String> keysToIgnore) {
+		Map<String, Object> parentToUse = parent;
+		int depth = 1;
+		if (parent instanceof LayeredHeaderMap) {
+			LayeredHeaderMap layered = (LayeredHeaderMap) parent;
+			if (layered.overlay == null || layered.overlay.isEmpty()) {
+				parentToUse = layered.parent;
+				depth = layered.depth;
+			}
+			else if (layered.depth < MAX_DEPTH) {
+				depth = layered.depth + 1;
+			}
+			else {
+				parentToUse = new HashMap<>(layered);
+			}
+		}
+		this.parent = parentToUse;
+		this.depth = depth;
+		this.size = parentToUse.size();
+		for (String key : keysToIgnore) {
+			remove(key);
+		}
+	}
+
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (this.overlay != null && this.overlay.containsKey(key)) {
+			return (this.overlay.get(key) != REMOVED);
+		}
+		return this.parent.containsKey(key);
+	}
+
+	@Override
+	@Nullable
+	public Object get(Object key) {
+		if (this.overlay != null) {
+			Object value = this.overlay.get(key);
+			if (value != null || this.overlay.containsKey(key)) {
+				return (value != REMOVED ? value : null);
+			}
+		}
+		return this.parent.get(key);
+	}
+
+	@Override
+	@Nullable
+	public Object put(String key, @Nullable Object value) {
+		boolean existed = containsKey(key);
+		Object previous = (existed ? get(key) : null);
+		if (this.overlay == null) {
+			this.overlay = new HashMap<>(8);
+		}
+		this.overlay.put(key, value);
+		if (!existed) {
+			this.size++;
+		}
+		return previous;
+	}
+
+	@Override
+	@Nullable
+	public Object remove(Object key) {
+		if (!containsKey(key)) {
+			return null;
+		}
+		Object previous = get(key);
+		if (this.parent.containsKey(key)) {
+			if (this.overlay == null) {
+				this.overlay = new HashMap<>(8);
+			}
+			this.overlay.put((String) key, REMOVED);
+		}
+		else if (this.overlay != null) {
+			this.overlay.remove(key);
+		}
+		this.size--;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		this.parent = Collections.emptyMap();
+		this.overlay = null;
+		this.size = 0;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+			@Override
+			public int size() {
+				return LayeredHeaderMap.this.size;
+			}
+		};
+	}
+
+	private Object writeReplace() {
+		return new HashMap<>(this);
+	}
+
+
+	/**
+	 * Iterates over the parent entries not overridden in the overlay, followed
+	 * by the overlay entries that are not removal markers. The overlay entries
+	 * are iterated over as of the creation of the iterator, so that removals
+	 * through the iterator can go into the overlay.
+	 */
+	private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+		private final Iterator<Entry<String, Object>> parentIterator = parent.entrySet().iterator();
+
+		@Nullable
+		private final Iterator<Entry<String, Object>> overlayIterator =
+				(overlay != null ? new ArrayList<>(overlay.entrySet()).iterator() : null);
+
+		@Nullable
+		private Entry<String, Object> next = advance();
+
+		@Nullable
+		private Entry<String, Object> last;
+
+		@Override
+		public boolean hasNext() {
+			return (this.next != null);
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			Entry<String, Object> entry = this.next;
+			if (entry == null) {
+				throw new NoSuchElementException();
+			}
+			this.next = advance();
+			this.last = entry;
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			Entry<String, Object> entry = this.last;
+			if (entry == null) {
+				throw new IllegalStateException();
+			}
+			LayeredHeaderMap.this.remove(entry.getKey());
+			this.last = null;
+		}
+
+		@Nullable
+		private Entry<String, Object> advance() {
+			while (this.parentIterator.hasNext()) {
+				Entry<String, Object> entry = this.parentIterator.next();
+				if (overlay == null || !overlay.containsKey(entry.getKey())) {
+					return new SimpleImmutableEntry<>(entry);
+				}
+			}
+			if (this.overlayIterator != null) {
+				while (this.overlayIterator.hasNext()) {
+					Entry<String, Object> entry = this.overlayIterator.next();
+					if (entry.getValue() != REMOVED) {
+						return new SimpleImmutableEntry<>(entry);
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -145,16 +145,15 @@ public class MessageHeaders implements Map<String, Object>, Serializable {
 	/**
 	 * Copy constructor which allows for ignoring certain entries.
 	 * Used for serialization without non-serializable entries.
+	 * <p>The copy is made on write: the entries of the original are shared and
+	 * changes through {@link #getRawHeaders()} go into an overlay on top of them.
+	 * The original must therefore not be modified afterwards.
 	 * @param original the MessageHeaders to copy
 	 * @param keysToIgnore the keys of the entries to ignore
+	 * @since 5.0.5
 	 */
-	private MessageHeaders(MessageHeaders original, Set<String> keysToIgnore) {
-		this.headers = new HashMap<>(original.headers.size() - keysToIgnore.size());
-		original.headers.forEach((key, value) -> {
-			if (!keysToIgnore.contains(key)) {
-				this.headers.put(key, value);
-			}
-		});
+	protected MessageHeaders(MessageHeaders original, Set<String> keysToIgnore) {
+		this.headers = new LayeredHeaderMap(original.headers, keysToIgnore);
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,17 @@
 
 package org.springframework.messaging.simp.broker;
 
-import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
@@ -165,7 +167,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	protected void removeSubscriptionInternal(String sessionId, String subsId, Message<?> message) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.getSubscriptions(sessionId);
 		if (info != null) {
-			String destination = info.removeSubscription(subsId);
+			String destination = this.subscriptionRegistry.removeSubscription(info, subsId);
 			if (destination != null) {
 				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
 			}
@@ -240,116 +242,121 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	/**
 	 * A cache for destinations previously resolved via
 	 * {@link DefaultSubscriptionRegistry#findSubscriptionsInternal(String, Message)}
+	 * <p>Cached subscriptions are immutable snapshots, replaced atomically per
+	 * destination on subscription changes, so that look-ups and updates never
+	 * contend on a shared lock. Once the cache limit is exceeded, the eldest
+	 * destinations are evicted first.
 	 */
 	private class DestinationCache {
 
 		/** Map from destination -> <sessionId, subscriptionId> for fast look-ups */
-		private final Map<String, LinkedMultiValueMap<String, String>> accessCache =
+		private final ConcurrentMap<String, LinkedMultiValueMap<String, String>> accessCache =
 				new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
 
-		/** Map from destination -> <sessionId, subscriptionId> with locking */
-		@SuppressWarnings("serial")
-		private final Map<String, LinkedMultiValueMap<String, String>> updateCache =
-				new LinkedHashMap<String, LinkedMultiValueMap<String, String>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, LinkedMultiValueMap<String, String>> eldest) {
-						if (size() > getCacheLimit()) {
-							accessCache.remove(eldest.getKey());
-							return true;
-						}
-						else {
-							return false;
-						}
-					}
-				};
+		/**
+		 * Cached destinations in insertion order, for evicting the eldest entries.
+		 * Kept in sync with the keys of the access cache: a destination is removed
+		 * here whenever its cache entry is dropped other than by eviction.
+		 */
+		private final Queue<String> cachedDestinations = new ConcurrentLinkedQueue<>();
+
+		/** Incremented on every subscription change, to detect a concurrently resolved entry going stale */
+		private final AtomicLong subscriptionVersion = new AtomicLong();
 
 
 		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
-				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription subscription : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, subscription.getId());
-								}
-							}
+				long version = this.subscriptionVersion.get();
+				result = subscriptionRegistry.findSubscriptions(destination, getPathMatcher());
+				if (!result.isEmpty()) {
+					LinkedMultiValueMap<String, String> existing = this.accessCache.putIfAbsent(destination, result);
+					if (existing != null) {
+						return existing;
+					}
+					this.cachedDestinations.add(destination);
+					if (this.subscriptionVersion.get() != version) {
+						// Subscriptions changed while resolving: the entry may have missed the update
+						if (this.accessCache.remove(destination, result)) {
+							this.cachedDestinations.remove(destination);
 						}
 					}
-					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
-						this.accessCache.put(destination, result);
+					else {
+						evictIfNecessary();
 					}
 				}
 			}
 			return result;
 		}
 
+		private void evictIfNecessary() {
+			int cacheLimit = getCacheLimit();
+			while (this.accessCache.size() > cacheLimit) {
+				String eldest = this.cachedDestinations.poll();
+				if (eldest == null) {
+					break;
+				}
+				this.accessCache.remove(eldest);
+			}
+		}
+
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				for (Map.Entry<String, LinkedMultiValueMap<String, String>> entry : this.updateCache.entrySet()) {
-					String cachedDestination = entry.getKey();
-					if (getPathMatcher().match(destination, cachedDestination)) {
-						LinkedMultiValueMap<String, String> subs = entry.getValue();
+			this.subscriptionVersion.incrementAndGet();
+			for (String cachedDestination : this.accessCache.keySet()) {
+				if (getPathMatcher().match(destination, cachedDestination)) {
+					this.accessCache.computeIfPresent(cachedDestination, (key, subs) -> {
 						// Subscription id's may also be populated via getSubscriptions()
 						List<String> subsForSession = subs.get(sessionId);
-						if (subsForSession == null || !subsForSession.contains(subsId)) {
-							subs.add(sessionId, subsId);
-							this.accessCache.put(cachedDestination, subs.deepCopy());
+						if (subsForSession != null && subsForSession.contains(subsId)) {
+							return subs;
 						}
-					}
+						LinkedMultiValueMap<String, String> newSubs = subs.deepCopy();
+						newSubs.add(sessionId, subsId);
+						return newSubs;
+					});
 				}
 			}
 		}
 
 		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				for (Map.Entry<String, LinkedMultiValueMap<String, String>> entry : this.updateCache.entrySet()) {
-					String destination = entry.getKey();
-					LinkedMultiValueMap<String, String> sessionMap = entry.getValue();
-					List<String> subscriptions = sessionMap.get(sessionId);
-					if (subscriptions != null) {
-						subscriptions.remove(subsId);
-						if (subscriptions.isEmpty()) {
-							sessionMap.remove(sessionId);
-						}
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
+			this.subscriptionVersion.incrementAndGet();
+			for (Map.Entry<String, LinkedMultiValueMap<String, String>> entry : this.accessCache.entrySet()) {
+				List<String> subscriptions = entry.getValue().get(sessionId);
+				if (subscriptions != null && subscriptions.contains(subsId)) {
+					LinkedMultiValueMap<String, String> result =
+							this.accessCache.computeIfPresent(entry.getKey(), (key, sessionMap) -> {
+								LinkedMultiValueMap<String, String> newSessionMap = sessionMap.deepCopy();
+								List<String> subsForSession = newSessionMap.get(sessionId);
+								if (subsForSession != null) {
+									subsForSession.remove(subsId);
+									if (subsForSession.isEmpty()) {
+										newSessionMap.remove(sessionId);
+									}
+								}
+								return (newSessionMap.isEmpty() ? null : newSessionMap);
+							});
+					if (result == null) {
+						this.cachedDestinations.remove(entry.getKey());
 					}
 				}
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
 			}
 		}
 
 		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				for (Map.Entry<String, LinkedMultiValueMap<String, String>> entry : this.updateCache.entrySet()) {
-					String destination = entry.getKey();
-					LinkedMultiValueMap<String, String> sessionMap = entry.getValue();
-					if (sessionMap.remove(info.getSessionId()) != null) {
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
+			this.subscriptionVersion.incrementAndGet();
+			String sessionId = info.getSessionId();
+			for (Map.Entry<String, LinkedMultiValueMap<String, String>> entry : this.accessCache.entrySet()) {
+				if (entry.getValue().containsKey(sessionId)) {
+					LinkedMultiValueMap<String, String> result =
+							this.accessCache.computeIfPresent(entry.getKey(), (key, sessionMap) -> {
+								LinkedMultiValueMap<String, String> newSessionMap = sessionMap.deepCopy();
+								newSessionMap.remove(sessionId);
+								return (newSessionMap.isEmpty() ? null : newSessionMap);
+							});
+					if (result == null) {
+						this.cachedDestinations.remove(entry.getKey());
 					}
 				}
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
 			}
 		}
 
@@ -361,20 +368,51 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 
 	/**
-	 * Provide access to session subscriptions by sessionId.
+	 * Provide access to session subscriptions by sessionId, and to the
+	 * subscribed sessions by destination (pattern).
 	 */
 	private static class SessionSubscriptionRegistry {
 
 		// sessionId -> SessionSubscriptionInfo
 		private final ConcurrentMap<String, SessionSubscriptionInfo> sessions = new ConcurrentHashMap<>();
 
+		// destination -> sessionId -> SessionSubscriptionInfo
+		private final ConcurrentMap<String, Map<String, SessionSubscriptionInfo>> destinations =
+				new ConcurrentHashMap<>();
+
 		@Nullable
 		public SessionSubscriptionInfo getSubscriptions(String sessionId) {
 			return this.sessions.get(sessionId);
 		}
 
-		public Collection<SessionSubscriptionInfo> getAllSubscriptions() {
-			return this.sessions.values();
+		/**
+		 * Resolve the subscriptions for the given destination, matching it
+		 * against each distinct subscribed destination once rather than
+		 * against the destinations of every session.
+		 */
+		public LinkedMultiValueMap<String, String> findSubscriptions(String destination, PathMatcher pathMatcher) {
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+			Set<String> matchingDestinations = new HashSet<>();
+			Set<SessionSubscriptionInfo> matchingSessions = new LinkedHashSet<>();
+			for (Map.Entry<String, Map<String, SessionSubscriptionInfo>> entry : this.destinations.entrySet()) {
+				if (pathMatcher.match(entry.getKey(), destination)) {
+					matchingDestinations.add(entry.getKey());
+					matchingSessions.addAll(entry.getValue().values());
+				}
+			}
+			for (SessionSubscriptionInfo info : matchingSessions) {
+				for (String destinationPattern : info.getDestinations()) {
+					if (matchingDestinations.contains(destinationPattern)) {
+						Set<Subscription> subscriptions = info.getSubscriptions(destinationPattern);
+						if (subscriptions != null) {
+							for (Subscription subscription : subscriptions) {
+								result.add(info.getSessionId(), subscription.getId());
+							}
+						}
+					}
+				}
+			}
+			return result;
 		}
 
 		public SessionSubscriptionInfo addSubscription(String sessionId, String subscriptionId,
@@ -389,12 +427,50 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 				}
 			}
 			info.addSubscription(destination, subscriptionId, selectorExpression);
+			SessionSubscriptionInfo infoToUse = info;
+			this.destinations.compute(destination, (key, sessionsForDestination) -> {
+				if (sessionsForDestination == null) {
+					sessionsForDestination = new ConcurrentHashMap<>(4);
+				}
+				sessionsForDestination.put(sessionId, infoToUse);
+				return sessionsForDestination;
+			});
 			return info;
 		}
 
+		@Nullable
+		public String removeSubscription(SessionSubscriptionInfo info, String subscriptionId) {
+			String destination = info.removeSubscription(subscriptionId);
+			if (destination != null) {
+				removeDestination(destination, info);
+			}
+			return destination;
+		}
+
 		@Nullable
 		public SessionSubscriptionInfo removeSubscriptions(String sessionId) {
-			return this.sessions.remove(sessionId);
+			SessionSubscriptionInfo info = this.sessions.remove(sessionId);
+			if (info != null) {
+				for (String destination : info.getDestinations()) {
+					removeDestination(destination, info);
+				}
+			}
+			return info;
+		}
+
+		/**
+		 * Drop the given session from the sessions subscribed to the given destination,
+		 * unless it has been subscribed to the destination again in the meantime.
+		 */
+		private void removeDestination(String destination, SessionSubscriptionInfo info) {
+			this.destinations.computeIfPresent(destination, (key, sessionsForDestination) -> {
+				// Checked while computing: a concurrent subscription to the destination
+				// is either visible here or adds the session again afterwards
+				if (info.getSubscriptions(destination) == null || this.sessions.get(info.getSessionId()) != info) {
+					sessionsForDestination.remove(info.getSessionId(), info);
+				}
+				return (sessionsForDestination.isEmpty() ? null : sessionsForDestination);
+			});
 		}
 
 		@Override
@@ -427,6 +503,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.destinationLookup.keySet();
 		}
 
+		@Nullable
 		public Set<Subscription> getSubscriptions(String destination) {
 			return this.destinationLookup.get(destination);
 		}
@@ -449,17 +526,12 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		}
 
 		public void addSubscription(String destination, String subscriptionId, @Nullable Expression selectorExpression) {
-			Set<Subscription> subs = this.destinationLookup.get(destination);
-			if (subs == null) {
-				synchronized (this.destinationLookup) {
-					subs = this.destinationLookup.get(destination);
-					if (subs == null) {
-						subs = new CopyOnWriteArraySet<>();
-						this.destinationLookup.put(destination, subs);
-					}
-				}
-			}
-			subs.add(new Subscription(subscriptionId, selectorExpression));
+			// Added while computing, so that a concurrently emptied set cannot be dropped afterwards
+			this.destinationLookup.compute(destination, (key, subs) -> {
+				Set<Subscription> subsToUse = (subs != null ? subs : new CopyOnWriteArraySet<>());
+				subsToUse.add(new Subscription(subscriptionId, selectorExpression));
+				return subsToUse;
+			});
 		}
 
 		@Nullable
@@ -470,11 +542,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 				if (subs != null) {
 					for (Subscription sub : subs) {
 						if (sub.getId().equals(subscriptionId) && subs.remove(sub)) {
-							synchronized (this.destinationLookup) {
-								if (subs.isEmpty()) {
-									this.destinationLookup.remove(destinationEntry.getKey());
-								}
-							}
+							this.destinationLookup.computeIfPresent(destinationEntry.getKey(),
+									(key, current) -> (current.isEmpty() ? null : current));
 							return destinationEntry.getKey();
 						}
 					}
@@ -348,18 +348,26 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 
 	protected void sendMessageToSubscribers(@Nullable String destination, Message<?> message) {
 		MultiValueMap<String,String> subscriptions = this.subscriptionRegistry.findSubscriptions(message);
-		if (!subscriptions.isEmpty() && logger.isDebugEnabled()) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
+		// Resolve the headers shared by all recipients once, leaving only
+		// the session and subscription id to be set per outbound message
+		SimpMessageHeaderAccessor broadcastAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		broadcastAccessor.copyHeadersIfAbsent(message.getHeaders());
+		Object payload = message.getPayload();
+		Message<?> broadcast = MessageBuilder.createMessage(payload, broadcastAccessor.getMessageHeaders());
 		long now = System.currentTimeMillis();
 		for (Map.Entry<String, List<String>> subscriptionEntry : subscriptions.entrySet()) {
+			String sessionId = subscriptionEntry.getKey();
 			for (String subscriptionId : subscriptionEntry.getValue()) {
-				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.wrap(broadcast);
 				initHeaders(headerAccessor);
-				headerAccessor.setSessionId(subscriptionEntry.getKey());
+				headerAccessor.setSessionId(sessionId);
 				headerAccessor.setSubscriptionId(subscriptionId);
-				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
-				Object payload = message.getPayload();
 				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
 				try {
 					getClientOutboundChannel().send(reply);
@@ -369,12 +377,10 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 						logger.error("Failed to send " + message, ex);
 					}
 				}
-				finally {
-					SessionInfo info = this.sessions.get(subscriptionEntry.getKey());
-					if (info != null) {
-						info.setLastWriteTime(now);
-					}
-				}
+			}
+			SessionInfo info = this.sessions.get(sessionId);
+			if (info != null) {
+				info.setLastWriteTime(now);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -125,8 +125,9 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 
 	@Bean
 	public AbstractSubscribableChannel clientInboundChannel() {
-		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(clientInboundChannelExecutor());
 		ChannelRegistration reg = getClientInboundChannelRegistration();
+		ExecutorSubscribableChannel channel =
+				new ExecutorSubscribableChannel(reg.getChannelExecutor(clientInboundChannelExecutor()));
 		if (reg.hasInterceptors()) {
 			channel.setInterceptors(reg.getInterceptors());
 		}
@@ -160,8 +161,9 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 
 	@Bean
 	public AbstractSubscribableChannel clientOutboundChannel() {
-		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(clientOutboundChannelExecutor());
 		ChannelRegistration reg = getClientOutboundChannelRegistration();
+		ExecutorSubscribableChannel channel =
+				new ExecutorSubscribableChannel(reg.getChannelExecutor(clientOutboundChannelExecutor()));
 		if (reg.hasInterceptors()) {
 			channel.setInterceptors(reg.getInterceptors());
 		}
@@ -197,7 +199,8 @@ public abstract class AbstractMessageBrokerConfiguration implements ApplicationC
 	public AbstractSubscribableChannel brokerChannel() {
 		ChannelRegistration reg = getBrokerRegistry().getBrokerChannelRegistration();
 		ExecutorSubscribableChannel channel = (reg.hasTaskExecutor() ?
-				new ExecutorSubscribableChannel(brokerChannelExecutor()) : new ExecutorSubscribableChannel());
+				new ExecutorSubscribableChannel(reg.getChannelExecutor(brokerChannelExecutor())) :
+				new ExecutorSubscribableChannel());
 		reg.interceptors(new ImmutableMessageChannelInterceptor());
 		channel.setInterceptors(reg.getInterceptors());
 		return channel;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.7
+ * Copyright 2002-2018 the original author or authors.7
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,11 @@ package org.springframework.messaging.simp.config;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.OrderedMessageExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
@@ -38,6 +40,13 @@ public class ChannelRegistration {
 
 	private final List<ChannelInterceptor> interceptors = new ArrayList<>();
 
+	@Nullable
+	private String orderHeaderName;
+
+	private int laneCount = Runtime.getRuntime().availableProcessors() * 2;
+
+	private int laneCapacity = Integer.MAX_VALUE;
+
 
 	/**
 	 * Configure the thread pool backing this message channel.
@@ -69,6 +78,40 @@ public class ChannelRegistration {
 		return this;
 	}
 
+	/**
+	 * Process messages with the same value for the given header one at a time
+	 * and in the order they were sent, e.g. all messages of a WebSocket session
+	 * with {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#SESSION_ID_HEADER
+	 * SESSION_ID_HEADER}, while messages with different values are still
+	 * processed in parallel by the thread pool.
+	 * @param headerName the header whose value determines the order
+	 * @since 5.0.5
+	 * @see OrderedMessageExecutor
+	 */
+	public ChannelRegistration preserveOrderBy(String headerName) {
+		this.orderHeaderName = headerName;
+		return this;
+	}
+
+	/**
+	 * Variant of {@link #preserveOrderBy(String)} that also configures the
+	 * number of serial lanes messages are hashed into, i.e. the maximum number
+	 * of messages processed in parallel, and the number of pending messages per
+	 * lane beyond which senders have to wait.
+	 * <p>By default there are twice as many lanes as available processors and
+	 * lanes are unbounded.
+	 * @param headerName the header whose value determines the order
+	 * @param laneCount the number of lanes
+	 * @param laneCapacity the maximum number of pending messages per lane
+	 * @since 5.0.5
+	 */
+	public ChannelRegistration preserveOrderBy(String headerName, int laneCount, int laneCapacity) {
+		this.orderHeaderName = headerName;
+		this.laneCount = laneCount;
+		this.laneCapacity = laneCapacity;
+		return this;
+	}
+
 	/**
 	 * Configure interceptors for the message channel.
 	 * @deprecated as of 4.3.12, in favor of {@link #interceptors(ChannelInterceptor...)}
@@ -94,4 +137,19 @@ public class ChannelRegistration {
 		return this.interceptors;
 	}
 
+	/**
+	 * Return the executor for the message channel: the given task executor,
+	 * decorated to preserve the order of messages if configured to do so.
+	 * @since 5.0.5
+	 */
+	protected Executor getChannelExecutor(Executor taskExecutor) {
+		if (this.orderHeaderName == null) {
+			return taskExecutor;
+		}
+		OrderedMessageExecutor executor =
+				new OrderedMessageExecutor(taskExecutor, this.orderHeaderName, this.laneCount);
+		executor.setLaneCapacity(this.laneCapacity);
+		return executor;
+	}
+
 }
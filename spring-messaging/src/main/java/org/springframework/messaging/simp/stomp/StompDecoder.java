@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -43,6 +42,10 @@ import org.springframework.util.MultiValueMap;
  * partial content. The caller is then responsible for dealing with that
  * incomplete content by buffering until there is more input available.
  *
+ * <p>Commands, header lines and bodies are located by scanning the buffer in
+ * place; well-known commands and header names resolve to shared constants, and
+ * header values only get unescaped if they contain an escape sequence.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -53,6 +56,31 @@ public class StompDecoder {
 
 	private static final Log logger = LogFactory.getLog(StompDecoder.class);
 
+	private static final String[] COMMAND_NAMES;
+
+	private static final String[] HEADER_NAMES = new String[] {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_HEADER, StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER,
+			StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_HOST_HEADER,
+			StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER, StompHeaderAccessor.STOMP_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_HEARTBEAT_HEADER, StompHeaderAccessor.STOMP_LOGIN_HEADER,
+			StompHeaderAccessor.STOMP_PASSCODE_HEADER, StompHeaderAccessor.STOMP_MESSAGE_HEADER};
+
+	private static final byte[][] COMMAND_NAME_BYTES;
+
+	private static final byte[][] HEADER_NAME_BYTES = toBytes(HEADER_NAMES);
+
+	static {
+		StompCommand[] commands = StompCommand.values();
+		COMMAND_NAMES = new String[commands.length];
+		for (int i = 0; i < commands.length; i++) {
+			COMMAND_NAMES[i] = commands[i].name();
+		}
+		COMMAND_NAME_BYTES = toBytes(COMMAND_NAMES);
+	}
+
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
@@ -207,49 +235,57 @@ public class StompDecoder {
 	}
 
 	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
+		int start = byteBuffer.position();
+		int lineEnd = findLineEnd(byteBuffer);
+		if (lineEnd == -1) {
+			// No EOL yet: consume the partial command, the frame is incomplete
+			String command = toString(byteBuffer, start, byteBuffer.limit());
+			((Buffer) byteBuffer).position(byteBuffer.limit());
+			return command;
+		}
+		String command = lookup(byteBuffer, start, lineEnd, COMMAND_NAMES, COMMAND_NAME_BYTES);
+		if (command == null) {
+			command = toString(byteBuffer, start, lineEnd);
 		}
-		return new String(command.toByteArray(), StandardCharsets.UTF_8);
+		consumeEndOfLine(byteBuffer, lineEnd);
+		return command;
 	}
 
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor) {
-		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			boolean headerComplete = false;
-			while (byteBuffer.hasRemaining()) {
-				if (tryConsumeEndOfLine(byteBuffer)) {
-					headerComplete = true;
-					break;
+		while (byteBuffer.hasRemaining()) {
+			int start = byteBuffer.position();
+			int lineEnd = findLineEnd(byteBuffer);
+			if (lineEnd == -1) {
+				// Partial header line: consume it, the frame is incomplete
+				((Buffer) byteBuffer).position(byteBuffer.limit());
+				break;
+			}
+			consumeEndOfLine(byteBuffer, lineEnd);
+			if (lineEnd == start) {
+				break;
+			}
+			int colonIndex = indexOf(byteBuffer, start, lineEnd, (byte) ':');
+			if (colonIndex <= start) {
+				if (byteBuffer.remaining() > 0) {
+					throw new StompConversionException("Illegal header: '" + toString(byteBuffer, start, lineEnd) +
+							"'. A header must be of the form <name>:[<value>].");
 				}
-				headerStream.write(byteBuffer.get());
 			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = new String(headerStream.toByteArray(), StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
-					if (byteBuffer.remaining() > 0) {
-						throw new StompConversionException("Illegal header: '" + header +
-								"'. A header must be of the form <name>:[<value>].");
-					}
+			else {
+				String headerName = lookup(byteBuffer, start, colonIndex, HEADER_NAMES, HEADER_NAME_BYTES);
+				if (headerName == null) {
+					headerName = unescape(toString(byteBuffer, start, colonIndex));
 				}
-				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
-					try {
-						headerAccessor.addNativeHeader(headerName, headerValue);
-					}
-					catch (InvalidMimeTypeException ex) {
-						if (byteBuffer.remaining() > 0) {
-							throw ex;
-						}
+				String headerValue = unescape(toString(byteBuffer, colonIndex + 1, lineEnd));
+				try {
+					headerAccessor.addNativeHeader(headerName, headerValue);
+				}
+				catch (InvalidMimeTypeException ex) {
+					if (byteBuffer.remaining() > 0) {
+						throw ex;
 					}
 				}
 			}
-			else {
-				break;
-			}
 		}
 	}
 
@@ -258,16 +294,19 @@ public class StompDecoder {
 	 * <a href="http://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
 	 */
 	private String unescape(String inString) {
+		int index = inString.indexOf("\\");
+		if (index == -1) {
+			return inString;
+		}
 		StringBuilder sb = new StringBuilder(inString.length());
 		int pos = 0;  // position in the old string
-		int index = inString.indexOf("\\");
 
 		while (index >= 0) {
-			sb.append(inString.substring(pos, index));
+			sb.append(inString, pos, index);
 			if (index + 1 >= inString.length()) {
 				throw new StompConversionException("Illegal escape sequence at index " + index + ": " + inString);
 			}
-			Character c = inString.charAt(index + 1);
+			char c = inString.charAt(index + 1);
 			if (c == 'r') {
 				sb.append('\r');
 			}
@@ -288,7 +327,7 @@ public class StompDecoder {
 			index = inString.indexOf("\\", pos);
 		}
 
-		sb.append(inString.substring(pos));
+		sb.append(inString, pos, inString.length());
 		return sb.toString();
 	}
 
@@ -319,20 +358,97 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
+			int start = byteBuffer.position();
+			int end = indexOf(byteBuffer, start, byteBuffer.limit(), (byte) 0);
+			if (end != -1) {
+				byte[] payload = new byte[end - start];
+				byteBuffer.get(payload);
+				byteBuffer.get();
+				return payload;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find the end of the line starting at the current position, i.e. the index
+	 * of its LF or of the CR of a CRLF sequence, without moving the position.
+	 * @return the index of the end of the line, or -1 if the buffer ends before
+	 */
+	private int findLineEnd(ByteBuffer byteBuffer) {
+		int limit = byteBuffer.limit();
+		for (int i = byteBuffer.position(); i < limit; i++) {
+			byte b = byteBuffer.get(i);
+			if (b == '\n') {
+				return i;
+			}
+			else if (b == '\r') {
+				if (i + 1 < limit && byteBuffer.get(i + 1) == '\n') {
+					return i;
 				}
+				throw new StompConversionException("'\\r' must be followed by '\\n'");
+			}
+		}
+		return -1;
+	}
+
+	private void consumeEndOfLine(ByteBuffer byteBuffer, int lineEnd) {
+		((Buffer) byteBuffer).position(lineEnd + (byteBuffer.get(lineEnd) == '\r' ? 2 : 1));
+	}
+
+	private static int indexOf(ByteBuffer byteBuffer, int start, int end, byte target) {
+		for (int i = start; i < end; i++) {
+			if (byteBuffer.get(i) == target) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the constant among the given names that the given span of bytes
+	 * spells out, avoiding a String allocation for well-known names.
+	 */
+	@Nullable
+	private static String lookup(ByteBuffer byteBuffer, int start, int end, String[] names, byte[][] nameBytes) {
+		int length = end - start;
+		for (int i = 0; i < nameBytes.length; i++) {
+			byte[] candidate = nameBytes[i];
+			if (candidate.length == length && matches(byteBuffer, start, candidate)) {
+				return names[i];
 			}
 		}
 		return null;
 	}
 
+	private static boolean matches(ByteBuffer byteBuffer, int start, byte[] candidate) {
+		for (int i = 0; i < candidate.length; i++) {
+			if (byteBuffer.get(start + i) != candidate[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String toString(ByteBuffer byteBuffer, int start, int end) {
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = byteBuffer.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static byte[][] toBytes(String[] names) {
+		byte[][] bytes = new byte[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			bytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+		}
+		return bytes;
+	}
+
 	/**
 	 * Try to read an EOL incrementing the buffer position if successful.
 	 * @return whether an EOL was consumed
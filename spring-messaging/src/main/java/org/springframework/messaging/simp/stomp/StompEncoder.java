@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,10 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -55,23 +53,23 @@ public class StompEncoder  {
 
 	private static final int HEADER_KEY_CACHE_LIMIT = 32;
 
+	private static final byte[] CONTENT_LENGTH_PREFIX = "content-length:".getBytes(StandardCharsets.UTF_8);
 
-	private final Map<String, byte[]> headerKeyAccessCache = new ConcurrentHashMap<>(HEADER_KEY_CACHE_LIMIT);
-
-	@SuppressWarnings("serial")
-	private final Map<String, byte[]> headerKeyUpdateCache =
-			new LinkedHashMap<String, byte[]>(HEADER_KEY_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
-					if (size() > HEADER_KEY_CACHE_LIMIT) {
-						headerKeyAccessCache.remove(eldest.getKey());
-						return true;
-					}
-					else {
-						return false;
-					}
-				}
-			};
+	private static final Map<StompCommand, byte[]> COMMAND_BYTES = new EnumMap<>(StompCommand.class);
+
+	static {
+		for (StompCommand command : StompCommand.values()) {
+			COMMAND_BYTES.put(command, command.toString().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+
+	/**
+	 * Encoded header keys; header names come from a small, mostly fixed set,
+	 * so the cache only grows up to its limit and is then left as is which
+	 * keeps lookups free of locking.
+	 */
+	private final Map<String, byte[]> headerKeyCache = new ConcurrentHashMap<>(HEADER_KEY_CACHE_LIMIT);
 
 
 	/**
@@ -93,39 +91,44 @@ public class StompEncoder  {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
 
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
-			DataOutputStream output = new DataOutputStream(baos);
+		DefaultResult result = new DefaultResult();
+		encode(headers, payload, result);
+		return result.toByteArray();
+	}
 
-			if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
-				logger.trace("Encoding heartbeat");
-				output.write(StompDecoder.HEARTBEAT_PAYLOAD);
-			}
+	/**
+	 * Encode the given payload and headers into the given {@link Result},
+	 * e.g. writing straight into a pooled buffer.
+	 * @param headers the headers
+	 * @param payload the payload
+	 * @param result the target to write encoded chunks to
+	 * @since 5.0.5
+	 */
+	void encode(Map<String, Object> headers, byte[] payload, Result result) {
+		Assert.notNull(headers, "'headers' is required");
+		Assert.notNull(payload, "'payload' is required");
 
-			else {
-				StompCommand command = StompHeaderAccessor.getCommand(headers);
-				if (command == null) {
-					throw new IllegalStateException("Missing STOMP command: " + headers);
-				}
+		if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
+			logger.trace("Encoding heartbeat");
+			result.add(StompDecoder.HEARTBEAT_PAYLOAD);
+		}
 
-				output.write(command.toString().getBytes(StandardCharsets.UTF_8));
-				output.write(LF);
-				writeHeaders(command, headers, payload, output);
-				output.write(LF);
-				writeBody(payload, output);
-				output.write((byte) 0);
+		else {
+			StompCommand command = StompHeaderAccessor.getCommand(headers);
+			if (command == null) {
+				throw new IllegalStateException("Missing STOMP command: " + headers);
 			}
 
-			return baos.toByteArray();
-		}
-		catch (IOException ex) {
-			throw new StompConversionException("Failed to encode STOMP frame, headers=" + headers,  ex);
+			result.add(COMMAND_BYTES.get(command));
+			result.add(LF);
+			writeHeaders(command, headers, payload, result);
+			result.add(LF);
+			result.add(payload);
+			result.add((byte) 0);
 		}
 	}
 
-	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
-			DataOutputStream output) throws IOException {
-
+	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload, Result result) {
 		@SuppressWarnings("unchecked")
 		Map<String,List<String>> nativeHeaders =
 				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
@@ -153,35 +156,31 @@ public class StompEncoder  {
 
 			byte[] encodedKey = encodeHeaderKey(entry.getKey(), shouldEscape);
 			for (String value : values) {
-				output.write(encodedKey);
-				output.write(COLON);
-				output.write(encodeHeaderValue(value, shouldEscape));
-				output.write(LF);
+				result.add(encodedKey);
+				result.add(COLON);
+				result.add(encodeHeaderValue(value, shouldEscape));
+				result.add(LF);
 			}
 		}
 
 		if (command.requiresContentLength()) {
 			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StandardCharsets.UTF_8));
-			output.write(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
-			output.write(LF);
+			result.add(CONTENT_LENGTH_PREFIX);
+			result.add(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
+			result.add(LF);
 		}
 	}
 
 	private byte[] encodeHeaderKey(String input, boolean escape) {
 		String inputToUse = (escape ? escape(input) : input);
-		if (this.headerKeyAccessCache.containsKey(inputToUse)) {
-			return this.headerKeyAccessCache.get(inputToUse);
-		}
-		synchronized (this.headerKeyUpdateCache) {
-			byte[] bytes = this.headerKeyUpdateCache.get(inputToUse);
-			if (bytes == null) {
-				bytes = inputToUse.getBytes(StandardCharsets.UTF_8);
-				this.headerKeyAccessCache.put(inputToUse, bytes);
-				this.headerKeyUpdateCache.put(inputToUse, bytes);
+		byte[] bytes = this.headerKeyCache.get(inputToUse);
+		if (bytes == null) {
+			bytes = inputToUse.getBytes(StandardCharsets.UTF_8);
+			if (this.headerKeyCache.size() < HEADER_KEY_CACHE_LIMIT) {
+				this.headerKeyCache.put(inputToUse, bytes);
 			}
-			return bytes;
 		}
+		return bytes;
 	}
 
 	private byte[] encodeHeaderValue(String input, boolean escape) {
@@ -228,8 +227,55 @@ public class StompEncoder  {
 		return sb;
 	}
 
-	private void writeBody(byte[] payload, DataOutputStream output) throws IOException {
-		output.write(payload);
+
+	/**
+	 * Accumulates the chunks of an encoded STOMP frame.
+	 */
+	interface Result {
+
+		void add(byte[] bytes);
+
+		void add(byte b);
+	}
+
+
+	/**
+	 * Default {@link Result} collecting references to the encoded chunks and
+	 * copying them once into a {@code byte[]} of the exact frame size.
+	 */
+	private static class DefaultResult implements Result {
+
+		private final List<Object> chunks = new ArrayList<>(32);
+
+		private int size;
+
+		@Override
+		public void add(byte[] bytes) {
+			this.chunks.add(bytes);
+			this.size += bytes.length;
+		}
+
+		@Override
+		public void add(byte b) {
+			this.chunks.add(b);
+			this.size++;
+		}
+
+		public byte[] toByteArray() {
+			byte[] result = new byte[this.size];
+			int position = 0;
+			for (Object chunk : this.chunks) {
+				if (chunk instanceof byte[]) {
+					byte[] bytes = (byte[]) chunk;
+					System.arraycopy(bytes, 0, result, position, bytes.length);
+					position += bytes.length;
+				}
+				else {
+					result[position++] = (Byte) chunk;
+				}
+			}
+			return result;
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.messaging.simp.stomp;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import io.netty.buffer.ByteBuf;
+
 import org.springframework.messaging.Message;
 import org.springframework.messaging.tcp.reactor.AbstractNioBufferReactorNettyCodec;
 
@@ -53,6 +55,30 @@ public class StompReactorNettyCodec extends AbstractNioBufferReactorNettyCodec<b
 		return this.decoder.decode(nioBuffer);
 	}
 
+	/**
+	 * Encode directly into the given (typically pooled) output buffer rather
+	 * than into an intermediate {@code byte[]}, unless a custom StompEncoder
+	 * subclass is in use, which is delegated to as usual.
+	 */
+	@Override
+	public void encode(Message<byte[]> message, final ByteBuf outputBuffer) {
+		if (this.encoder.getClass() != StompEncoder.class) {
+			super.encode(message, outputBuffer);
+			return;
+		}
+		this.encoder.encode(message.getHeaders(), message.getPayload(), new StompEncoder.Result() {
+			@Override
+			public void add(byte[] bytes) {
+				outputBuffer.writeBytes(bytes);
+			}
+			@Override
+			public void add(byte b) {
+				outputBuffer.writeByte(b);
+			}
+		});
+	}
+
+	@Override
 	protected ByteBuffer encodeInternal(Message<byte[]> message) {
 		return ByteBuffer.wrap(this.encoder.encode(message));
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,8 +21,10 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.lang.Nullable;
@@ -121,6 +123,9 @@ public class MessageHeaderAccessor {
 			new MimeType("text", "*"), new MimeType("application", "*+json"), new MimeType("application", "*+xml")
 	};
 
+	private static final Set<String> ID_AND_TIMESTAMP =
+			new HashSet<>(Arrays.asList(MessageHeaders.ID, MessageHeaders.TIMESTAMP));
+
 
 	private final MutableMessageHeaders headers;
 
@@ -146,7 +151,9 @@ public class MessageHeaderAccessor {
 	 * @param message a message to copy the headers from, or {@code null} if none
 	 */
 	public MessageHeaderAccessor(@Nullable Message<?> message) {
-		this.headers = new MutableMessageHeaders(message != null ? message.getHeaders() : null);
+		MessageHeaders headers = (message != null ? message.getHeaders() : null);
+		this.headers = (headers != null && isImmutable(headers) ?
+				new MutableMessageHeaders(headers) : new MutableMessageHeaders((Map<String, Object>) headers));
 	}
 
 
@@ -563,6 +570,17 @@ public class MessageHeaderAccessor {
 
 	// Static factory methods
 
+	/**
+	 * Whether the given headers are guaranteed not to change anymore, in which
+	 * case they can be shared by copies rather than copied upfront.
+	 */
+	private static boolean isImmutable(MessageHeaders headers) {
+		if (headers instanceof MutableMessageHeaders) {
+			return !((MutableMessageHeaders) headers).isMutable();
+		}
+		return (headers.getClass() == MessageHeaders.class);
+	}
+
 	/**
 	 * Return the original {@code MessageHeaderAccessor} used to create the headers
 	 * of the given {@code Message}, or {@code null} if that's not available or if
@@ -631,6 +649,13 @@ public class MessageHeaderAccessor {
 			super(headers, MessageHeaders.ID_VALUE_NONE, -1L);
 		}
 
+		/**
+		 * Copy-on-write variant for immutable original headers.
+		 */
+		public MutableMessageHeaders(MessageHeaders original) {
+			super(original, ID_AND_TIMESTAMP);
+		}
+
 		@Override
 		public Map<String, Object> getRawHeaders() {
 			Assert.state(this.mutable, "Already immutable");
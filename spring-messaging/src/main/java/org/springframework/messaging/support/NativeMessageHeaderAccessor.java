@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -52,6 +52,15 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 	public static final String NATIVE_HEADERS = "nativeHeaders";
 
 
+	/**
+	 * The unmodifiable native headers of the message this accessor was created
+	 * from, to be copied before the first modification. Replacing the native
+	 * headers through {@link #setHeader} ends the sharing as well.
+	 */
+	@Nullable
+	private Map<String, List<String>> sharedNativeHeaders;
+
+
 	/**
 	 * A protected constructor to create new headers.
 	 */
@@ -78,9 +87,16 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 			@SuppressWarnings("unchecked")
 			Map<String, List<String>> map = (Map<String, List<String>>) getHeader(NATIVE_HEADERS);
 			if (map != null) {
-				// Force removal since setHeader checks for equality
-				removeHeader(NATIVE_HEADERS);
-				setHeader(NATIVE_HEADERS, new LinkedMultiValueMap<>(map));
+				NativeMessageHeaderAccessor original = getAccessor(message, NativeMessageHeaderAccessor.class);
+				if (original != null && !original.isMutable()) {
+					// Unmodifiable already: copy on first write only
+					this.sharedNativeHeaders = map;
+				}
+				else {
+					// Force removal since setHeader checks for equality
+					removeHeader(NATIVE_HEADERS);
+					setHeader(NATIVE_HEADERS, new LinkedMultiValueMap<>(map));
+				}
 			}
 		}
 	}
@@ -99,11 +115,28 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		return (map != null ? new LinkedMultiValueMap<>(map) : Collections.emptyMap());
 	}
 
+	/**
+	 * Return the given native headers ready for modification, replacing them
+	 * with a copy of their own first if they are still shared.
+	 */
+	private Map<String, List<String>> prepareForUpdate(Map<String, List<String>> nativeHeaders) {
+		if (nativeHeaders != this.sharedNativeHeaders) {
+			return nativeHeaders;
+		}
+		LinkedMultiValueMap<String, String> copy = new LinkedMultiValueMap<>(nativeHeaders.size() + 4);
+		nativeHeaders.forEach((name, values) -> copy.put(name, new LinkedList<>(values)));
+		// Force removal since setHeader checks for equality
+		removeHeader(NATIVE_HEADERS);
+		setHeader(NATIVE_HEADERS, copy);
+		this.sharedNativeHeaders = null;
+		return copy;
+	}
+
 	@Override
 	public void setImmutable() {
 		if (isMutable()) {
 			Map<String, List<String>> map = getNativeHeaders();
-			if (map != null) {
+			if (map != null && map != this.sharedNativeHeaders) {
 				// Force removal since setHeader checks for equality
 				removeHeader(NATIVE_HEADERS);
 				setHeader(NATIVE_HEADERS, Collections.unmodifiableMap(map));
@@ -155,7 +188,7 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		if (value == null) {
 			if (map != null && map.get(name) != null) {
 				setModified(true);
-				map.remove(name);
+				prepareForUpdate(map).remove(name);
 			}
 			return;
 		}
@@ -167,7 +200,9 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 		values.add(value);
 		if (!ObjectUtils.nullSafeEquals(values, getHeader(name))) {
 			setModified(true);
-			map.put(name, values);
+			if (!values.equals(map.get(name))) {
+				prepareForUpdate(map).put(name, values);
+			}
 		}
 	}
 
@@ -184,6 +219,9 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 			nativeHeaders = new LinkedMultiValueMap<>(4);
 			setHeader(NATIVE_HEADERS, nativeHeaders);
 		}
+		else {
+			nativeHeaders = prepareForUpdate(nativeHeaders);
+		}
 		List<String> values = nativeHeaders.get(name);
 		if (values == null) {
 			values = new LinkedList<>();
@@ -205,10 +243,10 @@ public class NativeMessageHeaderAccessor extends MessageHeaderAccessor {
 	public List<String> removeNativeHeader(String name) {
 		Assert.state(isMutable(), "Already immutable");
 		Map<String, List<String>> nativeHeaders = getNativeHeaders();
-		if (nativeHeaders == null) {
+		if (nativeHeaders == null || !nativeHeaders.containsKey(name)) {
 			return null;
 		}
-		return nativeHeaders.remove(name);
+		return prepareForUpdate(nativeHeaders).remove(name);
 	}
 
 	@SuppressWarnings("unchecked")
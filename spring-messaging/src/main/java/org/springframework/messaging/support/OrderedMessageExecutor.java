@@ -0,0 +1,423 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.support;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link Executor} decorator for an {@link ExecutorSubscribableChannel} that
+ * processes messages with the same value for a given header, e.g. the session
+ * id, one at a time and in the order they were sent, while messages with
+ * different values are processed in parallel.
+ *
+ * <p>Header values are hashed into a fixed number of serial lanes. A lane with
+ * pending messages occupies at most one thread of the target executor at a
+ * time, and gives it up after a batch of messages so that other lanes get
+ * their turn. Messages without the header are not ordered and handed to the
+ * target executor directly, as are tasks that do not carry a message.
+ *
+ * <p>Each lane holds at most {@link #setLaneCapacity laneCapacity} pending
+ * tasks. When a lane is full the sending thread waits for space, which slows
+ * down the producer, e.g. the reading of further messages from a WebSocket
+ * session, and eventually fails with a {@link TaskRejectedException} if a
+ * {@link #setSendTimeout send timeout} is configured.
+ *
+ * <p>If the target executor rejects the scheduling of a lane, the sender's
+ * task fails with the executor's exception, and all other pending tasks of
+ * that lane are discarded as rejected, releasing senders waiting for space.
+ *
+ * @since 5.0.5
+ * @see ExecutorSubscribableChannel
+ * @see MessageHandlingRunnable
+ */
+public class OrderedMessageExecutor implements Executor {
+
+	private static final int DRAIN_BATCH_SIZE = 64;
+
+	private static final Log logger = LogFactory.getLog(OrderedMessageExecutor.class);
+
+	private static final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+
+
+	private final Executor targetExecutor;
+
+	private final String headerName;
+
+	private final Lane[] lanes;
+
+	private int laneCapacity = Integer.MAX_VALUE;
+
+	private long sendTimeout = -1;
+
+
+	/**
+	 * Create an instance with as many lanes as twice the number of available
+	 * processors.
+	 * @param targetExecutor the executor to process lanes with
+	 * @param headerName the header whose value determines the order,
+	 * e.g. {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#SESSION_ID_HEADER}
+	 */
+	public OrderedMessageExecutor(Executor targetExecutor, String headerName) {
+		this(targetExecutor, headerName, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Create an instance with the given number of lanes.
+	 * @param targetExecutor the executor to process lanes with
+	 * @param headerName the header whose value determines the order
+	 * @param laneCount the number of serial lanes, i.e. the maximum number of
+	 * messages processed in parallel
+	 */
+	public OrderedMessageExecutor(Executor targetExecutor, String headerName, int laneCount) {
+		Assert.notNull(targetExecutor, "Executor must not be null");
+		Assert.hasText(headerName, "Header name must not be empty");
+		Assert.isTrue(laneCount > 0, "Lane count must be greater than 0");
+		this.targetExecutor = targetExecutor;
+		this.headerName = headerName;
+		this.lanes = new Lane[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			this.lanes[i] = new Lane();
+		}
+	}
+
+
+	/**
+	 * Return the executor lanes are processed with.
+	 */
+	public Executor getTargetExecutor() {
+		return this.targetExecutor;
+	}
+
+	/**
+	 * Return the name of the header whose value determines the order.
+	 */
+	public String getHeaderName() {
+		return this.headerName;
+	}
+
+	/**
+	 * Set the maximum number of pending tasks per lane.
+	 * <p>By default lanes are unbounded.
+	 */
+	public void setLaneCapacity(int laneCapacity) {
+		Assert.isTrue(laneCapacity > 0, "Lane capacity must be greater than 0");
+		this.laneCapacity = laneCapacity;
+	}
+
+	/**
+	 * Return the configured maximum number of pending tasks per lane.
+	 */
+	public int getLaneCapacity() {
+		return this.laneCapacity;
+	}
+
+	/**
+	 * Set how long to wait, in milliseconds, for space in a full lane before
+	 * rejecting the task. A value of 0 rejects right away.
+	 * <p>By default this is set to -1, i.e. to wait for as long as it takes.
+	 */
+	public void setSendTimeout(long sendTimeout) {
+		this.sendTimeout = sendTimeout;
+	}
+
+	/**
+	 * Return the configured send timeout in milliseconds.
+	 */
+	public long getSendTimeout() {
+		return this.sendTimeout;
+	}
+
+
+	@Override
+	public void execute(Runnable task) {
+		Object key = null;
+		if (task instanceof MessageHandlingRunnable) {
+			Message<?> message = ((MessageHandlingRunnable) task).getMessage();
+			key = message.getHeaders().get(this.headerName);
+		}
+		if (key == null) {
+			this.targetExecutor.execute(task);
+			return;
+		}
+		int hash = key.hashCode();
+		this.lanes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % this.lanes.length].add(task);
+	}
+
+
+	// Lane metrics
+
+	/**
+	 * Return the number of serial lanes.
+	 */
+	public int getLaneCount() {
+		return this.lanes.length;
+	}
+
+	/**
+	 * Return the number of tasks currently pending in the given lane.
+	 */
+	public int getQueueSize(int lane) {
+		return this.lanes[lane].getQueueSize();
+	}
+
+	/**
+	 * Return the largest number of tasks that have ever been pending in the
+	 * given lane at the same time.
+	 */
+	public int getLargestQueueSize(int lane) {
+		return this.lanes[lane].largestQueueSize;
+	}
+
+	/**
+	 * Return the number of tasks the given lane has completed.
+	 */
+	public long getCompletedTaskCount(int lane) {
+		return this.lanes[lane].completedTaskCount.get();
+	}
+
+	/**
+	 * Return how often senders had to wait for space in the given lane.
+	 */
+	public long getBlockedSendCount(int lane) {
+		return this.lanes[lane].blockedSendCount;
+	}
+
+	/**
+	 * Return the number of tasks the given lane rejected for lack of space.
+	 */
+	public long getRejectedTaskCount(int lane) {
+		return this.lanes[lane].rejectedTaskCount;
+	}
+
+	/**
+	 * Return a summary of the lane metrics: pending tasks in total and in the
+	 * fullest lane, and totals of completed, blocked and rejected sends.
+	 */
+	public String getStatsInfo() {
+		int queued = 0;
+		int maxQueued = 0;
+		long completed = 0;
+		long blocked = 0;
+		long rejected = 0;
+		for (Lane lane : this.lanes) {
+			int size = lane.getQueueSize();
+			queued += size;
+			maxQueued = Math.max(maxQueued, size);
+			completed += lane.completedTaskCount.get();
+			blocked += lane.blockedSendCount;
+			rejected += lane.rejectedTaskCount;
+		}
+		return "lanes = " + this.lanes.length + ", queued tasks = " + queued +
+				" (fullest lane " + maxQueued + "), completed tasks = " + completed +
+				", blocked sends = " + blocked + ", rejected tasks = " + rejected;
+	}
+
+	@Override
+	public String toString() {
+		return "OrderedMessageExecutor[header=" + this.headerName + ", " + getStatsInfo() + "]";
+	}
+
+
+	/**
+	 * A serial queue of tasks, drained by at most one thread at a time.
+	 */
+	private class Lane implements Runnable {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final Condition notFull = this.lock.newCondition();
+
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		private final AtomicLong completedTaskCount = new AtomicLong();
+
+		private boolean scheduled;
+
+		private volatile int largestQueueSize;
+
+		private volatile long blockedSendCount;
+
+		private volatile long rejectedTaskCount;
+
+		public void add(Runnable task) {
+			boolean schedule = false;
+			this.lock.lock();
+			try {
+				// A lane's own thread sending more messages must never wait for itself
+				if (this.tasks.size() >= laneCapacity && currentLane.get() != this) {
+					awaitSpace();
+				}
+				this.tasks.add(task);
+				if (this.tasks.size() > this.largestQueueSize) {
+					this.largestQueueSize = this.tasks.size();
+				}
+				if (!this.scheduled) {
+					this.scheduled = true;
+					schedule = true;
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+			if (schedule) {
+				try {
+					targetExecutor.execute(this);
+				}
+				catch (RuntimeException ex) {
+					rejectAll(task);
+					throw ex;
+				}
+			}
+		}
+
+		/**
+		 * Discard all pending tasks after the lane could not be scheduled, since
+		 * no thread would process tasks that other senders queued meanwhile.
+		 * @param task the task of the current sender, failing with the exception
+		 */
+		private void rejectAll(Runnable task) {
+			int discarded;
+			this.lock.lock();
+			try {
+				this.tasks.remove(task);
+				discarded = this.tasks.size();
+				this.tasks.clear();
+				this.rejectedTaskCount += discarded + 1;
+				this.scheduled = false;
+				this.notFull.signalAll();
+			}
+			finally {
+				this.lock.unlock();
+			}
+			if (discarded > 0 && logger.isWarnEnabled()) {
+				logger.warn("Discarded " + discarded + " pending ordered tasks: target executor rejected the lane");
+			}
+		}
+
+		private void awaitSpace() {
+			this.blockedSendCount++;
+			long nanos = TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+			try {
+				while (this.tasks.size() >= laneCapacity) {
+					if (sendTimeout < 0) {
+						this.notFull.await();
+					}
+					else if (nanos > 0) {
+						nanos = this.notFull.awaitNanos(nanos);
+					}
+					else {
+						this.rejectedTaskCount++;
+						throw new TaskRejectedException("Lane capacity of " + laneCapacity + " exceeded");
+					}
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				this.rejectedTaskCount++;
+				throw new TaskRejectedException("Interrupted while waiting for lane capacity", ex);
+			}
+		}
+
+		@Override
+		public void run() {
+			currentLane.set(this);
+			try {
+				while (drainBatch()) {
+					// Give up the thread, letting other lanes waiting for it go first
+					try {
+						targetExecutor.execute(this);
+						return;
+					}
+					catch (RuntimeException ex) {
+						// Target executor saturated: keep draining on the current thread
+					}
+				}
+			}
+			finally {
+				currentLane.remove();
+			}
+		}
+
+		/**
+		 * Process up to a batch of pending tasks.
+		 * @return {@code true} if the lane may have further tasks,
+		 * {@code false} if it ran empty and is no longer scheduled
+		 */
+		private boolean drainBatch() {
+			for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+				Runnable task = poll();
+				if (task == null) {
+					return false;
+				}
+				try {
+					task.run();
+				}
+				catch (Throwable ex) {
+					logger.error("Unexpected error while processing ordered task: " + task, ex);
+				}
+				finally {
+					this.completedTaskCount.incrementAndGet();
+				}
+			}
+			return true;
+		}
+
+		@Nullable
+		private Runnable poll() {
+			this.lock.lock();
+			try {
+				Runnable task = this.tasks.poll();
+				if (task == null) {
+					this.scheduled = false;
+				}
+				else {
+					this.notFull.signal();
+				}
+				return task;
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public int getQueueSize() {
+			this.lock.lock();
+			try {
+				return this.tasks.size();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+}
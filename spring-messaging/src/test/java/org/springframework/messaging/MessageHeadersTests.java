@@ -183,6 +183,29 @@ public class MessageHeadersTests {
 		assertSame(address, input.get("address"));
 	}
 
+	@Test
+	public void removeThroughViewsOfLayeredHeaders() {
+		Map<String, Object> parent = new HashMap<>();
+		parent.put("a", "1");
+		parent.put("b", "2");
+		parent.put("c", "3");
+		Map<String, Object> parentCopy = new HashMap<>(parent);
+		LayeredHeaderMap headers = new LayeredHeaderMap(parent, Collections.emptySet());
+		headers.put("b", "22");
+		headers.put("d", "4");
+		headers.put("e", "5");
+
+		assertTrue(headers.keySet().remove("a"));
+		assertTrue(headers.entrySet().removeIf(entry -> entry.getKey().equals("d") || entry.getKey().equals("c")));
+		assertTrue(headers.values().remove("22"));
+
+		Map<String, Object> expected = Collections.singletonMap("e", "5");
+		assertEquals(expected, headers);
+		assertEquals(1, headers.size());
+		assertEquals(expected, new HashMap<>(headers));
+		assertEquals(parentCopy, parent);
+	}
+
 	@Test
 	public void subclassWithCustomIdAndNoTimestamp() {
 		final AtomicLong id = new AtomicLong();
@@ -16,14 +16,23 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
@@ -32,6 +41,7 @@ import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test fixture for
@@ -414,6 +424,121 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals(2, this.registry.findSubscriptions(createMessage("/bar")).size());
 	}
 
+	@Test
+	public void cacheEvictionOrderUnaffectedByDroppedEntries() throws Exception {
+		this.registry.setCacheLimit(2);
+		for (int i = 0; i < 100; i++) {
+			this.registry.registerSubscription(subscribeMessage("sess1", "1", "/churn"));
+			this.registry.findSubscriptions(createMessage("/churn"));
+			this.registry.unregisterSubscription(unsubscribeMessage("sess1", "1"));
+		}
+		assertEquals(0, getCachedDestinations().size());
+
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/churn"));
+		this.registry.findSubscriptions(createMessage("/churn"));
+		this.registry.unregisterAllSubscriptions("sess1");
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "2", "/churn"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "3", "/bar"));
+		this.registry.findSubscriptions(createMessage("/foo"));
+		this.registry.findSubscriptions(createMessage("/churn"));
+		this.registry.findSubscriptions(createMessage("/bar"));
+
+		// The eldest live destination gets evicted, not the re-cached one
+		assertEquals(Arrays.asList("/churn", "/bar"), new ArrayList<>(getCachedDestinations()));
+	}
+
+	@Test
+	public void concurrentSubscriptionsVisibleAfterConcurrentLookups() throws Exception {
+		int sessionCount = 8;
+		int subscriptionsPerSession = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(sessionCount + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			for (int i = 0; i < sessionCount; i++) {
+				String sessionId = "sess" + i;
+				executor.execute(() -> {
+					awaitQuietly(start);
+					for (int j = 0; j < subscriptionsPerSession; j++) {
+						this.registry.registerSubscription(subscribeMessage(sessionId, "subs" + j, "/topic/" + (j % 4)));
+					}
+				});
+			}
+			executor.execute(() -> {
+				awaitQuietly(start);
+				for (int j = 0; j < 2000; j++) {
+					this.registry.findSubscriptions(createMessage("/topic/" + (j % 4)));
+				}
+			});
+			start.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		for (int i = 0; i < 4; i++) {
+			MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/" + i));
+			assertEquals(sessionCount, actual.size());
+			for (List<String> subscriptions : actual.values()) {
+				assertEquals(subscriptionsPerSession / 4, subscriptions.size());
+			}
+		}
+	}
+
+	@Test
+	public void subscriptionSurvivesConcurrentUnsubscribeFromSameDestination() throws Exception {
+		int destinationCount = 2000;
+		for (int i = 0; i < destinationCount; i++) {
+			this.registry.registerSubscription(subscribeMessage("sess01", "old" + i, "/race/" + i));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		try {
+			Future<?> unsubscribing = executor.submit(() -> {
+				for (int i = 0; i < destinationCount; i++) {
+					barrier.await(10, TimeUnit.SECONDS);
+					this.registry.unregisterSubscription(unsubscribeMessage("sess01", "old" + i));
+				}
+				return null;
+			});
+			Future<?> subscribing = executor.submit(() -> {
+				for (int i = 0; i < destinationCount; i++) {
+					barrier.await(10, TimeUnit.SECONDS);
+					this.registry.registerSubscription(subscribeMessage("sess01", "new" + i, "/race/" + i));
+				}
+				return null;
+			});
+			unsubscribing.get(30, TimeUnit.SECONDS);
+			subscribing.get(30, TimeUnit.SECONDS);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		for (int i = 0; i < destinationCount; i++) {
+			MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/race/" + i));
+			assertEquals(Collections.singletonList("new" + i), actual.get("sess01"));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<String> getCachedDestinations() {
+		return (Collection<String>) new DirectFieldAccessor(
+				new DirectFieldAccessor(this.registry).getPropertyValue("destinationCache"))
+				.getPropertyValue("cachedDestinations");
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	private Message<?> createMessage(String destination) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
 		accessor.setDestination(destination);
@@ -67,6 +67,7 @@ import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.ChannelInterceptorAdapter;
 import org.springframework.messaging.support.ExecutorSubscribableChannel;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.OrderedMessageExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.AntPathMatcher;
@@ -131,6 +132,21 @@ public class MessageBrokerConfigurationTests {
 		assertEquals(13, taskExecutor.getKeepAliveSeconds());
 	}
 
+	@Test
+	public void clientInboundChannelWithOrderedLanes() {
+		ApplicationContext context = loadConfig(OrderedInboundConfig.class);
+
+		ExecutorSubscribableChannel channel = context.getBean(
+				"clientInboundChannel", ExecutorSubscribableChannel.class);
+
+		OrderedMessageExecutor executor = (OrderedMessageExecutor) channel.getExecutor();
+		assertNotNull(executor);
+		assertEquals(SimpMessageHeaderAccessor.SESSION_ID_HEADER, executor.getHeaderName());
+		assertEquals(3, executor.getLaneCount());
+		assertEquals(100, executor.getLaneCapacity());
+		assertSame(context.getBean("clientInboundChannelExecutor"), executor.getTargetExecutor());
+	}
+
 	@Test
 	public void clientOutboundChannelUsedByAnnotatedMethod() {
 		ApplicationContext context = loadConfig(SimpleBrokerConfig.class);
@@ -604,6 +620,16 @@ public class MessageBrokerConfigurationTests {
 	}
 
 
+	@Configuration
+	static class OrderedInboundConfig extends BaseTestMessageBrokerConfig {
+
+		@Override
+		protected void configureClientInboundChannel(ChannelRegistration registration) {
+			registration.preserveOrderBy(SimpMessageHeaderAccessor.SESSION_ID_HEADER, 3, 100);
+		}
+	}
+
+
 	@Configuration
 	static class CustomConfig extends BaseTestMessageBrokerConfig {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.messaging.simp.stomp;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
@@ -28,6 +29,7 @@ import org.springframework.util.InvalidMimeTypeException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * Test fixture for {@link StompDecoder}.
@@ -248,6 +250,47 @@ public class StompDecoderTests {
 		assertEquals(SimpMessageType.HEARTBEAT, StompHeaderAccessor.wrap(messages.get(0)).getMessageType());
 	}
 
+	@Test
+	public void decodeFrameFromDirectBuffer() {
+		byte[] bytes = "SEND\ndestination:/queue/a\na:alpha\\cbravo\n\nMessage body\0".getBytes();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+
+		Message<byte[]> frame = decode(buffer);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+
+		assertEquals(StompCommand.SEND, headers.getCommand());
+		assertEquals("/queue/a", headers.getDestination());
+		assertEquals("alpha:bravo", headers.getFirstNativeHeader("a"));
+		assertEquals("Message body", new String(frame.getPayload()));
+		assertEquals(bytes.length, buffer.position());
+	}
+
+	@Test
+	public void decodeFrameFromSlicedBuffer() {
+		byte[] bytes = "ignored\nSEND\ncontent-length:4\n\nbody\0".getBytes();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 8, bytes.length - 8).slice();
+
+		Message<byte[]> frame = decode(buffer);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+
+		assertEquals(StompCommand.SEND, headers.getCommand());
+		assertEquals(Integer.valueOf(4), headers.getContentLength());
+		assertEquals("body", new String(frame.getPayload()));
+	}
+
+	@Test
+	public void decodeFrameWithWellKnownHeaderNamesShared() {
+		Message<byte[]> frame = decode("SUBSCRIBE\nid:1\ndestination:/topic/a\ncustom:value\n\n\0");
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+
+		Iterator<String> names = headers.toNativeHeaderMap().keySet().iterator();
+		assertSame(StompHeaderAccessor.STOMP_ID_HEADER, names.next());
+		assertSame(StompHeaderAccessor.STOMP_DESTINATION_HEADER, names.next());
+		assertEquals("custom", names.next());
+	}
+
 	private void assertIncompleteDecode(String partialFrame) {
 		ByteBuffer buffer = ByteBuffer.wrap(partialFrame.getBytes());
 		assertNull(decode(buffer));
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,15 @@
 
 package org.springframework.messaging.simp.stomp;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Test;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -88,4 +91,38 @@ public class StompEncoderTests {
 				new String(encoder.encode(frame)));
 	}
 
+	@Test
+	public void encodeFrameIntoByteBuf() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.addNativeHeader("a", "alpha");
+		Message<byte[]> frame = MessageBuilder.createMessage(
+				"Message body".getBytes(), headers.getMessageHeaders());
+
+		ByteBuf buffer = Unpooled.buffer();
+		new StompReactorNettyCodec().encode(frame, buffer);
+		byte[] bytes = new byte[buffer.readableBytes()];
+		buffer.readBytes(bytes);
+
+		assertArrayEquals(encoder.encode(frame), bytes);
+	}
+
+	@Test
+	public void encodeFrameIntoByteBufWithCustomEncoder() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+		Message<byte[]> frame = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+		StompEncoder customEncoder = new StompEncoder() {
+			@Override
+			public byte[] encode(Message<byte[]> message) {
+				return "CUSTOM".getBytes();
+			}
+		};
+
+		ByteBuf buffer = Unpooled.buffer();
+		new StompReactorNettyCodec(new StompDecoder(), customEncoder).encode(frame, buffer);
+		byte[] bytes = new byte[buffer.readableBytes()];
+		buffer.readBytes(bytes);
+
+		assertEquals("CUSTOM", new String(bytes));
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,11 @@
 package org.springframework.messaging.support;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -26,6 +29,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.util.MimeTypeUtils;
@@ -296,6 +300,23 @@ public class MessageHeaderAccessorTests {
 	}
 
 
+	@Test
+	public void idGeneratorFast() {
+		IdTimestampMessageHeaderInitializer initializer = new IdTimestampMessageHeaderInitializer();
+		initializer.setFastIdGeneration();
+		MessageHeaderAccessor accessor1 = new MessageHeaderAccessor();
+		initializer.initHeaders(accessor1);
+		MessageHeaderAccessor accessor2 = new MessageHeaderAccessor();
+		initializer.initHeaders(accessor2);
+
+		UUID id1 = accessor1.getMessageHeaders().getId();
+		UUID id2 = accessor2.getMessageHeaders().getId();
+		assertNotNull(id1);
+		assertNotNull(id2);
+		assertNotEquals(id1, id2);
+		assertEquals(id1.getMostSignificantBits(), id2.getMostSignificantBits());
+	}
+
 	@Test
 	public void idTimestampWithMutableHeaders() {
 		MessageHeaderAccessor accessor = new MessageHeaderAccessor();
@@ -404,6 +425,64 @@ public class MessageHeaderAccessorTests {
 	}
 
 
+	@Test
+	public void copyOnWriteLeavesOriginalUnchanged() {
+		Map<String, Object> map = new HashMap<>();
+		map.put("foo", "bar");
+		map.put("bar", "baz");
+		GenericMessage<String> message = new GenericMessage<>("payload", map);
+
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor(message);
+		accessor.setHeader("foo", "BAR");
+		accessor.removeHeader("bar");
+		accessor.setHeader("baz", "qux");
+		MessageHeaders headers = accessor.getMessageHeaders();
+
+		assertEquals(3, headers.size());
+		assertEquals("BAR", headers.get("foo"));
+		assertFalse(headers.containsKey("bar"));
+		assertEquals("qux", headers.get("baz"));
+		assertNotNull(headers.getId());
+		assertNotEquals(message.getHeaders().getId(), headers.getId());
+		assertNull(headers.getTimestamp());
+
+		assertEquals(4, message.getHeaders().size());
+		assertEquals("bar", message.getHeaders().get("foo"));
+		assertEquals("baz", message.getHeaders().get("bar"));
+		assertFalse(message.getHeaders().containsKey("baz"));
+	}
+
+	@Test
+	public void copyOnWriteRepeatedly() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("payload").setHeader("h0", 0).build();
+		List<Object> depths = new ArrayList<>();
+		for (int i = 1; i < 10; i++) {
+			MessageHeaderAccessor accessor = new MessageHeaderAccessor(message);
+			accessor.setHeader("h" + i, i);
+			accessor.setImmutable();
+			message = MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+			depths.add(new DirectFieldAccessor(
+					new DirectFieldAccessor(message.getHeaders()).getPropertyValue("headers")).getPropertyValue("depth"));
+		}
+		// Layers on top of the previous headers, collapsed after four layers
+		assertEquals(Arrays.asList(1, 2, 3, 4, 1, 2, 3, 4, 1), depths);
+
+		MessageHeaders headers = message.getHeaders();
+		Map<String, Object> expected = new HashMap<>(headers);
+		assertEquals(11, expected.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, headers.get("h" + i));
+		}
+		assertEquals(expected, headers);
+		assertEquals(expected.hashCode(), headers.hashCode());
+
+		Message<?> output = (Message<?>) SerializationTestUtils.serializeAndDeserialize(message);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, output.getHeaders().get("h" + i));
+		}
+	}
+
+
 	public static class TestMessageHeaderAccessor extends MessageHeaderAccessor {
 
 		public TestMessageHeaderAccessor() {
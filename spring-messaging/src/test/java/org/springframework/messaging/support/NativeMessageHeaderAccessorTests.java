@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -121,6 +121,56 @@ public class NativeMessageHeaderAccessorTests {
 		assertEquals(Arrays.asList("baz"), actualNativeHeaders.get("bar"));
 	}
 
+	@Test
+	public void createFromImmutableMessageAndModify() {
+		NativeMessageHeaderAccessor originalAccessor = new NativeMessageHeaderAccessor();
+		originalAccessor.addNativeHeader("foo", "bar");
+		originalAccessor.addNativeHeader("bar", "baz");
+		originalAccessor.setImmutable();
+		Message<String> message = MessageBuilder.createMessage("p", originalAccessor.getMessageHeaders());
+
+		NativeMessageHeaderAccessor headerAccessor = new NativeMessageHeaderAccessor(message);
+		assertEquals(Arrays.asList("bar"), headerAccessor.getNativeHeader("foo"));
+		// Shared with the original until the first modification
+		assertSame(originalAccessor.getNativeHeaders(), headerAccessor.getNativeHeaders());
+		headerAccessor.addNativeHeader("foo", "qux");
+		assertNotSame(originalAccessor.getNativeHeaders(), headerAccessor.getNativeHeaders());
+		headerAccessor.setNativeHeader("a", "b");
+		headerAccessor.removeNativeHeader("bar");
+
+		assertEquals(Arrays.asList("bar", "qux"), headerAccessor.getNativeHeader("foo"));
+		assertEquals(Arrays.asList("b"), headerAccessor.getNativeHeader("a"));
+		assertNull(headerAccessor.getNativeHeader("bar"));
+
+		assertEquals(Arrays.asList("bar"), originalAccessor.getNativeHeader("foo"));
+		assertEquals(Arrays.asList("baz"), originalAccessor.getNativeHeader("bar"));
+		assertNull(originalAccessor.getNativeHeader("a"));
+	}
+
+	@Test
+	public void createFromImmutableMessageAndReplaceNativeHeaders() {
+		NativeMessageHeaderAccessor originalAccessor = new NativeMessageHeaderAccessor();
+		originalAccessor.addNativeHeader("foo", "bar");
+		originalAccessor.setImmutable();
+		Message<String> message = MessageBuilder.createMessage("p", originalAccessor.getMessageHeaders());
+
+		NativeMessageHeaderAccessor headerAccessor = new NativeMessageHeaderAccessor(message);
+		MultiValueMap<String, String> nativeHeaders = new LinkedMultiValueMap<>();
+		nativeHeaders.add("a", "b");
+		headerAccessor.setHeader(NativeMessageHeaderAccessor.NATIVE_HEADERS, nativeHeaders);
+		headerAccessor.setImmutable();
+
+		Map<String, List<String>> map = headerAccessor.getNativeHeaders();
+		assertEquals(Collections.singletonList("b"), map.get("a"));
+		try {
+			map.put("c", Collections.singletonList("d"));
+			fail("Native headers of an immutable message should not be modifiable");
+		}
+		catch (UnsupportedOperationException ex) {
+			// expected
+		}
+	}
+
 	@Test
 	public void setNativeHeader() {
 		MultiValueMap<String, String> nativeHeaders = new LinkedMultiValueMap<>();
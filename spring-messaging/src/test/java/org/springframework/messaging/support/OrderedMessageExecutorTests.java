@@ -0,0 +1,328 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link OrderedMessageExecutor}.
+ */
+public class OrderedMessageExecutorTests {
+
+	private static final String HEADER = "sessionId";
+
+	private final ManualExecutor targetExecutor = new ManualExecutor();
+
+	private final List<String> handled = new ArrayList<>();
+
+	private ThreadPoolTaskExecutor threadPool;
+
+
+	@After
+	public void shutdown() {
+		if (this.threadPool != null) {
+			this.threadPool.shutdown();
+		}
+	}
+
+
+	@Test
+	public void sameHeaderValueProcessedInOrder() {
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.targetExecutor, HEADER, 4);
+		ExecutorSubscribableChannel channel = createChannel(executor);
+
+		channel.send(message("s1", "a"));
+		channel.send(message("s1", "b"));
+		channel.send(message("s1", "c"));
+
+		assertEquals("A lane is scheduled once", 1, this.targetExecutor.tasks.size());
+		this.targetExecutor.runAll();
+		assertEquals(Arrays.asList("a", "b", "c"), this.handled);
+		assertEquals(0, this.targetExecutor.tasks.size());
+	}
+
+	@Test
+	public void differentHeaderValuesUseDifferentLanes() {
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.targetExecutor, HEADER, 2);
+		ExecutorSubscribableChannel channel = createChannel(executor);
+
+		// With two lanes, header values 0 and 1 hash to different ones
+		channel.send(message(0, "a"));
+		channel.send(message(1, "b"));
+
+		assertEquals(2, this.targetExecutor.tasks.size());
+		assertEquals(1, executor.getQueueSize(0));
+		assertEquals(1, executor.getQueueSize(1));
+	}
+
+	@Test
+	public void messageWithoutHeaderBypassesLanes() {
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.targetExecutor, HEADER, 1);
+		ExecutorSubscribableChannel channel = createChannel(executor);
+
+		channel.send(MessageBuilder.withPayload("a").build());
+
+		assertEquals(1, this.targetExecutor.tasks.size());
+		assertEquals(0, executor.getQueueSize(0));
+		assertTrue(this.targetExecutor.tasks.get(0) instanceof MessageHandlingRunnable);
+	}
+
+	@Test
+	public void fullLaneRejectsWithoutTimeout() {
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.targetExecutor, HEADER, 1);
+		executor.setLaneCapacity(2);
+		executor.setSendTimeout(0);
+		ExecutorSubscribableChannel channel = createChannel(executor);
+
+		channel.send(message("s1", "a"));
+		channel.send(message("s1", "b"));
+		try {
+			channel.send(message("s1", "c"));
+			fail("Expected exception");
+		}
+		catch (Exception ex) {
+			assertTrue(ex.getCause() instanceof TaskRejectedException);
+		}
+
+		assertEquals(2, executor.getQueueSize(0));
+		assertEquals(2, executor.getLargestQueueSize(0));
+		assertEquals(1, executor.getBlockedSendCount(0));
+		assertEquals(1, executor.getRejectedTaskCount(0));
+
+		this.targetExecutor.runAll();
+		assertEquals(Arrays.asList("a", "b"), this.handled);
+		assertEquals(2, executor.getCompletedTaskCount(0));
+		assertEquals("lanes = 1, queued tasks = 0 (fullest lane 0), completed tasks = 2, " +
+				"blocked sends = 1, rejected tasks = 1", executor.getStatsInfo());
+	}
+
+	@Test
+	public void fullLaneBlocksSenderUntilSpace() throws Exception {
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.targetExecutor, HEADER, 1);
+		executor.setLaneCapacity(1);
+		ExecutorSubscribableChannel channel = createChannel(executor);
+		channel.send(message("s1", "a"));
+
+		CountDownLatch sent = new CountDownLatch(1);
+		Thread sender = new Thread(() -> {
+			channel.send(message("s1", "b"));
+			sent.countDown();
+		});
+		sender.start();
+
+		assertFalse(sent.await(100, TimeUnit.MILLISECONDS));
+		assertEquals(1, executor.getBlockedSendCount(0));
+
+		this.targetExecutor.runAll();
+		assertTrue(sent.await(5, TimeUnit.SECONDS));
+		this.targetExecutor.runAll();
+		assertEquals(Arrays.asList("a", "b"), this.handled);
+	}
+
+	@Test
+	public void sendFromLaneThreadDoesNotBlock() {
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.targetExecutor, HEADER, 1);
+		executor.setLaneCapacity(1);
+		executor.setSendTimeout(0);
+		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+		channel.subscribe(message -> {
+			String payload = (String) message.getPayload();
+			this.handled.add(payload);
+			if (payload.equals("a")) {
+				channel.send(message("s1", "b"));
+				channel.send(message("s1", "c"));
+			}
+		});
+
+		channel.send(message("s1", "a"));
+		this.targetExecutor.runAll();
+
+		assertEquals(Arrays.asList("a", "b", "c"), this.handled);
+		assertEquals(0, executor.getRejectedTaskCount(0));
+	}
+
+	@Test
+	public void orderPreservedPerSessionWithThreadPool() throws Exception {
+		this.threadPool = new ThreadPoolTaskExecutor();
+		this.threadPool.setCorePoolSize(4);
+		this.threadPool.afterPropertiesSet();
+
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(this.threadPool, HEADER, 8);
+		executor.setLaneCapacity(16);
+		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+
+		int sessions = 10;
+		int messagesPerSession = 500;
+		Map<Object, List<Integer>> received = new ConcurrentHashMap<>();
+		CountDownLatch latch = new CountDownLatch(sessions * messagesPerSession);
+		MessageHandler handler = message -> {
+			Object sessionId = message.getHeaders().get(HEADER);
+			received.computeIfAbsent(sessionId, id -> Collections.synchronizedList(new ArrayList<>()))
+					.add((Integer) message.getPayload());
+			latch.countDown();
+		};
+		channel.subscribe(handler);
+
+		for (int i = 0; i < messagesPerSession; i++) {
+			for (int s = 0; s < sessions; s++) {
+				channel.send(MessageBuilder.withPayload(i).setHeader(HEADER, "s" + s).build());
+			}
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		// Tasks count as completed only after the handler returned
+		long deadline = System.currentTimeMillis() + 10000;
+		while (completedTaskCount(executor) < sessions * messagesPerSession &&
+				System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(sessions, received.size());
+		for (List<Integer> payloads : received.values()) {
+			for (int i = 0; i < messagesPerSession; i++) {
+				assertEquals(Integer.valueOf(i), payloads.get(i));
+			}
+		}
+		assertEquals(sessions * messagesPerSession, completedTaskCount(executor));
+	}
+
+	@Test
+	public void rejectedLaneReleasesPendingTasksAndSenders() throws Exception {
+		AtomicBoolean reject = new AtomicBoolean(true);
+		List<Runnable> scheduled = Collections.synchronizedList(new ArrayList<>());
+		OrderedMessageExecutor[] holder = new OrderedMessageExecutor[1];
+		Executor targetExecutor = task -> {
+			if (!reject.getAndSet(false)) {
+				scheduled.add(task);
+				return;
+			}
+			// Another sender queues a task, and a third one waits for space
+			holder[0].execute(new MessageHandlingRunnableStub(message("s1", "b")));
+			Thread sender = new Thread(() -> holder[0].execute(new MessageHandlingRunnableStub(message("s1", "c"))));
+			sender.start();
+			try {
+				while (holder[0].getBlockedSendCount(0) == 0) {
+					Thread.sleep(10);
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			throw new TaskRejectedException("Saturated");
+		};
+		OrderedMessageExecutor executor = new OrderedMessageExecutor(targetExecutor, HEADER, 1);
+		holder[0] = executor;
+		executor.setLaneCapacity(2);
+
+		try {
+			executor.execute(new MessageHandlingRunnableStub(message("s1", "a")));
+			fail("Expected TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+
+		// The waiting sender got released and scheduled the lane again
+		long deadline = System.currentTimeMillis() + 10000;
+		while (scheduled.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, scheduled.size());
+		assertEquals(1, executor.getQueueSize(0));
+		assertEquals(2, executor.getRejectedTaskCount(0));
+	}
+
+	private static long completedTaskCount(OrderedMessageExecutor executor) {
+		long completed = 0;
+		for (int i = 0; i < executor.getLaneCount(); i++) {
+			completed += executor.getCompletedTaskCount(i);
+		}
+		return completed;
+	}
+
+
+	private ExecutorSubscribableChannel createChannel(OrderedMessageExecutor executor) {
+		ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+		channel.subscribe(message -> this.handled.add((String) message.getPayload()));
+		return channel;
+	}
+
+	private static Message<String> message(Object sessionId, String payload) {
+		return MessageBuilder.withPayload(payload).setHeader(HEADER, sessionId).build();
+	}
+
+
+	private static class MessageHandlingRunnableStub implements MessageHandlingRunnable {
+
+		private final Message<?> message;
+
+		MessageHandlingRunnableStub(Message<?> message) {
+			this.message = message;
+		}
+
+		@Override
+		public Message<?> getMessage() {
+			return this.message;
+		}
+
+		@Override
+		public MessageHandler getMessageHandler() {
+			return message -> {};
+		}
+
+		@Override
+		public void run() {
+		}
+	}
+
+
+	private static class ManualExecutor implements Executor {
+
+		private final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void execute(Runnable task) {
+			this.tasks.add(task);
+		}
+
+		public void runAll() {
+			while (!this.tasks.isEmpty()) {
+				this.tasks.remove(0).run();
+			}
+		}
+	}
+
+}
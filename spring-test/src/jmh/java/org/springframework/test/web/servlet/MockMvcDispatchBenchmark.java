@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.test.web.servlet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.*;
+
+/**
+ * Benchmark for a full {@code DispatcherServlet#doDispatch} round trip through
+ * {@link MockMvc}: handler lookup among a configurable number of mappings,
+ * argument resolution and return value handling.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MockMvcDispatchBenchmark {
+
+	@Param({"/static", "/users/42", "/users/42/orders?page=3"})
+	public String path;
+
+	private MockMvc mockMvc;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.mockMvc = standaloneSetup(new BenchmarkController()).build();
+	}
+
+	@Benchmark
+	public MvcResult dispatch() throws Exception {
+		return this.mockMvc.perform(get(this.path)).andReturn();
+	}
+
+
+	@RestController
+	static class BenchmarkController {
+
+		@GetMapping("/static")
+		public String staticPath() {
+			return "static";
+		}
+
+		@GetMapping("/users/{id}")
+		public String user(@PathVariable("id") long id) {
+			return "user " + id;
+		}
+
+		@GetMapping("/users/{id}/orders")
+		public String orders(@PathVariable("id") long id, @RequestParam("page") int page) {
+			return "orders of user " + id + ", page " + page;
+		}
+
+		@GetMapping("/products/{id}")
+		public String product(@PathVariable("id") long id) {
+			return "product " + id;
+		}
+
+		@GetMapping("/products/**")
+		public String products() {
+			return "products";
+		}
+	}
+
+}
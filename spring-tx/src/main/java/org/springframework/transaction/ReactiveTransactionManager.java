@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Central interface in Spring's reactive transaction infrastructure.
+ *
+ * <p>The reactive counterpart of {@link PlatformTransactionManager}: instead of
+ * binding transaction state to the current thread, implementations keep it in
+ * the Reactor {@link reactor.util.context.Context} of the subscribing pipeline,
+ * so that a transaction can span operators running on different threads.
+ *
+ * <p>Applications usually do not call this interface directly but rather go
+ * through {@link org.springframework.transaction.reactive.TransactionalOperator}
+ * or through {@link org.springframework.transaction.interceptor.TransactionInterceptor}
+ * for methods returning a reactive type such as {@code Mono} or {@code Flux}.
+ *
+ * @since 5.0.5
+ * @see org.springframework.transaction.reactive.AbstractReactiveTransactionManager
+ * @see org.springframework.transaction.reactive.TransactionalOperator
+ */
+public interface ReactiveTransactionManager {
+
+	/**
+	 * Emit a currently active reactive transaction or create a new one,
+	 * according to the specified propagation behavior.
+	 * <p>Note that parameters like isolation level or timeout will only be applied
+	 * to new transactions, and thus be ignored when participating in active ones.
+	 * @param definition the TransactionDefinition instance (can be {@code null} for
+	 * defaults), describing propagation behavior, isolation level, timeout etc.
+	 * @return a Mono emitting the transaction object representing the new or current
+	 * transaction, or signalling a {@link TransactionException} in case of lookup,
+	 * creation, or system errors
+	 * @see TransactionDefinition#getPropagationBehavior
+	 */
+	Mono<ReactiveTransaction> getReactiveTransaction(@Nullable TransactionDefinition definition);
+
+	/**
+	 * Commit the given transaction, with regard to its status. If the transaction
+	 * has been marked rollback-only programmatically, perform a rollback.
+	 * <p>If the transaction wasn't a new one, omit the commit for proper
+	 * participation in the surrounding transaction. If a previous transaction
+	 * has been suspended to be able to create a new one, resume the previous
+	 * transaction after committing the new one.
+	 * @param transaction object returned by the {@code getReactiveTransaction} method
+	 * @return a Mono completing once the transaction has been committed, or
+	 * signalling an {@link UnexpectedRollbackException} if a rollback happened instead
+	 * @see ReactiveTransaction#setRollbackOnly
+	 */
+	Mono<Void> commit(ReactiveTransaction transaction);
+
+	/**
+	 * Perform a rollback of the given transaction.
+	 * <p>If the transaction wasn't a new one, just set it rollback-only for proper
+	 * participation in the surrounding transaction. If a previous transaction
+	 * has been suspended to be able to create a new one, resume the previous
+	 * transaction after rolling back the new one.
+	 * @param transaction object returned by the {@code getReactiveTransaction} method
+	 * @return a Mono completing once the transaction has been rolled back
+	 */
+	Mono<Void> rollback(ReactiveTransaction transaction);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,22 +17,33 @@
 package org.springframework.transaction.interceptor;
 
 import java.lang.reflect.Method;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -56,6 +67,16 @@ import org.springframework.util.StringUtils;
  * implementation will perform the actual transaction management, and a
  * {@code TransactionAttributeSource} is used for determining transaction definitions.
  *
+ * <p>Methods returning a reactive type such as {@code Mono} or {@code Flux} are
+ * demarcated through a {@link ReactiveTransactionManager} instead, provided that
+ * Reactor is present and such a transaction manager is available: transaction
+ * state is then kept in the Reactor {@code Context} of the returned publisher.
+ * The transaction is committed on completion and rolled back on error as well as
+ * on cancellation, e.g. when a subscriber takes only the first elements through
+ * {@code take(n)}. Methods returning a {@code CompletableFuture} or another
+ * {@code CompletionStage} are not reactive in that sense: they are invoked
+ * eagerly and keep going through the {@code PlatformTransactionManager}.
+ *
  * <p>A transaction aspect is serializable if its {@code PlatformTransactionManager}
  * and {@code TransactionAttributeSource} are serializable.
  *
@@ -79,6 +100,12 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	private static final Object DEFAULT_TRANSACTION_MANAGER_KEY = new Object();
 
+	/**
+	 * Whether Reactor is present, enabling transactions for reactive return types.
+	 */
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", TransactionAspectSupport.class.getClassLoader());
+
 	/**
 	 * Holder to support the {@code currentTransactionStatus()} method,
 	 * and to support communication between different cooperating advices
@@ -135,6 +162,9 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Nullable
 	private PlatformTransactionManager transactionManager;
 
+	@Nullable
+	private ReactiveTransactionManager reactiveTransactionManager;
+
 	@Nullable
 	private TransactionAttributeSource transactionAttributeSource;
 
@@ -144,6 +174,13 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	private final ConcurrentMap<Object, PlatformTransactionManager> transactionManagerCache =
 			new ConcurrentReferenceHashMap<>(4);
 
+	private final ConcurrentMap<Object, Optional<ReactiveTransactionManager>> reactiveTransactionManagerCache =
+			new ConcurrentReferenceHashMap<>(4);
+
+	@Nullable
+	private final ReactiveAdapterRegistry reactiveAdapterRegistry =
+			(reactorPresent ? ReactiveAdapterRegistry.getSharedInstance() : null);
+
 
 	/**
 	 * Specify the name of the default transaction manager bean.
@@ -179,6 +216,30 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return this.transactionManager;
 	}
 
+	/**
+	 * Specify the <em>default</em> reactive transaction manager to use to drive
+	 * transactions for methods returning a reactive type such as {@code Mono}
+	 * or {@code Flux}.
+	 * <p>If not specified, a {@link ReactiveTransactionManager} bean will be
+	 * looked up in the BeanFactory, by qualifier or transaction manager bean name
+	 * where given. Methods returning a reactive type fall back to the regular
+	 * {@code PlatformTransactionManager} if no reactive transaction manager is found.
+	 * @since 5.0.5
+	 * @see #setTransactionManager
+	 */
+	public void setReactiveTransactionManager(@Nullable ReactiveTransactionManager reactiveTransactionManager) {
+		this.reactiveTransactionManager = reactiveTransactionManager;
+	}
+
+	/**
+	 * Return the default reactive transaction manager, or {@code null} if unknown.
+	 * @since 5.0.5
+	 */
+	@Nullable
+	public ReactiveTransactionManager getReactiveTransactionManager() {
+		return this.reactiveTransactionManager;
+	}
+
 	/**
 	 * Set properties with method names as keys and transaction attribute
 	 * descriptors (parsed via TransactionAttributeEditor) as values:
@@ -251,7 +312,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	@Override
 	public void afterPropertiesSet() {
-		if (getTransactionManager() == null && this.beanFactory == null) {
+		if (getTransactionManager() == null && getReactiveTransactionManager() == null && this.beanFactory == null) {
 			throw new IllegalStateException(
 					"Set the 'transactionManager' property or make sure to run within a BeanFactory " +
 					"containing a PlatformTransactionManager bean!");
@@ -284,6 +345,20 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		 */
 		TransactionAttributeSource tas = getTransactionAttributeSource();
 		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+
+		// Reactive return type: keep the transaction in the Reactor Context of the returned publisher.
+		if (txAttr != null && this.reactiveAdapterRegistry != null) {
+			ReactiveAdapter adapter = this.reactiveAdapterRegistry.getAdapter(method.getReturnType());
+			if (adapter != null && !CompletionStage.class.isAssignableFrom(adapter.getReactiveType())) {
+				ReactiveTransactionManager rtm = determineReactiveTransactionManager(txAttr);
+				if (rtm != null) {
+					TransactionAttribute namedTxAttr =
+							namedTransactionAttribute(txAttr, methodIdentification(method, targetClass, txAttr));
+					return ReactiveTransactionSupport.invokeWithinTransaction(rtm, namedTxAttr, adapter, invocation);
+				}
+			}
+		}
+
 		/**
 		 * 获取事务管理器
 		 */
@@ -393,6 +468,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	protected void clearTransactionManagerCache() {
 		this.transactionManagerCache.clear();
+		this.reactiveTransactionManagerCache.clear();
 		this.beanFactory = null;
 	}
 
@@ -437,6 +513,56 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return txManager;
 	}
 
+	/**
+	 * Determine the specific reactive transaction manager to use for the given
+	 * transaction, if any.
+	 * @return the reactive transaction manager, or {@code null} if none is available,
+	 * in which case the regular {@code PlatformTransactionManager} applies
+	 * @since 5.0.5
+	 */
+	@Nullable
+	protected ReactiveTransactionManager determineReactiveTransactionManager(@Nullable TransactionAttribute txAttr) {
+		// Do not attempt to lookup tx manager if no tx attributes are set
+		if (txAttr == null || this.beanFactory == null) {
+			return getReactiveTransactionManager();
+		}
+
+		String qualifier = txAttr.getQualifier();
+		if (!StringUtils.hasText(qualifier)) {
+			if (getReactiveTransactionManager() != null) {
+				return getReactiveTransactionManager();
+			}
+			qualifier = this.transactionManagerBeanName;
+		}
+		Object cacheKey = (StringUtils.hasText(qualifier) ? qualifier : DEFAULT_TRANSACTION_MANAGER_KEY);
+		Optional<ReactiveTransactionManager> txManager = this.reactiveTransactionManagerCache.get(cacheKey);
+		if (txManager == null) {
+			txManager = Optional.ofNullable(lookupReactiveTransactionManager(this.beanFactory, qualifier));
+			this.reactiveTransactionManagerCache.putIfAbsent(cacheKey, txManager);
+		}
+		return txManager.orElse(null);
+	}
+
+	@Nullable
+	private ReactiveTransactionManager lookupReactiveTransactionManager(
+			BeanFactory beanFactory, @Nullable String qualifier) {
+
+		try {
+			if (StringUtils.hasText(qualifier)) {
+				return BeanFactoryAnnotationUtils.qualifiedBeanOfType(
+						beanFactory, ReactiveTransactionManager.class, qualifier);
+			}
+			return beanFactory.getBean(ReactiveTransactionManager.class);
+		}
+		catch (NoUniqueBeanDefinitionException ex) {
+			throw ex;
+		}
+		catch (NoSuchBeanDefinitionException ex) {
+			// No reactive transaction manager: fall back to the PlatformTransactionManager.
+			return null;
+		}
+	}
+
 	private String methodIdentification(Method method, @Nullable Class<?> targetClass,
 			@Nullable TransactionAttribute txAttr) {
 
@@ -481,18 +607,12 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 * tell if there was a transaction created.
 	 * @see #getTransactionAttributeSource()
 	 */
-	@SuppressWarnings("serial")
 	protected TransactionInfo createTransactionIfNecessary(@Nullable PlatformTransactionManager tm,
 			@Nullable TransactionAttribute txAttr, final String joinpointIdentification) {
 
 		// If no name specified, apply method identification as transaction name.
-		if (txAttr != null && txAttr.getName() == null) {
-			txAttr = new DelegatingTransactionAttribute(txAttr) {
-				@Override
-				public String getName() {
-					return joinpointIdentification;
-				}
-			};
+		if (txAttr != null) {
+			txAttr = namedTransactionAttribute(txAttr, joinpointIdentification);
 		}
 
 		TransactionStatus status = null;
@@ -510,6 +630,25 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return prepareTransactionInfo(tm, txAttr, joinpointIdentification, status);
 	}
 
+	/**
+	 * Apply the given method identification as transaction name,
+	 * unless the TransactionAttribute specifies a name already.
+	 */
+	@SuppressWarnings("serial")
+	private TransactionAttribute namedTransactionAttribute(TransactionAttribute txAttr,
+			final String joinpointIdentification) {
+
+		if (txAttr.getName() != null) {
+			return txAttr;
+		}
+		return new DelegatingTransactionAttribute(txAttr) {
+			@Override
+			public String getName() {
+				return joinpointIdentification;
+			}
+		};
+	}
+
 	/**
 	 * Prepare a TransactionInfo for the given attribute and status object.
 	 * @param txAttr the TransactionAttribute (may be {@code null})
@@ -738,4 +877,35 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 	}
 
+
+	/**
+	 * Delegate for transactions on methods returning a reactive type, in a
+	 * separate class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private static class ReactiveTransactionSupport {
+
+		static Object invokeWithinTransaction(ReactiveTransactionManager rtm, TransactionAttribute txAttr,
+				ReactiveAdapter adapter, InvocationCallback invocation) {
+
+			// The target method is invoked on subscription, within the transaction.
+			TransactionalOperator operator = new TransactionalOperator(rtm, txAttr);
+			if (adapter.isMultiValue()) {
+				return adapter.fromPublisher(operator.transactional(
+						Flux.defer(() -> Flux.from(proceedWithInvocation(adapter, invocation)))));
+			}
+			return adapter.fromPublisher(operator.transactional(
+					Mono.defer(() -> Mono.from(proceedWithInvocation(adapter, invocation)))));
+		}
+
+		private static Publisher<?> proceedWithInvocation(ReactiveAdapter adapter, InvocationCallback invocation) {
+			try {
+				Object retVal = invocation.proceedWithInvocation();
+				return (retVal != null ? adapter.toPublisher(retVal) : Mono.empty());
+			}
+			catch (Throwable ex) {
+				return Mono.error(ex);
+			}
+		}
+	}
+
 }
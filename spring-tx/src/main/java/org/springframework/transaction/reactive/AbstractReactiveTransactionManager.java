@@ -0,0 +1,480 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.InvalidTimeoutException;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSuspensionNotSupportedException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * Abstract base class that implements Spring's standard reactive transaction workflow,
+ * serving as basis for concrete reactive transaction managers. The non-blocking
+ * counterpart of {@link org.springframework.transaction.support.AbstractPlatformTransactionManager}.
+ *
+ * <p>This base class provides the following workflow handling:
+ * <ul>
+ * <li>determines if there is an existing transaction;
+ * <li>applies the appropriate propagation behavior;
+ * <li>suspends and resumes transactions if necessary;
+ * <li>checks the rollback-only flag on commit;
+ * <li>applies the appropriate modification on rollback
+ * (actual rollback or setting rollback-only).
+ * </ul>
+ *
+ * <p>All transaction state lives in the {@link ReactiveTransactionContext} of the
+ * current subscription rather than in thread-bound holders. Nested transactions
+ * based on savepoints are not supported.
+ *
+ * @since 5.0.5
+ * @see #doGetTransaction
+ * @see #doBegin
+ * @see #doCommit
+ * @see #doRollback
+ * @see TransactionalOperator
+ */
+public abstract class AbstractReactiveTransactionManager implements ReactiveTransactionManager {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+
+	//---------------------------------------------------------------------
+	// Implementation of ReactiveTransactionManager
+	//---------------------------------------------------------------------
+
+	/**
+	 * This implementation handles propagation behavior. Delegates to
+	 * {@code doGetTransaction}, {@code isExistingTransaction}
+	 * and {@code doBegin}.
+	 * @see #doGetTransaction
+	 * @see #isExistingTransaction
+	 * @see #doBegin
+	 */
+	@Override
+	public final Mono<ReactiveTransaction> getReactiveTransaction(@Nullable TransactionDefinition definition) {
+		TransactionDefinition def = (definition != null ? definition : new DefaultTransactionDefinition());
+
+		return ReactiveTransactionContext.currentContext().flatMap(context -> {
+			Object transaction = doGetTransaction(context);
+			if (isExistingTransaction(transaction)) {
+				// Existing transaction found -> check propagation behavior to find out how to behave.
+				return handleExistingTransaction(context, def, transaction);
+			}
+
+			// Check definition settings for new transaction.
+			if (def.getTimeout() < TransactionDefinition.TIMEOUT_DEFAULT) {
+				return Mono.error(new InvalidTimeoutException("Invalid transaction timeout", def.getTimeout()));
+			}
+
+			// No existing transaction found -> check propagation behavior to find out how to proceed.
+			int propagation = def.getPropagationBehavior();
+			if (propagation == TransactionDefinition.PROPAGATION_MANDATORY) {
+				return Mono.error(new IllegalTransactionStateException(
+						"No existing transaction found for transaction marked with propagation 'mandatory'"));
+			}
+			else if (propagation == TransactionDefinition.PROPAGATION_REQUIRED ||
+					propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW ||
+					propagation == TransactionDefinition.PROPAGATION_NESTED) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Creating new transaction with name [" + def.getName() + "]: " + def);
+				}
+				return doBegin(context, transaction, def).then(Mono.fromSupplier(() ->
+						newTransaction(context, def, transaction, null)));
+			}
+			else {
+				// Create "empty" transaction: no actual transaction.
+				return Mono.just(new GenericReactiveTransaction(context, null, true, def.isReadOnly(), null));
+			}
+		});
+	}
+
+	/**
+	 * Create a ReactiveTransaction for an existing transaction.
+	 */
+	private Mono<ReactiveTransaction> handleExistingTransaction(
+			ReactiveTransactionContext context, TransactionDefinition definition, Object transaction) {
+
+		int propagation = definition.getPropagationBehavior();
+		if (propagation == TransactionDefinition.PROPAGATION_NEVER) {
+			return Mono.error(new IllegalTransactionStateException(
+					"Existing transaction found for transaction marked with propagation 'never'"));
+		}
+
+		if (propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Suspending current transaction");
+			}
+			return suspend(context, transaction).map(suspendedResources ->
+					new GenericReactiveTransaction(context, null, false, definition.isReadOnly(), suspendedResources));
+		}
+
+		if (propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Suspending current transaction, creating new transaction with name [" +
+						definition.getName() + "]");
+			}
+			return suspend(context, transaction).flatMap(suspendedResources ->
+					doBegin(context, transaction, definition)
+							.then(Mono.fromSupplier(() ->
+									newTransaction(context, definition, transaction, suspendedResources)))
+							.onErrorResume(ex -> resume(context, transaction, suspendedResources)
+									.then(Mono.error(ex))));
+		}
+
+		if (propagation == TransactionDefinition.PROPAGATION_NESTED) {
+			return Mono.error(new NestedTransactionNotSupportedException(
+					"Reactive transaction managers do not support nested transactions"));
+		}
+
+		// Assumably PROPAGATION_SUPPORTS or PROPAGATION_REQUIRED.
+		if (logger.isDebugEnabled()) {
+			logger.debug("Participating in existing transaction");
+		}
+		return Mono.just(new GenericReactiveTransaction(context, transaction, false, definition.isReadOnly(), null));
+	}
+
+	/**
+	 * Expose the characteristics of a newly begun transaction in the given context.
+	 */
+	private ReactiveTransaction newTransaction(ReactiveTransactionContext context, TransactionDefinition definition,
+			Object transaction, @Nullable SuspendedResourcesHolder suspendedResources) {
+
+		context.setActualTransactionActive(true);
+		context.setCurrentTransactionIsolationLevel(
+				definition.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT ?
+						definition.getIsolationLevel() : null);
+		context.setCurrentTransactionReadOnly(definition.isReadOnly());
+		context.setCurrentTransactionName(definition.getName());
+		return new GenericReactiveTransaction(context, transaction, true, definition.isReadOnly(), suspendedResources);
+	}
+
+	/**
+	 * Suspend the given transaction, saving the current transaction characteristics
+	 * alongside the resources returned by {@code doSuspend}.
+	 */
+	private Mono<SuspendedResourcesHolder> suspend(ReactiveTransactionContext context, Object transaction) {
+		return doSuspend(context, transaction).map(suspendedResources -> {
+			SuspendedResourcesHolder holder = new SuspendedResourcesHolder(suspendedResources,
+					context.getCurrentTransactionName(), context.isCurrentTransactionReadOnly(),
+					context.getCurrentTransactionIsolationLevel(), context.isActualTransactionActive());
+			context.clearTransactionState();
+			return holder;
+		});
+	}
+
+	/**
+	 * Resume the given transaction, restoring the transaction characteristics
+	 * before delegating to {@code doResume}.
+	 */
+	private Mono<Void> resume(ReactiveTransactionContext context, @Nullable Object transaction,
+			SuspendedResourcesHolder resourcesHolder) {
+
+		context.setActualTransactionActive(resourcesHolder.wasActive);
+		context.setCurrentTransactionIsolationLevel(resourcesHolder.isolationLevel);
+		context.setCurrentTransactionReadOnly(resourcesHolder.readOnly);
+		context.setCurrentTransactionName(resourcesHolder.name);
+		return doResume(context, transaction, resourcesHolder.suspendedResources);
+	}
+
+	/**
+	 * This implementation of commit handles participating in existing
+	 * transactions and programmatic rollback requests.
+	 * Delegates to {@code isRollbackOnly}, {@code doCommit}
+	 * and {@code rollback}.
+	 * @see ReactiveTransaction#isRollbackOnly()
+	 * @see #doCommit
+	 * @see #rollback
+	 */
+	@Override
+	public final Mono<Void> commit(ReactiveTransaction transaction) {
+		if (transaction.isCompleted()) {
+			return Mono.error(new IllegalTransactionStateException(
+					"Transaction is already completed - do not call commit or rollback more than once per transaction"));
+		}
+
+		GenericReactiveTransaction tx = (GenericReactiveTransaction) transaction;
+		if (tx.isLocalRollbackOnly()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Transactional code has requested rollback");
+			}
+			return processRollback(tx);
+		}
+		if (tx.isGlobalRollbackOnly()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Global transaction is marked as rollback-only but transactional code requested commit");
+			}
+			Mono<Void> rollback = processRollback(tx);
+			return (tx.isNewTransaction() ? rollback.then(Mono.error(new UnexpectedRollbackException(
+					"Transaction rolled back because it has been marked as rollback-only"))) : rollback);
+		}
+
+		Mono<Void> completion = Mono.empty();
+		if (tx.isNewTransaction()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Initiating transaction commit");
+			}
+			completion = doCommit(tx);
+		}
+		return completeAndCleanup(tx, completion);
+	}
+
+	/**
+	 * This implementation of rollback handles participating in existing
+	 * transactions. Delegates to {@code doRollback} and {@code doSetRollbackOnly}.
+	 * @see #doRollback
+	 * @see #doSetRollbackOnly
+	 */
+	@Override
+	public final Mono<Void> rollback(ReactiveTransaction transaction) {
+		if (transaction.isCompleted()) {
+			return Mono.error(new IllegalTransactionStateException(
+					"Transaction is already completed - do not call commit or rollback more than once per transaction"));
+		}
+		return processRollback((GenericReactiveTransaction) transaction);
+	}
+
+	/**
+	 * Process an actual rollback: roll back a new transaction,
+	 * or mark a participating one as rollback-only.
+	 */
+	private Mono<Void> processRollback(GenericReactiveTransaction tx) {
+		Mono<Void> completion = Mono.empty();
+		if (tx.isNewTransaction()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Initiating transaction rollback");
+			}
+			completion = doRollback(tx);
+		}
+		else if (tx.hasTransaction()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Participating transaction failed - marking existing transaction as rollback-only");
+			}
+			completion = doSetRollbackOnly(tx);
+		}
+		return completeAndCleanup(tx, completion);
+	}
+
+	/**
+	 * Run the given completion step and clean up afterwards,
+	 * also in case of the completion step failing.
+	 */
+	private Mono<Void> completeAndCleanup(GenericReactiveTransaction tx, Mono<Void> completion) {
+		return completion
+				.onErrorResume(ex -> cleanupAfterCompletion(tx).then(Mono.error(ex)))
+				.then(Mono.defer(() -> cleanupAfterCompletion(tx)));
+	}
+
+	/**
+	 * Clean up after completion, clearing the transaction characteristics if necessary,
+	 * and invoking doCleanupAfterCompletion.
+	 * @see #doCleanupAfterCompletion
+	 */
+	private Mono<Void> cleanupAfterCompletion(GenericReactiveTransaction tx) {
+		tx.setCompleted();
+		ReactiveTransactionContext context = tx.getContext();
+		Mono<Void> cleanup = Mono.empty();
+		if (tx.isNewTransaction()) {
+			context.clearTransactionState();
+			cleanup = doCleanupAfterCompletion(context, tx.getTransaction());
+		}
+		Object suspendedResources = tx.getSuspendedResources();
+		if (suspendedResources != null) {
+			Object transaction = (tx.hasTransaction() ? tx.getTransaction() : null);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Resuming suspended transaction after completion of inner transaction");
+			}
+			cleanup = cleanup.then(Mono.defer(() ->
+					resume(context, transaction, (SuspendedResourcesHolder) suspendedResources)));
+		}
+		return cleanup;
+	}
+
+
+	//---------------------------------------------------------------------
+	// Template methods to be implemented in subclasses
+	//---------------------------------------------------------------------
+
+	/**
+	 * Return a transaction object for the current transaction state.
+	 * <p>The returned object will usually be specific to the concrete transaction
+	 * manager implementation, carrying corresponding transaction state in a
+	 * modifiable fashion. This object will be passed into the other template
+	 * methods (e.g. doBegin and doCommit), either directly or as part of a
+	 * GenericReactiveTransaction instance.
+	 * <p>The returned object should contain information about any existing
+	 * transaction, that is, a transaction that has already started before the
+	 * current {@code getReactiveTransaction} call on the transaction manager.
+	 * Consequently, a {@code doGetTransaction} implementation will usually
+	 * look for an existing transaction and store corresponding state in the
+	 * returned transaction object.
+	 * @param context the transaction context of the current subscription
+	 * @return the current transaction object
+	 * @see #doBegin
+	 */
+	protected abstract Object doGetTransaction(ReactiveTransactionContext context);
+
+	/**
+	 * Check if the given transaction object indicates an existing transaction
+	 * (that is, a transaction which has already started).
+	 * <p>The result will be evaluated according to the specified propagation
+	 * behavior for the new transaction. The default implementation returns
+	 * {@code false}, assuming that participating in existing transactions is
+	 * generally not supported. Subclasses are of course encouraged to provide
+	 * such support.
+	 * @param transaction transaction object returned by doGetTransaction
+	 * @return if there is an existing transaction
+	 * @see #doGetTransaction
+	 */
+	protected boolean isExistingTransaction(Object transaction) {
+		return false;
+	}
+
+	/**
+	 * Begin a new transaction with semantics according to the given transaction
+	 * definition. Does not have to care about applying the propagation behavior,
+	 * as this has already been handled by this abstract manager.
+	 * @param context the transaction context of the current subscription
+	 * @param transaction transaction object returned by {@code doGetTransaction}
+	 * @param definition a TransactionDefinition instance, describing propagation
+	 * behavior, isolation level, read-only flag, timeout, and transaction name
+	 * @return a Mono completing once the transaction has been started
+	 */
+	protected abstract Mono<Void> doBegin(ReactiveTransactionContext context, Object transaction,
+			TransactionDefinition definition);
+
+	/**
+	 * Suspend the resources of the current transaction.
+	 * Transaction characteristics will already have been saved by this abstract manager.
+	 * <p>The default implementation signals a TransactionSuspensionNotSupportedException,
+	 * assuming that transaction suspension is generally not supported.
+	 * @param context the transaction context of the current subscription
+	 * @param transaction transaction object returned by {@code doGetTransaction}
+	 * @return a Mono emitting an object that holds suspended resources
+	 * (will be kept unexamined for passing it into doResume)
+	 * @see #doResume
+	 */
+	protected Mono<Object> doSuspend(ReactiveTransactionContext context, Object transaction) {
+		return Mono.error(new TransactionSuspensionNotSupportedException(
+				"Transaction manager [" + getClass().getName() + "] does not support transaction suspension"));
+	}
+
+	/**
+	 * Resume the resources of the current transaction.
+	 * Transaction characteristics will be restored by this abstract manager afterwards.
+	 * <p>The default implementation signals a TransactionSuspensionNotSupportedException,
+	 * assuming that transaction suspension is generally not supported.
+	 * @param context the transaction context of the current subscription
+	 * @param transaction transaction object returned by {@code doGetTransaction}
+	 * @param suspendedResources the object that holds suspended resources,
+	 * as returned by doSuspend
+	 * @see #doSuspend
+	 */
+	protected Mono<Void> doResume(ReactiveTransactionContext context, @Nullable Object transaction,
+			Object suspendedResources) {
+
+		return Mono.error(new TransactionSuspensionNotSupportedException(
+				"Transaction manager [" + getClass().getName() + "] does not support transaction suspension"));
+	}
+
+	/**
+	 * Perform an actual commit of the given transaction.
+	 * <p>An implementation does not need to check the "new transaction" flag
+	 * or the rollback-only flag; this will already have been handled before.
+	 * Usually, a straight commit will be performed on the transaction object
+	 * contained in the passed-in transaction.
+	 * @param transaction the transaction representation
+	 * @see GenericReactiveTransaction#getTransaction
+	 */
+	protected abstract Mono<Void> doCommit(GenericReactiveTransaction transaction);
+
+	/**
+	 * Perform an actual rollback of the given transaction.
+	 * <p>An implementation does not need to check the "new transaction" flag;
+	 * this will already have been handled before. Usually, a straight rollback
+	 * will be performed on the transaction object contained in the passed-in transaction.
+	 * @param transaction the transaction representation
+	 * @see GenericReactiveTransaction#getTransaction
+	 */
+	protected abstract Mono<Void> doRollback(GenericReactiveTransaction transaction);
+
+	/**
+	 * Set the given transaction rollback-only. Only called on rollback
+	 * if the current transaction participates in an existing one.
+	 * <p>The default implementation signals an IllegalTransactionStateException,
+	 * assuming that participating in existing transactions is generally not
+	 * supported. Subclasses are of course encouraged to provide such support.
+	 * @param transaction the transaction representation
+	 */
+	protected Mono<Void> doSetRollbackOnly(GenericReactiveTransaction transaction) {
+		return Mono.error(new IllegalTransactionStateException(
+				"Participating in existing transactions is not supported - when 'isExistingTransaction' " +
+				"returns true, appropriate 'doSetRollbackOnly' behavior must be provided"));
+	}
+
+	/**
+	 * Cleanup resources after transaction completion.
+	 * <p>Called after {@code doCommit} and {@code doRollback} execution,
+	 * on any outcome. The default implementation does nothing.
+	 * <p>Should not signal any errors but just issue warnings on errors.
+	 * @param context the transaction context of the current subscription
+	 * @param transaction transaction object returned by {@code doGetTransaction}
+	 */
+	protected Mono<Void> doCleanupAfterCompletion(ReactiveTransactionContext context, Object transaction) {
+		return Mono.empty();
+	}
+
+
+	/**
+	 * Holder for suspended resources, alongside the transaction
+	 * characteristics of the suspended transaction.
+	 */
+	private static final class SuspendedResourcesHolder {
+
+		private final Object suspendedResources;
+
+		@Nullable
+		private final String name;
+
+		private final boolean readOnly;
+
+		@Nullable
+		private final Integer isolationLevel;
+
+		private final boolean wasActive;
+
+		SuspendedResourcesHolder(Object suspendedResources, @Nullable String name, boolean readOnly,
+				@Nullable Integer isolationLevel, boolean wasActive) {
+
+			this.suspendedResources = suspendedResources;
+			this.name = name;
+			this.readOnly = readOnly;
+			this.isolationLevel = isolationLevel;
+			this.wasActive = wasActive;
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.util.Assert;
+
+/**
+ * Default implementation of the {@link ReactiveTransaction} interface, used by
+ * {@link AbstractReactiveTransactionManager}. Based on the concept of an
+ * underlying "transaction object", analogous to
+ * {@link org.springframework.transaction.support.DefaultTransactionStatus}.
+ *
+ * <p>Also keeps a reference to the {@link ReactiveTransactionContext} it has
+ * been created in, so that completion does not depend on being invoked from
+ * within the original subscription (e.g. a rollback triggered by cancellation).
+ *
+ * @since 5.0.5
+ * @see AbstractReactiveTransactionManager
+ */
+public class GenericReactiveTransaction implements ReactiveTransaction {
+
+	private final ReactiveTransactionContext context;
+
+	@Nullable
+	private final Object transaction;
+
+	private final boolean newTransaction;
+
+	private final boolean readOnly;
+
+	@Nullable
+	private final Object suspendedResources;
+
+	private volatile boolean rollbackOnly = false;
+
+	private volatile boolean completed = false;
+
+
+	/**
+	 * Create a new GenericReactiveTransaction instance.
+	 * @param context the transaction context of the current subscription
+	 * @param transaction underlying transaction object that can hold
+	 * state for the internal transaction implementation
+	 * @param newTransaction if the transaction is new,
+	 * else participating in an existing transaction
+	 * @param readOnly whether the transaction is read-only
+	 * @param suspendedResources a holder for resources that have been suspended
+	 * for this transaction, if any
+	 */
+	public GenericReactiveTransaction(ReactiveTransactionContext context, @Nullable Object transaction,
+			boolean newTransaction, boolean readOnly, @Nullable Object suspendedResources) {
+
+		Assert.notNull(context, "ReactiveTransactionContext must not be null");
+		this.context = context;
+		this.transaction = transaction;
+		this.newTransaction = newTransaction;
+		this.readOnly = readOnly;
+		this.suspendedResources = suspendedResources;
+	}
+
+
+	/**
+	 * Return the transaction context that this transaction has been created in.
+	 */
+	public ReactiveTransactionContext getContext() {
+		return this.context;
+	}
+
+	/**
+	 * Return the underlying transaction object.
+	 * @throws IllegalStateException if no transaction is active
+	 */
+	public Object getTransaction() {
+		Assert.state(this.transaction != null, "No transaction active");
+		return this.transaction;
+	}
+
+	/**
+	 * Return whether there is an actual transaction active.
+	 */
+	public boolean hasTransaction() {
+		return (this.transaction != null);
+	}
+
+	@Override
+	public boolean isNewTransaction() {
+		return (hasTransaction() && this.newTransaction);
+	}
+
+	/**
+	 * Return if this transaction is defined as read-only transaction.
+	 */
+	public boolean isReadOnly() {
+		return this.readOnly;
+	}
+
+	/**
+	 * Return the holder for resources that have been suspended for this transaction,
+	 * if any.
+	 */
+	@Nullable
+	public Object getSuspendedResources() {
+		return this.suspendedResources;
+	}
+
+	@Override
+	public void setRollbackOnly() {
+		this.rollbackOnly = true;
+	}
+
+	/**
+	 * Determine the rollback-only flag via checking both the local rollback-only flag
+	 * of this transaction and the global rollback-only flag of the underlying
+	 * transaction, if any.
+	 * @see #isLocalRollbackOnly()
+	 * @see #isGlobalRollbackOnly()
+	 */
+	@Override
+	public boolean isRollbackOnly() {
+		return (isLocalRollbackOnly() || isGlobalRollbackOnly());
+	}
+
+	/**
+	 * Determine the rollback-only flag via checking this transaction only.
+	 */
+	public boolean isLocalRollbackOnly() {
+		return this.rollbackOnly;
+	}
+
+	/**
+	 * Determine the rollback-only flag via checking the underlying transaction
+	 * object, provided that the latter implements the {@link SmartTransactionObject}
+	 * interface.
+	 */
+	public boolean isGlobalRollbackOnly() {
+		return (this.transaction instanceof SmartTransactionObject &&
+				((SmartTransactionObject) this.transaction).isRollbackOnly());
+	}
+
+	/**
+	 * Mark this transaction as completed, that is, committed or rolled back.
+	 */
+	public void setCompleted() {
+		this.completed = true;
+	}
+
+	@Override
+	public boolean isCompleted() {
+		return this.completed;
+	}
+
+}
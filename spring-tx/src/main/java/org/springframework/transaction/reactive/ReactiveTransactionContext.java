@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.util.Assert;
+
+/**
+ * Transaction state of a reactive pipeline: bound resources and the
+ * characteristics of the current transaction. The reactive counterpart of
+ * the thread-bound state in
+ * {@link org.springframework.transaction.support.TransactionSynchronizationManager}.
+ *
+ * <p>An instance is stored in the Reactor {@link Context} under its class as key,
+ * typically by {@link TransactionalOperator}, and is then shared by all
+ * transactional operations of that subscription, independent of the threads
+ * the individual operators happen to run on. Resource-specific transaction
+ * managers use {@link #bindResource}/{@link #getResource} to expose their
+ * transactional resource (e.g. a connection) to data access code.
+ *
+ * @since 5.0.5
+ * @see AbstractReactiveTransactionManager
+ * @see TransactionalOperator
+ */
+public final class ReactiveTransactionContext {
+
+	private final Map<Object, Object> resources = new LinkedHashMap<>();
+
+	@Nullable
+	private String currentTransactionName;
+
+	private boolean currentTransactionReadOnly;
+
+	@Nullable
+	private Integer currentTransactionIsolationLevel;
+
+	private boolean actualTransactionActive;
+
+
+	ReactiveTransactionContext() {
+	}
+
+
+	/**
+	 * Return the transaction context of the current subscription.
+	 * @return a Mono emitting the current context, or signalling a
+	 * {@link NoTransactionException} if no context has been set up
+	 * @see #getOrCreateContext()
+	 */
+	public static Mono<ReactiveTransactionContext> currentContext() {
+		return Mono.subscriberContext().flatMap(context -> {
+			ReactiveTransactionContext transactionContext = context.getOrDefault(ReactiveTransactionContext.class, null);
+			return (transactionContext != null ? Mono.just(transactionContext) :
+					Mono.error(new NoTransactionException("No ReactiveTransactionContext in current Reactor Context")));
+		});
+	}
+
+	/**
+	 * Return a function that adds a new transaction context to a Reactor
+	 * {@link Context} unless one is present already, for use with
+	 * {@code subscriberContext(...)}. Nested transactional operations thereby
+	 * share the context of the outermost one.
+	 */
+	public static Function<Context, Context> getOrCreateContext() {
+		return context -> (context.hasKey(ReactiveTransactionContext.class) ? context :
+				context.put(ReactiveTransactionContext.class, new ReactiveTransactionContext()));
+	}
+
+
+	/**
+	 * Check if there is a resource for the given key bound to this context.
+	 * @param key the key to check (usually the resource factory)
+	 */
+	public boolean hasResource(Object key) {
+		return this.resources.containsKey(key);
+	}
+
+	/**
+	 * Retrieve a resource for the given key that is bound to this context.
+	 * @param key the key to check (usually the resource factory)
+	 * @return a value bound to this context, or {@code null} if none
+	 */
+	@Nullable
+	public Object getResource(Object key) {
+		return this.resources.get(key);
+	}
+
+	/**
+	 * Bind the given resource for the given key to this context.
+	 * @param key the key to bind the value to (usually the resource factory)
+	 * @param value the value to bind (usually the active resource object)
+	 * @throws IllegalStateException if there is already a value bound
+	 */
+	public void bindResource(Object key, Object value) throws IllegalStateException {
+		Assert.notNull(value, "Value must not be null");
+		Object oldValue = this.resources.put(key, value);
+		if (oldValue != null) {
+			throw new IllegalStateException("Already value [" + oldValue + "] for key [" +
+					key + "] bound to " + this);
+		}
+	}
+
+	/**
+	 * Unbind a resource for the given key from this context.
+	 * @param key the key to unbind (usually the resource factory)
+	 * @return the previously bound value
+	 * @throws IllegalStateException if there is no value bound
+	 */
+	public Object unbindResource(Object key) throws IllegalStateException {
+		Object value = this.resources.remove(key);
+		if (value == null) {
+			throw new IllegalStateException("No value for key [" + key + "] bound to " + this);
+		}
+		return value;
+	}
+
+	/**
+	 * Return the name of the current transaction, or {@code null} if none set.
+	 */
+	@Nullable
+	public String getCurrentTransactionName() {
+		return this.currentTransactionName;
+	}
+
+	void setCurrentTransactionName(@Nullable String currentTransactionName) {
+		this.currentTransactionName = currentTransactionName;
+	}
+
+	/**
+	 * Return whether the current transaction is marked as read-only.
+	 */
+	public boolean isCurrentTransactionReadOnly() {
+		return this.currentTransactionReadOnly;
+	}
+
+	void setCurrentTransactionReadOnly(boolean currentTransactionReadOnly) {
+		this.currentTransactionReadOnly = currentTransactionReadOnly;
+	}
+
+	/**
+	 * Return the isolation level for the current transaction, if any.
+	 * @return the currently exposed isolation level, according to the JDBC
+	 * Connection constants, or {@code null} if none
+	 */
+	@Nullable
+	public Integer getCurrentTransactionIsolationLevel() {
+		return this.currentTransactionIsolationLevel;
+	}
+
+	void setCurrentTransactionIsolationLevel(@Nullable Integer currentTransactionIsolationLevel) {
+		this.currentTransactionIsolationLevel = currentTransactionIsolationLevel;
+	}
+
+	/**
+	 * Return whether there currently is an actual transaction active.
+	 */
+	public boolean isActualTransactionActive() {
+		return this.actualTransactionActive;
+	}
+
+	void setActualTransactionActive(boolean actualTransactionActive) {
+		this.actualTransactionActive = actualTransactionActive;
+	}
+
+	/**
+	 * Reset the transaction characteristics, keeping the bound resources.
+	 */
+	void clearTransactionState() {
+		this.currentTransactionName = null;
+		this.currentTransactionReadOnly = false;
+		this.currentTransactionIsolationLevel = null;
+		this.actualTransactionActive = false;
+	}
+
+	@Override
+	public String toString() {
+		return "ReactiveTransactionContext: resources=" + this.resources.keySet() +
+				", name=" + this.currentTransactionName + ", read-only=" + this.currentTransactionReadOnly +
+				", isolation level=" + this.currentTransactionIsolationLevel +
+				", actual transaction active=" + this.actualTransactionActive;
+	}
+
+}
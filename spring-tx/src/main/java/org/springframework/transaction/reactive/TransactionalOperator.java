@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.Assert;
+
+/**
+ * Operator class that simplifies programmatic transaction demarcation of reactive
+ * pipelines. The non-blocking counterpart of
+ * {@link org.springframework.transaction.support.TransactionTemplate}.
+ *
+ * <p>{@link #transactional(Mono)} and {@link #transactional(Flux)} run the given
+ * publisher within a transaction: the transaction is begun on subscription,
+ * committed on completion and rolled back on error or cancellation. Transaction
+ * state is kept in a {@link ReactiveTransactionContext} within the Reactor
+ * {@code Context}, so the given publisher may freely switch threads.
+ *
+ * <p>By default, any error leads to a rollback. If the given definition is a
+ * {@link TransactionAttribute}, its {@code rollbackOn} decision is applied instead,
+ * with a commit for errors that do not require a rollback.
+ *
+ * @since 5.0.5
+ * @see ReactiveTransactionManager
+ * @see AbstractReactiveTransactionManager
+ */
+public class TransactionalOperator {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final ReactiveTransactionManager transactionManager;
+
+	private final TransactionDefinition transactionDefinition;
+
+
+	/**
+	 * Create a new TransactionalOperator for the given transaction manager,
+	 * using default transaction settings.
+	 * @param transactionManager the transaction management strategy to be used
+	 */
+	public TransactionalOperator(ReactiveTransactionManager transactionManager) {
+		this(transactionManager, new DefaultTransactionDefinition());
+	}
+
+	/**
+	 * Create a new TransactionalOperator for the given transaction manager,
+	 * taking its transaction settings from the given transaction definition.
+	 * @param transactionManager the transaction management strategy to be used
+	 * @param transactionDefinition the transaction definition to apply
+	 */
+	public TransactionalOperator(ReactiveTransactionManager transactionManager,
+			TransactionDefinition transactionDefinition) {
+
+		Assert.notNull(transactionManager, "ReactiveTransactionManager must not be null");
+		Assert.notNull(transactionDefinition, "TransactionDefinition must not be null");
+		this.transactionManager = transactionManager;
+		this.transactionDefinition = transactionDefinition;
+	}
+
+
+	/**
+	 * Return the transaction management strategy to be used.
+	 */
+	public ReactiveTransactionManager getTransactionManager() {
+		return this.transactionManager;
+	}
+
+	/**
+	 * Return the transaction definition applied by this operator.
+	 */
+	public TransactionDefinition getTransactionDefinition() {
+		return this.transactionDefinition;
+	}
+
+
+	/**
+	 * Wrap the given Mono in a transaction.
+	 * @param mono the Mono to run transactionally
+	 * @return a Mono emitting the outcome of the given Mono once the
+	 * transaction has been completed
+	 */
+	public <T> Mono<T> transactional(Mono<T> mono) {
+		return this.transactionManager.getReactiveTransaction(this.transactionDefinition)
+				.flatMap(status -> mono
+						.onErrorResume(ex -> completeAfterError(status, ex).then(Mono.<T>error(ex)))
+						.flatMap(value -> this.transactionManager.commit(status).thenReturn(value))
+						.switchIfEmpty(Mono.defer(() -> this.transactionManager.commit(status).then(Mono.<T>empty())))
+						.doOnCancel(() -> rollbackOnCancel(status)))
+				.subscriberContext(ReactiveTransactionContext.getOrCreateContext());
+	}
+
+	/**
+	 * Wrap the given Flux in a transaction.
+	 * @param flux the Flux to run transactionally
+	 * @return a Flux emitting the elements of the given Flux, completing once
+	 * the transaction has been committed
+	 */
+	public <T> Flux<T> transactional(Flux<T> flux) {
+		return this.transactionManager.getReactiveTransaction(this.transactionDefinition)
+				.flatMapMany(status -> flux
+						.onErrorResume(ex -> completeAfterError(status, ex).then(Mono.<T>error(ex)))
+						.concatWith(Mono.defer(() -> this.transactionManager.commit(status).then(Mono.<T>empty())))
+						.doOnCancel(() -> rollbackOnCancel(status)))
+				.subscriberContext(ReactiveTransactionContext.getOrCreateContext());
+	}
+
+	/**
+	 * Complete the given transaction after an application error: roll back,
+	 * unless the transaction definition declares the error as not requiring
+	 * a rollback, in which case the transaction gets committed.
+	 * @param status the transaction to complete
+	 * @param ex the application error
+	 */
+	private Mono<Void> completeAfterError(ReactiveTransaction status, Throwable ex) {
+		if (status.isCompleted()) {
+			return Mono.empty();
+		}
+		if (this.transactionDefinition instanceof TransactionAttribute &&
+				!((TransactionAttribute) this.transactionDefinition).rollbackOn(ex)) {
+			return this.transactionManager.commit(status).onErrorMap(ex2 -> applicationErrorOverridden(ex, ex2));
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Initiating transaction rollback on application exception", ex);
+		}
+		return this.transactionManager.rollback(status).onErrorMap(ex2 -> applicationErrorOverridden(ex, ex2));
+	}
+
+	private Throwable applicationErrorOverridden(Throwable ex, Throwable ex2) {
+		logger.error("Application exception overridden by transaction completion exception", ex);
+		if (ex2 instanceof TransactionSystemException) {
+			((TransactionSystemException) ex2).initApplicationException(ex);
+		}
+		return ex2;
+	}
+
+	/**
+	 * Roll back the given transaction after the subscriber cancelled,
+	 * unless it has been completed already.
+	 */
+	private void rollbackOnCancel(ReactiveTransaction status) {
+		if (!status.isCompleted()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Initiating transaction rollback on cancellation");
+			}
+			this.transactionManager.rollback(status).subscribe(null,
+					ex -> logger.error("Rollback on cancellation failed", ex));
+		}
+	}
+
+}
@@ -0,0 +1,12 @@
+/**
+ * Support classes for reactive transaction management, keeping transaction
+ * state in the Reactor {@code Context} rather than in thread-bound holders.
+ * Provides an abstract base class for reactive transaction manager
+ * implementations and an operator for transaction demarcation.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.transaction.reactive;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Transaction state of a thread as managed by {@link TransactionSynchronizationManager}:
+ * bound resources, registered synchronizations and the characteristics of the
+ * current transaction, all held in one object per thread.
+ *
+ * <p>Opaque to application code: obtained via
+ * {@link TransactionSynchronizationManager#captureContext()} and bound to another
+ * thread via {@link TransactionSynchronizationManager#restoreContext}.
+ *
+ * @since 5.0.5
+ * @see TransactionContextTaskDecorator
+ */
+public final class TransactionContext {
+
+	@Nullable
+	Map<Object, Object> resources;
+
+	@Nullable
+	Set<TransactionSynchronization> synchronizations;
+
+	@Nullable
+	String currentTransactionName;
+
+	boolean currentTransactionReadOnly;
+
+	@Nullable
+	Integer currentTransactionIsolationLevel;
+
+	boolean actualTransactionActive;
+
+
+	TransactionContext() {
+	}
+
+
+	/**
+	 * Reset the synchronizations and the transaction characteristics,
+	 * keeping the bound resources.
+	 */
+	void clearSynchronizationState() {
+		this.synchronizations = null;
+		this.currentTransactionName = null;
+		this.currentTransactionReadOnly = false;
+		this.currentTransactionIsolationLevel = null;
+		this.actualTransactionActive = false;
+	}
+
+	/**
+	 * Return whether this context holds no state at all.
+	 */
+	boolean isEmpty() {
+		return (this.resources == null && this.synchronizations == null && this.currentTransactionName == null &&
+				!this.currentTransactionReadOnly && this.currentTransactionIsolationLevel == null &&
+				!this.actualTransactionActive);
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionContext: resources=" + (this.resources != null ? this.resources.keySet() : "[]") +
+				", synchronization active=" + (this.synchronizations != null) +
+				", name=" + this.currentTransactionName + ", read-only=" + this.currentTransactionReadOnly +
+				", isolation level=" + this.currentTransactionIsolationLevel +
+				", actual transaction active=" + this.actualTransactionActive;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * {@link TaskDecorator} which continues the transaction of the submitting thread
+ * in the thread that executes the task: the {@link TransactionContext} captured on
+ * submission is bound for the duration of the task, and the executing thread's
+ * previous state is restored afterwards.
+ *
+ * <p>To be set on a {@code ThreadPoolTaskExecutor}, or to be applied to a
+ * {@code Runnable} passed to {@code CompletableFuture.runAsync} explicitly.
+ * The submitting thread is expected to wait for the task (or to be done with
+ * the transaction), since a transaction context must not be active in several
+ * threads at the same time.
+ *
+ * @since 5.0.5
+ * @see TransactionSynchronizationManager#captureContext()
+ * @see TransactionSynchronizationManager#restoreContext
+ */
+public class TransactionContextTaskDecorator implements TaskDecorator {
+
+	@Override
+	public Runnable decorate(Runnable runnable) {
+		TransactionContext context = TransactionSynchronizationManager.captureContext();
+		if (context == null) {
+			return runnable;
+		}
+		return () -> {
+			TransactionContext previous = TransactionSynchronizationManager.restoreContext(context);
+			try {
+				runnable.run();
+			}
+			finally {
+				TransactionSynchronizationManager.restoreContext(previous);
+			}
+		};
+	}
+
+}
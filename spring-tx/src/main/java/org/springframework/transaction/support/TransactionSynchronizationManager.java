@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,6 +64,11 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>All of the above state is kept in a single {@link TransactionContext} per thread.
+ * As of 5.0.5, that context can be handed over to another thread via
+ * {@link #captureContext()} and {@link #restoreContext}, e.g. through a
+ * {@link TransactionContextTaskDecorator} for asynchronous continuations.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +83,73 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
+	private static final ThreadLocal<TransactionContext> transactionContext =
+			new NamedThreadLocal<>("Transaction context");
 
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
 
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
+	//-------------------------------------------------------------------------
+	// Management of the thread-bound transaction context
+	//-------------------------------------------------------------------------
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
+	/**
+	 * Capture the transaction context of the current thread, for continuing
+	 * the current transaction in another thread.
+	 * <p>The returned context is the live state of the current thread rather than
+	 * a copy: it is meant to be handed over to a continuation which runs while the
+	 * current thread waits for it (or is done with the transaction), and must
+	 * not be active in several threads at the same time.
+	 * @return the current context, or {@code null} if the current thread has
+	 * neither resources nor transaction synchronization bound
+	 * @since 5.0.5
+	 * @see #restoreContext
+	 */
+	@Nullable
+	public static TransactionContext captureContext() {
+		return transactionContext.get();
+	}
 
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
+	/**
+	 * Bind the given transaction context to the current thread, replacing
+	 * its current transaction state.
+	 * @param context the context to bind, as obtained from {@link #captureContext()},
+	 * or {@code null} to reset the transaction state of the current thread
+	 * @return the previously bound context, to be restored once done
+	 * (may be {@code null})
+	 * @since 5.0.5
+	 * @see #captureContext()
+	 */
+	@Nullable
+	public static TransactionContext restoreContext(@Nullable TransactionContext context) {
+		TransactionContext previous = transactionContext.get();
+		if (context != null) {
+			transactionContext.set(context);
+		}
+		else {
+			transactionContext.remove();
+		}
+		return previous;
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Return the context of the current thread, binding a new one if none yet.
+	 */
+	private static TransactionContext obtainContext() {
+		TransactionContext context = transactionContext.get();
+		if (context == null) {
+			context = new TransactionContext();
+			transactionContext.set(context);
+		}
+		return context;
+	}
+
+	/**
+	 * Remove the entire ThreadLocal once the given context holds no state anymore.
+	 */
+	private static void removeContextIfEmpty(TransactionContext context) {
+		if (context.isEmpty()) {
+			transactionContext.remove();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -111,7 +166,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = transactionContext.get();
+		Map<Object, Object> map = (context != null ? context.resources : null);
 		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
 	}
 
@@ -150,7 +206,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = transactionContext.get();
+		Map<Object, Object> map = (context != null ? context.resources : null);
 		if (map == null) {
 			return null;
 		}
@@ -160,7 +217,8 @@ public abstract class TransactionSynchronizationManager {
 			map.remove(actualKey);
 			// Remove entire ThreadLocal if empty...
 			if (map.isEmpty()) {
-				resources.remove();
+				context.resources = null;
+				removeContextIfEmpty(context);
 			}
 			value = null;
 		}
@@ -177,11 +235,12 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = obtainContext();
+		Map<Object, Object> map = context.resources;
 		// set ThreadLocal Map if none found
 		if (map == null) {
 			map = new HashMap<>();
-			resources.set(map);
+			context.resources = map;
 		}
 		Object oldValue = map.put(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
@@ -231,14 +290,16 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
+		TransactionContext context = transactionContext.get();
+		Map<Object, Object> map = (context != null ? context.resources : null);
 		if (map == null) {
 			return null;
 		}
 		Object value = map.remove(actualKey);
 		// Remove entire ThreadLocal if empty...
 		if (map.isEmpty()) {
-			resources.remove();
+			context.resources = null;
+			removeContextIfEmpty(context);
 		}
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
@@ -262,7 +323,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionContext context = transactionContext.get();
+		return (context != null && context.synchronizations != null);
 	}
 
 	/**
@@ -275,7 +337,7 @@ public abstract class TransactionSynchronizationManager {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		obtainContext().synchronizations = new LinkedHashSet<>();
 	}
 
 	/**
@@ -292,10 +354,12 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		if (!isSynchronizationActive()) {
+		TransactionContext context = transactionContext.get();
+		Set<TransactionSynchronization> synchs = (context != null ? context.synchronizations : null);
+		if (synchs == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		synchronizations.get().add(synchronization);
+		synchs.add(synchronization);
 	}
 
 	/**
@@ -306,7 +370,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
+		TransactionContext context = transactionContext.get();
+		Set<TransactionSynchronization> synchs = (context != null ? context.synchronizations : null);
 		if (synchs == null) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
@@ -330,11 +395,13 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is not active
 	 */
 	public static void clearSynchronization() throws IllegalStateException {
-		if (!isSynchronizationActive()) {
+		TransactionContext context = transactionContext.get();
+		if (context == null || context.synchronizations == null) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		context.synchronizations = null;
+		removeContextIfEmpty(context);
 	}
 
 
@@ -349,7 +416,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		if (name != null) {
+			obtainContext().currentTransactionName = name;
+		}
+		else {
+			TransactionContext context = transactionContext.get();
+			if (context != null) {
+				context.currentTransactionName = null;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -360,7 +436,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionContext context = transactionContext.get();
+		return (context != null ? context.currentTransactionName : null);
 	}
 
 	/**
@@ -371,7 +448,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		if (readOnly) {
+			obtainContext().currentTransactionReadOnly = true;
+		}
+		else {
+			TransactionContext context = transactionContext.get();
+			if (context != null) {
+				context.currentTransactionReadOnly = false;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -387,7 +473,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionContext context = transactionContext.get();
+		return (context != null && context.currentTransactionReadOnly);
 	}
 
 	/**
@@ -407,7 +494,16 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		if (isolationLevel != null) {
+			obtainContext().currentTransactionIsolationLevel = isolationLevel;
+		}
+		else {
+			TransactionContext context = transactionContext.get();
+			if (context != null) {
+				context.currentTransactionIsolationLevel = null;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -429,7 +525,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionContext context = transactionContext.get();
+		return (context != null ? context.currentTransactionIsolationLevel : null);
 	}
 
 	/**
@@ -439,7 +536,16 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		if (active) {
+			obtainContext().actualTransactionActive = true;
+		}
+		else {
+			TransactionContext context = transactionContext.get();
+			if (context != null) {
+				context.actualTransactionActive = false;
+				removeContextIfEmpty(context);
+			}
+		}
 	}
 
 	/**
@@ -454,7 +560,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionContext context = transactionContext.get();
+		return (context != null && context.actualTransactionActive);
 	}
 
 
@@ -468,11 +575,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		TransactionContext context = transactionContext.get();
+		if (context != null) {
+			context.clearSynchronizationState();
+			removeContextIfEmpty(context);
+		}
 	}
 
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.tests.transaction;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.ReactiveTransactionContext;
+import org.springframework.transaction.support.SmartTransactionObject;
+
+/**
+ * Reactive transaction manager that counts its calls, binding an in-memory
+ * {@link Resource} to the transaction context as a stand-in for an actual
+ * transactional resource such as a connection.
+ */
+public class ReactiveCallCountingTransactionManager extends AbstractReactiveTransactionManager {
+
+	public TransactionDefinition lastDefinition;
+	public int begun;
+	public int commits;
+	public int rollbacks;
+	public int inflight;
+
+	@Override
+	protected Object doGetTransaction(ReactiveTransactionContext context) {
+		return new ResourceTransactionObject((Resource) context.getResource(this));
+	}
+
+	@Override
+	protected boolean isExistingTransaction(Object transaction) {
+		return (((ResourceTransactionObject) transaction).resource != null);
+	}
+
+	@Override
+	protected Mono<Void> doBegin(ReactiveTransactionContext context, Object transaction,
+			TransactionDefinition definition) {
+
+		return Mono.fromRunnable(() -> {
+			this.lastDefinition = definition;
+			++begun;
+			++inflight;
+			Resource resource = new Resource(definition.getName());
+			((ResourceTransactionObject) transaction).resource = resource;
+			context.bindResource(this, resource);
+		});
+	}
+
+	@Override
+	protected Mono<Object> doSuspend(ReactiveTransactionContext context, Object transaction) {
+		return Mono.fromSupplier(() -> {
+			((ResourceTransactionObject) transaction).resource = null;
+			return context.unbindResource(this);
+		});
+	}
+
+	@Override
+	protected Mono<Void> doResume(ReactiveTransactionContext context, Object transaction, Object suspendedResources) {
+		return Mono.fromRunnable(() -> context.bindResource(this, suspendedResources));
+	}
+
+	@Override
+	protected Mono<Void> doCommit(GenericReactiveTransaction transaction) {
+		return Mono.fromRunnable(() -> {
+			++commits;
+			--inflight;
+		});
+	}
+
+	@Override
+	protected Mono<Void> doRollback(GenericReactiveTransaction transaction) {
+		return Mono.fromRunnable(() -> {
+			++rollbacks;
+			--inflight;
+		});
+	}
+
+	@Override
+	protected Mono<Void> doSetRollbackOnly(GenericReactiveTransaction transaction) {
+		return Mono.fromRunnable(() -> ((ResourceTransactionObject) transaction.getTransaction()).resource.rollbackOnly = true);
+	}
+
+	@Override
+	protected Mono<Void> doCleanupAfterCompletion(ReactiveTransactionContext context, Object transaction) {
+		return Mono.fromRunnable(() -> context.unbindResource(this));
+	}
+
+	public void clear() {
+		begun = commits = rollbacks = inflight = 0;
+	}
+
+
+	/**
+	 * In-memory transactional resource, bound to the transaction context
+	 * for the duration of a transaction.
+	 */
+	public static class Resource {
+
+		public final String name;
+
+		public boolean rollbackOnly;
+
+		public Resource(String name) {
+			this.name = name;
+		}
+	}
+
+
+	private static class ResourceTransactionObject implements SmartTransactionObject {
+
+		private Resource resource;
+
+		public ResourceTransactionObject(Resource resource) {
+			this.resource = resource;
+		}
+
+		@Override
+		public boolean isRollbackOnly() {
+			return (this.resource != null && this.resource.rollbackOnly);
+		}
+
+		@Override
+		public void flush() {
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.tests.transaction.CallCountingTransactionManager;
+import org.springframework.tests.transaction.ReactiveCallCountingTransactionManager;
+import org.springframework.transaction.reactive.ReactiveTransactionContext;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionInterceptor} applied to methods returning
+ * a reactive type.
+ */
+public class ReactiveTransactionInterceptorTests {
+
+	private final ReactiveCallCountingTransactionManager rtm = new ReactiveCallCountingTransactionManager();
+
+	private final CallCountingTransactionManager ptm = new CallCountingTransactionManager();
+
+
+	@Test
+	public void monoCommitsOnSubscription() {
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setReactiveTransactionManager(this.rtm);
+		ti.setTransactionManager(this.ptm);
+		ReactiveService service = advised(ti);
+
+		Mono<String> mono = service.findName();
+		assertEquals(0, rtm.begun);
+
+		StepVerifier.create(mono).expectNext("transactional").verifyComplete();
+		assertEquals(1, rtm.begun);
+		assertEquals(1, rtm.commits);
+		assertEquals(DefaultReactiveService.class.getName() + ".findName", rtm.lastDefinition.getName());
+		assertEquals(0, ptm.begun);
+	}
+
+	@Test
+	public void fluxRollsBackOnError() {
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setReactiveTransactionManager(this.rtm);
+		ReactiveService service = advised(ti);
+
+		StepVerifier.create(service.failAfterFirst())
+				.expectNext("first")
+				.verifyErrorMessage("boom");
+		assertEquals(1, rtm.begun);
+		assertEquals(0, rtm.commits);
+		assertEquals(1, rtm.rollbacks);
+	}
+
+	@Test
+	public void nonReactiveMethodUsesPlatformTransactionManager() {
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setReactiveTransactionManager(this.rtm);
+		ti.setTransactionManager(this.ptm);
+		ReactiveService service = advised(ti);
+
+		assertEquals("blocking", service.blocking());
+		assertEquals(1, ptm.commits);
+		assertEquals(0, rtm.begun);
+	}
+
+	@Test
+	public void fluxRollsBackOnCancel() {
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setReactiveTransactionManager(this.rtm);
+		ReactiveService service = advised(ti);
+
+		StepVerifier.create(service.findNames().take(1))
+				.expectNext("first")
+				.verifyComplete();
+		assertEquals(1, rtm.begun);
+		assertEquals(0, rtm.commits);
+		assertEquals(1, rtm.rollbacks);
+	}
+
+	@Test
+	public void completableFutureUsesPlatformTransactionManager() throws Exception {
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setReactiveTransactionManager(this.rtm);
+		ti.setTransactionManager(this.ptm);
+		ReactiveService service = advised(ti);
+
+		assertEquals("async", service.async().get());
+		assertEquals(1, ptm.commits);
+		assertEquals(0, rtm.begun);
+	}
+
+	@Test
+	public void reactiveTransactionManagerFromBeanFactory() {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("rtm", this.rtm);
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setBeanFactory(beanFactory);
+		ReactiveService service = advised(ti);
+
+		StepVerifier.create(service.findName()).expectNext("transactional").verifyComplete();
+		assertEquals(1, rtm.commits);
+	}
+
+
+	private ReactiveService advised(TransactionInterceptor ti) {
+		Properties attributes = new Properties();
+		attributes.setProperty("*", "PROPAGATION_REQUIRED");
+		ti.setTransactionAttributes(attributes);
+		ProxyFactory pf = new ProxyFactory(new DefaultReactiveService());
+		pf.addAdvice(0, ti);
+		return (ReactiveService) pf.getProxy();
+	}
+
+
+	public interface ReactiveService {
+
+		Mono<String> findName();
+
+		Flux<String> failAfterFirst();
+
+		Flux<String> findNames();
+
+		CompletableFuture<String> async();
+
+		String blocking();
+	}
+
+
+	private static class DefaultReactiveService implements ReactiveService {
+
+		@Override
+		public Mono<String> findName() {
+			return ReactiveTransactionContext.currentContext().map(context ->
+					(context.isActualTransactionActive() ? "transactional" : "none"));
+		}
+
+		@Override
+		public Flux<String> failAfterFirst() {
+			return Flux.just("first").concatWith(Mono.error(new IllegalStateException("boom")));
+		}
+
+		@Override
+		public Flux<String> findNames() {
+			return Flux.just("first", "second", "third");
+		}
+
+		@Override
+		public CompletableFuture<String> async() {
+			return CompletableFuture.completedFuture("async");
+		}
+
+		@Override
+		public String blocking() {
+			return "blocking";
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.tests.transaction.ReactiveCallCountingTransactionManager;
+import org.springframework.tests.transaction.ReactiveCallCountingTransactionManager.Resource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionalOperator} and {@link AbstractReactiveTransactionManager}.
+ */
+public class TransactionalOperatorTests {
+
+	private final ReactiveCallCountingTransactionManager tm = new ReactiveCallCountingTransactionManager();
+
+	private final TransactionalOperator operator = new TransactionalOperator(this.tm);
+
+
+	@Test
+	public void commitWithMono() {
+		StepVerifier.create(operator.transactional(currentResource().map(resource -> "done")))
+				.expectNext("done")
+				.verifyComplete();
+		assertEquals(1, tm.begun);
+		assertEquals(1, tm.commits);
+		assertEquals(0, tm.rollbacks);
+		assertEquals(0, tm.inflight);
+	}
+
+	@Test
+	public void commitWithEmptyMono() {
+		StepVerifier.create(operator.transactional(Mono.empty())).verifyComplete();
+		assertEquals(1, tm.commits);
+		assertEquals(0, tm.rollbacks);
+	}
+
+	@Test
+	public void rollbackWithMonoError() {
+		StepVerifier.create(operator.transactional(Mono.error(new IllegalStateException("boom"))))
+				.verifyErrorMessage("boom");
+		assertEquals(0, tm.commits);
+		assertEquals(1, tm.rollbacks);
+	}
+
+	@Test
+	public void commitOnErrorWithNoRollbackRule() {
+		RuleBasedTransactionAttribute txAttr = new RuleBasedTransactionAttribute();
+		txAttr.setRollbackRules(Collections.singletonList(new NoRollbackRuleAttribute(IllegalStateException.class)));
+		TransactionalOperator operator = new TransactionalOperator(this.tm, txAttr);
+
+		StepVerifier.create(operator.transactional(Mono.error(new IllegalStateException("boom"))))
+				.verifyErrorMessage("boom");
+		assertEquals(1, tm.commits);
+		assertEquals(0, tm.rollbacks);
+	}
+
+	@Test
+	public void commitWithFluxAcrossThreads() {
+		Flux<String> flux = Flux.just("a", "b", "c")
+				.publishOn(Schedulers.parallel())
+				.flatMap(value -> currentResource().map(resource -> value));
+
+		StepVerifier.create(operator.transactional(flux))
+				.expectNext("a", "b", "c")
+				.verifyComplete();
+		assertEquals(1, tm.begun);
+		assertEquals(1, tm.commits);
+	}
+
+	@Test
+	public void rollbackWithFluxError() {
+		Flux<String> flux = Flux.just("a").concatWith(Mono.error(new IllegalStateException("boom")));
+
+		StepVerifier.create(operator.transactional(flux))
+				.expectNext("a")
+				.verifyErrorMessage("boom");
+		assertEquals(0, tm.commits);
+		assertEquals(1, tm.rollbacks);
+	}
+
+	@Test
+	public void rollbackOnCancellation() {
+		Disposable subscription = operator.transactional(Flux.never()).subscribe();
+		assertEquals(1, tm.begun);
+		subscription.dispose();
+		assertEquals(0, tm.commits);
+		assertEquals(1, tm.rollbacks);
+	}
+
+	@Test
+	public void requiresNewSuspendsOuterTransaction() {
+		DefaultTransactionDefinition outerDefinition = new DefaultTransactionDefinition();
+		outerDefinition.setName("outer");
+		DefaultTransactionDefinition innerDefinition =
+				new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		innerDefinition.setName("inner");
+		TransactionalOperator outer = new TransactionalOperator(this.tm, outerDefinition);
+		TransactionalOperator inner = new TransactionalOperator(this.tm, innerDefinition);
+
+		Mono<String> mono = inner.transactional(currentResource().map(resource -> resource.name))
+				.flatMap(innerName -> currentResource().map(resource -> innerName + "/" + resource.name));
+
+		StepVerifier.create(outer.transactional(mono))
+				.expectNext("inner/outer")
+				.verifyComplete();
+		assertEquals(2, tm.begun);
+		assertEquals(2, tm.commits);
+		assertEquals(0, tm.inflight);
+	}
+
+	@Test
+	public void participatingFailureLeadsToUnexpectedRollback() {
+		Mono<String> inner = operator.transactional(Mono.<String>error(new IllegalStateException("boom")))
+				.onErrorResume(ex -> Mono.just("recovered"));
+
+		StepVerifier.create(operator.transactional(inner))
+				.verifyError(UnexpectedRollbackException.class);
+		assertEquals(1, tm.begun);
+		assertEquals(0, tm.commits);
+		assertEquals(1, tm.rollbacks);
+	}
+
+	@Test
+	public void mandatoryWithoutExistingTransaction() {
+		TransactionalOperator operator = new TransactionalOperator(this.tm,
+				new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_MANDATORY));
+
+		StepVerifier.create(operator.transactional(Mono.just("value")))
+				.verifyError(IllegalTransactionStateException.class);
+		assertEquals(0, tm.begun);
+	}
+
+	@Test
+	public void noContextOutsideOfOperator() {
+		StepVerifier.create(ReactiveTransactionContext.currentContext())
+				.verifyError(NoTransactionException.class);
+	}
+
+
+	private Mono<Resource> currentResource() {
+		return ReactiveTransactionContext.currentContext().map(context -> {
+			assertTrue(context.isActualTransactionActive());
+			Resource resource = (Resource) context.getResource(this.tm);
+			assertNotNull(resource);
+			assertEquals(resource.name, context.getCurrentTransactionName());
+			return resource;
+		});
+	}
+
+}
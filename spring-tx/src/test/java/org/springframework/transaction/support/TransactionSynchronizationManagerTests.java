@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the thread-bound {@link TransactionContext} of {@link TransactionSynchronizationManager}.
+ */
+public class TransactionSynchronizationManagerTests {
+
+	@After
+	public void resetContext() {
+		TransactionSynchronizationManager.restoreContext(null);
+	}
+
+
+	@Test
+	public void contextRemovedOnceEmpty() {
+		assertNull(TransactionSynchronizationManager.captureContext());
+
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(2);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		assertNotNull(TransactionSynchronizationManager.captureContext());
+		assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+		assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertEquals(Integer.valueOf(2), TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+
+		TransactionSynchronizationManager.clear();
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+		assertFalse(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+		assertNotNull(TransactionSynchronizationManager.captureContext());
+
+		TransactionSynchronizationManager.unbindResource("key");
+		assertNull(TransactionSynchronizationManager.captureContext());
+	}
+
+	@Test
+	public void captureAndRestoreContext() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionContext context = TransactionSynchronizationManager.captureContext();
+
+		assertSame(context, TransactionSynchronizationManager.restoreContext(null));
+		assertFalse(TransactionSynchronizationManager.hasResource("key"));
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+
+		assertNull(TransactionSynchronizationManager.restoreContext(context));
+		assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+		assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+	}
+
+	@Test
+	public void contextTravelsWithDecoratedTask() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			TransactionSynchronizationManager.bindResource("key", "value");
+			TransactionSynchronizationManager.initSynchronization();
+			TransactionSynchronizationManager.setCurrentTransactionName("tx");
+
+			Runnable task = new TransactionContextTaskDecorator().decorate(() -> {
+				assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+				assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {});
+			});
+			CompletableFuture.runAsync(task, executor).get(10, TimeUnit.SECONDS);
+			assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+			// The executing thread got its previous (empty) state back
+			CompletableFuture.runAsync(() -> {
+				assertNull(TransactionSynchronizationManager.captureContext());
+				assertFalse(TransactionSynchronizationManager.hasResource("key"));
+			}, executor).get(10, TimeUnit.SECONDS);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmark for {@link PathPattern#matches(PathContainer)}, using the same
+ * route table as the {@code AntPathMatcher} benchmark in spring-core so that
+ * both matching strategies can be compared side by side.
+ *
+ * @since 5.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PathPatternBenchmark {
+
+	private static final String[] PATTERNS = {
+			"/", "/login", "/logout", "/api/users", "/api/users/{id}", "/api/users/{id}/orders",
+			"/api/users/{id}/orders/{orderId}", "/api/products/*", "/api/products/**",
+			"/static/**", "/resources/{version}/**", "/files/{name:[a-z]+}.{ext}", "/{*path}"
+	};
+
+	private static final String[] PATHS = {
+			"/", "/login", "/api/users/42", "/api/users/42/orders/7", "/api/products/book",
+			"/static/css/site/main.css", "/resources/1.0.3/js/app.js", "/files/report.txt",
+			"/not/mapped/anywhere"
+	};
+
+	private List<PathPattern> patterns;
+
+	private List<PathContainer> paths;
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		PathPatternParser parser = new PathPatternParser();
+		this.patterns = new ArrayList<>(PATTERNS.length);
+		for (String pattern : PATTERNS) {
+			this.patterns.add(parser.parse(pattern));
+		}
+		this.paths = new ArrayList<>(PATHS.length);
+		for (String path : PATHS) {
+			this.paths.add(PathContainer.parsePath(path));
+		}
+	}
+
+	@Benchmark
+	public void matchAll(Blackhole bh) {
+		for (PathContainer path : this.paths) {
+			for (PathPattern pattern : this.patterns) {
+				bh.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void parsePath(Blackhole bh) {
+		bh.consume(PathContainer.parsePath("/api/users/42/orders/7"));
+	}
+
+	@Benchmark
+	public void matchAndExtract(Blackhole bh) {
+		bh.consume(this.patterns.get(6).matchAndExtract(this.paths.get(3)));
+	}
+
+}
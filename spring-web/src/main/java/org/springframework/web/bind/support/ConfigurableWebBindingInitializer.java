@@ -44,6 +44,8 @@ public class ConfigurableWebBindingInitializer implements WebBindingInitializer
 
 	private boolean directFieldAccess = false;
 
+	private boolean cacheBindingPlans = false;
+
 	@Nullable
 	private MessageCodesResolver messageCodesResolver;
 
@@ -99,6 +101,25 @@ public class ConfigurableWebBindingInitializer implements WebBindingInitializer
 		return directFieldAccess;
 	}
 
+	/**
+	 * Set whether binders should share the analysis of bind parameter names
+	 * per target class and binder configuration.
+	 * <p>Default is {@code false}, analyzing the parameter names on every binding.
+	 * @since 5.0.5
+	 * @see org.springframework.validation.DataBinder#setCacheBindingPlans
+	 */
+	public void setCacheBindingPlans(boolean cacheBindingPlans) {
+		this.cacheBindingPlans = cacheBindingPlans;
+	}
+
+	/**
+	 * Return whether binders should share the analysis of bind parameter names.
+	 * @since 5.0.5
+	 */
+	public boolean isCacheBindingPlans() {
+		return this.cacheBindingPlans;
+	}
+
 	/**
 	 * Set the strategy to use for resolving errors into message codes.
 	 * Applies the given strategy to all data binders used by this controller.
@@ -197,6 +218,9 @@ public class ConfigurableWebBindingInitializer implements WebBindingInitializer
 		if (this.directFieldAccess) {
 			binder.initDirectFieldAccess();
 		}
+		if (this.cacheBindingPlans) {
+			binder.setCacheBindingPlans(true);
+		}
 		if (this.messageCodesResolver != null) {
 			binder.setMessageCodesResolver(this.messageCodesResolver);
 		}
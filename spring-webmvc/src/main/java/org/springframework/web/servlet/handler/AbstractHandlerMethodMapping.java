@@ -360,8 +360,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		if (matches.isEmpty()) {
 			/**
 			 * 拿到启动时封装的controller对象
+			 * 可以用路径索引时，只检查路径模式可能匹配的那部分mapping
 			 */
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			if (usePathPatternIndex()) {
+				addMatchingMappings(this.mappingRegistry.getMappingsByPathPatterns(lookupPath), matches, request);
+			}
+			else {
+				addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -490,6 +496,21 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	protected abstract Comparator<T> getMappingComparator(HttpServletRequest request);
 
+	/**
+	 * Whether a mapping can only match a lookup path that matches one of its
+	 * {@link #getMappingPathPatterns path patterns} (or a suffix pattern or
+	 * trailing slash variant of it) according to the default settings of
+	 * {@link org.springframework.util.AntPathMatcher}, or if it has no path
+	 * patterns at all.
+	 * <p>If so, lookups which find no direct URL match only check the mappings
+	 * from an index of pattern segments rather than all registered mappings.
+	 * <p>The default implementation returns {@code false}.
+	 * @since 5.0.5
+	 */
+	protected boolean usePathPatternIndex() {
+		return false;
+	}
+
 
 	/**
 	 * A registry that maintains all mappings to handler methods, exposing methods
@@ -505,6 +526,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final PathSegmentIndex<T> pathPatternIndex = new PathSegmentIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -528,6 +551,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings whose path patterns may match the given URL path,
+		 * in registration order. Not thread-safe.
+		 * @see #acquireReadLock()
+		 * @see #usePathPatternIndex()
+		 */
+		public List<T> getMappingsByPathPatterns(String urlPath) {
+			return this.pathPatternIndex.getCandidates(urlPath);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -544,14 +577,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 
 		/**
-		 * Acquire the read lock when using getMappings and getMappingsByUrl.
+		 * Acquire the read lock when using getMappings, getMappingsByUrl
+		 * and getMappingsByPathPatterns.
 		 */
 		public void acquireReadLock() {
 			this.readWriteLock.readLock().lock();
 		}
 
 		/**
-		 * Release the read lock after using getMappings and getMappingsByUrl.
+		 * Release the read lock after using getMappings, getMappingsByUrl
+		 * and getMappingsByPathPatterns.
 		 */
 		public void releaseReadLock() {
 			this.readWriteLock.readLock().unlock();
@@ -572,6 +607,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				for (String url : directUrls) {
 					this.urlLookup.add(url, mapping);
 				}
+				this.pathPatternIndex.add(mapping, getMappingPathPatterns(mapping));
 
 				String name = null;
 				if (getNamingStrategy() != null) {
@@ -649,6 +685,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				}
 
 				this.mappingLookup.remove(definition.getMapping());
+				this.pathPatternIndex.remove(definition.getMapping());
 
 				for (String url : definition.getDirectUrls()) {
 					List<T> list = this.urlLookup.get(url);
@@ -20,6 +20,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.context.request.WebRequestInterceptor;
@@ -55,6 +56,10 @@ public final class MappedInterceptor implements HandlerInterceptor {
 	@Nullable
 	private PathMatcher pathMatcher;
 
+	/** The patterns compiled for the AntPathMatcher last in use */
+	@Nullable
+	private volatile CompiledPatterns compiledPatterns;
+
 
 	/**
 	 * Create a new MappedInterceptor instance.
@@ -145,6 +150,10 @@ public final class MappedInterceptor implements HandlerInterceptor {
 	 */
 	public boolean matches(String lookupPath, PathMatcher pathMatcher) {
 		PathMatcher pathMatcherToUse = (this.pathMatcher != null ? this.pathMatcher : pathMatcher);
+		CompiledPatterns compiledPatterns = getCompiledPatterns(pathMatcherToUse);
+		if (compiledPatterns != null) {
+			return compiledPatterns.matches(lookupPath);
+		}
 		if (!ObjectUtils.isEmpty(this.excludePatterns)) {
 			for (String pattern : this.excludePatterns) {
 				if (pathMatcherToUse.match(pattern, lookupPath)) {
@@ -163,6 +172,26 @@ public final class MappedInterceptor implements HandlerInterceptor {
 		return false;
 	}
 
+	/**
+	 * Return the include and exclude patterns compiled for the given PathMatcher,
+	 * or {@code null} if it is not a plain {@link AntPathMatcher}. Compiled patterns
+	 * are reused for any AntPathMatcher with the same settings, e.g. the default
+	 * matchers of several handler mappings.
+	 */
+	@Nullable
+	private CompiledPatterns getCompiledPatterns(PathMatcher pathMatcher) {
+		CompiledPatterns compiledPatterns = this.compiledPatterns;
+		if (compiledPatterns != null && compiledPatterns.matcherSettings.isCompatibleWith(pathMatcher)) {
+			return compiledPatterns;
+		}
+		if (pathMatcher.getClass() != AntPathMatcher.class) {
+			return null;
+		}
+		compiledPatterns = new CompiledPatterns((AntPathMatcher) pathMatcher, this.includePatterns, this.excludePatterns);
+		this.compiledPatterns = compiledPatterns;
+		return compiledPatterns;
+	}
+
 	@Override
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
 			throws Exception {
@@ -184,4 +213,53 @@ public final class MappedInterceptor implements HandlerInterceptor {
 		this.interceptor.afterCompletion(request, response, handler, ex);
 	}
 
+	/**
+	 * Include and exclude patterns compiled for a specific AntPathMatcher setup.
+	 */
+	private static final class CompiledPatterns {
+
+		/** Compiled empty pattern, just for checking the matcher settings */
+		private final AntPathMatcher.CompiledPattern matcherSettings;
+
+		private final AntPathMatcher.CompiledPattern[] includePatterns;
+
+		private final AntPathMatcher.CompiledPattern[] excludePatterns;
+
+		public CompiledPatterns(AntPathMatcher pathMatcher,
+				@Nullable String[] includePatterns, @Nullable String[] excludePatterns) {
+
+			this.matcherSettings = pathMatcher.compile("");
+			this.includePatterns = compile(pathMatcher, includePatterns);
+			this.excludePatterns = compile(pathMatcher, excludePatterns);
+		}
+
+		private static AntPathMatcher.CompiledPattern[] compile(AntPathMatcher pathMatcher, @Nullable String[] patterns) {
+			if (patterns == null) {
+				return new AntPathMatcher.CompiledPattern[0];
+			}
+			AntPathMatcher.CompiledPattern[] compiled = new AntPathMatcher.CompiledPattern[patterns.length];
+			for (int i = 0; i < patterns.length; i++) {
+				compiled[i] = pathMatcher.compile(patterns[i]);
+			}
+			return compiled;
+		}
+
+		public boolean matches(String lookupPath) {
+			for (AntPathMatcher.CompiledPattern pattern : this.excludePatterns) {
+				if (pattern.match(lookupPath)) {
+					return false;
+				}
+			}
+			if (this.includePatterns.length == 0) {
+				return true;
+			}
+			for (AntPathMatcher.CompiledPattern pattern : this.includePatterns) {
+				if (pattern.match(lookupPath)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
 }
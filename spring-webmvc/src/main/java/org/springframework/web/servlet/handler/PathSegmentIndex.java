@@ -0,0 +1,230 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * An index of mappings by the segments of their Ant-style path patterns,
+ * narrowing down the mappings that can possibly match a given lookup path.
+ *
+ * <p>Patterns are stored in a trie with one level per path segment: literal
+ * segments are looked up by name, while all segments with wildcards or URI
+ * variables share one child per node, and a "**" segment marks all paths
+ * below its node as candidates. Candidates are a superset of the actual
+ * matches; they still need to be checked against the request, e.g. for
+ * suffix pattern and trailing slash matches, for which the index just errs
+ * on the inclusive side.
+ *
+ * <p>Assumes that patterns are matched with the default settings of
+ * {@link org.springframework.util.AntPathMatcher}. Patterns that do not
+ * start with "/" as well as mappings without patterns are always candidates.
+ * Not thread-safe: guarded by the lock of the enclosing mapping registry.
+ *
+ * @since 5.0.5
+ * @param <T> the mapping type
+ */
+final class PathSegmentIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+
+	private final Node<T> root = new Node<>();
+
+	/** Mappings which are candidates for any lookup path */
+	private final List<Entry<T>> unindexed = new ArrayList<>();
+
+	private final Map<T, Entry<T>> entries = new HashMap<>();
+
+	private int registrationCount;
+
+
+	/**
+	 * Add the given mapping with its path patterns.
+	 * @param mapping the mapping to add
+	 * @param patterns the path patterns of the mapping
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		remove(mapping);
+		Entry<T> entry = new Entry<>(mapping, this.registrationCount++);
+		if (patterns.isEmpty()) {
+			entry.addTo(this.unindexed);
+		}
+		for (String pattern : patterns) {
+			if (!pattern.startsWith(PATH_SEPARATOR)) {
+				entry.addTo(this.unindexed);
+				continue;
+			}
+			Node<T> node = this.root;
+			boolean catchAll = false;
+			for (String segment : tokenize(pattern)) {
+				if ("**".equals(segment)) {
+					// Matches any number of segments from here on
+					entry.addTo(node.catchAll);
+					catchAll = true;
+					break;
+				}
+				node = (isPatternSegment(segment) ? node.getPatternChild() : node.getLiteralChild(segment));
+			}
+			if (!catchAll) {
+				entry.addTo(node.terminal);
+			}
+		}
+		this.entries.put(mapping, entry);
+	}
+
+	/**
+	 * Remove the given mapping from the index.
+	 * @param mapping the mapping to remove
+	 */
+	public void remove(T mapping) {
+		Entry<T> entry = this.entries.remove(mapping);
+		if (entry != null) {
+			for (List<Entry<T>> list : entry.lists) {
+				list.remove(entry);
+			}
+		}
+	}
+
+	/**
+	 * Return the mappings which may match the given lookup path,
+	 * in the order of their registration.
+	 * @param lookupPath the lookup path
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		List<Entry<T>> found = new ArrayList<>(this.unindexed);
+		if (lookupPath.startsWith(PATH_SEPARATOR)) {
+			collect(this.root, tokenize(lookupPath), 0, lookupPath.endsWith(PATH_SEPARATOR), found);
+		}
+		found.sort(Comparator.comparingInt(entry -> entry.order));
+		List<T> candidates = new ArrayList<>(found.size());
+		Entry<T> previous = null;
+		for (Entry<T> entry : found) {
+			if (entry != previous) {
+				candidates.add(entry.mapping);
+				previous = entry;
+			}
+		}
+		return candidates;
+	}
+
+	private void collect(Node<T> node, String[] segments, int index, boolean trailingSlash, List<Entry<T>> found) {
+		found.addAll(node.catchAll);
+		if (index == segments.length) {
+			found.addAll(node.terminal);
+			if (trailingSlash && node.patternChild != null) {
+				// "/path/*" also matches "/path/"
+				found.addAll(node.patternChild.terminal);
+			}
+			return;
+		}
+		String segment = segments[index];
+		if (node.literalChildren != null) {
+			Node<T> child = node.literalChildren.get(segment);
+			if (child != null) {
+				collect(child, segments, index + 1, trailingSlash, found);
+			}
+		}
+		if (index == segments.length - 1) {
+			// Suffix pattern match: "/path" also matches "/path.json", "/path/" matches "/path/.json"
+			int dotIndex = segment.indexOf('.');
+			if (dotIndex == 0) {
+				found.addAll(node.terminal);
+				dotIndex = segment.indexOf('.', 1);
+			}
+			while (dotIndex != -1 && node.literalChildren != null) {
+				Node<T> child = node.literalChildren.get(segment.substring(0, dotIndex));
+				if (child != null) {
+					found.addAll(child.terminal);
+				}
+				dotIndex = segment.indexOf('.', dotIndex + 1);
+			}
+		}
+		if (node.patternChild != null) {
+			collect(node.patternChild, segments, index + 1, trailingSlash, found);
+		}
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+	}
+
+	private static boolean isPatternSegment(String segment) {
+		return (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1);
+	}
+
+
+	private static final class Node<T> {
+
+		@Nullable
+		private Map<String, Node<T>> literalChildren;
+
+		@Nullable
+		private Node<T> patternChild;
+
+		/** Mappings with a pattern ending at this node */
+		private final List<Entry<T>> terminal = new ArrayList<>(1);
+
+		/** Mappings with a pattern continuing with "**" after this node */
+		private final List<Entry<T>> catchAll = new ArrayList<>(1);
+
+		public Node<T> getLiteralChild(String segment) {
+			if (this.literalChildren == null) {
+				this.literalChildren = new HashMap<>();
+			}
+			return this.literalChildren.computeIfAbsent(segment, key -> new Node<>());
+		}
+
+		public Node<T> getPatternChild() {
+			if (this.patternChild == null) {
+				this.patternChild = new Node<>();
+			}
+			return this.patternChild;
+		}
+	}
+
+
+	private static final class Entry<T> {
+
+		private final T mapping;
+
+		private final int order;
+
+		/** The lists this entry has been added to, for removal */
+		private final List<List<Entry<T>>> lists = new ArrayList<>(1);
+
+		public Entry(T mapping, int order) {
+			this.mapping = mapping;
+			this.order = order;
+		}
+
+		public void addTo(List<Entry<T>> list) {
+			list.add(this);
+			this.lists.add(list);
+		}
+	}
+
+}
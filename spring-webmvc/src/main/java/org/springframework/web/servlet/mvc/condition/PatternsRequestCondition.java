@@ -54,6 +54,10 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 	private final List<String> fileExtensions = new ArrayList<>();
 
+	/** The patterns compiled for the AntPathMatcher in use, created on first match */
+	@Nullable
+	private volatile CompiledPatternVariants[] compiledPatterns;
+
 
 	/**
 	 * Creates a new instance with the given URL patterns.
@@ -222,16 +226,53 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 */
 	public List<String> getMatchingPatterns(String lookupPath) {
 		List<String> matches = new ArrayList<>();
-		for (String pattern : this.patterns) {
-			String match = getMatchingPattern(pattern, lookupPath);
-			if (match != null) {
-				matches.add(match);
+		CompiledPatternVariants[] compiledPatterns = getCompiledPatterns();
+		if (compiledPatterns != null) {
+			for (CompiledPatternVariants variants : compiledPatterns) {
+				String match = variants.getMatchingPattern(lookupPath);
+				if (match != null) {
+					matches.add(match);
+				}
+			}
+		}
+		else {
+			for (String pattern : this.patterns) {
+				String match = getMatchingPattern(pattern, lookupPath);
+				if (match != null) {
+					matches.add(match);
+				}
 			}
 		}
 		matches.sort(this.pathMatcher.getPatternComparator(lookupPath));
 		return matches;
 	}
 
+	/**
+	 * Return the patterns compiled for the configured {@link AntPathMatcher},
+	 * compiling them on first access, or {@code null} if a different kind of
+	 * PathMatcher is in use.
+	 */
+	@Nullable
+	private CompiledPatternVariants[] getCompiledPatterns() {
+		CompiledPatternVariants[] compiledPatterns = this.compiledPatterns;
+		if (compiledPatterns != null &&
+				(compiledPatterns.length == 0 || compiledPatterns[0].isCompatibleWith(this.pathMatcher))) {
+			return compiledPatterns;
+		}
+		if (this.pathMatcher.getClass() != AntPathMatcher.class) {
+			return null;
+		}
+		AntPathMatcher antPathMatcher = (AntPathMatcher) this.pathMatcher;
+		compiledPatterns = new CompiledPatternVariants[this.patterns.size()];
+		int i = 0;
+		for (String pattern : this.patterns) {
+			compiledPatterns[i++] = new CompiledPatternVariants(pattern, antPathMatcher, this.useSuffixPatternMatch,
+					this.useTrailingSlashMatch, this.fileExtensions);
+		}
+		this.compiledPatterns = compiledPatterns;
+		return compiledPatterns;
+	}
+
 	@Nullable
 	private String getMatchingPattern(String pattern, String lookupPath) {
 		if (pattern.equals(lookupPath)) {
@@ -297,4 +338,75 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		}
 	}
 
+	/**
+	 * A pattern compiled together with the variants that
+	 * {@link #getMatchingPattern(String, String)} tries for it, so that
+	 * matching a lookup path neither concatenates nor tokenizes patterns.
+	 */
+	private static final class CompiledPatternVariants {
+
+		private final String pattern;
+
+		private final AntPathMatcher.CompiledPattern compiledPattern;
+
+		private final AntPathMatcher.CompiledPattern[] extensionPatterns;
+
+		@Nullable
+		private final AntPathMatcher.CompiledPattern suffixPattern;
+
+		@Nullable
+		private final AntPathMatcher.CompiledPattern trailingSlashPattern;
+
+		public CompiledPatternVariants(String pattern, AntPathMatcher pathMatcher, boolean useSuffixPatternMatch,
+				boolean useTrailingSlashMatch, List<String> fileExtensions) {
+
+			this.pattern = pattern;
+			this.compiledPattern = pathMatcher.compile(pattern);
+			if (useSuffixPatternMatch) {
+				this.extensionPatterns = new AntPathMatcher.CompiledPattern[fileExtensions.size()];
+				for (int i = 0; i < fileExtensions.size(); i++) {
+					this.extensionPatterns[i] = pathMatcher.compile(pattern + fileExtensions.get(i));
+				}
+				this.suffixPattern = (pattern.indexOf('.') == -1 ? pathMatcher.compile(pattern + ".*") : null);
+			}
+			else {
+				this.extensionPatterns = new AntPathMatcher.CompiledPattern[0];
+				this.suffixPattern = null;
+			}
+			this.trailingSlashPattern = (useTrailingSlashMatch && !pattern.endsWith("/") ?
+					pathMatcher.compile(pattern + "/") : null);
+		}
+
+		public boolean isCompatibleWith(PathMatcher pathMatcher) {
+			return this.compiledPattern.isCompatibleWith(pathMatcher);
+		}
+
+		/**
+		 * Same checks as {@link PatternsRequestCondition#getMatchingPattern(String, String)}.
+		 */
+		@Nullable
+		public String getMatchingPattern(String lookupPath) {
+			if (this.pattern.equals(lookupPath)) {
+				return this.pattern;
+			}
+			if (this.extensionPatterns.length > 0 && lookupPath.indexOf('.') != -1) {
+				for (AntPathMatcher.CompiledPattern extensionPattern : this.extensionPatterns) {
+					if (extensionPattern.match(lookupPath)) {
+						return extensionPattern.getPattern();
+					}
+				}
+			}
+			else if (this.suffixPattern != null && this.suffixPattern.match(lookupPath)) {
+				return this.suffixPattern.getPattern();
+			}
+			if (this.compiledPattern.match(lookupPath)) {
+				return this.pattern;
+			}
+			if (this.trailingSlashPattern != null && this.trailingSlashPattern.match(lookupPath)) {
+				return this.trailingSlashPattern.getPattern();
+			}
+			return null;
+		}
+	}
+
 }
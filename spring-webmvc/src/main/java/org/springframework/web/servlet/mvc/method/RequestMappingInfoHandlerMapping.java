@@ -33,6 +33,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
@@ -59,6 +60,9 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 
 	private static final Method HTTP_OPTIONS_HANDLE_METHOD;
 
+	/** Compiled with default settings, for checking the PathMatcher in use */
+	private static final AntPathMatcher.CompiledPattern DEFAULT_PATH_MATCHER_PATTERN = new AntPathMatcher().compile("");
+
 	static {
 		try {
 			HTTP_OPTIONS_HANDLE_METHOD = HttpOptionsHandler.class.getMethod("handle");
@@ -83,6 +87,17 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		return info.getPatternsCondition().getPatterns();
 	}
 
+	/**
+	 * Use the path pattern index if this handler mapping's PathMatcher, which is
+	 * usually also the one used by the {@link RequestMappingInfo} patterns
+	 * condition, is an {@link AntPathMatcher} with default settings.
+	 * @since 5.0.5
+	 */
+	@Override
+	protected boolean usePathPatternIndex() {
+		return DEFAULT_PATH_MATCHER_PATTERN.isCompatibleWith(getPathMatcher());
+	}
+
 	/**
 	 * Check if the given RequestMappingInfo matches the current request and
 	 * return a (potentially new) instance with conditions that match the
@@ -94,6 +94,18 @@ public class MappedInterceptorTests {
 		assertFalse(mappedInterceptor.matches("/foo/bar", pathMatcher));
 	}
 
+	@Test
+	public void differentlyConfiguredPathMatchers() {
+		MappedInterceptor mappedInterceptor = new MappedInterceptor(new String[] { "/foo/*" }, this.interceptor);
+		AntPathMatcher caseInsensitiveMatcher = new AntPathMatcher();
+		caseInsensitiveMatcher.setCaseSensitive(false);
+
+		assertFalse(mappedInterceptor.matches("/FOO/bar", pathMatcher));
+		assertTrue(mappedInterceptor.matches("/FOO/bar", caseInsensitiveMatcher));
+		assertFalse(mappedInterceptor.matches("/FOO/bar", new AntPathMatcher()));
+		assertTrue(mappedInterceptor.matches("/foo/bar", new AntPathMatcher() {}));
+	}
+
 	@Test
 	public void preHandle() throws Exception {
 		HandlerInterceptor interceptor = mock(HandlerInterceptor.class);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PathSegmentIndex}.
+ */
+public class PathSegmentIndexTests {
+
+	private final PathSegmentIndex<String> index = new PathSegmentIndex<>();
+
+
+	@Test
+	public void literalAndPatternSegments() {
+		add("users", "/api/users");
+		add("user", "/api/users/{id}");
+		add("orders", "/api/users/{id}/orders");
+		add("products", "/api/products/*");
+		add("static", "/static/**");
+
+		assertEquals(Arrays.asList("users"), this.index.getCandidates("/api/users"));
+		assertEquals(Arrays.asList("user"), this.index.getCandidates("/api/users/42"));
+		assertEquals(Arrays.asList("orders"), this.index.getCandidates("/api/users/42/orders"));
+		assertEquals(Arrays.asList("products"), this.index.getCandidates("/api/products/book"));
+		assertEquals(Arrays.asList("static"), this.index.getCandidates("/static/css/site.css"));
+		assertEquals(Arrays.asList("static"), this.index.getCandidates("/static"));
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/other"));
+	}
+
+	@Test
+	public void candidatesInRegistrationOrder() {
+		add("b", "/x/{b}");
+		add("a", "/x/a", "/x/*");
+		add("c", "/**");
+
+		assertEquals(Arrays.asList("b", "a", "c"), this.index.getCandidates("/x/a"));
+		assertEquals(Arrays.asList("b", "a", "c"), this.index.getCandidates("/x/z"));
+		assertEquals(Arrays.asList("c"), this.index.getCandidates("/y"));
+	}
+
+	@Test
+	public void suffixAndTrailingSlashVariants() {
+		add("foo", "/foo");
+		add("fooBar", "/foo.bar");
+		add("dir", "/dir/");
+		add("any", "/any/*");
+
+		assertEquals(Arrays.asList("foo"), this.index.getCandidates("/foo.json"));
+		assertEquals(Arrays.asList("foo", "fooBar"), this.index.getCandidates("/foo.bar.json"));
+		assertEquals(Arrays.asList("foo"), this.index.getCandidates("/foo/"));
+		assertEquals(Arrays.asList("dir"), this.index.getCandidates("/dir/.json"));
+		assertEquals(Arrays.asList("any"), this.index.getCandidates("/any/"));
+	}
+
+	@Test
+	public void mappingsWithoutIndexablePatterns() {
+		add("none");
+		add("empty", "");
+		add("relative", "foo/*");
+		add("foo", "/foo");
+
+		assertEquals(Arrays.asList("none", "empty", "relative", "foo"), this.index.getCandidates("/foo"));
+		assertEquals(Arrays.asList("none", "empty", "relative"), this.index.getCandidates("foo"));
+	}
+
+	@Test
+	public void remove() {
+		add("foo", "/foo", "/foo/**");
+		add("bar", "/bar");
+
+		this.index.remove("foo");
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/foo"));
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/foo/x"));
+		assertEquals(Arrays.asList("bar"), this.index.getCandidates("/bar"));
+
+		add("bar", "/baz");
+		assertEquals(Collections.emptyList(), this.index.getCandidates("/bar"));
+		assertEquals(Arrays.asList("bar"), this.index.getCandidates("/baz"));
+	}
+
+
+	private void add(String mapping, String... patterns) {
+		this.index.add(mapping, Arrays.asList(patterns));
+	}
+
+}
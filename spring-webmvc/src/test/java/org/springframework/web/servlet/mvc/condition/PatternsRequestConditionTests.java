@@ -23,6 +23,7 @@ import javax.servlet.http.HttpServletRequest;
 import org.junit.Test;
 
 import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
 
 import static org.junit.Assert.*;
 
@@ -175,6 +176,34 @@ public class PatternsRequestConditionTests {
 		assertNull(match);
 	}
 
+	@Test
+	public void matchWithConfiguredPathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		PatternsRequestCondition condition = new PatternsRequestCondition(new String[] {"/foo/{id}"},
+				null, pathMatcher, true, true);
+
+		assertEquals(Arrays.asList("/foo/{id}.*"), condition.getMatchingPatterns("/foo/bar.json"));
+		assertEquals(Arrays.asList("/foo/{id}/"), condition.getMatchingPatterns("/foo/bar/"));
+		assertEquals(Arrays.asList(), condition.getMatchingPatterns("/FOO/bar"));
+
+		pathMatcher.setCaseSensitive(false);
+		assertEquals(Arrays.asList("/foo/{id}"), condition.getMatchingPatterns("/FOO/bar"));
+	}
+
+	@Test
+	public void matchWithPathMatcherSubclass() {
+		AntPathMatcher pathMatcher = new AntPathMatcher() {
+			@Override
+			public boolean match(String pattern, String path) {
+				return super.match(pattern, path.toLowerCase());
+			}
+		};
+		PatternsRequestCondition condition = new PatternsRequestCondition(new String[] {"/foo/*"},
+				null, pathMatcher, false, false);
+
+		assertEquals(Arrays.asList("/foo/*"), condition.getMatchingPatterns("/FOO/bar"));
+	}
+
 	@Test
 	public void matchPatternContainsExtension() {
 		PatternsRequestCondition condition = new PatternsRequestCondition("/foo.jpg");
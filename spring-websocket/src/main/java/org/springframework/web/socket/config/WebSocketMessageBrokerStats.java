@@ -27,6 +27,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.support.OrderedMessageExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.messaging.StompSubProtocolHandler;
@@ -66,6 +67,9 @@ public class WebSocketMessageBrokerStats {
 	@Nullable
 	private ThreadPoolExecutor inboundChannelExecutor;
 
+	@Nullable
+	private OrderedMessageExecutor inboundChannelLanes;
+
 	@Nullable
 	private ThreadPoolExecutor outboundChannelExecutor;
 
@@ -108,6 +112,15 @@ public class WebSocketMessageBrokerStats {
 		this.inboundChannelExecutor = inboundChannelExecutor.getThreadPoolExecutor();
 	}
 
+	/**
+	 * Set the lanes of an inbound channel that preserves the order of messages.
+	 * @since 5.0.5
+	 * @see org.springframework.messaging.simp.config.ChannelRegistration#preserveOrderBy(String)
+	 */
+	public void setInboundChannelLanes(OrderedMessageExecutor inboundChannelLanes) {
+		this.inboundChannelLanes = inboundChannelLanes;
+	}
+
 	public void setOutboundChannelExecutor(ThreadPoolTaskExecutor outboundChannelExecutor) {
 		this.outboundChannelExecutor = outboundChannelExecutor.getThreadPoolExecutor();
 	}
@@ -175,6 +188,15 @@ public class WebSocketMessageBrokerStats {
 		return (this.inboundChannelExecutor != null ? getExecutorStatsInfo(this.inboundChannelExecutor) : "null");
 	}
 
+	/**
+	 * Get stats about the per-lane queues of an inbound channel that preserves
+	 * the order of messages, if configured.
+	 * @since 5.0.5
+	 */
+	public String getClientInboundLaneStatsInfo() {
+		return (this.inboundChannelLanes != null ? this.inboundChannelLanes.getStatsInfo() : "null");
+	}
+
 	/**
 	 * Get stats about the executor processing outgoing messages to WebSocket clients.
 	 */
@@ -199,6 +221,7 @@ public class WebSocketMessageBrokerStats {
 				", stompSubProtocol[" + getStompSubProtocolStatsInfo() + "]" +
 				", stompBrokerRelay[" + getStompBrokerRelayStatsInfo() + "]" +
 				", inboundChannel[" + getClientInboundExecutorStatsInfo() + "]" +
+				(this.inboundChannelLanes != null ? ", inboundLanes[" + getClientInboundLaneStatsInfo() + "]" : "") +
 				", outboundChannel" + getClientOutboundExecutorStatsInfo() + "]" +
 				", sockJsScheduler[" + getSockJsTaskSchedulerStatsInfo() + "]";
 	}
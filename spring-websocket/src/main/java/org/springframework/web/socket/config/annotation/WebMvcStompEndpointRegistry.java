@@ -77,6 +77,9 @@ public class WebMvcStompEndpointRegistry implements StompEndpointRegistry {
 		if (transportRegistration.getSendBufferSizeLimit() != null) {
 			this.subProtocolWebSocketHandler.setSendBufferSizeLimit(transportRegistration.getSendBufferSizeLimit());
 		}
+		if (transportRegistration.getCoalesceBufferedMessages() != null) {
+			this.subProtocolWebSocketHandler.setCoalesceBufferedMessages(transportRegistration.getCoalesceBufferedMessages());
+		}
 
 		this.stompHandler = new StompSubProtocolHandler();
 		if (transportRegistration.getMessageSizeLimit() != null) {
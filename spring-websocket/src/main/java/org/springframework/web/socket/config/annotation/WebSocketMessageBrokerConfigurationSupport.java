@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.web.socket.config.annotation;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.beans.factory.config.CustomScopeConfigurer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -28,6 +30,9 @@ import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
 import org.springframework.messaging.simp.config.AbstractMessageBrokerConfiguration;
 import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
 import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.OrderedMessageExecutor;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
@@ -123,6 +128,13 @@ public abstract class WebSocketMessageBrokerConfigurationSupport extends Abstrac
 			stats.setStompBrokerRelay((StompBrokerRelayMessageHandler) relayBean);
 		}
 		stats.setInboundChannelExecutor(clientInboundChannelExecutor());
+		AbstractSubscribableChannel inboundChannel = clientInboundChannel();
+		if (inboundChannel instanceof ExecutorSubscribableChannel) {
+			Executor executor = ((ExecutorSubscribableChannel) inboundChannel).getExecutor();
+			if (executor instanceof OrderedMessageExecutor) {
+				stats.setInboundChannelLanes((OrderedMessageExecutor) executor);
+			}
+		}
 		stats.setOutboundChannelExecutor(clientOutboundChannelExecutor());
 		stats.setSockJsTaskScheduler(messageBrokerTaskScheduler());
 		return stats;
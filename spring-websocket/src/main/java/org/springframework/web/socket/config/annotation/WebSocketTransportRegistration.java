@@ -40,6 +40,9 @@ public class WebSocketTransportRegistration {
 	@Nullable
 	private Integer sendBufferSizeLimit;
 
+	@Nullable
+	private Boolean coalesceBufferedMessages;
+
 	private final List<WebSocketHandlerDecoratorFactory> decoratorFactories = new ArrayList<>(2);
 
 
@@ -151,6 +154,29 @@ public class WebSocketTransportRegistration {
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Configure whether STOMP frames that got buffered for a slow session
+	 * (see {@link #setSendBufferSizeLimit}) should be written together as a
+	 * single WebSocket message once the session can be written to again.
+	 * <p>This reduces the number of frame writes when broadcasting at high
+	 * rates. STOMP clients decode each frame separately, but make sure the
+	 * client library in use accepts multiple frames per WebSocket message.
+	 * <p>By default this is turned off.
+	 * @since 5.0.5
+	 */
+	public WebSocketTransportRegistration setCoalesceBufferedMessages(boolean coalesceBufferedMessages) {
+		this.coalesceBufferedMessages = coalesceBufferedMessages;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected Boolean getCoalesceBufferedMessages() {
+		return this.coalesceBufferedMessages;
+	}
+
 	/**
 	 * Configure one or more factories to decorate the handler used to process
 	 * WebSocket messages. This may be useful in some advanced use cases, for
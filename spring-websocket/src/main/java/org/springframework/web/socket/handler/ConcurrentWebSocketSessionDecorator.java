@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,7 +26,9 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.lang.Nullable;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -39,6 +41,13 @@ import org.springframework.web.socket.WebSocketSession;
  * At that time, the specified buffer-size limit and send-time limit will be checked
  * and the session will be closed if the limits are exceeded.
  *
+ * <p>Text messages that got buffered that way may optionally be coalesced into a
+ * single WebSocket message once the session is available again, reducing the
+ * number of frame writes under load. This is only applicable to sub-protocols
+ * with self-delimiting frames such as STOMP, where several frames may be
+ * carried in one WebSocket message. A coalesced message does not grow beyond
+ * the {@link #setCoalescedMessageSizeLimit coalesced message size limit}.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0.3
@@ -52,6 +61,10 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final int bufferSizeLimit;
 
+	private final boolean coalesceBufferedMessages;
+
+	private int coalescedMessageSizeLimit;
+
 	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
@@ -74,9 +87,26 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	 * @param bufferSizeLimit the buffer-size limit (number of bytes)
 	 */
 	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit) {
+		this(delegate, sendTimeLimit, bufferSizeLimit, false);
+	}
+
+	/**
+	 * Create a new {@code ConcurrentWebSocketSessionDecorator}.
+	 * @param delegate the {@code WebSocketSession} to delegate to
+	 * @param sendTimeLimit the send-time limit (milliseconds)
+	 * @param bufferSizeLimit the buffer-size limit (number of bytes)
+	 * @param coalesceBufferedMessages whether to join buffered text messages
+	 * into a single WebSocket message when flushing the buffer
+	 * @since 5.0.5
+	 */
+	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit,
+			boolean coalesceBufferedMessages) {
+
 		super(delegate);
 		this.sendTimeLimit = sendTimeLimit;
 		this.bufferSizeLimit = bufferSizeLimit;
+		this.coalesceBufferedMessages = coalesceBufferedMessages;
+		this.coalescedMessageSizeLimit = bufferSizeLimit;
 	}
 
 
@@ -96,6 +126,36 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSizeLimit;
 	}
 
+	/**
+	 * Return whether buffered text messages get coalesced into a single
+	 * WebSocket message when flushing the buffer.
+	 * @since 5.0.5
+	 */
+	public boolean isCoalesceBufferedMessages() {
+		return this.coalesceBufferedMessages;
+	}
+
+	/**
+	 * Set the maximum payload length (number of bytes) of a message coalesced
+	 * from buffered text messages, e.g. to stay within the maximum text message
+	 * size of the client. A buffered message exceeding the limit by itself is
+	 * still sent as-is.
+	 * <p>By default this is the buffer-size limit.
+	 * @since 5.0.5
+	 * @see #isCoalesceBufferedMessages()
+	 */
+	public void setCoalescedMessageSizeLimit(int coalescedMessageSizeLimit) {
+		this.coalescedMessageSizeLimit = coalescedMessageSizeLimit;
+	}
+
+	/**
+	 * Return the maximum payload length (number of bytes) of a coalesced message.
+	 * @since 5.0.5
+	 */
+	public int getCoalescedMessageSizeLimit() {
+		return this.coalescedMessageSizeLimit;
+	}
+
 	/**
 	 * Return the current buffer size (number of bytes).
 	 */
@@ -149,6 +209,9 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 						break;
 					}
 					this.bufferSize.addAndGet(message.getPayloadLength() * -1);
+					if (this.coalesceBufferedMessages && isCoalescable(message) && isCoalescable(this.buffer.peek())) {
+						message = coalesceBufferedMessages((TextMessage) message);
+					}
 					this.sendStartTime = System.currentTimeMillis();
 					getDelegate().sendMessage(message);
 					this.sendStartTime = 0;
@@ -163,6 +226,29 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return false;
 	}
 
+	private static boolean isCoalescable(@Nullable WebSocketMessage<?> message) {
+		return (message instanceof TextMessage && message.isLast());
+	}
+
+	/**
+	 * Join the given text message with the text messages queued right behind it,
+	 * up to a total payload length of the coalesced message size limit.
+	 * Only called by the thread holding the flush lock, i.e. the only consumer.
+	 */
+	private TextMessage coalesceBufferedMessages(TextMessage first) {
+		StringBuilder payload = new StringBuilder(first.getPayload());
+		int payloadLength = first.getPayloadLength();
+		WebSocketMessage<?> next = this.buffer.peek();
+		while (isCoalescable(next) && payloadLength + next.getPayloadLength() <= this.coalescedMessageSizeLimit) {
+			this.buffer.poll();
+			this.bufferSize.addAndGet(next.getPayloadLength() * -1);
+			payloadLength += next.getPayloadLength();
+			payload.append(((TextMessage) next).getPayload());
+			next = this.buffer.peek();
+		}
+		return (payloadLength > first.getPayloadLength() ? new TextMessage(payload) : first);
+	}
+
 	private void checkSessionLimits() {
 		if (!shouldNotSend() && this.closeLock.tryLock()) {
 			try {
@@ -98,6 +98,8 @@ public class SubProtocolWebSocketHandler
 
 	private int sendBufferSizeLimit = 512 * 1024;
 
+	private boolean coalesceBufferedMessages = false;
+
 	private volatile long lastSessionCheckTime = System.currentTimeMillis();
 
 	private final ReentrantLock sessionCheckLock = new ReentrantLock();
@@ -224,6 +226,26 @@ public class SubProtocolWebSocketHandler
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Specify whether text messages buffered for a session while a send is in
+	 * progress should be coalesced into a single WebSocket message.
+	 * <p>Only enable this if all registered sub-protocols have self-delimiting
+	 * frames, as is the case for STOMP. Default is "false".
+	 * @since 5.0.5
+	 * @see ConcurrentWebSocketSessionDecorator
+	 */
+	public void setCoalesceBufferedMessages(boolean coalesceBufferedMessages) {
+		this.coalesceBufferedMessages = coalesceBufferedMessages;
+	}
+
+	/**
+	 * Return whether buffered text messages get coalesced.
+	 * @since 5.0.5
+	 */
+	public boolean isCoalesceBufferedMessages() {
+		return this.coalesceBufferedMessages;
+	}
+
 	/**
 	 * Return a String describing internal state and counters.
 	 */
@@ -384,14 +406,16 @@ public class SubProtocolWebSocketHandler
 	/**
 	 * Decorate the given {@link WebSocketSession}, if desired.
 	 * <p>The default implementation builds a {@link ConcurrentWebSocketSessionDecorator}
-	 * with the configured {@link #getSendTimeLimit() send-time limit} and
-	 * {@link #getSendBufferSizeLimit() buffer-size limit}.
+	 * with the configured {@link #getSendTimeLimit() send-time limit},
+	 * {@link #getSendBufferSizeLimit() buffer-size limit} and
+	 * {@link #isCoalesceBufferedMessages() coalescing} setting.
 	 * @param session the original {@code WebSocketSession}
 	 * @return the decorated {@code WebSocketSession}, or potentially the given session as-is
 	 * @since 4.3.13
 	 */
 	protected WebSocketSession decorateSession(WebSocketSession session) {
-		return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		return new ConcurrentWebSocketSessionDecorator(
+				session, getSendTimeLimit(), getSendBufferSizeLimit(), isCoalesceBufferedMessages());
 	}
 
 	/**
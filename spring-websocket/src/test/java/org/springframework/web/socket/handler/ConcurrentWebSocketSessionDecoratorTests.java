@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -97,6 +97,64 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		assertTrue(blockingSession.isOpen());
 	}
 
+	@Test
+	public void coalesceBufferedMessages() throws IOException {
+
+		ConcurrentSendingSession session = new ConcurrentSendingSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024, true);
+		assertTrue(concurrentSession.isCoalesceBufferedMessages());
+
+		session.sendDuringNextSend(concurrentSession,
+				new TextMessage("MESSAGE\n\nb\0"), new TextMessage("MESSAGE\n\nc\0"));
+		concurrentSession.sendMessage(new TextMessage("MESSAGE\n\na\0"));
+
+		assertEquals(2, session.getSentMessages().size());
+		assertEquals(new TextMessage("MESSAGE\n\na\0"), session.getSentMessages().get(0));
+		assertEquals(new TextMessage("MESSAGE\n\nb\0MESSAGE\n\nc\0"), session.getSentMessages().get(1));
+		assertEquals(0, concurrentSession.getBufferSize());
+	}
+
+	@Test
+	public void coalesceBufferedMessagesUpToSizeLimit() throws IOException {
+
+		ConcurrentSendingSession session = new ConcurrentSendingSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024, true);
+		assertEquals(1024, concurrentSession.getCoalescedMessageSizeLimit());
+		concurrentSession.setCoalescedMessageSizeLimit(24);
+
+		session.sendDuringNextSend(concurrentSession, new TextMessage("MESSAGE\n\nb\0"),
+				new TextMessage("MESSAGE\n\nc\0"), new TextMessage("MESSAGE\n\nd\0"));
+		concurrentSession.sendMessage(new TextMessage("MESSAGE\n\na\0"));
+
+		assertEquals(3, session.getSentMessages().size());
+		assertEquals(new TextMessage("MESSAGE\n\nb\0MESSAGE\n\nc\0"), session.getSentMessages().get(1));
+		assertEquals(new TextMessage("MESSAGE\n\nd\0"), session.getSentMessages().get(2));
+		assertEquals(0, concurrentSession.getBufferSize());
+	}
+
+	@Test
+	public void bufferedMessagesNotCoalescedByDefault() throws IOException {
+
+		ConcurrentSendingSession session = new ConcurrentSendingSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator concurrentSession =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024);
+		assertFalse(concurrentSession.isCoalesceBufferedMessages());
+
+		session.sendDuringNextSend(concurrentSession, new TextMessage("b"), new TextMessage("c"));
+		concurrentSession.sendMessage(new TextMessage("a"));
+
+		assertEquals(3, session.getSentMessages().size());
+		assertEquals(new TextMessage("c"), session.getSentMessages().get(2));
+	}
+
 	@Test
 	public void sendTimeLimitExceeded() throws IOException, InterruptedException {
 
@@ -239,6 +297,50 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 
 
 
+	/**
+	 * Session that sends further messages from another thread while a send is
+	 * in progress, so that they end up in the decorator's buffer.
+	 */
+	private static class ConcurrentSendingSession extends TestWebSocketSession {
+
+		private WebSocketSession sender;
+
+		private WebSocketMessage<?>[] messagesToSend;
+
+
+		public void sendDuringNextSend(WebSocketSession sender, WebSocketMessage<?>... messages) {
+			this.sender = sender;
+			this.messagesToSend = messages;
+		}
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) throws IOException {
+			super.sendMessage(message);
+			WebSocketSession sender = this.sender;
+			if (sender != null) {
+				this.sender = null;
+				Thread thread = new Thread(() -> {
+					try {
+						for (WebSocketMessage<?> messageToSend : this.messagesToSend) {
+							sender.sendMessage(messageToSend);
+						}
+					}
+					catch (IOException ex) {
+						throw new IllegalStateException(ex);
+					}
+				});
+				thread.start();
+				try {
+					thread.join();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+
 	private static class BlockingSession extends TestWebSocketSession {
 
 		private AtomicReference<CountDownLatch> nextMessageLatch = new AtomicReference<>();